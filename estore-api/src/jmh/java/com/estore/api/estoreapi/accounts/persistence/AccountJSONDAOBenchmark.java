@@ -0,0 +1,90 @@
+package com.estore.api.estoreapi.accounts.persistence;
+
+import com.estore.api.estoreapi.accounts.model.Account;
+import com.estore.api.estoreapi.persistence.Fixtures;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Account JSON DAO class on generated user bases of different sizes.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccountJSONDAOBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	int rows;
+
+	ObjectMapper objectMapper = new ObjectMapper();
+	Path file;
+	AccountJSONDAO accountDAO;
+	SnapshotFile saveFile;
+	Account newAccount = new Account(0, "benchmark", "BenchmarkPass");
+	int cursor;
+
+	/**
+	 * Generates a user base of accounts.
+	 *
+	 * @param rows The number of accounts
+	 * @return The accounts, with ids from 0 and usernames "user0", "user1", ...
+	 */
+	static Account[] accounts (int rows) {
+		Random random = new Random(Fixtures.SEED);
+		Account[] accounts = new Account[rows];
+		for (int id = 0; id < rows; ++id) {
+			accounts[id] = new Account(id, "user" + id, Long.toHexString(random.nextLong()));
+		}
+		return accounts;
+	}
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException {
+		file = Fixtures.write("accounts", accounts(rows), objectMapper);
+		accountDAO = load();
+		saveFile = new SnapshotFile(file.resolveSibling("saved.json").toString(), objectMapper);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		Fixtures.delete(file);
+	}
+
+	@Benchmark
+	public Account createAccount () throws IOException {
+		Account account = accountDAO.createAccount(newAccount);
+		accountDAO.deleteAccount(account.getUsername());
+		return account;
+	}
+
+	@Benchmark
+	public Account getAccount () throws IOException {
+		return accountDAO.getAccount("user" + Math.floorMod(cursor++, rows));
+	}
+
+	@Benchmark
+	public Account[] getAccounts () throws IOException {
+		return accountDAO.getAccounts();
+	}
+
+	@Benchmark
+	public AccountJSONDAO load () throws IOException {
+		return new AccountJSONDAO(file.toString(), objectMapper, Fixtures.writeBehind(), StorageFormat.JSON);
+	}
+
+	@Benchmark
+	public void save () throws IOException {
+		saveFile.write(accountDAO.getAccounts());
+	}
+}
@@ -0,0 +1,105 @@
+package com.estore.api.estoreapi.movies.persistence;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+import com.estore.api.estoreapi.persistence.Fixtures;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Movie JSON DAO class on generated catalogues of different sizes.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MovieJSONDAOBenchmark {
+	private static final String[] RATINGS = { "G", "PG", "PG-13", "R" };
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	int rows;
+
+	ObjectMapper objectMapper = new ObjectMapper();
+	Path file;
+	MovieJSONDAO movieDAO;
+	SnapshotFile saveFile;
+	Movie newMovie = new Movie(0, "Benchmark Returns", "posters/new.jpg", 120, "PG", 2023);
+	int cursor;
+
+	/**
+	 * Generates a catalogue of movies.
+	 *
+	 * @param rows The number of movies
+	 * @return The movies, with ids from 0
+	 */
+	static Movie[] movies (int rows) {
+		Random random = new Random(Fixtures.SEED);
+		Movie[] movies = new Movie[rows];
+		for (int id = 0; id < rows; ++id) {
+			movies[id] = new Movie(id, Fixtures.title(random), "posters/" + id + ".jpg", 80 + random.nextInt(100),
+			                       RATINGS[random.nextInt(RATINGS.length)], 1950 + random.nextInt(74));
+		}
+		return movies;
+	}
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException {
+		file = Fixtures.write("movies", movies(rows), objectMapper);
+		movieDAO = load();
+		saveFile = new SnapshotFile(file.resolveSibling("saved.json").toString(), objectMapper);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		Fixtures.delete(file);
+	}
+
+	@Benchmark
+	public Movie createMovie () throws IOException {
+		// Delete the movie again, so the catalogue stays the size being measured
+		Movie movie = movieDAO.createMovie(newMovie);
+		movieDAO.deleteMovie(movie.getId());
+		return movie;
+	}
+
+	@Benchmark
+	public Movie getMovie () {
+		return movieDAO.getMovie(Math.floorMod(cursor++, rows));
+	}
+
+	@Benchmark
+	public Movie[] findMovies () {
+		return movieDAO.findMovies("empire");
+	}
+
+	@Benchmark
+	public Movie[] getMovies () {
+		return movieDAO.getMovies();
+	}
+
+	@Benchmark
+	public Movie[] getMoviesPage () {
+		return movieDAO.getMovies(Math.floorMod(cursor++, rows), 20);
+	}
+
+	@Benchmark
+	public MovieJSONDAO load () throws IOException {
+		return new MovieJSONDAO(file.toString(), objectMapper, Fixtures.writeBehind(), StorageFormat.JSON);
+	}
+
+	@Benchmark
+	public void save () throws IOException {
+		// What the DAO's save does: snapshot the cache and replace the file with it
+		saveFile.write(movieDAO.getMovies());
+	}
+}
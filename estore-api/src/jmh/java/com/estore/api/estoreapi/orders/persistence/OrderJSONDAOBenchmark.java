@@ -0,0 +1,105 @@
+package com.estore.api.estoreapi.orders.persistence;
+
+import com.estore.api.estoreapi.orders.model.Order;
+import com.estore.api.estoreapi.persistence.Fixtures;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Order JSON DAO class on generated order histories of different sizes.<p>
+ * Orders run as configured in application.properties, journaled with a compaction every 1000 records, so creating an
+ * order includes forcing its journal record to disk.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderJSONDAOBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	int rows;
+
+	ObjectMapper objectMapper = new ObjectMapper();
+	Path file;
+	OrderJSONDAO orderDAO;
+	SnapshotFile saveFile;
+	Order newOrder = new Order(0, 1, 1, 2, new int[]{ 1, 0, 0 }, new int[]{ 0, 1, 0 }, new String[]{ "a1", "a2" });
+	int cursor;
+
+	/**
+	 * Generates a history of orders, about ten for each account and each screening.
+	 *
+	 * @param rows The number of orders
+	 * @return The orders, with ids from 0
+	 */
+	static Order[] orders (int rows) {
+		Random random = new Random(Fixtures.SEED);
+		Order[] orders = new Order[rows];
+		for (int id = 0; id < rows; ++id) {
+			int tickets = 1 + random.nextInt(4);
+			String[] seats = new String[tickets];
+			for (int seat = 0; seat < tickets; ++seat) {
+				seats[seat] = (char) ('a' + random.nextInt(4)) + Integer.toString(1 + random.nextInt(5));
+			}
+			orders[id] = new Order(id, random.nextInt(rows / 10 + 1), random.nextInt(rows / 10 + 1), tickets,
+			                       new int[]{ random.nextInt(2), random.nextInt(2), random.nextInt(2) },
+			                       new int[]{ random.nextInt(2), random.nextInt(2), random.nextInt(2) }, seats);
+		}
+		return orders;
+	}
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException {
+		file = Fixtures.write("orders", orders(rows), objectMapper);
+		orderDAO = load();
+		saveFile = new SnapshotFile(file.resolveSibling("saved.json").toString(), objectMapper);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		Fixtures.delete(file);
+	}
+
+	@Benchmark
+	public Order createOrder () throws IOException {
+		Order order = orderDAO.createOrder(newOrder);
+		orderDAO.deleteOrder(order.getId());
+		return order;
+	}
+
+	@Benchmark
+	public Order getOrder () {
+		return orderDAO.getOrder(Math.floorMod(cursor++, rows));
+	}
+
+	@Benchmark
+	public Order[] findAccountOrders () {
+		return orderDAO.findAccountOrders(Math.floorMod(cursor++, rows / 10 + 1));
+	}
+
+	@Benchmark
+	public Order[] getOrders () {
+		return orderDAO.getOrders();
+	}
+
+	@Benchmark
+	public OrderJSONDAO load () throws IOException {
+		return new OrderJSONDAO(file.toString(), objectMapper, true, 1000, Fixtures.writeBehind(), true,
+		                        StorageFormat.JSON);
+	}
+
+	@Benchmark
+	public void save () throws IOException {
+		saveFile.write(orderDAO.getOrders());
+	}
+}
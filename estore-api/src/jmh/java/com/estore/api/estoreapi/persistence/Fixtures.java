@@ -0,0 +1,89 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generated storage files for the persistence benchmarks.<p>
+ * Every benchmark builds its rows from a {@link Random} with the same seed, so a dataset of a given size is the same
+ * on every run and results can be compared between changes.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public final class Fixtures {
+	/** The seed every dataset is generated from. */
+	public static final long SEED = 42;
+
+	/** Words that generated titles are made of. */
+	private static final String[] WORDS = {
+		"star", "wars", "return", "empire", "night", "dark", "knight", "lost", "city", "space", "odyssey", "alien",
+		"matrix", "jaws", "heat", "fargo", "vertigo", "psycho", "casablanca", "godfather", "rocky", "titanic", "up"
+	};
+
+	private Fixtures () {
+	}
+
+	/**
+	 * Writes rows to a storage file in a new temporary directory, the way the DAOs save them.
+	 *
+	 * @param name         The name of the dataset, for the directory name
+	 * @param rows         The array of rows
+	 * @param objectMapper Provides conversion between Java objects and JSON
+	 * @return The storage file
+	 * @throws IOException when the file cannot be written to
+	 */
+	public static Path write (String name, Object rows, ObjectMapper objectMapper) throws IOException {
+		Path file = Files.createTempDirectory("estore-jmh-" + name).resolve("storage.json");
+		new SnapshotFile(file.toString(), objectMapper).write(rows);
+		return file;
+	}
+
+	/**
+	 * Deletes the temporary directory of a storage file and everything in it.
+	 *
+	 * @param file The storage file
+	 * @throws IOException when a file cannot be deleted
+	 */
+	public static void delete (Path file) throws IOException {
+		try (Stream<Path> paths = Files.walk(file.getParent())) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * Creates a persister that only counts changes, since its background thread is never started, so a benchmark
+	 * measures what a request thread waits for under write-behind saving.
+	 *
+	 * @return The persister
+	 */
+	public static WriteBehindPersister writeBehind () {
+		return new WriteBehindPersister(60000, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Generates a title of two to four words.
+	 *
+	 * @param random The source of the words
+	 * @return The title
+	 */
+	public static String title (Random random) {
+		StringBuilder title = new StringBuilder();
+		int words = 2 + random.nextInt(3);
+		for (int i = 0; i < words; ++i) {
+			if (i > 0) {
+				title.append(' ');
+			}
+			String word = WORDS[random.nextInt(WORDS.length)];
+			title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+		}
+		return title.toString();
+	}
+}
@@ -0,0 +1,121 @@
+package com.estore.api.estoreapi.screenings.persistence;
+
+import com.estore.api.estoreapi.persistence.Fixtures;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.screenings.model.Screening;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Screening JSON DAO class on generated schedules of different sizes.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScreeningJSONDAOBenchmark {
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+	private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 1);
+	private static final String[] SEATS = { "a1", "a2" };
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	int rows;
+
+	ObjectMapper objectMapper = new ObjectMapper();
+	Path file;
+	ScreeningJSONDAO screeningDAO;
+	SnapshotFile saveFile;
+	Screening newScreening = new Screening(0, 0, 20, "01/01/2023", "18:00", new boolean[4][5]);
+	int cursor;
+
+	/**
+	 * Generates a schedule of screenings, about ten for each movie, with a few seats taken in each.
+	 *
+	 * @param rows The number of screenings
+	 * @return The screenings, with ids from 0
+	 */
+	static Screening[] screenings (int rows) {
+		Random random = new Random(Fixtures.SEED);
+		Screening[] screenings = new Screening[rows];
+		for (int id = 0; id < rows; ++id) {
+			boolean[][] seats = new boolean[4][5];
+			int taken = 0;
+			for (int row = 1; row < seats.length; ++row) {
+				for (int seat = 0; seat < seats[row].length; ++seat) {
+					seats[row][seat] = random.nextInt(4) == 0;
+					taken += seats[row][seat] ? 1 : 0;
+				}
+			}
+			String date = FIRST_DAY.plusDays(random.nextInt(365)).format(DATE_FORMAT);
+			String time = (10 + random.nextInt(12)) + ":00";
+			screenings[id] = new Screening(id, random.nextInt(rows / 10 + 1), Screening.TOTAL_TICKETS - taken, date,
+			                               time, seats);
+		}
+		return screenings;
+	}
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException {
+		file = Fixtures.write("screenings", screenings(rows), objectMapper);
+		screeningDAO = load();
+		saveFile = new SnapshotFile(file.resolveSibling("saved.json").toString(), objectMapper);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		Fixtures.delete(file);
+	}
+
+	@Benchmark
+	public Screening createScreening () throws IOException {
+		Screening screening = screeningDAO.createScreening(newScreening);
+		screeningDAO.deleteScreening(screening.getId());
+		return screening;
+	}
+
+	@Benchmark
+	public Screening getScreening () {
+		return screeningDAO.getScreening(Math.floorMod(cursor++, rows));
+	}
+
+	@Benchmark
+	public Screening[] findScreeningsForMovie () {
+		return screeningDAO.findScreeningsForMovie(Math.floorMod(cursor++, rows / 10 + 1));
+	}
+
+	@Benchmark
+	public Screening[] getScreenings () {
+		return screeningDAO.getScreenings();
+	}
+
+	@Benchmark
+	public boolean reserveSeats () throws IOException {
+		// The first row is never taken in the fixture, and is given back so the next call can take it again
+		int id = Math.floorMod(cursor++, rows);
+		boolean reserved = screeningDAO.reserveSeats(id, SEATS);
+		screeningDAO.releaseSeats(id, SEATS);
+		return reserved;
+	}
+
+	@Benchmark
+	public ScreeningJSONDAO load () throws IOException {
+		return new ScreeningJSONDAO(file.toString(), objectMapper, Fixtures.writeBehind(), false, StorageFormat.JSON);
+	}
+
+	@Benchmark
+	public void save () throws IOException {
+		saveFile.write(screeningDAO.getScreenings());
+	}
+}
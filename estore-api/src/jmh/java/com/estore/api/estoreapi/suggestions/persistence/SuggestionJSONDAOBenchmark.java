@@ -0,0 +1,100 @@
+package com.estore.api.estoreapi.suggestions.persistence;
+
+import com.estore.api.estoreapi.persistence.Fixtures;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.suggestions.model.Suggestion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Suggestion JSON DAO class on generated suggestion boxes of different sizes.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SuggestionJSONDAOBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	int rows;
+
+	ObjectMapper objectMapper = new ObjectMapper();
+	Path file;
+	SuggestionJSONDAO suggestionDAO;
+	SnapshotFile saveFile;
+	Suggestion newSuggestion = new Suggestion(0, "Benchmark Returns", 0);
+	int cursor;
+
+	/**
+	 * Generates a suggestion box, with votes spread unevenly like a popularity ranking.
+	 *
+	 * @param rows The number of suggestions
+	 * @return The suggestions, with ids from 0
+	 */
+	static Suggestion[] suggestions (int rows) {
+		Random random = new Random(Fixtures.SEED);
+		Suggestion[] suggestions = new Suggestion[rows];
+		for (int id = 0; id < rows; ++id) {
+			suggestions[id] = new Suggestion(id, Fixtures.title(random), (int) (1000 * Math.pow(random.nextDouble(), 4)));
+		}
+		return suggestions;
+	}
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException {
+		file = Fixtures.write("suggestions", suggestions(rows), objectMapper);
+		suggestionDAO = load();
+		saveFile = new SnapshotFile(file.resolveSibling("saved.json").toString(), objectMapper);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		Fixtures.delete(file);
+	}
+
+	@Benchmark
+	public Suggestion createSuggestion () throws IOException {
+		Suggestion suggestion = suggestionDAO.createSuggestion(newSuggestion);
+		suggestionDAO.deleteSuggestion(suggestion.getId());
+		return suggestion;
+	}
+
+	@Benchmark
+	public Suggestion getSuggestion () {
+		return suggestionDAO.getSuggestion(Math.floorMod(cursor++, rows));
+	}
+
+	@Benchmark
+	public Suggestion voteSuggestion () {
+		return suggestionDAO.voteSuggestion(Math.floorMod(cursor++, rows));
+	}
+
+	@Benchmark
+	public Suggestion[] getTopSuggestions () {
+		return suggestionDAO.getTopSuggestions(0, 10);
+	}
+
+	@Benchmark
+	public Suggestion[] getSuggestions () {
+		return suggestionDAO.getSuggestions();
+	}
+
+	@Benchmark
+	public SuggestionJSONDAO load () throws IOException {
+		return new SuggestionJSONDAO(file.toString(), objectMapper, Fixtures.writeBehind(), StorageFormat.JSON);
+	}
+
+	@Benchmark
+	public void save () throws IOException {
+		saveFile.write(suggestionDAO.getSuggestions());
+	}
+}
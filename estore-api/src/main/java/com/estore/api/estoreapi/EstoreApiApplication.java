@@ -2,8 +2,10 @@ package com.estore.api.estoreapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EstoreApiApplication {
 	public static void main (String[] args) {
 		SpringApplication.run(EstoreApiApplication.class, args);
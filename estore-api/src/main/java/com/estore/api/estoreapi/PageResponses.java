@@ -0,0 +1,55 @@
+package com.estore.api.estoreapi;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Answers the paged GET requests of the controllers, so every one of them checks its limit the same way.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public final class PageResponses {
+	/**
+	 * Retrieves a page from a Data Access Object.
+	 *
+	 * @param <T> The type of the objects on the page
+	 */
+	@FunctionalInterface
+	public interface Page<T> {
+		/**
+		 * @return The objects on the page, may be empty
+		 * @throws IOException if an issue with underlying storage
+		 */
+		T[] get () throws IOException;
+	}
+
+	private PageResponses () {
+	}
+
+	/**
+	 * Responds to a request for a page.
+	 *
+	 * @param limit The greatest number of objects requested
+	 * @param page  Retrieves the page, only called once the limit is known to be valid
+	 * @param log   The controller's logger, to log any internal server errors to
+	 * @param <T>   The type of the objects on the page
+	 * @return ResponseEntity with array of objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	public static <T> ResponseEntity<T[]> of (int limit, Page<T> page, Logger log) {
+		if (limit <= 0) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		try {
+			return new ResponseEntity<>(page.get(), HttpStatus.OK);
+		} catch (IOException e) {
+			log.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
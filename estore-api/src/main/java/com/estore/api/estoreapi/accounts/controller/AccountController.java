@@ -1,7 +1,9 @@
 package com.estore.api.estoreapi.accounts.controller;
 
+import com.estore.api.estoreapi.PageResponses;
 import com.estore.api.estoreapi.accounts.model.Account;
 import com.estore.api.estoreapi.accounts.persistence.AccountDAO;
+import com.estore.api.estoreapi.logging.AccessLog;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,8 +20,10 @@ import java.util.logging.Logger;
 @RestController
 @RequestMapping("accounts")
 public class AccountController {
-	/* Logger is used to log to command line the HTTP request performed, or any internal server errors encountered. */
+	/* Logger is used to log to command line any internal server errors encountered. */
 	private static final Logger LOG = Logger.getLogger(AccountController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(AccountController.class);
 
 	/** The Data Access Object for Account */
 	private final AccountDAO accountDao;
@@ -43,7 +47,7 @@ public class AccountController {
 	 */
 	@PostMapping("")
 	public ResponseEntity<Account> createAccount (@RequestBody Account account) {
-		LOG.info("POST /accounts/" + account);
+		ACCESS_LOG.log("POST /accounts/{}", account);
 
 		try {
 			Account newAccount = accountDao.createAccount(account);
@@ -68,7 +72,7 @@ public class AccountController {
 	 */
 	@PutMapping("")
 	public ResponseEntity<Account> updateAccount (@RequestBody Account account) {
-		LOG.info("PUT /accounts/" + account);
+		ACCESS_LOG.log("PUT /accounts/{}", account);
 		try {
 			Account updatedAccount = accountDao.updateAccount(account);
 			if (updatedAccount != null) {
@@ -92,7 +96,7 @@ public class AccountController {
 	 */
 	@DeleteMapping("/{username}")
 	public ResponseEntity<Account> deleteAccount (@PathVariable String username) {
-		LOG.info("DELETE /accounts/" + username);
+		ACCESS_LOG.log("DELETE /accounts/{}", username);
 		try {
 			if (accountDao.deleteAccount(username)) {
 				return new ResponseEntity<>(HttpStatus.OK);
@@ -115,7 +119,7 @@ public class AccountController {
 	 */
 	@GetMapping("/{username}")
 	public ResponseEntity<Account> getAccount (@PathVariable String username) {
-		LOG.info("GET /accounts/" + username);
+		ACCESS_LOG.log("GET /accounts/{}", username);
 		try {
 			// Try to get the account based on the id entered by the user
 			Account account = accountDao.getAccount(username);
@@ -138,7 +142,7 @@ public class AccountController {
 	 */
 	@GetMapping("")
 	public ResponseEntity<Account[]> getAccounts () {
-		LOG.info("GET /accounts/");
+		ACCESS_LOG.log("GET /accounts/");
 		try {
 			// Try and get a list of all the accounts from the system
 			Account[] accounts = accountDao.getAccounts();
@@ -152,4 +156,21 @@ public class AccountController {
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/**
+	 * Responds to the GET request for a page of {@linkplain Account accounts} in username order.<br>
+	 * To get the next page, pass the username of the last {@link Account account} of this page as after. A page with fewer
+	 * than limit accounts is the last.
+	 *
+	 * @param after The username of the last {@link Account account} of the previous page, left out for the first page
+	 * @param limit The greatest number of {@link Account accounts} to return
+	 * @return ResponseEntity with array of {@link Account account} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "limit")
+	public ResponseEntity<Account[]> getAccountsPage (@RequestParam(required = false) String after, @RequestParam int limit) {
+		ACCESS_LOG.log("GET /accounts?after={}&limit={}", after, limit);
+		return PageResponses.of(limit, () -> accountDao.getAccounts(after, limit), LOG);
+	}
 }
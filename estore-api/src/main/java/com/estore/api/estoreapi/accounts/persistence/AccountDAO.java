@@ -57,4 +57,15 @@ public interface AccountDAO {
 	 * @throws IOException if an issue with underlying storage
 	 */
 	Account[] getAccounts () throws IOException;
+
+	/**
+	 * Retrieves a page of {@linkplain Account accounts} in username order, to list them a page at a time.<br>
+	 * The next page starts after the last username of this page.
+	 *
+	 * @param after The username of the last {@link Account account} of the previous page, or null for the first page
+	 * @param limit The greatest number of {@link Account accounts} to return
+	 * @return An array of up to limit {@link Account account} objects with usernames after the given one, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Account[] getAccounts (String after, int limit) throws IOException;
 }
@@ -1,15 +1,21 @@
 package com.estore.api.estoreapi.accounts.persistence;
 
 import com.estore.api.estoreapi.accounts.model.Account;
+import com.estore.api.estoreapi.persistence.Paging;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Implements the functionality for JSON file-based persistence for Accounts.<p>
@@ -20,27 +26,50 @@ import java.util.TreeMap;
  */
 @Component
 public class AccountJSONDAO implements AccountDAO {
-	/** A local cache of Account objects, to avoid reading from file each time. */
-	Map<String, Account> accounts;
+	/**
+	 * A local cache of Account objects, to avoid reading from file each time.<br>
+	 * Reads go straight to the concurrent map, so they never wait on a write. Writes lock the map so that they are
+	 * applied one at a time, and the {@link #store} saves them to the file.
+	 */
+	NavigableMap<String, Account> accounts;
+
+	/** How long changes wait for the lock on the cached accounts. */
+	private static final Timer LOCK_WAIT = Metrics.timer("dao.lock.wait", "lock", "accounts");
 
 	/** The next id to assign to a new account. */
 	private static int nextId;
 
-	/** Name of the file to read and write to. */
-	private final String filename;
-	/** Provides conversion between Java Account and JSON Account objects. */
-	private final ObjectMapper objectMapper;
+	/** The file to read and write to, holding the accounts in the storage format and replaced whole on every save. */
+	private final SnapshotFile file;
+	/** Saves the cached accounts to the file, behind the changes made to them. */
+	private final WriteBehindPersister.Store store;
+
+	/**
+	 * Creates a Data Access Object for JSON-based Accounts, which saves every change before returning.
+	 *
+	 * @param filename     Filename to read from and write to
+	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @throws IOException when file cannot be accessed or read from
+	 */
+	public AccountJSONDAO (String filename, ObjectMapper objectMapper) throws IOException {
+		this(filename, objectMapper, new WriteBehindPersister(), StorageFormat.JSON);
+	}
 
 	/**
 	 * Creates a Data Access Object for JSON-based Accounts.
 	 *
 	 * @param filename     Filename to read from and write to
 	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @param persister    Saves the accounts to the file behind the changes made to them
+	 * @param format       The format to keep the file in
 	 * @throws IOException when file cannot be accessed or read from
 	 */
-	public AccountJSONDAO (@Value("${accounts.file}") String filename, ObjectMapper objectMapper) throws IOException {
-		this.filename = filename;
-		this.objectMapper = objectMapper;
+	@Autowired
+	public AccountJSONDAO (@Value("${accounts.file}") String filename, ObjectMapper objectMapper,
+	                       WriteBehindPersister persister, @Value("${persistence.format:json}") StorageFormat format)
+		throws IOException {
+		this.file = new SnapshotFile(filename, objectMapper, format);
+		this.store = persister.register("accounts", this::save, false);
 		load();  // load the accounts from the file
 	}
 
@@ -56,7 +85,7 @@ public class AccountJSONDAO implements AccountDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Account accounts} from the tree map.
+	 * Generates an array of {@linkplain Account accounts} from the map.
 	 *
 	 * @return The array of {@link Account accounts}, may be empty
 	 */
@@ -76,9 +105,9 @@ public class AccountJSONDAO implements AccountDAO {
 	private boolean save () throws IOException {
 		Account[] accountArray = getAccountsArray();
 
-		// Serializes the Java Objects to JSON objects into the file,
-		// writeValue will throw an IOException if there is an issue with or reading from the file
-		objectMapper.writeValue(new File(filename), accountArray);
+		// Serializes the Java Objects to JSON objects into a new snapshot of the file,
+		// write will throw an IOException if there is an issue with writing the file
+		file.write(accountArray);
 		return true;
 	}
 
@@ -90,14 +119,14 @@ public class AccountJSONDAO implements AccountDAO {
 	 * @throws IOException when file cannot be accessed or read from
 	 */
 	private boolean load () throws IOException {
-		accounts = new TreeMap<>();
+		accounts = new ConcurrentSkipListMap<>();
 		nextId = 0;
 
 		// Deserializes the JSON objects from the file into an array of accounts,
-		// readValue will throw an IOException if there's an issue with or reading from the file
-		Account[] accountArray = objectMapper.readValue(new File(filename), Account[].class);
+		// read will throw an IOException if neither the file nor its backup can be read
+		Account[] accountArray = file.read(Account[].class);
 
-		// Add each account to the tree map and keep track of the greatest id
+		// Add each account to the map and keep track of the greatest id
 		for (Account account : accountArray) {
 			accounts.put(account.getUsername(), account);
 			if (account.getId() > nextId) {
@@ -114,11 +143,13 @@ public class AccountJSONDAO implements AccountDAO {
 	 */
 	@Override
 	public Account createAccount (Account account) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (accounts) {
+			waiting.stop(LOCK_WAIT);
 			// We create a new account object because the id field is immutable, and we need to assign the next unique id
 			Account newAccount = new Account(nextId(), account.getUsername(), account.getPassword());
 			accounts.put(newAccount.getUsername(), newAccount);
-			save(); // may throw an IOException
+			store.changed(); // may throw an IOException
 			return newAccount;
 		}
 	}
@@ -128,13 +159,15 @@ public class AccountJSONDAO implements AccountDAO {
 	 */
 	@Override
 	public Account updateAccount (Account account) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (accounts) {
+			waiting.stop(LOCK_WAIT);
 			if (!accounts.containsKey(account.getUsername())) {
 				return null;  // account does not exist
 			}
 
 			accounts.put(account.getUsername(), account);
-			save(); // may throw an IOException
+			store.changed(); // may throw an IOException
 			return account;
 		}
 	}
@@ -144,10 +177,13 @@ public class AccountJSONDAO implements AccountDAO {
 	 */
 	@Override
 	public boolean deleteAccount (String username) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (accounts) {
+			waiting.stop(LOCK_WAIT);
 			if (accounts.containsKey(username)) {
 				accounts.remove(username);
-				return save();
+				store.changed(); // may throw an IOException
+				return true;
 			} else {
 				return false;
 			}
@@ -159,13 +195,7 @@ public class AccountJSONDAO implements AccountDAO {
 	 */
 	@Override
 	public Account getAccount (String username) {
-		synchronized (accounts) {
-			if (accounts.containsKey(username)) {
-				return accounts.get(username);
-			} else {
-				return null;
-			}
-		}
+		return accounts.get(username);
 	}
 
 	/**
@@ -173,8 +203,14 @@ public class AccountJSONDAO implements AccountDAO {
 	 */
 	@Override
 	public Account[] getAccounts () {
-		synchronized (accounts) {
-			return getAccountsArray();
-		}
+		return getAccountsArray();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Account[] getAccounts (String after, int limit) {
+		return Paging.page(accounts, after, limit, Account[]::new);
 	}
 }
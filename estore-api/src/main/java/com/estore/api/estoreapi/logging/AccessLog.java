@@ -0,0 +1,158 @@
+package com.estore.api.estoreapi.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs the requests handled by a controller, off the request thread.<p>
+ * An entry is a message template, with a {@code {}} for each parameter, and the parameters themselves. The request
+ * thread turns the parameters into text and places the entry in a shared ring buffer; a background writer fills
+ * them into the template and writes the entry to the {@link Logger} named after the controller.<p>
+ * Entries can be sampled, so that only a fraction of requests are logged under heavy load. When the buffer is full,
+ * entries are dropped rather than making the request wait, and the number dropped is logged instead.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public class AccessLog {
+	/** The number of entries the shared buffer holds. */
+	private static final int CAPACITY = 8192;
+	/** The buffer shared by the access logs of every controller. */
+	private static final AccessLogRing RING = new AccessLogRing(CAPACITY);
+
+	/** The fraction of requests logged, from 0 to 1. */
+	private static volatile double sampleRate = 1;
+
+	/** The logger entries are written to. */
+	private final Logger logger;
+
+	/**
+	 * Create an access log.
+	 *
+	 * @param logger The logger to write entries to
+	 */
+	private AccessLog (Logger logger) {
+		this.logger = logger;
+	}
+
+	/**
+	 * Finds the access log of a class, starting the background writer if it is not running yet.
+	 *
+	 * @param type The class logging the requests
+	 * @return An access log writing to the logger named after the class
+	 */
+	public static AccessLog getLog (Class<?> type) {
+		RING.start();
+		return new AccessLog(Logger.getLogger(type.getName()));
+	}
+
+	/**
+	 * Sets the fraction of requests logged.
+	 *
+	 * @param rate The fraction, 1 to log every request and 0 to log none
+	 */
+	public static void setSampleRate (double rate) {
+		sampleRate = Math.min(Math.max(rate, 0), 1);
+	}
+
+	/**
+	 * Waits until every entry logged so far has been written.
+	 *
+	 * @param timeout How long to wait at most, in milliseconds
+	 * @return False if the entries were not all written in time
+	 */
+	public static boolean flush (long timeout) {
+		return RING.flush(timeout);
+	}
+
+	/**
+	 * Starts the background writer, if it is not running.
+	 */
+	public static void start () {
+		RING.start();
+	}
+
+	/**
+	 * Stops the background writer once every entry logged so far has been written.
+	 *
+	 * @param timeout How long to wait at most, in milliseconds
+	 * @return False if the entries were not all written in time
+	 * @throws InterruptedException if interrupted while waiting for the writer
+	 */
+	public static boolean stop (long timeout) throws InterruptedException {
+		return RING.stop(timeout);
+	}
+
+	/**
+	 * @return True if this request should be logged
+	 */
+	private boolean sampled () {
+		double rate = sampleRate;
+		return (rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) && logger.isLoggable(Level.INFO);
+	}
+
+	/**
+	 * Logs a request.
+	 *
+	 * @param message The message
+	 */
+	public void log (String message) {
+		if (sampled()) {
+			RING.offer(logger, message, 0, null, null, null, null);
+		}
+	}
+
+	/**
+	 * Logs a request.
+	 *
+	 * @param template The message, with a {@code {}} for the parameter
+	 * @param first    The parameter
+	 */
+	public void log (String template, Object first) {
+		if (sampled()) {
+			RING.offer(logger, template, 1, first, null, null, null);
+		}
+	}
+
+	/**
+	 * Logs a request.
+	 *
+	 * @param template The message, with a {@code {}} for each parameter
+	 * @param first    The first parameter
+	 * @param second   The second parameter
+	 */
+	public void log (String template, Object first, Object second) {
+		if (sampled()) {
+			RING.offer(logger, template, 2, first, second, null, null);
+		}
+	}
+
+	/**
+	 * Logs a request.
+	 *
+	 * @param template The message, with a {@code {}} for each parameter
+	 * @param first    The first parameter
+	 * @param second   The second parameter
+	 * @param third    The third parameter
+	 */
+	public void log (String template, Object first, Object second, Object third) {
+		if (sampled()) {
+			RING.offer(logger, template, 3, first, second, third, null);
+		}
+	}
+
+	/**
+	 * Logs a request with more than three parameters.
+	 *
+	 * @param template   The message, with a {@code {}} for each parameter
+	 * @param first      The first parameter
+	 * @param second     The second parameter
+	 * @param third      The third parameter
+	 * @param parameters The rest of the parameters
+	 */
+	public void log (String template, Object first, Object second, Object third, Object... parameters) {
+		if (sampled()) {
+			RING.offer(logger, template, 3 + parameters.length, first, second, third, parameters);
+		}
+	}
+}
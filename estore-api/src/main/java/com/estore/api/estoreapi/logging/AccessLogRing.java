@@ -0,0 +1,324 @@
+package com.estore.api.estoreapi.logging;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * A bounded ring of access log entries, filled by request threads and emptied by a single background writer.<p>
+ * The slots are allocated once and reused. A request thread turns the parameters of its entry into text, so later
+ * changes to them do not show in the log, then claims a slot with a compare-and-set on the tail and stores the text
+ * in it. It never waits: when the ring is full the entry is dropped and counted. The writer fills the text into the
+ * template and passes the entry to its {@link Logger}, reporting how many entries were dropped since it last did.<p>
+ * {@link #stop(long) Stopping} the writer lets it write every entry added so far first.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+class AccessLogRing {
+	/** How long the writer sleeps when the ring is empty, unless woken by a new entry. */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/** The entries, the slot of position p is at p & mask. */
+	private final Slot[] slots;
+	/** The number of slots less one, the capacity being a power of two. */
+	private final int mask;
+	/** The position of the next slot to claim by a request thread. */
+	private final AtomicLong tail = new AtomicLong();
+	/** The position of the next slot to write, only changed by the writer. */
+	private volatile long head;
+	/** Entries dropped because the ring was full, not yet reported. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** The writer thread, null until started and again once stopped. */
+	private volatile Thread writer;
+	/** Whether the writer is sleeping for lack of entries, so a request thread should wake it. */
+	private volatile boolean idle;
+
+	/**
+	 * Create a ring of access log entries. The writer is not started until {@link #start()} is called.
+	 *
+	 * @param capacity The number of entries the ring holds, rounded up to a power of two
+	 */
+	AccessLogRing (int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.slots = new Slot[size];
+		this.mask = size - 1;
+		for (int i = 0; i < size; ++i) {
+			slots[i] = new Slot(i);
+		}
+	}
+
+	/**
+	 * Starts the writer as a daemon thread, so it never keeps the application running. Does nothing if it is running.
+	 */
+	synchronized void start () {
+		if (writer == null) {
+			Thread thread = new Thread(this::write, "access-log");
+			thread.setDaemon(true);
+			writer = thread;
+			thread.start();
+		}
+	}
+
+	/**
+	 * Stops the writer, once it has written every entry added so far. Entries added afterwards wait in the ring until
+	 * the writer is started again.
+	 *
+	 * @param timeout How long to wait for the writer at most, in milliseconds
+	 * @return False if the writer was still writing when the time ran out
+	 * @throws InterruptedException if interrupted while waiting for the writer
+	 */
+	synchronized boolean stop (long timeout) throws InterruptedException {
+		Thread thread = writer;
+		if (thread == null) {
+			return true;
+		}
+		writer = null;  // the writer checks this after every batch, and drains the ring when it finds it changed
+		LockSupport.unpark(thread);
+		thread.join(timeout);
+		return !thread.isAlive();
+	}
+
+	/**
+	 * Adds an entry, without waiting.
+	 *
+	 * @param logger   The logger to write the entry to
+	 * @param template The message, with a {@code {}} for each parameter
+	 * @param count    The number of parameters
+	 * @param first    The first parameter
+	 * @param second   The second parameter
+	 * @param third    The third parameter
+	 * @param rest     Any further parameters, null if there are none
+	 * @return False if the ring was full and the entry was dropped
+	 */
+	boolean offer (Logger logger, String template, int count, Object first, Object second, Object third, Object[] rest) {
+		// Turned into text before claiming a slot, so a slow toString never holds up the writer
+		String firstText = count > 0 ? Slot.text(first) : null;
+		String secondText = count > 1 ? Slot.text(second) : null;
+		String thirdText = count > 2 ? Slot.text(third) : null;
+		String[] restText = null;
+		if (count > 3) {
+			restText = new String[count - 3];
+			for (int i = 0; i < restText.length; ++i) {
+				restText[i] = Slot.text(rest[i]);
+			}
+		}
+
+		long position = tail.get();
+		Slot slot;
+		while (true) {
+			slot = slots[(int) position & mask];
+			long lag = slot.sequence - position;
+			if (lag == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+				position = tail.get();
+			} else if (lag < 0) {
+				dropped.incrementAndGet();  // the writer has not emptied this slot yet
+				return false;
+			} else {
+				position = tail.get();  // another thread claimed the slot first
+			}
+		}
+
+		slot.millis = System.currentTimeMillis();
+		slot.threadId = Thread.currentThread().getId();
+		slot.logger = logger;
+		slot.template = template;
+		slot.count = count;
+		slot.first = firstText;
+		slot.second = secondText;
+		slot.third = thirdText;
+		slot.rest = restText;
+		slot.sequence = position + 1;  // publishes the entry to the writer
+
+		if (idle) {
+			Thread thread = writer;
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until every entry added so far has been written.
+	 *
+	 * @param timeout How long to wait at most, in milliseconds
+	 * @return False if the entries were not all written in time
+	 */
+	boolean flush (long timeout) {
+		long target = tail.get();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		while (head < target) {
+			if (writer == null || System.nanoTime() > deadline) {
+				return false;
+			}
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		return true;
+	}
+
+	/**
+	 * Writes entries as they are added, until stopped, and then writes the entries left in the ring.
+	 */
+	private void write () {
+		Thread self = Thread.currentThread();
+		while (writer == self) {
+			if (!writeAvailable()) {
+				idle = true;
+				if (!available() && writer == self) {  // an entry added just before idle was set would not wake the writer
+					LockSupport.parkNanos(this, IDLE_NANOS);
+				}
+				idle = false;
+			}
+		}
+		writeAvailable();
+	}
+
+	/**
+	 * @return True if the next entry has been published
+	 */
+	private boolean available () {
+		long position = head;
+		return slots[(int) position & mask].sequence == position + 1;
+	}
+
+	/**
+	 * Writes the published entries, and reports any dropped entries.
+	 *
+	 * @return False if there was nothing to write
+	 */
+	private boolean writeAvailable () {
+		boolean wrote = false;
+		while (available()) {
+			long position = head;
+			Slot slot = slots[(int) position & mask];
+			try {
+				LogRecord record = new LogRecord(Level.INFO, slot.format());
+				record.setLoggerName(slot.logger.getName());
+				record.setSourceClassName(slot.logger.getName());
+				record.setSourceMethodName(null);
+				record.setMillis(slot.millis);
+				record.setThreadID((int) slot.threadId);
+				slot.logger.log(record);
+			} catch (RuntimeException e) {
+				// A handler that fails must not stop the writer
+				slot.logger.log(Level.WARNING, "Could not write an access log entry: " + e);
+			}
+			slot.clear();
+			slot.sequence = position + slots.length;  // hands the slot back to the request threads
+			head = position + 1;
+			wrote = true;
+		}
+
+		long lost = dropped.getAndSet(0);
+		if (lost > 0) {
+			Logger.getLogger(AccessLog.class.getName())
+			      .warning("Dropped " + lost + " access log entries, the buffer of " + slots.length + " was full");
+		}
+		return wrote;
+	}
+
+	/**
+	 * A reusable entry of the ring. Its fields are written by the request thread that claimed it, and read by the
+	 * writer once the sequence shows it was published.
+	 */
+	private static class Slot {
+		/** The position this slot can be claimed at, or one past the position of the entry it holds. */
+		volatile long sequence;
+		/** The time the entry was added, in milliseconds since the epoch. */
+		long millis;
+		/** The id of the request thread that added the entry. */
+		long threadId;
+		/** The logger to write the entry to. */
+		Logger logger;
+		/** The message, with a {@code {}} for each parameter. */
+		String template;
+		/** The number of parameters. */
+		int count;
+		/** The first parameter as text, null if there is none. */
+		String first;
+		/** The second parameter as text, null if there is none. */
+		String second;
+		/** The third parameter as text, null if there is none. */
+		String third;
+		/** Any further parameters as text, null if there are none. */
+		String[] rest;
+
+		/**
+		 * Create an empty slot.
+		 *
+		 * @param sequence The position the slot can first be claimed at
+		 */
+		Slot (long sequence) {
+			this.sequence = sequence;
+		}
+
+		/**
+		 * @return The template with each {@code {}} replaced by the next parameter, while there are parameters left
+		 */
+		String format () {
+			StringBuilder message = new StringBuilder(template.length() + 32);
+			int from = 0;
+			int parameter = 0;
+			int at;
+			while (parameter < count && (at = template.indexOf("{}", from)) >= 0) {
+				message.append(template, from, at);
+				message.append(parameter(parameter++));
+				from = at + 2;
+			}
+			return message.append(template, from, template.length()).toString();
+		}
+
+		/**
+		 * @param index The index of a parameter
+		 * @return The parameter as text
+		 */
+		private String parameter (int index) {
+			switch (index) {
+				case 0:
+					return first;
+				case 1:
+					return second;
+				case 2:
+					return third;
+				default:
+					return rest[index - 3];
+			}
+		}
+
+		/**
+		 * Turns a parameter into the text logged for it. A parameter whose toString fails is logged as the failure,
+		 * rather than failing the request that logged it.
+		 *
+		 * @param value The parameter
+		 * @return The text of the parameter, with the elements of an array listed
+		 */
+		static String text (Object value) {
+			try {
+				return value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value);
+			} catch (RuntimeException e) {
+				return "<" + e + ">";
+			}
+		}
+
+		/**
+		 * Drops the references held by the slot, once its entry is written.
+		 */
+		void clear () {
+			logger = null;
+			template = null;
+			first = null;
+			second = null;
+			third = null;
+			rest = null;
+		}
+	}
+}
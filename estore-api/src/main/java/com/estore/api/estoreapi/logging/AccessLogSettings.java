@@ -0,0 +1,38 @@
+package com.estore.api.estoreapi.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Applies the access log settings from the application properties, and stops the access log writer, once it has
+ * written out the access log, when the application stops.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Component
+public class AccessLogSettings {
+	/** How long to wait for the access log to be written out when the application stops, in milliseconds. */
+	private static final long STOP_TIMEOUT = 5000;
+
+	/**
+	 * Applies the access log settings.
+	 *
+	 * @param sampleRate The fraction of requests logged, 1 to log every request and 0 to log none
+	 */
+	public AccessLogSettings (@Value("${accesslog.sampleRate:1}") double sampleRate) {
+		AccessLog.setSampleRate(sampleRate);
+		AccessLog.start();  // again, if an application stopped before in this JVM stopped the writer
+	}
+
+	/**
+	 * Writes out the entries still in the access log buffer and stops the writer.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the writer to stop
+	 */
+	@PreDestroy
+	void stop () throws InterruptedException {
+		AccessLog.stop(STOP_TIMEOUT);
+	}
+}
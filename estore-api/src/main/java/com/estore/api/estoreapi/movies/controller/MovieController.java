@@ -1,10 +1,15 @@
 package com.estore.api.estoreapi.movies.controller;
 
+import com.estore.api.estoreapi.PageResponses;
+import com.estore.api.estoreapi.logging.AccessLog;
 import com.estore.api.estoreapi.movies.model.Movie;
 import com.estore.api.estoreapi.movies.persistence.MovieDAO;
+import com.estore.api.estoreapi.movies.persistence.MovieQuery;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.util.logging.Level;
@@ -20,8 +25,12 @@ import java.util.logging.Logger;
 @RestController
 @RequestMapping("movies")
 public class MovieController {
-	/* Logger is used to log to command line the HTTP request performed, or any internal server errors encountered. */
+	/* Logger is used to log to command line any internal server errors encountered. */
 	private static final Logger LOG = Logger.getLogger(MovieController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(MovieController.class);
+	/* Lets browsers keep the movies but makes them check the ETag before using them again. */
+	private static final CacheControl REVALIDATE = CacheControl.noCache();
 
 	/** The MovieDAO object this Controller interacts with to get Movie objects. */
 	private final MovieDAO movieDao;
@@ -46,7 +55,7 @@ public class MovieController {
 	 */
 	@PostMapping("")
 	public ResponseEntity<Movie> createMovie (@RequestBody Movie movie) {
-		LOG.info("POST /movies/" + movie);
+		ACCESS_LOG.log("POST /movies/{}", movie);
 
 		try {
 			Movie newMovie = movieDao.createMovie(movie);
@@ -71,7 +80,7 @@ public class MovieController {
 	 */
 	@PutMapping("")
 	public ResponseEntity<Movie> updateMovie (@RequestBody Movie movie) {
-		LOG.info("PUT /movies/" + movie);
+		ACCESS_LOG.log("PUT /movies/{}", movie);
 		try {
 			Movie updatedMovie = movieDao.updateMovie(movie);
 			if (updatedMovie != null) {
@@ -95,7 +104,7 @@ public class MovieController {
 	 */
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Movie> deleteMovie (@PathVariable int id) {
-		LOG.info("DELETE /movies/" + id);
+		ACCESS_LOG.log("DELETE /movies/{}", id);
 		try {
 			if (movieDao.deleteMovie(id)) {
 				return new ResponseEntity<>(HttpStatus.OK);
@@ -118,7 +127,7 @@ public class MovieController {
 	 */
 	@GetMapping("/{id}")
 	public ResponseEntity<Movie> getMovie (@PathVariable int id) {
-		LOG.info("GET /movies/" + id);
+		ACCESS_LOG.log("GET /movies/{}", id);
 		try {
 			// Try to get the movie based on the id entered by the user
 			Movie movie = movieDao.getMovie(id);
@@ -134,19 +143,28 @@ public class MovieController {
 	}
 
 	/**
-	 * Responds to the GET request for all {@linkplain Movie movies}.
+	 * Responds to the GET request for all {@linkplain Movie movies}.<br>
+	 * The response is tagged with the version of the movies. A request whose If-None-Match header holds the current tag
+	 * is answered with no body, without reading or serializing the movies.
 	 *
-	 * @return ResponseEntity with array of {@link Movie movie} objects (may be empty) and HTTP status of OK<br>
+	 * @param request The request, to read its If-None-Match header
+	 * @return ResponseEntity with array of {@link Movie movie} objects (may be empty), ETag and HTTP status of OK<br>
+	 * ResponseEntity with ETag and HTTP status of NOT_MODIFIED if the client already has the current movies<br>
 	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
 	 */
 	@GetMapping("")
-	public ResponseEntity<Movie[]> getMovies () {
-		LOG.info("GET /movies/");
+	public ResponseEntity<Movie[]> getMovies (WebRequest request) {
+		ACCESS_LOG.log("GET /movies/");
+		// Read the version before the movies, so the tag is never newer than the movies it is sent with
+		String etag = "\"" + movieDao.getVersion() + "\"";
+		if (request.checkNotModified(etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+		}
 		try {
 			// Try and get a list of all the movies from the system
 			Movie[] movies = movieDao.getMovies();
 			if (movies != null) {
-				return new ResponseEntity<>(movies, HttpStatus.OK);
+				return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(movies);
 			} else {
 				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 			}
@@ -156,6 +174,23 @@ public class MovieController {
 		}
 	}
 
+	/**
+	 * Responds to the GET request for a page of {@linkplain Movie movies} in id order.<br>
+	 * To get the next page, pass the id of the last {@link Movie movie} of this page as after. A page with fewer
+	 * than limit movies is the last.
+	 *
+	 * @param after The id of the last {@link Movie movie} of the previous page, left out for the first page
+	 * @param limit The greatest number of {@link Movie movies} to return
+	 * @return ResponseEntity with array of {@link Movie movie} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "limit")
+	public ResponseEntity<Movie[]> getMoviesPage (@RequestParam(required = false) Integer after, @RequestParam int limit) {
+		ACCESS_LOG.log("GET /movies?after={}&limit={}", after, limit);
+		return PageResponses.of(limit, () -> movieDao.getMovies(after, limit), LOG);
+	}
+
 	/**
 	 * Responds to the GET request for all {@linkplain Movie movies} whose movie title contains the given text.
 	 *
@@ -165,7 +200,7 @@ public class MovieController {
 	 */
 	@GetMapping("/")
 	public ResponseEntity<Movie[]> searchMovies (@RequestParam String title) {
-		LOG.info("GET /movies/?title=" + title);
+		ACCESS_LOG.log("GET /movies/?title={}", title);
 		try {
 			Movie[] foundMovies = movieDao.findMovies(title);
 			/*
@@ -179,4 +214,83 @@ public class MovieController {
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/**
+	 * Responds to the GET request for the {@linkplain Movie movies} completing a prefix of a title, for typeahead.
+	 *
+	 * @param prefix The start of a title, or of any word in a title, as typed so far
+	 * @param limit  The greatest number of {@link Movie movies} to return, 10 by default
+	 * @return ResponseEntity with array of {@link Movie movie} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@GetMapping("/autocomplete")
+	public ResponseEntity<Movie[]> autocompleteMovies (@RequestParam String prefix,
+	                                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+		ACCESS_LOG.log("GET /movies/autocomplete?prefix={}&limit={}", prefix, limit);
+		if (limit <= 0) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		try {
+			Movie[] foundMovies = movieDao.autocompleteMovies(prefix, limit);
+			return new ResponseEntity<>(foundMovies, HttpStatus.OK);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Responds to the GET request for all {@linkplain Movie movies} matching a combination of filters.<br>
+	 * Every filter is optional, and a filter left out matches any movie. Ranges are inclusive.
+	 *
+	 * @param ratings    The MPA ratings to match, e.g. rating=PG&amp;rating=R
+	 * @param minYear    The earliest year of release
+	 * @param maxYear    The latest year of release
+	 * @param minRuntime The shortest runtime, in minutes
+	 * @param maxRuntime The longest runtime, in minutes
+	 * @param title      The text the title must contain, not case-sensitive
+	 * @param sort       The attribute to sort by, one of id, title, year or runtime, id by default
+	 * @param desc       Whether to sort from greatest to least
+	 * @param limit      The greatest number of {@link Movie movies} to return, all by default
+	 * @return ResponseEntity with array of {@link Movie movie} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if the sort is unknown or the limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@GetMapping("/filter")
+	public ResponseEntity<Movie[]> filterMovies (@RequestParam(value = "rating", required = false) String[] ratings,
+	                                             @RequestParam(required = false) Integer minYear,
+	                                             @RequestParam(required = false) Integer maxYear,
+	                                             @RequestParam(required = false) Integer minRuntime,
+	                                             @RequestParam(required = false) Integer maxRuntime,
+	                                             @RequestParam(required = false) String title,
+	                                             @RequestParam(defaultValue = "id") String sort,
+	                                             @RequestParam(defaultValue = "false") boolean desc,
+	                                             @RequestParam(required = false) Integer limit) {
+		ACCESS_LOG.log("GET /movies/filter?rating={}&minYear={}&maxYear={}&minRuntime={}&maxRuntime={}&title={}&sort={}"
+		               + "&desc={}&limit={}", ratings, minYear, maxYear, minRuntime, maxRuntime, title, sort, desc, limit);
+		MovieQuery query = new MovieQuery().years(minYear, maxYear).runtimes(minRuntime, maxRuntime).title(title);
+		if (ratings != null) {
+			query.ratings(ratings);
+		}
+		try {
+			query.sort(MovieQuery.Sort.parse(sort), desc);
+		} catch (IllegalArgumentException e) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		if (limit != null) {
+			if (limit <= 0) {
+				return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+			}
+			query.limit(limit);
+		}
+
+		try {
+			Movie[] foundMovies = movieDao.filterMovies(query);
+			return new ResponseEntity<>(foundMovies, HttpStatus.OK);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
 }
@@ -1,7 +1,10 @@
 package com.estore.api.estoreapi.movies.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Locale;
+
 /**
  * Represents a movie.
  *
@@ -23,6 +26,8 @@ public class Movie {
 	@JsonProperty("mpaRating") private String mpaRating;
 	/** The year this movie was released. */
 	@JsonProperty("year") private int year;
+	/** The title of this movie in the form it is searched in, see {@link #normalize(String)}. */
+	private String normalizedTitle;
 
 	/**
 	 * Create a Movie object with the given information
@@ -47,6 +52,17 @@ public class Movie {
 		this.runtime = runtime;
 		this.mpaRating = mpaRating;
 		this.year = year;
+		this.normalizedTitle = normalize(title);
+	}
+
+	/**
+	 * Puts text in the form movie titles are searched in, so that searches are not case-sensitive.
+	 *
+	 * @param text The text to normalize
+	 * @return The text in lower case, or an empty string if text is null
+	 */
+	public static String normalize (String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
 	}
 
 	/**
@@ -56,9 +72,15 @@ public class Movie {
 	 * @return True if given text is found in the movie title, else False
 	 */
 	public boolean titleContains (String text) {
-		String lowerCaseTitle = title.toLowerCase();
-		String lowerCaseText = text.toLowerCase();
-		return lowerCaseTitle.contains(lowerCaseText);
+		return normalizedTitle.contains(normalize(text));
+	}
+
+	/**
+	 * @return The title of this movie in the form it is searched in, see {@link #normalize(String)}
+	 */
+	@JsonIgnore
+	public String getNormalizedTitle () {
+		return normalizedTitle;
 	}
 
 	/**
@@ -0,0 +1,191 @@
+package com.estore.api.estoreapi.movies.persistence;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An index of {@linkplain Movie movies} by rating, year and runtime, to answer a {@link MovieQuery} without a scan.<p>
+ * Movies are grouped by rating, and by year and runtime in sorted maps, so each condition of a query gives its
+ * matching movies as a few groups whose sizes are known up front. A query starts from the condition with the fewest
+ * candidates and checks the others on those candidates only.<p>
+ * Reads do not lock, so they can run alongside a write. Writes must not run concurrently with each other.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+class AttributeIndex {
+	/** The ids of the movies by normalized rating. */
+	private final Map<String, Set<Integer>> ratings = new ConcurrentHashMap<>();
+	/** The ids of the movies by year. */
+	private final NavigableMap<Integer, Set<Integer>> years = new ConcurrentSkipListMap<>();
+	/** The ids of the movies by runtime. */
+	private final NavigableMap<Integer, Set<Integer>> runtimes = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Adds a {@linkplain Movie movie} under its rating, year and runtime.
+	 *
+	 * @param movie The {@link Movie movie} to add
+	 */
+	void add (Movie movie) {
+		add(ratings, MovieQuery.normalizeRating(movie.getMpaRating()), movie.getId());
+		add(years, movie.getYear(), movie.getId());
+		add(runtimes, movie.getRuntime(), movie.getId());
+	}
+
+	/**
+	 * Removes a {@linkplain Movie movie} from its rating, year and runtime.
+	 *
+	 * @param movie The {@link Movie movie} to remove
+	 */
+	void remove (Movie movie) {
+		remove(ratings, MovieQuery.normalizeRating(movie.getMpaRating()), movie.getId());
+		remove(years, movie.getYear(), movie.getId());
+		remove(runtimes, movie.getRuntime(), movie.getId());
+	}
+
+	/**
+	 * Re-indexes a {@linkplain Movie movie} whose attributes may have changed.<br>
+	 * Each changed attribute is added before the old one is removed, so a reader never misses the movie.
+	 *
+	 * @param previous The {@link Movie movie} as it was indexed
+	 * @param current  The {@link Movie movie} with the same id as it is now
+	 */
+	void replace (Movie previous, Movie current) {
+		String previousRating = MovieQuery.normalizeRating(previous.getMpaRating());
+		String currentRating = MovieQuery.normalizeRating(current.getMpaRating());
+		if (!previousRating.equals(currentRating)) {
+			add(ratings, currentRating, current.getId());
+			remove(ratings, previousRating, previous.getId());
+		}
+		if (previous.getYear() != current.getYear()) {
+			add(years, current.getYear(), current.getId());
+			remove(years, previous.getYear(), previous.getId());
+		}
+		if (previous.getRuntime() != current.getRuntime()) {
+			add(runtimes, current.getRuntime(), current.getId());
+			remove(runtimes, previous.getRuntime(), previous.getId());
+		}
+	}
+
+	/**
+	 * Adds an id under a key of an index.
+	 *
+	 * @param index The index
+	 * @param key   The key
+	 * @param id    The id of the {@link Movie movie}
+	 */
+	private static <K> void add (Map<K, Set<Integer>> index, K key, int id) {
+		index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+	}
+
+	/**
+	 * Removes an id from a key of an index, dropping the key once no id is left under it.
+	 *
+	 * @param index The index
+	 * @param key   The key
+	 * @param id    The id of the {@link Movie movie}
+	 */
+	private static <K> void remove (Map<K, Set<Integer>> index, K key, int id) {
+		Set<Integer> ids = index.get(key);
+		if (ids != null) {
+			ids.remove(id);
+			if (ids.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Finds the smallest set of candidates for a query among its rating, year and runtime conditions.<br>
+	 * Every movie the query matches is a candidate, but the candidates still have to be checked against the query.
+	 *
+	 * @param query The query
+	 * @return The groups of ids of the candidate {@link Movie movies}, or null if the query has none of these conditions
+	 */
+	Candidates candidates (MovieQuery query) {
+		Candidates best = null;
+		if (query.getRatings() != null) {
+			List<Set<Integer>> groups = new ArrayList<>();
+			for (String rating : query.getRatings()) {
+				Set<Integer> ids = ratings.get(rating);
+				if (ids != null) {
+					groups.add(ids);
+				}
+			}
+			best = Candidates.smaller(best, new Candidates(groups));
+		}
+		if (query.hasYears()) {
+			best = Candidates.smaller(best, range(years, query.getMinYear(), query.getMaxYear()));
+		}
+		if (query.hasRuntimes()) {
+			best = Candidates.smaller(best, range(runtimes, query.getMinRuntime(), query.getMaxRuntime()));
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the groups of ids in a range of keys of a sorted index.
+	 *
+	 * @param index The index
+	 * @param min   The least key, inclusive
+	 * @param max   The greatest key, inclusive
+	 * @return The groups of ids in the range, may be empty
+	 */
+	private static Candidates range (NavigableMap<Integer, Set<Integer>> index, int min, int max) {
+		if (min > max) {
+			return new Candidates(new ArrayList<>());
+		}
+		return new Candidates(new ArrayList<>(index.subMap(min, true, max, true).values()));
+	}
+
+	/**
+	 * The ids of the candidate {@linkplain Movie movies} for one condition of a query, as the groups they are kept in.
+	 */
+	static class Candidates {
+		/** The groups of ids, no id is in two groups. */
+		private final List<Set<Integer>> groups;
+		/** The number of ids in every group. */
+		private final int size;
+
+		/**
+		 * Create the candidates for a condition.
+		 *
+		 * @param groups The groups of ids, no id is in two groups
+		 */
+		Candidates (List<Set<Integer>> groups) {
+			this.groups = groups;
+			this.size = groups.stream().mapToInt(Set::size).sum();
+		}
+
+		/**
+		 * Picks the candidates with fewer ids.
+		 *
+		 * @param first  Some candidates, may be null
+		 * @param second Other candidates
+		 * @return The candidates with fewer ids
+		 */
+		static Candidates smaller (Candidates first, Candidates second) {
+			return first == null || second.size < first.size ? second : first;
+		}
+
+		/**
+		 * @return The number of candidates
+		 */
+		int size () {
+			return size;
+		}
+
+		/**
+		 * @return The groups of ids of the candidates
+		 */
+		List<Set<Integer>> groups () {
+			return groups;
+		}
+	}
+}
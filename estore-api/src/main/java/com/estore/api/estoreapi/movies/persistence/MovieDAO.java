@@ -58,6 +58,25 @@ public interface MovieDAO {
 	 */
 	Movie[] getMovies () throws IOException;
 
+	/**
+	 * Gets the version of the {@linkplain Movie movies}, which goes up whenever a {@link Movie movie} is created, updated or deleted.<br>
+	 * Two equal versions mean nothing changed in between, so a client holding the movies of a version can keep them.
+	 *
+	 * @return The current version
+	 */
+	long getVersion ();
+
+	/**
+	 * Retrieves a page of {@linkplain Movie movies} in id order, to list them a page at a time.<br>
+	 * The next page starts after the last id of this page.
+	 *
+	 * @param after The id of the last {@link Movie movie} of the previous page, or null for the first page
+	 * @param limit The greatest number of {@link Movie movies} to return
+	 * @return An array of up to limit {@link Movie movie} objects with ids after the given one, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Movie[] getMovies (Integer after, int limit) throws IOException;
+
 	/**
 	 * Finds all {@linkplain Movie movies} whose movie title contains the given text.
 	 *
@@ -66,4 +85,25 @@ public interface MovieDAO {
 	 * @throws IOException if an issue with underlying storage
 	 */
 	Movie[] findMovies (String text) throws IOException;
+
+	/**
+	 * Completes a prefix of a {@linkplain Movie movie} title, as typed so far by a customer. Not case-sensitive.
+	 *
+	 * @param prefix The start of a title, or of any word in a title
+	 * @param limit  The greatest number of {@link Movie movies} to return
+	 * @return An array of up to limit {@link Movie movies}, those whose title starts with the prefix first, then those
+	 * with a later word starting with it, each in alphabetical order, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Movie[] autocompleteMovies (String prefix, int limit) throws IOException;
+
+	/**
+	 * Finds all {@linkplain Movie movies} matching a structured query.
+	 *
+	 * @param query The {@link MovieQuery query} of ratings, years, runtimes and title text to match, with the order
+	 *              and number of results
+	 * @return An array of {@link Movie movies} that match the query, may be empty
+	 * @throws IOException if underlying storage cannot be accessed
+	 */
+	Movie[] filterMovies (MovieQuery query) throws IOException;
 }
@@ -1,15 +1,26 @@
 package com.estore.api.estoreapi.movies.persistence;
 
 import com.estore.api.estoreapi.movies.model.Movie;
+import com.estore.api.estoreapi.persistence.Paging;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * Implements the functionality for JSON file-based persistence for Movies.<p>
@@ -20,27 +31,62 @@ import java.util.TreeMap;
  */
 @Component
 public class MovieJSONDAO implements MovieDAO {
-	/** A local cache of Movie objects, to avoid reading from file each time. */
-	Map<Integer, Movie> movies;
+	/**
+	 * A local cache of Movie objects, to avoid reading from file each time.<br>
+	 * Reads go straight to the concurrent map, so they never wait on a write. Writes lock the map so that they are
+	 * applied one at a time, and the {@link #store} saves them to the file.
+	 */
+	NavigableMap<Integer, Movie> movies;
+	/** The cached movies by the trigrams of their titles, to search titles without scanning every movie. */
+	private TitleIndex titleIndex;
+	/** The cached movies by title and by each later word of their title, to complete prefixes of titles. */
+	private PrefixIndex prefixIndex;
+	/** The cached movies by rating, year and runtime, to filter movies without scanning every movie. */
+	private AttributeIndex attributeIndex;
+
+	/**
+	 * The version of the cached movies, raised after every change to them. It starts from the time the DAO was created,
+	 * so versions handed out before a restart are not handed out again for different movies.
+	 */
+	private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+	/** How long changes wait for the lock on the cached movies. */
+	private static final Timer LOCK_WAIT = Metrics.timer("dao.lock.wait", "lock", "movies");
 
 	/** The next id to assign to a new movie. */
 	private static int nextId;
 
-	/** Name of the file to read and write to. */
-	private final String filename;
-	/** Provides conversion between Java Movie and JSON Movie objects. */
-	private final ObjectMapper objectMapper;
+	/** The file to read and write to, holding the movies in the storage format and replaced whole on every save. */
+	private final SnapshotFile file;
+	/** Saves the cached movies to the file, behind the changes made to them. */
+	private final WriteBehindPersister.Store store;
+
+	/**
+	 * Creates a Data Access Object for JSON-based Movies, which saves every change before returning.
+	 *
+	 * @param filename     Filename to read from and write to
+	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @throws IOException when file cannot be accessed or read from
+	 */
+	public MovieJSONDAO (String filename, ObjectMapper objectMapper) throws IOException {
+		this(filename, objectMapper, new WriteBehindPersister(), StorageFormat.JSON);
+	}
 
 	/**
 	 * Creates a Data Access Object for JSON-based Movies.
 	 *
 	 * @param filename     Filename to read from and write to
 	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @param persister    Saves the movies to the file behind the changes made to them
+	 * @param format       The format to keep the file in
 	 * @throws IOException when file cannot be accessed or read from
 	 */
-	public MovieJSONDAO (@Value("${movies.file}") String filename, ObjectMapper objectMapper) throws IOException {
-		this.filename = filename;
-		this.objectMapper = objectMapper;
+	@Autowired
+	public MovieJSONDAO (@Value("${movies.file}") String filename, ObjectMapper objectMapper,
+	                     WriteBehindPersister persister, @Value("${persistence.format:json}") StorageFormat format)
+		throws IOException {
+		this.file = new SnapshotFile(filename, objectMapper, format);
+		this.store = persister.register("movies", this::save, false);
 		load();  // load the movies from the file
 	}
 
@@ -56,7 +102,7 @@ public class MovieJSONDAO implements MovieDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Movie movies} from the tree map.
+	 * Generates an array of {@linkplain Movie movies} from the map.
 	 *
 	 * @return The array of {@link Movie movies}, may be empty
 	 */
@@ -65,19 +111,34 @@ public class MovieJSONDAO implements MovieDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Movie movies} from the tree map for any
+	 * Generates an array of {@linkplain Movie movies} from the map for any
 	 * {@linkplain Movie movies} that contains the movie title specified by text argument.
 	 *
 	 * @param text The text to find within a {@link Movie movies} movie<p>
-	 *             If text is null, the array contains all of the {@linkplain Movie movies} in the tree map.
+	 *             If text is null, the array contains all of the {@linkplain Movie movies} in the map.
 	 * @return The array of {@link Movie movies}, may be empty
 	 */
 	private Movie[] getMoviesArray (String text) {
 		ArrayList<Movie> movieArrayList = new ArrayList<>();
 
-		for (Movie movie : movies.values()) {
-			if (text == null || movie.titleContains(text)) {
-				movieArrayList.add(movie);
+		if (text == null) {
+			movieArrayList.addAll(movies.values());
+		} else {
+			String normalizedText = Movie.normalize(text);
+			if (normalizedText.length() < TitleIndex.GRAM_LENGTH) {
+				// Too short to have a trigram, so check every title
+				for (Movie movie : movies.values()) {
+					if (movie.getNormalizedTitle().contains(normalizedText)) {
+						movieArrayList.add(movie);
+					}
+				}
+			} else {
+				for (int id : titleIndex.candidates(normalizedText)) {
+					Movie movie = movies.get(id);
+					if (movie != null && movie.getNormalizedTitle().contains(normalizedText)) {
+						movieArrayList.add(movie);
+					}
+				}
 			}
 		}
 
@@ -95,9 +156,9 @@ public class MovieJSONDAO implements MovieDAO {
 	private boolean save () throws IOException {
 		Movie[] movieArray = getMoviesArray();
 
-		// Serializes the Java Objects to JSON objects into the file,
-		// writeValue will throw an IOException if there is an issue with or reading from the file
-		objectMapper.writeValue(new File(filename), movieArray);
+		// Serializes the Java Objects to JSON objects into a new snapshot of the file,
+		// write will throw an IOException if there is an issue with writing the file
+		file.write(movieArray);
 		return true;
 	}
 
@@ -109,16 +170,22 @@ public class MovieJSONDAO implements MovieDAO {
 	 * @throws IOException when file cannot be accessed or read from
 	 */
 	private boolean load () throws IOException {
-		movies = new TreeMap<>();
+		movies = new ConcurrentSkipListMap<>();
+		titleIndex = new TitleIndex();
+		prefixIndex = new PrefixIndex();
+		attributeIndex = new AttributeIndex();
 		nextId = 0;
 
 		// Deserializes the JSON objects from the file into an array of movies,
-		// readValue will throw an IOException if there's an issue with or reading from the file
-		Movie[] movieArray = objectMapper.readValue(new File(filename), Movie[].class);
+		// read will throw an IOException if neither the file nor its backup can be read
+		Movie[] movieArray = file.read(Movie[].class);
 
-		// Add each movie to the tree map and keep track of the greatest id
+		// Add each movie to the map and keep track of the greatest id
 		for (Movie movie : movieArray) {
 			movies.put(movie.getId(), movie);
+			titleIndex.add(movie);
+			prefixIndex.add(movie);
+			attributeIndex.add(movie);
 			if (movie.getId() > nextId) {
 				nextId = movie.getId();
 			}
@@ -133,11 +200,17 @@ public class MovieJSONDAO implements MovieDAO {
 	 */
 	@Override
 	public Movie createMovie (Movie movie) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (movies) {
+			waiting.stop(LOCK_WAIT);
 			// We create a new movie object because the id field is immutable, and we need to assign the next unique id
 			Movie newMovie = new Movie(nextId(), movie.getTitle(), movie.getPoster(), movie.getRuntime(), movie.getMpaRating(), movie.getYear());
+			titleIndex.add(newMovie);
+			prefixIndex.add(newMovie);
+			attributeIndex.add(newMovie);
 			movies.put(newMovie.getId(), newMovie);
-			save(); // may throw an IOException
+			version.incrementAndGet();
+			store.changed(); // may throw an IOException
 			return newMovie;
 		}
 	}
@@ -147,13 +220,19 @@ public class MovieJSONDAO implements MovieDAO {
 	 */
 	@Override
 	public Movie updateMovie (Movie movie) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (movies) {
+			waiting.stop(LOCK_WAIT);
 			if (!movies.containsKey(movie.getId())) {
 				return null;  // movie does not exist
 			}
 
-			movies.put(movie.getId(), movie);
-			save(); // may throw an IOException
+			Movie previous = movies.put(movie.getId(), movie);
+			titleIndex.replace(previous, movie);
+			prefixIndex.replace(previous, movie);
+			attributeIndex.replace(previous, movie);
+			version.incrementAndGet();
+			store.changed(); // may throw an IOException
 			return movie;
 		}
 	}
@@ -163,10 +242,17 @@ public class MovieJSONDAO implements MovieDAO {
 	 */
 	@Override
 	public boolean deleteMovie (int id) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (movies) {
+			waiting.stop(LOCK_WAIT);
 			if (movies.containsKey(id)) {
-				movies.remove(id);
-				return save();
+				Movie previous = movies.remove(id);
+				titleIndex.remove(previous);
+				prefixIndex.remove(previous);
+				attributeIndex.remove(previous);
+				version.incrementAndGet();
+				store.changed(); // may throw an IOException
+				return true;
 			} else {
 				return false;
 			}
@@ -178,13 +264,7 @@ public class MovieJSONDAO implements MovieDAO {
 	 */
 	@Override
 	public Movie getMovie (int id) {
-		synchronized (movies) {
-			if (movies.containsKey(id)) {
-				return movies.get(id);
-			} else {
-				return null;
-			}
-		}
+		return movies.get(id);
 	}
 
 	/**
@@ -192,9 +272,23 @@ public class MovieJSONDAO implements MovieDAO {
 	 */
 	@Override
 	public Movie[] getMovies () {
-		synchronized (movies) {
-			return getMoviesArray();
-		}
+		return getMoviesArray();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public long getVersion () {
+		return version.get();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Movie[] getMovies (Integer after, int limit) {
+		return Paging.page(movies, after, limit, Movie[]::new);
 	}
 
 	/**
@@ -202,8 +296,78 @@ public class MovieJSONDAO implements MovieDAO {
 	 */
 	@Override
 	public Movie[] findMovies (String text) {
-		synchronized (movies) {
-			return getMoviesArray(text);
+		return getMoviesArray(text);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Movie[] autocompleteMovies (String prefix, int limit) {
+		ArrayList<Movie> movieArrayList = new ArrayList<>();
+		for (int id : prefixIndex.complete(Movie.normalize(prefix), limit)) {
+			Movie movie = movies.get(id);
+			if (movie != null) {
+				movieArrayList.add(movie);
+			}
+		}
+
+		Movie[] movieArray = new Movie[movieArrayList.size()];
+		movieArrayList.toArray(movieArray);
+		return movieArray;
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Movie[] filterMovies (MovieQuery query) {
+		Predicate<Movie> predicate = query.toPredicate();
+		List<Movie> movieList = new ArrayList<>();
+
+		// Start from whichever index narrows the movies down the most, and check the rest of the query on those
+		AttributeIndex.Candidates candidates = attributeIndex.candidates(query);
+		String title = query.getTitle();
+		int[] titleCandidates = title != null && title.length() >= TitleIndex.GRAM_LENGTH ? titleIndex.candidates(title) : null;
+		if (titleCandidates != null && (candidates == null || titleCandidates.length <= candidates.size())) {
+			for (int id : titleCandidates) {
+				addIfMatches(movies.get(id), predicate, movieList);
+			}
+		} else if (candidates != null) {
+			Set<Integer> seen = new HashSet<>();  // a movie being updated may briefly be in two groups
+			for (Set<Integer> group : candidates.groups()) {
+				for (Integer id : group) {
+					if (seen.add(id)) {
+						addIfMatches(movies.get(id), predicate, movieList);
+					}
+				}
+			}
+		} else {
+			for (Movie movie : movies.values()) {
+				if (query.isIdOrder() && movieList.size() >= query.getLimit()) {
+					break;  // the map is in id order, so the first matches are the results
+				}
+				addIfMatches(movie, predicate, movieList);
+			}
+		}
+
+		movieList.sort(query.comparator());
+		if (movieList.size() > query.getLimit()) {
+			movieList = movieList.subList(0, query.getLimit());
+		}
+		return movieList.toArray(new Movie[0]);
+	}
+
+	/**
+	 * Adds a {@linkplain Movie movie} to a list if it matches a query.
+	 *
+	 * @param movie     The {@link Movie movie}, may be null if it was just deleted
+	 * @param predicate The compiled query
+	 * @param movieList The list of matching {@link Movie movies}
+	 */
+	private static void addIfMatches (Movie movie, Predicate<Movie> predicate, List<Movie> movieList) {
+		if (movie != null && predicate.test(movie)) {
+			movieList.add(movie);
 		}
 	}
 }
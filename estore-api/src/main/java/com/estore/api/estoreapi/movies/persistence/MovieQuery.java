@@ -0,0 +1,261 @@
+package com.estore.api.estoreapi.movies.persistence;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A structured query for {@linkplain Movie movies}, combining optional conditions on the rating, year, runtime and
+ * title of a movie, with the order and number of the results.<p>
+ * Every condition left unset matches any movie. Ranges are inclusive at both ends.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public class MovieQuery {
+	/**
+	 * The attributes {@linkplain Movie movies} can be sorted by.
+	 */
+	public enum Sort {
+		ID(Comparator.comparingInt(Movie::getId)),
+		TITLE(Comparator.comparing(Movie::getNormalizedTitle).thenComparingInt(Movie::getId)),
+		YEAR(Comparator.comparingInt(Movie::getYear).thenComparingInt(Movie::getId)),
+		RUNTIME(Comparator.comparingInt(Movie::getRuntime).thenComparingInt(Movie::getId));
+
+		/** Orders movies by the attribute, then by id. */
+		private final Comparator<Movie> comparator;
+
+		/**
+		 * Create a sort order.
+		 *
+		 * @param comparator Orders movies by the attribute, then by id
+		 */
+		Sort (Comparator<Movie> comparator) {
+			this.comparator = comparator;
+		}
+
+		/**
+		 * Reads a sort order from its name, ignoring case.
+		 *
+		 * @param name The name of the attribute, e.g. "year"
+		 * @return The sort order
+		 * @throws IllegalArgumentException if no attribute has that name
+		 */
+		public static Sort parse (String name) {
+			return valueOf(name.toUpperCase(Locale.ROOT));
+		}
+	}
+
+	/** The normalized ratings to match, null to match any rating. */
+	private Set<String> ratings;
+	/** The earliest year to match. */
+	private int minYear = Integer.MIN_VALUE;
+	/** The latest year to match. */
+	private int maxYear = Integer.MAX_VALUE;
+	/** The shortest runtime to match. */
+	private int minRuntime = Integer.MIN_VALUE;
+	/** The longest runtime to match. */
+	private int maxRuntime = Integer.MAX_VALUE;
+	/** The normalized text the title must contain, null to match any title. */
+	private String title;
+	/** The order of the results. */
+	private Sort sort = Sort.ID;
+	/** Whether the order of the results is reversed. */
+	private boolean descending;
+	/** The greatest number of results. */
+	private int limit = Integer.MAX_VALUE;
+
+	/**
+	 * Normalizes an MPA rating, so that ratings match regardless of case.
+	 *
+	 * @param rating The rating, may be null
+	 * @return The rating in upper case, or an empty string if null
+	 */
+	static String normalizeRating (String rating) {
+		return rating == null ? "" : rating.trim().toUpperCase(Locale.ROOT);
+	}
+
+	/**
+	 * Matches only {@linkplain Movie movies} with one of the given ratings, ignoring case.
+	 *
+	 * @param ratings The MPA ratings, e.g. "PG", "R"
+	 * @return This query
+	 */
+	public MovieQuery ratings (String... ratings) {
+		this.ratings = new HashSet<>();
+		for (String rating : ratings) {
+			this.ratings.add(normalizeRating(rating));
+		}
+		return this;
+	}
+
+	/**
+	 * Matches only {@linkplain Movie movies} released within a range of years.
+	 *
+	 * @param minYear The earliest year, or null for no earliest year
+	 * @param maxYear The latest year, or null for no latest year
+	 * @return This query
+	 */
+	public MovieQuery years (Integer minYear, Integer maxYear) {
+		this.minYear = minYear == null ? Integer.MIN_VALUE : minYear;
+		this.maxYear = maxYear == null ? Integer.MAX_VALUE : maxYear;
+		return this;
+	}
+
+	/**
+	 * Matches only {@linkplain Movie movies} whose runtime is within a range of minutes.
+	 *
+	 * @param minRuntime The shortest runtime, or null for no shortest runtime
+	 * @param maxRuntime The longest runtime, or null for no longest runtime
+	 * @return This query
+	 */
+	public MovieQuery runtimes (Integer minRuntime, Integer maxRuntime) {
+		this.minRuntime = minRuntime == null ? Integer.MIN_VALUE : minRuntime;
+		this.maxRuntime = maxRuntime == null ? Integer.MAX_VALUE : maxRuntime;
+		return this;
+	}
+
+	/**
+	 * Matches only {@linkplain Movie movies} whose title contains a text, ignoring case.
+	 *
+	 * @param text The text, or null to match any title
+	 * @return This query
+	 */
+	public MovieQuery title (String text) {
+		this.title = text == null ? null : Movie.normalize(text);
+		return this;
+	}
+
+	/**
+	 * Orders the results.
+	 *
+	 * @param sort       The attribute to sort by
+	 * @param descending Whether to sort from greatest to least
+	 * @return This query
+	 */
+	public MovieQuery sort (Sort sort, boolean descending) {
+		this.sort = sort;
+		this.descending = descending;
+		return this;
+	}
+
+	/**
+	 * Limits the number of results.
+	 *
+	 * @param limit The greatest number of results
+	 * @return This query
+	 */
+	public MovieQuery limit (int limit) {
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * @return The normalized ratings to match, or null to match any rating
+	 */
+	Set<String> getRatings () {
+		return ratings;
+	}
+
+	/**
+	 * @return The earliest year to match
+	 */
+	int getMinYear () {
+		return minYear;
+	}
+
+	/**
+	 * @return The latest year to match
+	 */
+	int getMaxYear () {
+		return maxYear;
+	}
+
+	/**
+	 * @return The shortest runtime to match
+	 */
+	int getMinRuntime () {
+		return minRuntime;
+	}
+
+	/**
+	 * @return The longest runtime to match
+	 */
+	int getMaxRuntime () {
+		return maxRuntime;
+	}
+
+	/**
+	 * @return The normalized text the title must contain, or null to match any title
+	 */
+	String getTitle () {
+		return title;
+	}
+
+	/**
+	 * @return The greatest number of results
+	 */
+	int getLimit () {
+		return limit;
+	}
+
+	/**
+	 * @return True if the year is limited
+	 */
+	boolean hasYears () {
+		return minYear != Integer.MIN_VALUE || maxYear != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return True if the runtime is limited
+	 */
+	boolean hasRuntimes () {
+		return minRuntime != Integer.MIN_VALUE || maxRuntime != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return True if results come in ascending id order, the order movies are stored in
+	 */
+	boolean isIdOrder () {
+		return sort == Sort.ID && !descending;
+	}
+
+	/**
+	 * @return The order of the results
+	 */
+	Comparator<Movie> comparator () {
+		return descending ? sort.comparator.reversed() : sort.comparator;
+	}
+
+	/**
+	 * Compiles the conditions of this query into a single predicate.<br>
+	 * Only the conditions that are set are checked, so a query on one attribute costs one comparison per movie.
+	 *
+	 * @return A predicate that is true for the {@link Movie movies} this query matches
+	 */
+	Predicate<Movie> toPredicate () {
+		Predicate<Movie> predicate = movie -> true;
+		if (ratings != null) {
+			Set<String> matched = ratings;
+			predicate = predicate.and(movie -> matched.contains(normalizeRating(movie.getMpaRating())));
+		}
+		if (hasYears()) {
+			int min = minYear;
+			int max = maxYear;
+			predicate = predicate.and(movie -> movie.getYear() >= min && movie.getYear() <= max);
+		}
+		if (hasRuntimes()) {
+			int min = minRuntime;
+			int max = maxRuntime;
+			predicate = predicate.and(movie -> movie.getRuntime() >= min && movie.getRuntime() <= max);
+		}
+		if (title != null) {
+			String text = title;
+			predicate = predicate.and(movie -> movie.getNormalizedTitle().contains(text));
+		}
+		return predicate;
+	}
+}
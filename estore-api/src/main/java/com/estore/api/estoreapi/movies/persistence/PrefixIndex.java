@@ -0,0 +1,161 @@
+package com.estore.api.estoreapi.movies.persistence;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A sorted index of {@linkplain Movie movie} titles for completing what a customer has typed so far.<p>
+ * Every normalized title is kept under each of its word starts, e.g. "return of the jedi" is also kept as
+ * "of the jedi", "the jedi" and "jedi". All completions of a prefix are then one range of the sorted keys, found in
+ * O(log n) and walked only as far as the completions that are returned. Titles that start with the prefix are
+ * completed before titles with a later word that starts with it.<p>
+ * Reads do not lock, so they can run alongside a write. Writes must not run concurrently with each other.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+class PrefixIndex {
+	/** The ids of the movies by normalized title. */
+	private final NavigableMap<String, Set<Integer>> titles = new ConcurrentSkipListMap<>();
+	/** The ids of the movies by each normalized title from its second word start onwards. */
+	private final NavigableMap<String, Set<Integer>> laterWords = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Generates each part of a title from one of its later word starts to its end.<br>
+	 * A word starts at a letter or digit that does not follow another letter or digit.
+	 *
+	 * @param title The normalized title
+	 * @return The parts of the title, may be empty
+	 */
+	private static List<String> laterWordsOf (String title) {
+		List<String> parts = new ArrayList<>();
+		for (int i = 1; i < title.length(); ++i) {
+			if (Character.isLetterOrDigit(title.charAt(i)) && !Character.isLetterOrDigit(title.charAt(i - 1))) {
+				parts.add(title.substring(i));
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * Adds a {@linkplain Movie movie} under its title and each of its later word starts.
+	 *
+	 * @param movie The {@link Movie movie} to add
+	 */
+	void add (Movie movie) {
+		String title = movie.getNormalizedTitle();
+		add(titles, title, movie.getId());
+		for (String part : laterWordsOf(title)) {
+			add(laterWords, part, movie.getId());
+		}
+	}
+
+	/**
+	 * Removes a {@linkplain Movie movie} from its title and each of its later word starts.
+	 *
+	 * @param movie The {@link Movie movie} to remove
+	 */
+	void remove (Movie movie) {
+		String title = movie.getNormalizedTitle();
+		remove(titles, title, movie.getId());
+		for (String part : laterWordsOf(title)) {
+			remove(laterWords, part, movie.getId());
+		}
+	}
+
+	/**
+	 * Re-indexes a {@linkplain Movie movie} whose title may have changed.<br>
+	 * The new title is added before the old one is removed, so a reader never misses the movie.
+	 *
+	 * @param previous The {@link Movie movie} as it was indexed
+	 * @param current  The {@link Movie movie} with the same id as it is now
+	 */
+	void replace (Movie previous, Movie current) {
+		String previousTitle = previous.getNormalizedTitle();
+		String currentTitle = current.getNormalizedTitle();
+		if (previousTitle.equals(currentTitle)) {
+			return;
+		}
+
+		add(current);
+		remove(titles, previousTitle, previous.getId());
+		List<String> currentParts = laterWordsOf(currentTitle);
+		for (String part : laterWordsOf(previousTitle)) {
+			if (!currentParts.contains(part)) {  // parts both titles share stay indexed
+				remove(laterWords, part, previous.getId());
+			}
+		}
+	}
+
+	/**
+	 * Adds an id under a key of an index.
+	 *
+	 * @param index The index
+	 * @param key   The key
+	 * @param id    The id of the {@link Movie movie}
+	 */
+	private static void add (Map<String, Set<Integer>> index, String key, int id) {
+		index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+	}
+
+	/**
+	 * Removes an id from a key of an index, dropping the key once no id is left under it.
+	 *
+	 * @param index The index
+	 * @param key   The key
+	 * @param id    The id of the {@link Movie movie}
+	 */
+	private static void remove (Map<String, Set<Integer>> index, String key, int id) {
+		Set<Integer> ids = index.get(key);
+		if (ids != null) {
+			ids.remove(id);
+			if (ids.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Finds the ids of the {@linkplain Movie movies} whose titles complete a prefix. Titles starting with the prefix
+	 * come first, then titles with a later word starting with it, each in alphabetical order.
+	 *
+	 * @param prefix The normalized prefix
+	 * @param limit  The greatest number of ids to return
+	 * @return The ids of the {@link Movie movies}, may be empty
+	 */
+	int[] complete (String prefix, int limit) {
+		Set<Integer> ids = new LinkedHashSet<>();
+		collect(titles, prefix, limit, ids);
+		collect(laterWords, prefix, limit, ids);
+		return ids.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Collects the ids under the keys of an index that start with a prefix, in key order, until there are enough.
+	 *
+	 * @param index  The index
+	 * @param prefix The prefix
+	 * @param limit  The greatest number of ids to collect in total
+	 * @param ids    The ids collected so far
+	 */
+	private static void collect (NavigableMap<String, Set<Integer>> index, String prefix, int limit, Set<Integer> ids) {
+		for (Map.Entry<String, Set<Integer>> entry : index.tailMap(prefix, true).entrySet()) {
+			if (ids.size() >= limit || !entry.getKey().startsWith(prefix)) {
+				return;
+			}
+			for (Integer id : entry.getValue()) {
+				if (ids.size() >= limit) {
+					return;
+				}
+				ids.add(id);
+			}
+		}
+	}
+}
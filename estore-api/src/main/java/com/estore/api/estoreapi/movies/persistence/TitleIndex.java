@@ -0,0 +1,135 @@
+package com.estore.api.estoreapi.movies.persistence;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An inverted index of {@linkplain Movie movie} titles by trigram, every run of three characters of a normalized title.<p>
+ * A title contains a text only if it contains every trigram of the text, so a substring search only has to check the
+ * movies found in all of the text's posting lists, instead of every movie.<p>
+ * Reads do not lock, so they can run alongside a write. Writes must not run concurrently with each other.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+class TitleIndex {
+	/** The number of characters in a gram. */
+	static final int GRAM_LENGTH = 3;
+
+	/** The ids of the movies whose titles contain each trigram, keyed by {@link #gram(String, int)}. */
+	private final Map<Long, Set<Integer>> postings = new ConcurrentHashMap<>();
+
+	/**
+	 * Packs the trigram of a text starting at the given index into a single key, without creating a substring.
+	 *
+	 * @param text  The normalized text
+	 * @param start The index of the first character of the trigram
+	 * @return The key of the trigram
+	 */
+	private static long gram (String text, int start) {
+		return ((long) text.charAt(start) << 2 * Character.SIZE) | ((long) text.charAt(start + 1) << Character.SIZE)
+		       | text.charAt(start + 2);
+	}
+
+	/**
+	 * Generates the distinct trigrams of a text, sorted by key.
+	 *
+	 * @param text The normalized text
+	 * @return The keys of the trigrams, may be empty if the text is shorter than a trigram
+	 */
+	private static long[] grams (String text) {
+		int count = Math.max(0, text.length() - GRAM_LENGTH + 1);
+		long[] grams = new long[count];
+		for (int i = 0; i < count; ++i) {
+			grams[i] = gram(text, i);
+		}
+		return Arrays.stream(grams).sorted().distinct().toArray();
+	}
+
+	/**
+	 * Adds a {@linkplain Movie movie} under each trigram of its title.
+	 *
+	 * @param movie The {@link Movie movie} to add
+	 */
+	void add (Movie movie) {
+		for (long gram : grams(movie.getNormalizedTitle())) {
+			postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(movie.getId());
+		}
+	}
+
+	/**
+	 * Removes a {@linkplain Movie movie} from each trigram of its title.
+	 *
+	 * @param movie The {@link Movie movie} to remove
+	 */
+	void remove (Movie movie) {
+		remove(movie.getId(), grams(movie.getNormalizedTitle()));
+	}
+
+	/**
+	 * Re-indexes a {@linkplain Movie movie} whose title may have changed.<br>
+	 * The new trigrams are added before the old ones are removed, so a reader never misses the movie.
+	 *
+	 * @param previous The {@link Movie movie} as it was indexed
+	 * @param current  The {@link Movie movie} with the same id as it is now
+	 */
+	void replace (Movie previous, Movie current) {
+		add(current);
+		long[] kept = grams(current.getNormalizedTitle());
+		remove(previous.getId(), Arrays.stream(grams(previous.getNormalizedTitle()))
+		                               .filter(gram -> Arrays.binarySearch(kept, gram) < 0)
+		                               .toArray());
+	}
+
+	/**
+	 * Removes a {@linkplain Movie movie} from the given trigrams, dropping any posting list left empty.
+	 *
+	 * @param id    The id of the {@link Movie movie}
+	 * @param grams The keys of the trigrams
+	 */
+	private void remove (int id, long[] grams) {
+		for (long gram : grams) {
+			Set<Integer> ids = postings.get(gram);
+			if (ids != null) {
+				ids.remove(id);
+				if (ids.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the ids of the {@linkplain Movie movies} whose titles contain every trigram of a text.<br>
+	 * Every title containing the text is found, but a title with the same trigrams in a different order may be too,
+	 * so each candidate still has to be checked.
+	 *
+	 * @param text The normalized text, at least {@link #GRAM_LENGTH} characters long
+	 * @return The ids of the candidate {@link Movie movies} in id order, may be empty
+	 */
+	int[] candidates (String text) {
+		List<Set<Integer>> lists = new ArrayList<>();
+		for (long gram : grams(text)) {
+			Set<Integer> ids = postings.get(gram);
+			if (ids == null) {
+				return new int[0];  // no title has this trigram
+			}
+			lists.add(ids);
+		}
+
+		// Walk the shortest list and look each id up in the others, shortest first to reject ids early
+		lists.sort(Comparator.comparingInt(Set::size));
+		List<Set<Integer>> others = lists.subList(1, lists.size());
+		return lists.get(0).stream()
+		            .filter(id -> others.stream().allMatch(ids -> ids.contains(id)))
+		            .mapToInt(Integer::intValue)
+		            .sorted()
+		            .toArray();
+	}
+}
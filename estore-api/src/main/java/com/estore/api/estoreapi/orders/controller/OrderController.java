@@ -1,12 +1,23 @@
 package com.estore.api.estoreapi.orders.controller;
 
+import com.estore.api.estoreapi.PageResponses;
+import com.estore.api.estoreapi.logging.AccessLog;
 import com.estore.api.estoreapi.orders.model.Order;
 import com.estore.api.estoreapi.orders.persistence.OrderDAO;
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+import com.estore.api.estoreapi.screenings.persistence.SeatHoldDAO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,20 +31,34 @@ import java.util.logging.Logger;
 @RestController
 @RequestMapping("orders")
 public class OrderController {
-	/* Logger is used to log to command line the HTTP request performed, or any internal server errors encountered. */
+	/* Logger is used to log to command line any internal server errors encountered. */
 	private static final Logger LOG = Logger.getLogger(OrderController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(OrderController.class);
 
 	/** The OrderDAO object this Controller interacts with to get Order objects. */
 	private final OrderDAO orderDao;
+	/** The SeatHoldDAO object this Controller interacts with to turn held seats into orders. */
+	private final SeatHoldDAO seatHoldDao;
+	/**
+	 * Writes one Order at a time to an export, without flushing after each one so the output stays buffered.
+	 */
+	private final ObjectWriter exportWriter;
 
 	/**
 	 * Creates a REST API controller to respond to Order requests.
 	 *
-	 * @param orderDao The {@link OrderDAO Order Data Access Object} to perform CRUD operations<br>
-	 *                 This dependency is injected by the Spring Framework
+	 * @param orderDao     The {@link OrderDAO Order Data Access Object} to perform CRUD operations<br>
+	 *                     This dependency is injected by the Spring Framework
+	 * @param seatHoldDao  The {@link SeatHoldDAO SeatHold Data Access Object} to claim held seats from<br>
+	 *                     This dependency is injected by the Spring Framework
+	 * @param objectMapper Provides Java Object to JSON Object serialization for exports<br>
+	 *                     This dependency is injected by the Spring Framework
 	 */
-	public OrderController (OrderDAO orderDao) {
+	public OrderController (OrderDAO orderDao, SeatHoldDAO seatHoldDao, ObjectMapper objectMapper) {
 		this.orderDao = orderDao;
+		this.seatHoldDao = seatHoldDao;
+		this.exportWriter = objectMapper.writerFor(Order.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 	}
 
 	/**
@@ -46,7 +71,7 @@ public class OrderController {
 	 */
 	@PostMapping("")
 	public ResponseEntity<Order> createOrder (@RequestBody Order order) {
-		LOG.info("POST /orders/" + order);
+		ACCESS_LOG.log("POST /orders/{}", order);
 
 		try {
 			Order newOrder = orderDao.createOrder(order);
@@ -61,6 +86,56 @@ public class OrderController {
 		}
 	}
 
+	/**
+	 * Creates a {@linkplain Order order} for the seats of the given {@linkplain SeatHold hold}, ending the hold.<br>
+	 * The screening id, seats and number of tickets of the order are taken from the hold.
+	 *
+	 * @param holdId The id of the {@link SeatHold hold} whose seats are bought
+	 * @param order  The {@link Order order} to create
+	 * @return ResponseEntity with created {@link Order order} object and HTTP status of CREATED<br>
+	 * ResponseEntity with HTTP status of CONFLICT if the {@link SeatHold hold} does not exist or has expired<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@PostMapping(value = "", params = "holdId")
+	public ResponseEntity<Order> createOrderFromHold (@RequestParam("holdId") int holdId, @RequestBody Order order) {
+		ACCESS_LOG.log("POST /orders/?holdId={} {}", holdId, order);
+
+		SeatHold hold;
+		try {
+			hold = seatHoldDao.claimHold(holdId);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+		if (hold == null) {
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		}
+
+		try {
+			Order newOrder = orderDao.createOrder(new Order(order.getId(), hold.getScreeningId(), order.getAccountId(),
+			                                                hold.getSeats().length, order.getPopcorn(), order.getSoda(),
+			                                                hold.getSeats()));
+			return new ResponseEntity<>(newOrder, HttpStatus.CREATED);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			cancelClaim(hold);
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Gives back the seats of a claimed hold whose order could not be created.
+	 *
+	 * @param hold The claimed {@link SeatHold hold}
+	 */
+	private void cancelClaim (SeatHold hold) {
+		try {
+			seatHoldDao.cancelClaim(hold);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+		}
+	}
+
 	/**
 	 * Deletes a {@linkplain Order order} with the given id.
 	 *
@@ -71,7 +146,7 @@ public class OrderController {
 	 */
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Order> deleteOrder (@PathVariable int id) {
-		LOG.info("DELETE /orders/" + id);
+		ACCESS_LOG.log("DELETE /orders/{}", id);
 		try {
 			if (orderDao.deleteOrder(id)) {
 				return new ResponseEntity<>(HttpStatus.OK);
@@ -94,7 +169,7 @@ public class OrderController {
 	 */
 	@GetMapping("/{id}")
 	public ResponseEntity<Order> getOrder (@PathVariable int id) {
-		LOG.info("GET /orders/" + id);
+		ACCESS_LOG.log("GET /orders/{}", id);
 		try {
 			// Try to get the order based on the id entered by the user
 			Order order = orderDao.getOrder(id);
@@ -117,7 +192,7 @@ public class OrderController {
 	 */
 	@GetMapping("")
 	public ResponseEntity<Order[]> getOrders () {
-		LOG.info("GET /orders/");
+		ACCESS_LOG.log("GET /orders/");
 		try {
 			// Try and get a list of all the orders from the system
 			Order[] orders = orderDao.getOrders();
@@ -132,6 +207,23 @@ public class OrderController {
 		}
 	}
 
+	/**
+	 * Responds to the GET request for a page of {@linkplain Order orders} in id order.<br>
+	 * To get the next page, pass the id of the last {@link Order order} of this page as after. A page with fewer
+	 * than limit orders is the last.
+	 *
+	 * @param after The id of the last {@link Order order} of the previous page, left out for the first page
+	 * @param limit The greatest number of {@link Order orders} to return
+	 * @return ResponseEntity with array of {@link Order order} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "limit")
+	public ResponseEntity<Order[]> getOrdersPage (@RequestParam(required = false) Integer after, @RequestParam int limit) {
+		ACCESS_LOG.log("GET /orders?after={}&limit={}", after, limit);
+		return PageResponses.of(limit, () -> orderDao.getOrders(after, limit), LOG);
+	}
+
 	/**
 	 * Responds to the GET request for all {@linkplain Order orders} whose screening id is the given id.
 	 * Used to find all orders for a given screening.
@@ -142,7 +234,7 @@ public class OrderController {
 	 */
 	@RequestMapping(value = "/", method = RequestMethod.GET, params = "screeningId")
 	public ResponseEntity<Order[]> searchOrdersByScreeningId (@RequestParam("screeningId") int screeningId) {
-		LOG.info("GET /orders/?screeningId=" + screeningId);
+		ACCESS_LOG.log("GET /orders/?screeningId={}", screeningId);
 		try {
 			Order[] foundOrders = orderDao.findScreeningOrders(screeningId);
 			return new ResponseEntity<>(foundOrders, HttpStatus.OK);
@@ -162,7 +254,7 @@ public class OrderController {
 	 */
 	@RequestMapping(value = "/", method = RequestMethod.GET, params = "accountId")
 	public ResponseEntity<Order[]> searchOrdersByAccountId (@RequestParam("accountId") int accountId) {
-		LOG.info("GET /orders/?accountId=" + accountId);
+		ACCESS_LOG.log("GET /orders/?accountId={}", accountId);
 		try {
 			Order[] foundOrders = orderDao.findAccountOrders(accountId);
 			return new ResponseEntity<>(foundOrders, HttpStatus.OK);
@@ -171,4 +263,53 @@ public class OrderController {
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/**
+	 * Responds to the GET request to export all {@linkplain Order orders}, for exports too large to build in memory.<br>
+	 * The orders are written to the response one at a time as they are read from the cache, so memory use stays flat
+	 * and the first orders are sent before the last ones are read.
+	 *
+	 * @param format "json" for a JSON array, the same as {@link #getOrders()}, or "ndjson" for one JSON order per line
+	 * @return ResponseEntity with a stream of {@link Order order} objects and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if the format is unknown<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportOrders (@RequestParam(defaultValue = "json") String format) {
+		ACCESS_LOG.log("GET /orders/export?format={}", format);
+		boolean lines = format.equals("ndjson");
+		if (!lines && !format.equals("json")) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		Iterator<Order> orders;
+		try {
+			orders = orderDao.iterateOrders();
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+
+		StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator generator = exportWriter.getFactory().createGenerator(outputStream)) {
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);  // the servlet container owns the stream
+				if (lines) {
+					generator.setRootValueSeparator(null);  // each order ends its own line instead
+				} else {
+					generator.writeStartArray();
+				}
+				while (orders.hasNext()) {
+					exportWriter.writeValue(generator, orders.next());
+					if (lines) {
+						generator.writeRaw('\n');
+					}
+				}
+				if (!lines) {
+					generator.writeEndArray();
+				}
+			}
+		};
+		MediaType type = lines ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+		return ResponseEntity.ok().contentType(type).body(body);
+	}
 }
@@ -3,6 +3,7 @@ package com.estore.api.estoreapi.orders.persistence;
 import com.estore.api.estoreapi.orders.model.Order;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 /**
  * Defines the interface for order object persistence.
@@ -48,6 +49,27 @@ public interface OrderDAO {
 	 */
 	Order[] getOrders () throws IOException;
 
+	/**
+	 * Retrieves a page of {@linkplain Order orders} in id order, to list them a page at a time.<br>
+	 * The next page starts after the last id of this page.
+	 *
+	 * @param after The id of the last {@link Order order} of the previous page, or null for the first page
+	 * @param limit The greatest number of {@link Order orders} to return
+	 * @return An array of up to limit {@link Order order} objects with ids after the given one, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Order[] getOrders (Integer after, int limit) throws IOException;
+
+	/**
+	 * Walks all {@linkplain Order orders} in id order without copying them, for exports too large for one array.<br>
+	 * The walk is over the live orders: an order created or deleted during the walk may or may not be seen, but no
+	 * order is seen twice.
+	 *
+	 * @return An iterator over the {@link Order orders}, may have none
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Iterator<Order> iterateOrders () throws IOException;
+
 	/**
 	 * Finds all {@linkplain Order orders} placed for a given screening.
 	 *
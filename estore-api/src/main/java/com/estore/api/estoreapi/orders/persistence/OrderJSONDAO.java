@@ -1,18 +1,36 @@
 package com.estore.api.estoreapi.orders.persistence;
 
 import com.estore.api.estoreapi.orders.model.Order;
+import com.estore.api.estoreapi.persistence.MutationEvent;
+import com.estore.api.estoreapi.persistence.Paging;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Implements the functionality for JSON file-based persistence for Orders.<p>
+ * When journaling is enabled each mutation is appended to a write-ahead log next to the storage file instead of
+ * rewriting the whole file, and the log is compacted into the storage file once it grows past a threshold.<p>
  * {@literal @}Component Spring annotation instantiates a single instance of this
  * class and injects the instance into other classes as needed
  *
@@ -20,27 +38,83 @@ import java.util.TreeMap;
  */
 @Component
 public class OrderJSONDAO implements OrderDAO {
-	/** A local cache of Order objects, to avoid reading from file each time. */
-	Map<Integer, Order> orders;
+	/* Logger is used to log to command line when the journal cannot be compacted. */
+	private static final Logger LOG = Logger.getLogger(OrderJSONDAO.class.getName());
+
+	/**
+	 * A local cache of Order objects, to avoid reading from file each time.<br>
+	 * Reads go straight to the concurrent map, so they never wait on a write. Writes lock the map so that they,
+	 * and the file they save, are applied one at a time.
+	 */
+	NavigableMap<Integer, Order> orders;
+	/** Index of the cached orders by screening id, each group ordered by order id. */
+	private Map<Integer, Map<Integer, Order>> ordersByScreening;
+	/** Index of the cached orders by account id, each group ordered by order id. */
+	private Map<Integer, Map<Integer, Order>> ordersByAccount;
+
+	/** How long orders being placed or deleted wait for the lock on the cached orders. */
+	private static final Timer LOCK_WAIT = Metrics.timer("dao.lock.wait", "lock", "orders");
 
 	/** The next id to assign to a new order. */
 	private static int nextId;
 
-	/** Name of the file to read and write to. */
-	private final String filename;
-	/** Provides conversion between Java Order and JSON Order objects. */
-	private final ObjectMapper objectMapper;
+	/** The file to read and write to, holding the orders in the storage format and replaced whole on every save. */
+	private final SnapshotFile file;
+	/** The write-ahead log of order mutations, null if journaling is disabled. */
+	private final OrderJournal journal;
+	/** Number of journal records after which the journal is compacted into the storage file. */
+	private final int compactThreshold;
+	/** Saves the cached orders to the file when there is no journal, waiting for each change if durable. */
+	private final WriteBehindPersister.Store store;
 
 	/**
-	 * Creates a Data Access Object for JSON-based Orders.
+	 * Creates a Data Access Object for JSON-based Orders, which rewrites the whole file on every mutation.
 	 *
 	 * @param filename     Filename to read from and write to
 	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
 	 * @throws IOException when file cannot be accessed or read from
 	 */
-	public OrderJSONDAO (@Value("${orders.file}") String filename, ObjectMapper objectMapper) throws IOException {
-		this.filename = filename;
-		this.objectMapper = objectMapper;
+	public OrderJSONDAO (String filename, ObjectMapper objectMapper) throws IOException {
+		this(filename, objectMapper, false, 0);
+	}
+
+	/**
+	 * Creates a Data Access Object for JSON-based Orders.
+	 *
+	 * @param filename         Filename to read from and write to
+	 * @param objectMapper     Provides JSON Object to/from Java Object serialization and deserialization
+	 * @param journalEnabled   Whether mutations are appended to a journal instead of rewriting the whole file
+	 * @param compactThreshold Number of journal records after which the journal is compacted into the file
+	 * @throws IOException when file cannot be accessed or read from
+	 */
+	public OrderJSONDAO (String filename, ObjectMapper objectMapper, boolean journalEnabled, int compactThreshold)
+		throws IOException {
+		this(filename, objectMapper, journalEnabled, compactThreshold, new WriteBehindPersister(), true,
+		     StorageFormat.JSON);
+	}
+
+	/**
+	 * Creates a Data Access Object for JSON-based Orders.
+	 *
+	 * @param filename         Filename to read from and write to
+	 * @param objectMapper     Provides JSON Object to/from Java Object serialization and deserialization
+	 * @param journalEnabled   Whether mutations are appended to a journal instead of rewriting the whole file
+	 * @param compactThreshold Number of journal records after which the journal is compacted into the file
+	 * @param persister        Saves the orders to the file when there is no journal
+	 * @param durable          Whether, without a journal, each change waits until it is saved to the file
+	 * @param format           The format to keep the file in
+	 * @throws IOException when file cannot be accessed or read from
+	 */
+	@Autowired
+	public OrderJSONDAO (@Value("${orders.file}") String filename, ObjectMapper objectMapper,
+	                     @Value("${orders.journal.enabled:false}") boolean journalEnabled,
+	                     @Value("${orders.journal.compactThreshold:1000}") int compactThreshold,
+	                     WriteBehindPersister persister, @Value("${orders.durable:true}") boolean durable,
+	                     @Value("${persistence.format:json}") StorageFormat format) throws IOException {
+		this.file = new SnapshotFile(filename, objectMapper, format);
+		this.journal = journalEnabled ? new OrderJournal(Paths.get(filename + ".journal"), objectMapper) : null;
+		this.compactThreshold = compactThreshold;
+		this.store = persister.register("orders", this::save, durable);
 		load();  // load the orders from the file
 	}
 
@@ -56,7 +130,7 @@ public class OrderJSONDAO implements OrderDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Order orders} from the tree map.
+	 * Generates an array of {@linkplain Order orders} from the map.
 	 *
 	 * @return The array of {@link Order orders}, may be empty
 	 */
@@ -68,45 +142,74 @@ public class OrderJSONDAO implements OrderDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Order orders} from the tree map for any
+	 * Generates an array of {@linkplain Order orders} from the screening index for any
 	 * {@linkplain Order orders} that has the given screening id.
 	 *
 	 * @param screeningId The screening id to find within a {@link Order orders} order.<p>
 	 * @return The array of {@link Order orders}, may be empty
 	 */
 	private Order[] getScreeningOrdersArray (int screeningId) {
-		ArrayList<Order> orderArrayList = new ArrayList<>();
-
-		for (Order order : orders.values()) {
-			if (order.screeningIdIs(screeningId)) {
-				orderArrayList.add(order);
-			}
-		}
-
-		Order[] orderArray = new Order[orderArrayList.size()];
-		orderArrayList.toArray(orderArray);
-		return orderArray;
+		return toArray(ordersByScreening.getOrDefault(screeningId, Collections.emptyMap()).values());
 	}
 
 	/**
-	 * Generates an array of {@linkplain Order orders} from the tree map for any
+	 * Generates an array of {@linkplain Order orders} from the account index for any
 	 * {@linkplain Order orders} that has the given account id.
 	 *
 	 * @param accountId The account id to find within a {@link Order orders} order.<p>
 	 * @return The array of {@link Order orders}, may be empty
 	 */
 	private Order[] getAccountOrdersArray (int accountId) {
-		ArrayList<Order> orderArrayList = new ArrayList<>();
+		return toArray(ordersByAccount.getOrDefault(accountId, Collections.emptyMap()).values());
+	}
 
-		for (Order order : orders.values()) {
-			if (order.accountIdIs(accountId)) {
-				orderArrayList.add(order);
+	/**
+	 * Copies a group of {@linkplain Order orders} into an array.
+	 *
+	 * @param group The {@link Order orders} to copy
+	 * @return The array of {@link Order orders}, may be empty
+	 */
+	private static Order[] toArray (Collection<Order> group) {
+		Order[] orderArray = new Order[group.size()];
+		group.toArray(orderArray);
+		return orderArray;
+	}
+
+	/**
+	 * Adds an {@linkplain Order order} to the screening and account indexes.
+	 *
+	 * @param order The {@link Order order} to index
+	 */
+	private void index (Order order) {
+		ordersByScreening.computeIfAbsent(order.getScreeningId(), key -> new ConcurrentSkipListMap<>()).put(order.getId(), order);
+		ordersByAccount.computeIfAbsent(order.getAccountId(), key -> new ConcurrentSkipListMap<>()).put(order.getId(), order);
+	}
+
+	/**
+	 * Removes an {@linkplain Order order} from the screening and account indexes.
+	 *
+	 * @param order The {@link Order order} to remove
+	 */
+	private void unindex (Order order) {
+		unindex(ordersByScreening, order.getScreeningId(), order);
+		unindex(ordersByAccount, order.getAccountId(), order);
+	}
+
+	/**
+	 * Removes an {@linkplain Order order} from one group of an index, dropping the group once it is empty.
+	 *
+	 * @param index The index to remove the {@link Order order} from
+	 * @param key   The key of the group the {@link Order order} belongs to
+	 * @param order The {@link Order order} to remove
+	 */
+	private static void unindex (Map<Integer, Map<Integer, Order>> index, int key, Order order) {
+		Map<Integer, Order> group = index.get(key);
+		if (group != null) {
+			group.remove(order.getId());
+			if (group.isEmpty()) {
+				index.remove(key);
 			}
 		}
-
-		Order[] orderArray = new Order[orderArrayList.size()];
-		orderArrayList.toArray(orderArray);
-		return orderArray;
 	}
 
 	/**
@@ -118,51 +221,176 @@ public class OrderJSONDAO implements OrderDAO {
 	private boolean save () throws IOException {
 		Order[] orderArray = getOrdersArray();
 
-		// Serializes the Java Objects to JSON objects into the file,
-		// writeValue will throw an IOException if there is an issue with or reading from the file
-		objectMapper.writeValue(new File(filename), orderArray);
+		// Serializes the Java Objects to JSON objects into a new snapshot of the file,
+		// write will throw an IOException if there is an issue with writing the file
+		file.write(orderArray);
 		return true;
 	}
 
 	/**
-	 * Loads {@linkplain Order orders} from the JSON file into the map.<br>
+	 * Records a mutation of the {@linkplain Order orders} map before it is applied. Without a journal the whole map
+	 * is saved by {@link #sync(long)}, otherwise the mutation is appended to the journal, so that a mutation that
+	 * cannot be recorded is never applied.<br>
+	 * Must be called while holding the orders lock.
+	 *
+	 * @param entry The journal record describing the mutation
+	 * @return The journal sequence number to {@linkplain #sync(long) sync}, 0 if there is nothing to sync
+	 * @throws IOException when the journal cannot be written to
+	 */
+	private long persist (OrderJournal.Entry entry) throws IOException {
+		return journal == null ? 0 : journal.append(entry);
+	}
+
+	/**
+	 * Compacts the journal into the storage file once it has grown past the threshold, after a mutation recorded by
+	 * {@link #persist(OrderJournal.Entry)} has been applied.<br>
+	 * The mutation is already in the journal, so if compacting fails it is only logged, and tried again after the next
+	 * mutation.<br>
+	 * Must be called while holding the orders lock.
+	 *
+	 * @param sequence The journal sequence number of the mutation
+	 * @return The journal sequence number to {@linkplain #sync(long) sync}, 0 if there is nothing to sync
+	 */
+	private long compactIfFull (long sequence) {
+		if (journal == null || journal.size() < compactThreshold) {
+			return sequence;
+		}
+		try {
+			compact();
+			return 0;
+		} catch (IOException e) {
+			LOG.log(Level.WARNING, "Could not compact the order journal, keeping its records", e);
+			return sequence;
+		}
+	}
+
+	/**
+	 * Waits until a mutation recorded by {@link #persist(OrderJournal.Entry)} is on disk, in the journal, or without
+	 * a journal in the file. A write-behind store returns at once, and saves the file later.<br>
+	 * Called after releasing the orders lock so that concurrent mutations share a single fsync or file write.
+	 *
+	 * @param sequence The journal sequence number, 0 if there is nothing to sync
+	 * @throws IOException when the journal cannot be forced to disk, or the file cannot be written to
+	 */
+	private void sync (long sequence) throws IOException {
+		if (journal == null) {
+			store.changed();
+		} else if (sequence > 0) {
+			journal.sync(sequence);
+		}
+	}
+
+	/**
+	 * Saves the {@linkplain Order orders} into the file and empties the journal, whose records are now part of the file.<br>
+	 * Must be called while holding the orders lock.
+	 *
+	 * @throws IOException when file cannot be accessed or written to
+	 */
+	private void compact () throws IOException {
+		save();
+		journal.truncate();
+	}
+
+	/**
+	 * Applies the records of the journal on top of the {@linkplain Order orders} loaded from the file.
+	 *
+	 * @throws IOException when the journal cannot be accessed or read from
+	 */
+	private void replay () throws IOException {
+		for (OrderJournal.Entry entry : journal.replay()) {
+			if (entry.getOperation() == OrderJournal.Entry.Operation.CREATE) {
+				orders.put(entry.getId(), entry.getOrder());
+				if (entry.getId() > nextId) {
+					nextId = entry.getId();
+				}
+			} else {
+				orders.remove(entry.getId());
+			}
+		}
+	}
+
+	/**
+	 * Loads {@linkplain Order orders} from the JSON file into the map, then replays the journal if there is one,
+	 * and rebuilds the screening and account indexes.<br>
 	 * Also sets this object's nextId to one more than the greatest id found in the file.
 	 *
 	 * @return true if the file was read successfully
 	 * @throws IOException when file cannot be accessed or read from
 	 */
 	private boolean load () throws IOException {
-		orders = new TreeMap<>();
+		orders = new ConcurrentSkipListMap<>();
 		nextId = 0;
 
 		// Deserializes the JSON objects from the file into an array of orders,
-		// readValue will throw an IOException if there's an issue with or reading from the file
-		Order[] orderArray = objectMapper.readValue(new File(filename), Order[].class);
+		// read will throw an IOException if neither the file nor its backup can be read
+		Order[] orderArray = file.read(Order[].class);
 
-		// Add each order to the tree map and keep track of the greatest id
+		// Add each order to the map and keep track of the greatest id
 		for (Order order : orderArray) {
 			orders.put(order.getId(), order);
 			if (order.getId() > nextId) {
 				nextId = order.getId();
 			}
 		}
+
+		if (journal != null) {
+			replay();
+			if (journal.size() > 0) {
+				compact();  // start with an empty journal
+			}
+		}
+
+		ordersByScreening = new ConcurrentHashMap<>();
+		ordersByAccount = new ConcurrentHashMap<>();
+		for (Order order : orders.values()) {
+			index(order);
+		}
 		// Make the next id one greater than the maximum from the file
 		++nextId;
 		return true;
 	}
 
+	/**
+	 * Closes the journal, if there is one, when the application shuts down.
+	 *
+	 * @throws IOException when the journal cannot be closed
+	 */
+	@PreDestroy
+	void close () throws IOException {
+		if (journal != null) {
+			journal.close();
+		}
+	}
+
 	/**
 	 * * {@inheritDoc}
 	 */
 	@Override
 	public Order createOrder (Order order) throws IOException {
-		synchronized (orders) {
-			// We create a new order object because the id field is immutable, and we need to assign the next unique id
-			Order newOrder = new Order(nextId(), order.getScreeningId(), order.getAccountId(), order.getTickets(), order.getPopcorn(),
-			                           order.getSoda(), order.getSeats());
-			orders.put(newOrder.getId(), newOrder);
-			save(); // may throw an IOException
+		MutationEvent event = MutationEvent.start("Order", "createOrder", 0);
+		try {
+			Order newOrder;
+			long sequence;
+			Timer.Sample waiting = Timer.start();
+			synchronized (orders) {
+				event.waited(waiting.stop(LOCK_WAIT));
+				// We create a new order object because the id field is immutable, and we need to assign the next unique id
+				newOrder = new Order(nextId(), order.getScreeningId(), order.getAccountId(), order.getTickets(), order.getPopcorn(),
+				                     order.getSoda(), order.getSeats());
+				event.setId(newOrder.getId());
+				long journaling = System.nanoTime();
+				sequence = persist(OrderJournal.Entry.created(newOrder)); // may throw an IOException
+				orders.put(newOrder.getId(), newOrder);
+				index(newOrder);
+				sequence = compactIfFull(sequence);
+				event.persisted(System.nanoTime() - journaling);
+			}
+			long persisting = System.nanoTime();
+			sync(sequence);
+			event.persisted(System.nanoTime() - persisting);
 			return newOrder;
+		} finally {
+			event.record();
 		}
 	}
 
@@ -171,13 +399,27 @@ public class OrderJSONDAO implements OrderDAO {
 	 */
 	@Override
 	public boolean deleteOrder (int id) throws IOException {
-		synchronized (orders) {
-			if (orders.containsKey(id)) {
-				orders.remove(id);
-				return save();
-			} else {
-				return false;
+		MutationEvent event = MutationEvent.start("Order", "deleteOrder", id);
+		try {
+			long sequence;
+			Timer.Sample waiting = Timer.start();
+			synchronized (orders) {
+				event.waited(waiting.stop(LOCK_WAIT));
+				if (!orders.containsKey(id)) {
+					return false;
+				}
+				long journaling = System.nanoTime();
+				sequence = persist(OrderJournal.Entry.deleted(id)); // may throw an IOException
+				unindex(orders.remove(id));
+				sequence = compactIfFull(sequence);
+				event.persisted(System.nanoTime() - journaling);
 			}
+			long persisting = System.nanoTime();
+			sync(sequence);
+			event.persisted(System.nanoTime() - persisting);
+			return true;
+		} finally {
+			event.record();
 		}
 	}
 
@@ -186,13 +428,7 @@ public class OrderJSONDAO implements OrderDAO {
 	 */
 	@Override
 	public Order getOrder (int id) {
-		synchronized (orders) {
-			if (orders.containsKey(id)) {
-				return orders.get(id);
-			} else {
-				return null;
-			}
-		}
+		return orders.get(id);
 	}
 
 	/**
@@ -200,9 +436,23 @@ public class OrderJSONDAO implements OrderDAO {
 	 */
 	@Override
 	public Order[] getOrders () {
-		synchronized (orders) {
-			return getOrdersArray();
-		}
+		return getOrdersArray();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Order[] getOrders (Integer after, int limit) {
+		return Paging.page(orders, after, limit, Order[]::new);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Order> iterateOrders () {
+		return Collections.unmodifiableCollection(orders.values()).iterator();
 	}
 
 	/**
@@ -210,9 +460,7 @@ public class OrderJSONDAO implements OrderDAO {
 	 */
 	@Override
 	public Order[] findScreeningOrders (int screeningId) {
-		synchronized (orders) {
-			return getScreeningOrdersArray(screeningId);
-		}
+		return getScreeningOrdersArray(screeningId);
 	}
 
 	/**
@@ -220,8 +468,6 @@ public class OrderJSONDAO implements OrderDAO {
 	 */
 	@Override
 	public Order[] findAccountOrders (int accountId) {
-		synchronized (orders) {
-			return getAccountOrdersArray(accountId);
-		}
+		return getAccountOrdersArray(accountId);
 	}
 }
@@ -0,0 +1,283 @@
+package com.estore.api.estoreapi.orders.persistence;
+
+import com.estore.api.estoreapi.orders.model.Order;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An append-only write-ahead log of {@linkplain Order order} mutations.<p>
+ * Each mutation is written as a single line of JSON. Appending only writes the record to the file, callers then
+ * {@linkplain #sync(long) sync} up to the sequence number they were given. Concurrent callers share a single fsync:
+ * whichever thread syncs first forces every record appended so far, so the others find their record already durable.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+class OrderJournal implements Closeable {
+	/* Logger is used to report a torn record found at the end of the journal. */
+	private static final Logger LOG = Logger.getLogger(OrderJournal.class.getName());
+
+	/** Separates records in the journal file. */
+	private static final byte NEWLINE = '\n';
+
+	/** The journal file. */
+	private final Path path;
+	/** Reads records from the journal file. */
+	private final ObjectMapper objectMapper;
+	/** Writes records to the journal file, always on a single line. */
+	private final ObjectWriter objectWriter;
+	/** Guards forcing the channel, so only one thread fsyncs at a time. */
+	private final Object syncLock = new Object();
+
+	/** The open journal file, null until the journal has been replayed. */
+	private FileChannel channel;
+	/** Sequence number of the last record appended. */
+	private long appended;
+	/** Sequence number of the last record known to be on disk. */
+	private long synced;
+	/** Number of records in the journal since it was last truncated. */
+	private int size;
+
+	/**
+	 * Creates a journal backed by the given file. The file is not opened until {@link #replay()} is called.
+	 *
+	 * @param path         The journal file
+	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 */
+	OrderJournal (Path path, ObjectMapper objectMapper) {
+		this.path = path;
+		this.objectMapper = objectMapper;
+		this.objectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	/**
+	 * Reads every complete record from the journal and opens it for appending.<br>
+	 * A torn record at the end of the file, left by a crash in the middle of an append, is discarded.
+	 *
+	 * @return The records in the order they were appended, may be empty
+	 * @throws IOException when the file cannot be accessed or read from
+	 */
+	synchronized List<Entry> replay () throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		long validLength = 0;
+
+		if (Files.exists(path)) {
+			byte[] bytes = Files.readAllBytes(path);
+			int start = 0;
+			for (int i = 0; i < bytes.length; ++i) {
+				if (bytes[i] != NEWLINE) {
+					continue;
+				}
+				Entry entry = parse(Arrays.copyOfRange(bytes, start, i));
+				if (entry == null) {
+					break;
+				}
+				entries.add(entry);
+				start = i + 1;
+				validLength = start;
+			}
+			if (validLength < bytes.length) {
+				LOG.log(Level.WARNING, "Discarding {0} bytes of torn records from {1}", new Object[]{ bytes.length - validLength, path });
+			}
+		}
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		channel.truncate(validLength);
+		channel.position(validLength);
+		size = entries.size();
+		return entries;
+	}
+
+	/**
+	 * Parses a single journal record.
+	 *
+	 * @param line The bytes of one line of the journal, without the newline
+	 * @return The record, or null if the line is not a valid record
+	 */
+	private Entry parse (byte[] line) {
+		try {
+			return objectMapper.readValue(line, Entry.class);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a record to the end of the journal. The record is not guaranteed to be on disk until
+	 * {@link #sync(long)} has been called with the returned sequence number.<br>
+	 * If the write fails part way, the part already written is cut off again, so the records appended afterwards are
+	 * not hidden behind a torn record on replay.
+	 *
+	 * @param entry The record to append
+	 * @return The sequence number of the appended record
+	 * @throws IOException when the file cannot be written to
+	 */
+	synchronized long append (Entry entry) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(toLine(entry));
+		long start = channel.position();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			try {
+				channel.truncate(start);
+				channel.position(start);
+			} catch (IOException truncateError) {
+				e.addSuppressed(truncateError);
+			}
+			throw e;
+		}
+		++size;
+		return ++appended;
+	}
+
+	/**
+	 * Serializes a record into a single newline terminated line.
+	 *
+	 * @param entry The record to serialize
+	 * @return The bytes of the line
+	 * @throws JsonProcessingException when the record cannot be serialized
+	 */
+	private byte[] toLine (Entry entry) throws JsonProcessingException {
+		return (objectWriter.writeValueAsString(entry) + (char) NEWLINE).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Makes sure every record up to and including the given sequence number is on disk.
+	 *
+	 * @param sequence The sequence number returned by {@link #append(Entry)}
+	 * @throws IOException when the file cannot be forced to disk
+	 */
+	void sync (long sequence) throws IOException {
+		synchronized (syncLock) {
+			if (synced >= sequence) {
+				return;  // another thread's fsync already covered this record
+			}
+			long target;
+			synchronized (this) {
+				target = appended;
+			}
+			channel.force(false);
+			synced = target;
+		}
+	}
+
+	/**
+	 * Removes every record from the journal, once they are part of a snapshot.
+	 *
+	 * @throws IOException when the file cannot be truncated
+	 */
+	void truncate () throws IOException {
+		synchronized (syncLock) {
+			synchronized (this) {
+				channel.truncate(0);
+				channel.force(true);
+				size = 0;
+				synced = appended;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of records in the journal since it was last truncated
+	 */
+	synchronized int size () {
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void close () throws IOException {
+		if (channel != null) {
+			channel.force(false);
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * A single mutation recorded in the journal.
+	 */
+	static class Entry {
+		/** The kinds of mutation that can be recorded. */
+		enum Operation { CREATE, DELETE }
+
+		/** The mutation that was performed. */
+		@JsonProperty("op") private final Operation operation;
+		/** The id of the order that was created or deleted. */
+		@JsonProperty("id") private final int id;
+		/** The order that was created, null for a deletion. */
+		@JsonProperty("order") private final Order order;
+
+		/**
+		 * Create a journal record.
+		 *
+		 * @param operation The mutation that was performed
+		 * @param id        The id of the order that was created or deleted
+		 * @param order     The order that was created, null for a deletion
+		 */
+		@JsonCreator
+		Entry (@JsonProperty("op") Operation operation, @JsonProperty("id") int id, @JsonProperty("order") Order order) {
+			this.operation = operation;
+			this.id = id;
+			this.order = order;
+		}
+
+		/**
+		 * @param order The order that was created
+		 * @return A record of the order's creation
+		 */
+		static Entry created (Order order) {
+			return new Entry(Operation.CREATE, order.getId(), order);
+		}
+
+		/**
+		 * @param id The id of the order that was deleted
+		 * @return A record of the order's deletion
+		 */
+		static Entry deleted (int id) {
+			return new Entry(Operation.DELETE, id, null);
+		}
+
+		/**
+		 * @return The mutation that was performed
+		 */
+		Operation getOperation () {
+			return operation;
+		}
+
+		/**
+		 * @return The id of the order that was created or deleted
+		 */
+		int getId () {
+			return id;
+		}
+
+		/**
+		 * @return The order that was created, null for a deletion
+		 */
+		Order getOrder () {
+			return order;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.estore.api.estoreapi.persistence;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every public method of the Data Access Objects, under the {@code dao.calls} timer tagged with the DAO, the
+ * method and the exception it threw, if any.<p>
+ * Only calls from other beans are timed, a DAO calling its own methods is timed once for the outer call. The timers of
+ * a method are looked up in the registry on its first call and kept, so later calls only read a map.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Aspect
+@Component
+public class DAOMetrics {
+	/** The registry the timers are kept in. */
+	private final MeterRegistry registry;
+	/** The timers of each method of each DAO class, filled in as the methods are first called. */
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodTimers>> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the DAO timers.
+	 *
+	 * @param registry The registry to keep the timers in
+	 */
+	public DAOMetrics (MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Times a call to a DAO.
+	 *
+	 * @param call The call
+	 * @return The result of the call
+	 * @throws Throwable whatever the call throws
+	 */
+	@Around("within(com.estore.api.estoreapi..persistence.*DAO) && execution(public * *(..))")
+	public Object time (ProceedingJoinPoint call) throws Throwable {
+		Timer.Sample sample = Timer.start(registry);
+		MethodTimers methodTimers = timers(call);
+		try {
+			Object result = call.proceed();
+			sample.stop(methodTimers.completed);
+			return result;
+		} catch (Throwable e) {
+			sample.stop(methodTimers.threw(e.getClass()));
+			throw e;
+		}
+	}
+
+	/**
+	 * @param call A call to a DAO
+	 * @return The timers of the method called
+	 */
+	private MethodTimers timers (ProceedingJoinPoint call) {
+		Class<?> dao = call.getTarget().getClass();
+		Method method = ((MethodSignature) call.getSignature()).getMethod();
+		return timers.computeIfAbsent(dao, type -> new ConcurrentHashMap<>())
+		             .computeIfAbsent(method, m -> new MethodTimers(dao.getSimpleName(), m.getName()));
+	}
+
+	/**
+	 * The timers of one method of a DAO: one for the calls that return, and one for each exception thrown.
+	 */
+	private final class MethodTimers {
+		/** The simple name of the DAO class. */
+		private final String dao;
+		/** The name of the method. */
+		private final String method;
+		/** Times the calls that return. */
+		private final Timer completed;
+		/** Times the calls that throw, by the class of the exception, filled in as exceptions are first thrown. */
+		private final ConcurrentMap<Class<?>, Timer> failed = new ConcurrentHashMap<>();
+
+		/**
+		 * Create the timers of a method.
+		 *
+		 * @param dao    The simple name of the DAO class
+		 * @param method The name of the method
+		 */
+		MethodTimers (String dao, String method) {
+			this.dao = dao;
+			this.method = method;
+			this.completed = timer("none");
+		}
+
+		/**
+		 * @param exception The class of the exception the call threw
+		 * @return The timer of the calls that threw it
+		 */
+		Timer threw (Class<?> exception) {
+			return failed.computeIfAbsent(exception, type -> timer(type.getSimpleName()));
+		}
+
+		/**
+		 * @param exception The exception tag of the timer
+		 * @return The timer registered with the tags of this method
+		 */
+		private Timer timer (String exception) {
+			return Timer.builder("dao.calls")
+			            .description("Calls to the Data Access Objects")
+			            .tag("dao", dao)
+			            .tag("method", method)
+			            .tag("exception", exception)
+			            .register(registry);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.estore.api.estoreapi.persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for a change made through a Data Access Object, such as placing an order or reserving
+ * seats.<p>
+ * The duration of the event is split into the time spent waiting for the DAO's locks, the time spent persisting the
+ * change, and the rest, spent making the change in memory.<p>
+ * While no recording has the event enabled, changes share a single event that is never begun or recorded, so the DAOs
+ * do not allocate an event for every change only to throw it away.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Name("com.estore.Mutation")
+@Label("DAO Mutation")
+@Category({ "E-Store", "Persistence" })
+@Description("A change made to the cached entities of a Data Access Object")
+public class MutationEvent extends jdk.jfr.Event {
+	/** Stands in for the events of changes made while no recording has the event enabled. */
+	private static final MutationEvent DISABLED = new MutationEvent(null, null, 0);
+	/** The type of the event, which knows whether any recording has it enabled. */
+	private static final EventType TYPE = EventType.getEventType(MutationEvent.class);
+
+	@Label("Entity")
+	private String entity;
+
+	@Label("Operation")
+	private String operation;
+
+	@Label("Id")
+	private int id;
+
+	@Label("Lock Wait")
+	@Description("Time spent waiting for the locks of the DAO")
+	@Timespan
+	private long lockWait;
+
+	@Label("Persist Time")
+	@Description("Time spent journaling or saving the change, or handing it to the write-behind persister")
+	@Timespan
+	private long persistTime;
+
+	/**
+	 * Create an event for a change.
+	 *
+	 * @param entity    The type of entity changed, e.g. "Screening"
+	 * @param operation The change, e.g. "reserveSeats"
+	 * @param id        The id of the entity, 0 if not known yet
+	 */
+	private MutationEvent (String entity, String operation, int id) {
+		this.entity = entity;
+		this.operation = operation;
+		this.id = id;
+	}
+
+	/**
+	 * Starts timing a change. The event is recorded when it is {@linkplain #record() recorded}.
+	 *
+	 * @param entity    The type of entity changed, e.g. "Screening"
+	 * @param operation The change, e.g. "reserveSeats"
+	 * @param id        The id of the entity, 0 if not known yet
+	 * @return The started event, or the shared disabled one if no recording has the event enabled
+	 */
+	public static MutationEvent start (String entity, String operation, int id) {
+		if (!TYPE.isEnabled()) {
+			return DISABLED;
+		}
+		MutationEvent event = new MutationEvent(entity, operation, id);
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * @param id The id of the entity, once it is known
+	 */
+	public void setId (int id) {
+		if (this != DISABLED) {
+			this.id = id;
+		}
+	}
+
+	/**
+	 * @param nanos Time spent waiting for a lock, added to the lock wait of the change
+	 */
+	public void waited (long nanos) {
+		if (this != DISABLED) {
+			lockWait += nanos;
+		}
+	}
+
+	/**
+	 * @param nanos Time spent persisting the change, added to its persist time
+	 */
+	public void persisted (long nanos) {
+		if (this != DISABLED) {
+			persistTime += nanos;
+		}
+	}
+
+	/**
+	 * Ends the change and records its event. The shared disabled event is never recorded, even if a recording was
+	 * started since, as it was never begun.
+	 */
+	public void record () {
+		if (this != DISABLED) {
+			commit();
+		}
+	}
+}
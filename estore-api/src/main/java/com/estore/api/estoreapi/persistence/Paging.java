@@ -0,0 +1,59 @@
+package com.estore.api.estoreapi.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cuts pages out of the sorted caches of the JSON DAOs.<p>
+ * A cache is sorted by key, so the page after a key is a walk of the cache's tail however many entries come before
+ * it, and the caller pages on by passing the key of the last entry it was given.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public final class Paging {
+	private Paging () {
+	}
+
+	/**
+	 * Retrieves a page of values in key order.
+	 *
+	 * @param map      The cache to page through
+	 * @param after    The key of the last value of the previous page, or null for the first page
+	 * @param limit    The greatest number of values to return
+	 * @param newArray Creates the array of the page, given its length
+	 * @param <K>      The type of the keys
+	 * @param <V>      The type of the values
+	 * @return An array of up to limit values with keys after the given one, may be empty
+	 */
+	public static <K, V> V[] page (NavigableMap<K, V> map, K after, int limit, IntFunction<V[]> newArray) {
+		return page(map, after, limit, UnaryOperator.identity(), newArray);
+	}
+
+	/**
+	 * Retrieves a page of values in key order, each passed through a view before it is returned.
+	 *
+	 * @param map      The cache to page through
+	 * @param after    The key of the last value of the previous page, or null for the first page
+	 * @param limit    The greatest number of values to return
+	 * @param view     Turns a cached value into the value returned
+	 * @param newArray Creates the array of the page, given its length
+	 * @param <K>      The type of the keys
+	 * @param <V>      The type of the values
+	 * @return An array of up to limit values with keys after the given one, may be empty
+	 */
+	public static <K, V> V[] page (NavigableMap<K, V> map, K after, int limit, UnaryOperator<V> view,
+	                               IntFunction<V[]> newArray) {
+		NavigableMap<K, V> tail = after == null ? map : map.tailMap(after, false);
+		List<V> page = new ArrayList<>(Math.max(Math.min(limit, 64), 0));
+		for (V value : tail.values()) {
+			if (page.size() >= limit) {
+				break;
+			}
+			page.add(view.apply(value));
+		}
+		return page.toArray(newArray.apply(page.size()));
+	}
+}
@@ -0,0 +1,419 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * A storage file that is replaced whole and atomically, so a crash while saving never leaves a torn file behind.<p>
+ * A snapshot is written to a temporary file, forced to disk and then renamed over the storage file. Its CRC32C is
+ * kept in a sidecar file next to it, and the previous snapshot is copied to a backup first:
+ * <ul>
+ * <li>{@code storage.json} and {@code storage.json.crc}, the latest snapshot and its checksum</li>
+ * <li>{@code storage.json.bak} and {@code storage.json.bak.crc}, the snapshot before it</li>
+ * </ul>
+ * Loading checks the checksum, and falls back to the backup if the latest snapshot is missing, does not match its
+ * checksum or cannot be parsed. A snapshot without a checksum, such as one written by hand or before checksums were
+ * kept, is parsed as it is.<p>
+ * The snapshot is kept in one {@linkplain StorageFormat format}. If there is no file in that format yet, but there
+ * is one in another format, the first load reads that one, writes it again in this format and deletes it, so that
+ * switching back later moves the latest snapshot back rather than finding the one left behind.<p>
+ * Loads and saves are timed, and the size of each saved snapshot recorded, under the {@code persistence.load},
+ * {@code persistence.save} and {@code persistence.save.size} meters tagged with the configured filename, and each
+ * is recorded as a {@linkplain SnapshotLoadEvent load} or {@linkplain SnapshotSaveEvent save} Flight Recorder event.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public class SnapshotFile {
+	/* Logger is used to log to command line when a snapshot is damaged or moved over from another format. */
+	private static final Logger LOG = Logger.getLogger(SnapshotFile.class.getName());
+
+	/** The configured storage filename, which the file of each format is named after. */
+	private final String filename;
+	/** The format of the file. */
+	private final StorageFormat format;
+	/** The application's JSON object mapper, to read the file of another format when migrating. */
+	private final ObjectMapper jsonMapper;
+	/** The storage file. */
+	private final Path path;
+	/** The checksum of the storage file. */
+	private final Path checksumPath;
+	/** The previous snapshot. */
+	private final Path backupPath;
+	/** The checksum of the previous snapshot. */
+	private final Path backupChecksumPath;
+	/** Provides conversion between Java objects and the contents of the file. */
+	private final ObjectMapper objectMapper;
+	/** How long reading a snapshot takes, including checking it and falling back to the backup. */
+	private final Timer loadTimer;
+	/** How long writing a snapshot takes, including forcing it to disk. */
+	private final Timer saveTimer;
+	/** The size of each snapshot written. */
+	private final DistributionSummary saveSize;
+	/** Told the number of each step of a save once it is done, so tests can stop a save part way as a crash would. */
+	IntConsumer afterStep = step -> {
+	};
+
+	/**
+	 * Create a snapshot file kept as JSON.
+	 *
+	 * @param filename     The storage file to read from and write to
+	 * @param objectMapper Provides conversion between Java objects and JSON
+	 */
+	public SnapshotFile (String filename, ObjectMapper objectMapper) {
+		this(filename, objectMapper, StorageFormat.JSON);
+	}
+
+	/**
+	 * Create a snapshot file.
+	 *
+	 * @param filename     The configured storage filename, which the file is named after
+	 * @param objectMapper The application's JSON object mapper
+	 * @param format       The format to keep the file in
+	 */
+	public SnapshotFile (String filename, ObjectMapper objectMapper, StorageFormat format) {
+		String formatFilename = format.filename(filename);
+		this.filename = filename;
+		this.format = format;
+		this.jsonMapper = objectMapper;
+		this.path = Paths.get(formatFilename);
+		this.checksumPath = Paths.get(formatFilename + ".crc");
+		this.backupPath = Paths.get(formatFilename + ".bak");
+		this.backupChecksumPath = Paths.get(formatFilename + ".bak.crc");
+		this.objectMapper = format.mapper(objectMapper);
+		this.loadTimer = Metrics.timer("persistence.load", "file", filename, "format", format.name());
+		this.saveTimer = Metrics.timer("persistence.save", "file", filename, "format", format.name());
+		this.saveSize = DistributionSummary.builder("persistence.save.size")
+		                                   .baseUnit(BaseUnits.BYTES)
+		                                   .tags("file", filename, "format", format.name())
+		                                   .register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * Reads the latest good snapshot.
+	 *
+	 * @param type The type of the snapshot
+	 * @param <T>  The type of the snapshot
+	 * @return The snapshot
+	 * @throws IOException when neither the storage file nor its backup can be read, matched with its checksum and parsed
+	 */
+	public <T> T read (Class<T> type) throws IOException {
+		SnapshotLoadEvent event = new SnapshotLoadEvent();
+		event.begin();
+		Timer.Sample sample = Timer.start();
+		try {
+			return readLatest(type, event);
+		} finally {
+			sample.stop(loadTimer);
+			event.file = filename;
+			event.format = format.name();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Reads the latest good snapshot, migrating it from another format first if needed.
+	 *
+	 * @param type  The type of the snapshot
+	 * @param event The Flight Recorder event of the load
+	 * @param <T>   The type of the snapshot
+	 * @return The snapshot
+	 * @throws IOException when neither the storage file nor its backup can be read, matched with its checksum and parsed
+	 */
+	private <T> T readLatest (Class<T> type, SnapshotLoadEvent event) throws IOException {
+		if (!exists()) {
+			T migrated = migrate(type);
+			if (migrated != null) {
+				return migrated;
+			}
+		}
+
+		try {
+			return read(path, checksumPath, type, event);
+		} catch (IOException e) {
+			if (!Files.exists(backupPath)) {
+				throw e;
+			}
+			LOG.log(Level.WARNING, "Could not read " + path + ", loading " + backupPath + " instead: "
+			                       + e.getLocalizedMessage());
+			try {
+				event.backup = true;
+				return read(backupPath, backupChecksumPath, type, event);
+			} catch (IOException backupException) {
+				e.addSuppressed(backupException);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * @return True if there is a snapshot or a backup in this format
+	 */
+	private boolean exists () {
+		return exists(path.toString());
+	}
+
+	/**
+	 * @param formatFilename The file a snapshot is kept in, in some format
+	 * @return True if there is a snapshot or a backup in that file
+	 */
+	private static boolean exists (String formatFilename) {
+		return Files.exists(Paths.get(formatFilename)) || Files.exists(Paths.get(formatFilename + ".bak"));
+	}
+
+	/**
+	 * Moves the snapshot over from the file of another format, if there is one. The other file, its backup and their
+	 * checksums are deleted once the snapshot is saved in this format.
+	 *
+	 * @param type The type of the snapshot
+	 * @param <T>  The type of the snapshot
+	 * @return The snapshot, or null if there is no file in any other format
+	 * @throws IOException when the other file cannot be read, or the snapshot cannot be written in this format
+	 */
+	private <T> T migrate (Class<T> type) throws IOException {
+		for (StorageFormat other : StorageFormat.values()) {
+			if (other == format) {
+				continue;
+			}
+			if (exists(other.filename(filename))) {
+				SnapshotFile previous = new SnapshotFile(filename, jsonMapper, other);
+				T value = previous.read(type);
+				write(value);
+				previous.delete();
+				LOG.info("Migrated " + previous.path + " to " + path);
+				return value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Deletes the storage file, its backup and their checksums.
+	 *
+	 * @throws IOException when a file cannot be deleted
+	 */
+	private void delete () throws IOException {
+		Files.deleteIfExists(checksumPath);
+		Files.deleteIfExists(path);
+		Files.deleteIfExists(backupChecksumPath);
+		Files.deleteIfExists(backupPath);
+		forceDirectory();
+	}
+
+	/**
+	 * Reads one snapshot, checking it against its checksum if it has one.
+	 *
+	 * @param snapshot The snapshot file
+	 * @param checksum The checksum file
+	 * @param type     The type of the snapshot
+	 * @param event    The Flight Recorder event of the load, given the size of the file
+	 * @param <T>      The type of the snapshot
+	 * @return The snapshot
+	 * @throws IOException when the file cannot be read, does not match its checksum or cannot be parsed
+	 */
+	private <T> T read (Path snapshot, Path checksum, Class<T> type, SnapshotLoadEvent event) throws IOException {
+		String expected;
+		try {
+			expected = Files.readString(checksum, StandardCharsets.US_ASCII).trim();
+		} catch (NoSuchFileException e) {
+			File file = snapshot.toFile();
+			event.bytes = file.length();
+			return objectMapper.readValue(file, type);  // no checksum kept for this file
+		}
+
+		byte[] content = Files.readAllBytes(snapshot);
+		event.bytes = content.length;
+		Checksum crc = new CRC32C();
+		crc.update(content, 0, content.length);
+		String actual = hex(crc);
+		if (!actual.equals(expected)) {
+			throw new IOException(snapshot + " is damaged, its checksum is " + actual + " instead of " + expected);
+		}
+		return objectMapper.readValue(content, type);
+	}
+
+	/**
+	 * Replaces the storage file with a new snapshot, keeping the one it replaces as the backup.<br>
+	 * If this fails, or the process stops part way, the storage file or its backup still holds a complete snapshot.
+	 *
+	 * @param value The snapshot
+	 * @throws IOException when the file cannot be written to
+	 */
+	public synchronized void write (Object value) throws IOException {
+		SnapshotSaveEvent event = new SnapshotSaveEvent();
+		event.begin();
+		Timer.Sample sample = Timer.start();
+		try {
+			replace(value, event);
+		} finally {
+			sample.stop(saveTimer);
+			event.file = filename;
+			event.format = format.name();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Writes a new snapshot and renames it over the storage file.
+	 *
+	 * @param value The snapshot
+	 * @param event The Flight Recorder event of the save, given the size of the snapshot and the time spent syncing
+	 * @throws IOException when the file cannot be written to
+	 */
+	private void replace (Object value, SnapshotSaveEvent event) throws IOException {
+		Path temporary = sibling(path, ".tmp");
+		Path temporaryChecksum = sibling(checksumPath, ".tmp");
+
+		Checksum crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream out = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), crc);
+			objectMapper.writeValue(new UnclosedOutputStream(out), value);
+			out.flush();
+			long syncing = System.nanoTime();
+			channel.force(true);
+			event.syncTime += System.nanoTime() - syncing;
+			event.bytes = channel.size();
+			saveSize.record(event.bytes);
+		}
+		long syncing = System.nanoTime();
+		writeDurably(temporaryChecksum, hex(crc).getBytes(StandardCharsets.US_ASCII));
+		event.syncTime += System.nanoTime() - syncing;
+		afterStep.accept(1);
+
+		// The current pair is copied to the backup, never moved, so the storage file and its checksum always match
+		// until the new pair is renamed over them. The backup loses its checksum first, as a backup without one is
+		// parsed as it is but one with the checksum of another snapshot is not.
+		if (Files.exists(path)) {
+			Files.deleteIfExists(backupChecksumPath);
+			afterStep.accept(2);
+			copyDurably(path, backupPath);
+			afterStep.accept(3);
+			if (Files.exists(checksumPath)) {
+				copyDurably(checksumPath, backupChecksumPath);
+			}
+			forceDirectory();
+			afterStep.accept(4);
+		}
+		// From here until the storage file is renamed it does not match its checksum, so loads use the backup
+		Files.move(temporaryChecksum, checksumPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		afterStep.accept(5);
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		afterStep.accept(6);
+		syncing = System.nanoTime();
+		forceDirectory();
+		event.syncTime += System.nanoTime() - syncing;
+	}
+
+	/**
+	 * Replaces a file with a copy of another, atomically. The copy is a hard link where the file system allows it, as
+	 * neither file is ever written in place.
+	 *
+	 * @param from The file to copy
+	 * @param to   The file to replace
+	 * @throws IOException when the file cannot be copied
+	 */
+	private static void copyDurably (Path from, Path to) throws IOException {
+		Path temporary = sibling(to, ".tmp");
+		Files.deleteIfExists(temporary);
+		try {
+			Files.createLink(temporary, from);
+		} catch (UnsupportedOperationException | IOException e) {
+			writeDurably(temporary, Files.readAllBytes(from));
+		}
+		Files.move(temporary, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Writes a small file and forces it to disk.
+	 *
+	 * @param file    The file
+	 * @param content The contents of the file
+	 * @throws IOException when the file cannot be written to
+	 */
+	private static void writeDurably (Path file, byte[] content) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream out = Channels.newOutputStream(channel);
+			out.write(content);
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Forces the renames in the directory of the storage file to disk, where the platform allows it.
+	 */
+	private void forceDirectory () {
+		Path directory = path.toAbsolutePath().getParent();
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Some platforms cannot open a directory, the renames are still atomic there
+		}
+	}
+
+	/**
+	 * @param file   A file
+	 * @param suffix The suffix to add to its name
+	 * @return The file with the suffix, in the same directory so that it can be renamed atomically
+	 */
+	private static Path sibling (Path file, String suffix) {
+		return file.resolveSibling(file.getFileName() + suffix);
+	}
+
+	/**
+	 * @param crc A checksum
+	 * @return The checksum as it is kept in a checksum file
+	 */
+	private static String hex (Checksum crc) {
+		return String.format("%08x", crc.getValue());
+	}
+
+	/**
+	 * Passes writes through to a stream, but only flushes it when closed, so the file can be forced to disk after the
+	 * object mapper closes its output.
+	 */
+	private static class UnclosedOutputStream extends FilterOutputStream {
+		/**
+		 * Create a stream that cannot be closed.
+		 *
+		 * @param out The stream to write to
+		 */
+		UnclosedOutputStream (OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write (byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close () throws IOException {
+			flush();
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.estore.api.estoreapi.persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for the load of a {@linkplain SnapshotFile snapshot}.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Name("com.estore.SnapshotLoad")
+@Label("Snapshot Load")
+@Category({ "E-Store", "Persistence" })
+@Description("A storage file read and parsed")
+class SnapshotLoadEvent extends jdk.jfr.Event {
+	@Label("File")
+	String file;
+
+	@Label("Format")
+	String format;
+
+	@Label("Bytes Read")
+	@DataAmount
+	long bytes;
+
+	@Label("From Backup")
+	@Description("The latest snapshot could not be read, and the one before it was loaded instead")
+	boolean backup;
+}
@@ -0,0 +1,35 @@
+package com.estore.api.estoreapi.persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for the save of a {@linkplain SnapshotFile snapshot}. The time left over from the duration
+ * once the sync time is taken away is mostly spent serializing the snapshot.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Name("com.estore.SnapshotSave")
+@Label("Snapshot Save")
+@Category({ "E-Store", "Persistence" })
+@Description("A storage file replaced with a new snapshot")
+class SnapshotSaveEvent extends jdk.jfr.Event {
+	@Label("File")
+	String file;
+
+	@Label("Format")
+	String format;
+
+	@Label("Bytes Written")
+	@DataAmount
+	long bytes;
+
+	@Label("Sync Time")
+	@Description("Time spent forcing the snapshot, its checksum and the renames to disk")
+	@Timespan
+	long syncTime;
+}
@@ -0,0 +1,61 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The formats storage files can be kept in.<p>
+ * Each format keeps its snapshot in a file of its own, so switching formats never misreads a file written in the
+ * other one, and a {@link SnapshotFile} moves the data across on its first load in the new format.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public enum StorageFormat {
+	/** Plain JSON, written by the application's object mapper, readable and editable by hand. */
+	JSON(""),
+	/** Jackson's binary JSON, which is smaller than JSON and quicker to parse and generate. */
+	SMILE(".smile");
+
+	/** Added to the configured storage filename, so that each format has a file of its own. */
+	private final String suffix;
+
+	/**
+	 * Create a storage format.
+	 *
+	 * @param suffix Added to the configured storage filename
+	 */
+	StorageFormat (String suffix) {
+		this.suffix = suffix;
+	}
+
+	/**
+	 * @param filename The configured storage filename
+	 * @return The file the snapshot is kept in when stored in this format
+	 */
+	String filename (String filename) {
+		return filename + suffix;
+	}
+
+	/**
+	 * Gets the object mapper that reads and writes this format.
+	 *
+	 * @param jsonMapper The application's JSON object mapper
+	 * @return The JSON object mapper itself for JSON, otherwise a copy of it for this format
+	 */
+	ObjectMapper mapper (ObjectMapper jsonMapper) {
+		if (this == JSON) {
+			return jsonMapper;
+		}
+		// A copy of the application's mapper over a Smile factory, so both formats share its modules and features.
+		// This is what copyWith(JsonFactory) does from Jackson 2.14 on, done by hand for the Jackson in use.
+		ObjectMapper mapper = new ObjectMapper(new SmileFactory(),
+		                                       ((DefaultSerializerProvider) jsonMapper.getSerializerProvider()).copy(),
+		                                       ((DefaultDeserializationContext) jsonMapper.getDeserializationContext()).copy());
+		return mapper.setSerializerFactory(jsonMapper.getSerializerFactory())
+		             .setConfig(jsonMapper.getSerializationConfig())
+		             .setConfig(jsonMapper.getDeserializationConfig())
+		             .setInjectableValues(jsonMapper.getInjectableValues());
+	}
+}
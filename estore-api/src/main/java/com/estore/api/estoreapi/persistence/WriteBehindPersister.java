@@ -0,0 +1,273 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the caches of the JSON DAOs to their files, decoupling the time a change takes from the size of the file.<p>
+ * Each DAO registers its cache as a {@linkplain Store store} and reports every change to it. A store is saved whole,
+ * so any number of changes made between two saves cost a single file write:
+ * <ul>
+ * <li>A write-behind store only marks itself dirty. A background thread saves the dirty stores every flush interval,
+ * or sooner once a store has gathered the threshold number of unsaved changes.</li>
+ * <li>A durable store waits until its change is in the file before returning, but changes made while the file is
+ * being written are saved together by the next write.</li>
+ * </ul>
+ * With a flush interval of 0 there is no background thread, and every store is durable.<p>
+ * {@literal @}Component Spring annotation instantiates a single instance of this
+ * class and injects the instance into other classes as needed
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Component
+public class WriteBehindPersister {
+	/* Logger is used to log to command line any errors encountered while saving in the background. */
+	private static final Logger LOG = Logger.getLogger(WriteBehindPersister.class.getName());
+
+	/**
+	 * Saves a whole store to its file.
+	 */
+	@FunctionalInterface
+	public interface Saver {
+		/**
+		 * Saves the current contents of a cache to its file.
+		 *
+		 * @throws IOException when file cannot be accessed or written to
+		 */
+		void save () throws IOException;
+	}
+
+	/** The registered stores. */
+	private final List<Store> stores = new CopyOnWriteArrayList<>();
+	/** The longest time a write-behind change waits to be saved, in milliseconds, 0 to save every change at once. */
+	private final long flushInterval;
+	/** The number of unsaved changes to a store after which it is saved without waiting for the interval. */
+	private final int flushThreshold;
+
+	/** Guards {@link #flushRequested}, and is waited on by the background thread between flushes. */
+	private final Object flushSignal = new Object();
+	/** Whether a store reached the threshold since the last flush. */
+	private boolean flushRequested;
+	/** Saves dirty stores in the background, null until started or if there is no flush interval. */
+	private Thread flusher;
+
+	/**
+	 * Creates a persister that saves every change before returning, with no background thread.
+	 */
+	public WriteBehindPersister () {
+		this(0, 1);
+	}
+
+	/**
+	 * Creates a persister.
+	 *
+	 * @param flushInterval  The longest time a write-behind change waits to be saved, in milliseconds,
+	 *                       0 to save every change before returning
+	 * @param flushThreshold The number of unsaved changes to a store after which it is saved without waiting
+	 */
+	@Autowired
+	public WriteBehindPersister (@Value("${persistence.flushInterval:1000}") long flushInterval,
+	                             @Value("${persistence.flushThreshold:100}") int flushThreshold) {
+		this.flushInterval = flushInterval;
+		this.flushThreshold = flushThreshold;
+	}
+
+	/**
+	 * Registers a cache to be saved by this persister.
+	 *
+	 * @param name    The name of the store, for logging
+	 * @param saver   Saves the whole cache to its file
+	 * @param durable Whether each change waits until it is in the file
+	 * @return The {@link Store store} to report changes to
+	 */
+	public Store register (String name, Saver saver, boolean durable) {
+		Store store = new Store(name, saver, durable || flushInterval <= 0);
+		stores.add(store);
+		return store;
+	}
+
+	/**
+	 * Starts the background thread that saves dirty stores, if there is a flush interval.
+	 */
+	@PostConstruct
+	void start () {
+		if (flushInterval > 0) {
+			flusher = new Thread(this::runFlusher, "write-behind");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+
+	/**
+	 * Stops the background thread and saves every dirty store, so no change is lost on shutdown.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the background thread to stop
+	 */
+	@PreDestroy
+	void stop () throws InterruptedException {
+		if (flusher != null) {
+			flusher.interrupt();
+			flusher.join();
+		}
+		flushAll();
+	}
+
+	/**
+	 * Saves dirty stores every flush interval, or as soon as one reaches the threshold, until interrupted.
+	 */
+	private void runFlusher () {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				synchronized (flushSignal) {
+					if (!flushRequested) {
+						flushSignal.wait(flushInterval);
+					}
+					flushRequested = false;
+				}
+				flushAll();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Saves every dirty store. A store that cannot be saved stays dirty, to be tried again by the next flush.
+	 */
+	void flushAll () {
+		for (Store store : stores) {
+			try {
+				store.flush();
+			} catch (IOException e) {
+				LOG.log(Level.SEVERE, "Could not save " + store.name + ": " + e.getLocalizedMessage());
+			}
+		}
+	}
+
+	/**
+	 * Wakes the background thread to save dirty stores now.
+	 */
+	private void requestFlush () {
+		synchronized (flushSignal) {
+			flushRequested = true;
+			flushSignal.notifyAll();
+		}
+	}
+
+	/**
+	 * A cache registered with the persister, saved whole to its file.
+	 */
+	public final class Store {
+		/** The name of the store, for logging. */
+		private final String name;
+		/** Saves the whole cache to its file. */
+		private final Saver saver;
+		/** Whether each change waits until it is in the file. */
+		private final boolean durable;
+
+		/** The number of changes reported so far. */
+		private final AtomicLong changes = new AtomicLong();
+		/** The number of changes that are in the file, every change up to it is saved. */
+		private volatile long saved;
+		/** Whether a thread is writing the file, guarded by this store. */
+		private boolean saving;
+
+		/**
+		 * Create a store.
+		 *
+		 * @param name    The name of the store, for logging
+		 * @param saver   Saves the whole cache to its file
+		 * @param durable Whether each change waits until it is in the file
+		 */
+		private Store (String name, Saver saver, boolean durable) {
+			this.name = name;
+			this.saver = saver;
+			this.durable = durable;
+		}
+
+		/**
+		 * Reports a change that has been made to the cache.<br>
+		 * Must be called after the change is visible in the cache, but need not hold the cache's lock. A durable store
+		 * returns once the change is in the file, a write-behind store returns at once.
+		 *
+		 * @throws IOException if the store is durable and the file cannot be accessed or written to
+		 */
+		public void changed () throws IOException {
+			long change = changes.incrementAndGet();
+			if (durable) {
+				flush(change);
+			} else if (change - saved >= flushThreshold) {
+				requestFlush();
+			}
+		}
+
+		/**
+		 * @return True if changes were reported that are not in the file yet
+		 */
+		public boolean isDirty () {
+			return saved < changes.get();
+		}
+
+		/**
+		 * Saves every change reported so far, if any is not in the file yet.
+		 *
+		 * @throws IOException when file cannot be accessed or written to
+		 */
+		void flush () throws IOException {
+			flush(changes.get());
+		}
+
+		/**
+		 * Makes sure a change is in the file before returning, sharing file writes between concurrent changes.<br>
+		 * While another thread writes the file, this waits for it. A change made before that write started is in it,
+		 * so only the changes made during it need another write, which one of the waiting threads then does for all
+		 * of them.
+		 *
+		 * @param change The number of the change
+		 * @throws IOException when file cannot be accessed or written to, or the thread is interrupted while waiting
+		 */
+		private void flush (long change) throws IOException {
+			synchronized (this) {
+				while (saving && saved < change) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException("Interrupted while waiting to save " + name);
+					}
+				}
+				if (saved >= change) {
+					return;  // saved by another thread's write
+				}
+				saving = true;
+			}
+
+			// Changes are counted after they are made, so every change counted so far is in the file written below
+			long covered = changes.get();
+			boolean written = false;
+			try {
+				saver.save(); // may throw an IOException
+				written = true;
+			} finally {
+				synchronized (this) {
+					saving = false;
+					if (written) {
+						saved = Math.max(saved, covered);
+					}
+					notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.estore.api.estoreapi.screenings.controller;
+
+import com.estore.api.estoreapi.logging.AccessLog;
+import com.estore.api.estoreapi.orders.model.Order;
+import com.estore.api.estoreapi.orders.persistence.OrderDAO;
+import com.estore.api.estoreapi.screenings.model.Screening;
+import com.estore.api.estoreapi.screenings.persistence.ScreeningDAO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles the REST API requests for reserving seats of a Screening.<p>
+ * A reservation claims the seats, reduces the tickets remaining and creates the {@link Order order} in one request,
+ * so two customers can never buy the same seat.<p>
+ * {@literal @}RestController Spring annotation identifies this class as a REST API method handler to the Spring framework
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+
+@RestController
+@RequestMapping("screenings/{screeningId}/reservations")
+public class ReservationController {
+	/* Logger is used to log to command line any internal server errors encountered. */
+	private static final Logger LOG = Logger.getLogger(ReservationController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(ReservationController.class);
+
+	/** The ScreeningDAO object this Controller interacts with to claim seats. */
+	private final ScreeningDAO screeningDao;
+	/** The OrderDAO object this Controller interacts with to create Order objects. */
+	private final OrderDAO orderDao;
+
+	/**
+	 * Creates a REST API controller to respond to reservation requests.
+	 *
+	 * @param screeningDao The {@link ScreeningDAO Screening Data Access Object} to claim seats with<br>
+	 *                     This dependency is injected by the Spring Framework
+	 * @param orderDao     The {@link OrderDAO Order Data Access Object} to create orders with<br>
+	 *                     This dependency is injected by the Spring Framework
+	 */
+	public ReservationController (ScreeningDAO screeningDao, OrderDAO orderDao) {
+		this.screeningDao = screeningDao;
+		this.orderDao = orderDao;
+	}
+
+	/**
+	 * Reserves the seats of the given {@linkplain Order order} and creates the order.<br>
+	 * The screening id and number of tickets of the order are taken from the path and the seats.
+	 *
+	 * @param screeningId The id of the {@link Screening screening} to reserve seats of
+	 * @param order       The {@link Order order} to create, with the labels of the seats to reserve
+	 * @return ResponseEntity with created {@link Order order} object and HTTP status of CREATED<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if the order has no seats<br>
+	 * ResponseEntity with HTTP status of NOT_FOUND if the {@link Screening screening} does not exist<br>
+	 * ResponseEntity with HTTP status of CONFLICT if any seat is taken or not part of the {@link Screening screening}<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@PostMapping("")
+	public ResponseEntity<Order> createReservation (@PathVariable int screeningId, @RequestBody Order order) {
+		ACCESS_LOG.log("POST /screenings/{}/reservations/{}", screeningId, order);
+
+		String[] seats = order.getSeats();
+		if (seats == null || seats.length == 0) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			if (screeningDao.getScreening(screeningId) == null) {
+				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+			}
+			if (!screeningDao.reserveSeats(screeningId, seats)) {
+				return new ResponseEntity<>(HttpStatus.CONFLICT);
+			}
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+
+		try {
+			Order newOrder = orderDao.createOrder(new Order(order.getId(), screeningId, order.getAccountId(), seats.length,
+			                                                order.getPopcorn(), order.getSoda(), seats));
+			return new ResponseEntity<>(newOrder, HttpStatus.CREATED);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			releaseSeats(screeningId, seats);
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Gives back seats whose order could not be created.
+	 *
+	 * @param screeningId The id of the {@link Screening screening} the seats were reserved for
+	 * @param seats       The labels of the reserved seats
+	 */
+	private void releaseSeats (int screeningId, String[] seats) {
+		try {
+			screeningDao.releaseSeats(screeningId, seats);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+		}
+	}
+}
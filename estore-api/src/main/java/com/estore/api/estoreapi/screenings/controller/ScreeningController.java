@@ -1,12 +1,19 @@
 package com.estore.api.estoreapi.screenings.controller;
 
+import com.estore.api.estoreapi.PageResponses;
+import com.estore.api.estoreapi.logging.AccessLog;
 import com.estore.api.estoreapi.screenings.model.Screening;
 import com.estore.api.estoreapi.screenings.persistence.ScreeningDAO;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,8 +27,12 @@ import java.util.logging.Logger;
 @RestController
 @RequestMapping("screenings")
 public class ScreeningController {
-	/* Logger is used to log to command line the HTTP request performed, or any internal server errors encountered. */
+	/* Logger is used to log to command line any internal server errors encountered. */
 	private static final Logger LOG = Logger.getLogger(ScreeningController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(ScreeningController.class);
+	/* Lets browsers keep the screenings but makes them check the ETag before using them again. */
+	private static final CacheControl REVALIDATE = CacheControl.noCache();
 
 	/** The ScreeningDAO object this Controller interacts with to get Screening objects. */
 	private final ScreeningDAO screeningDao;
@@ -46,7 +57,7 @@ public class ScreeningController {
 	 */
 	@PostMapping("")
 	public ResponseEntity<Screening> createScreening (@RequestBody Screening screening) {
-		LOG.info("POST /screenings/" + screening);
+		ACCESS_LOG.log("POST /screenings/{}", screening);
 
 		try {
 			Screening newScreening = screeningDao.createScreening(screening);
@@ -71,7 +82,7 @@ public class ScreeningController {
 	 */
 	@PutMapping("")
 	public ResponseEntity<Screening> updateScreening (@RequestBody Screening screening) {
-		LOG.info("PUT /screenings/" + screening);
+		ACCESS_LOG.log("PUT /screenings/{}", screening);
 		try {
 			Screening updatedScreening = screeningDao.updateScreening(screening);
 			if (updatedScreening != null) {
@@ -95,7 +106,7 @@ public class ScreeningController {
 	 */
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Screening> deleteScreening (@PathVariable int id) {
-		LOG.info("DELETE /screenings/" + id);
+		ACCESS_LOG.log("DELETE /screenings/{}", id);
 		try {
 			if (screeningDao.deleteScreening(id)) {
 				return new ResponseEntity<>(HttpStatus.OK);
@@ -118,7 +129,7 @@ public class ScreeningController {
 	 */
 	@GetMapping("/{id}")
 	public ResponseEntity<Screening> getScreening (@PathVariable int id) {
-		LOG.info("GET /screenings/" + id);
+		ACCESS_LOG.log("GET /screenings/{}", id);
 		try {
 			// Try to get the screening based on the id entered by the user
 			Screening screening = screeningDao.getScreening(id);
@@ -134,19 +145,28 @@ public class ScreeningController {
 	}
 
 	/**
-	 * Responds to the GET request for all {@linkplain Screening screenings}.
+	 * Responds to the GET request for all {@linkplain Screening screenings}.<br>
+	 * The response is tagged with the version of the screenings. A request whose If-None-Match header holds the current tag
+	 * is answered with no body, without reading or serializing the screenings.
 	 *
-	 * @return ResponseEntity with array of {@link Screening screening} objects (may be empty) and HTTP status of OK<br>
+	 * @param request The request, to read its If-None-Match header
+	 * @return ResponseEntity with array of {@link Screening screening} objects (may be empty), ETag and HTTP status of OK<br>
+	 * ResponseEntity with ETag and HTTP status of NOT_MODIFIED if the client already has the current screenings<br>
 	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
 	 */
 	@GetMapping("")
-	public ResponseEntity<Screening[]> getScreenings () {
-		LOG.info("GET /screenings/");
+	public ResponseEntity<Screening[]> getScreenings (WebRequest request) {
+		ACCESS_LOG.log("GET /screenings/");
+		// Read the version before the screenings, so the tag is never newer than the screenings it is sent with
+		String etag = "\"" + screeningDao.getVersion() + "\"";
+		if (request.checkNotModified(etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+		}
 		try {
 			// Try and get a list of all the screenings from the system
 			Screening[] screenings = screeningDao.getScreenings();
 			if (screenings != null) {
-				return new ResponseEntity<>(screenings, HttpStatus.OK);
+				return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(screenings);
 			} else {
 				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 			}
@@ -156,6 +176,23 @@ public class ScreeningController {
 		}
 	}
 
+	/**
+	 * Responds to the GET request for a page of {@linkplain Screening screenings} in id order.<br>
+	 * To get the next page, pass the id of the last {@link Screening screening} of this page as after. A page with fewer
+	 * than limit screenings is the last.
+	 *
+	 * @param after The id of the last {@link Screening screening} of the previous page, left out for the first page
+	 * @param limit The greatest number of {@link Screening screenings} to return
+	 * @return ResponseEntity with array of {@link Screening screening} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "limit")
+	public ResponseEntity<Screening[]> getScreeningsPage (@RequestParam(required = false) Integer after, @RequestParam int limit) {
+		ACCESS_LOG.log("GET /screenings?after={}&limit={}", after, limit);
+		return PageResponses.of(limit, () -> screeningDao.getScreenings(after, limit), LOG);
+	}
+
 	/**
 	 * Responds to the GET request for all {@linkplain Screening screenings} whose movie id is the given id.
 	 * Used to find all screenings for a given movie.
@@ -166,7 +203,7 @@ public class ScreeningController {
 	 */
 	@RequestMapping(value = "/", method = RequestMethod.GET, params = "movieId")
 	public ResponseEntity<Screening[]> searchScreeningsByMovieId (@RequestParam("movieId") int movieId) {
-		LOG.info("GET /screenings/?movieId=" + movieId);
+		ACCESS_LOG.log("GET /screenings/?movieId={}", movieId);
 		try {
 			Screening[] foundScreenings = screeningDao.findScreeningsForMovie(movieId);
 			return new ResponseEntity<>(foundScreenings, HttpStatus.OK);
@@ -175,4 +212,81 @@ public class ScreeningController {
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/**
+	 * Responds to the GET request for all {@linkplain Screening screenings} shown on the given date.
+	 *
+	 * @param date The date of the screenings, e.g. "2023-01-24" or "01/24/2023"
+	 * @return ResponseEntity with array of {@link Screening screening} objects (may be empty) sorted by time and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if the date cannot be read<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "/", method = RequestMethod.GET, params = "date")
+	public ResponseEntity<Screening[]> searchScreeningsByDate (@RequestParam("date") String date) {
+		ACCESS_LOG.log("GET /screenings/?date={}", date);
+		LocalDate day = Screening.parseDate(date);
+		if (day == null) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		try {
+			Screening[] foundScreenings = screeningDao.findScreeningsOnDate(day);
+			return new ResponseEntity<>(foundScreenings, HttpStatus.OK);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Responds to the GET request for all {@linkplain Screening screenings} shown from one date and time up to another.
+	 *
+	 * @param from The earliest date and time, inclusive, e.g. "2023-01-24T16:00"
+	 * @param to   The latest date and time, exclusive, e.g. "2023-01-25T00:00"
+	 * @return ResponseEntity with array of {@link Screening screening} objects (may be empty) sorted by date and time and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if either date and time cannot be read<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "/", method = RequestMethod.GET, params = { "from", "to" })
+	public ResponseEntity<Screening[]> searchScreeningsBetween (@RequestParam("from") String from, @RequestParam("to") String to) {
+		ACCESS_LOG.log("GET /screenings/?from={}&to={}", from, to);
+		LocalDateTime start;
+		LocalDateTime end;
+		try {
+			start = LocalDateTime.parse(from);
+			end = LocalDateTime.parse(to);
+		} catch (DateTimeParseException e) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		try {
+			Screening[] foundScreenings = screeningDao.findScreeningsBetween(start, end);
+			return new ResponseEntity<>(foundScreenings, HttpStatus.OK);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Responds to the GET request for the next {@linkplain Screening screenings} of a movie, from now on.
+	 *
+	 * @param movieId The id of the movie screened at the {@link Screening screenings}
+	 * @param next    The greatest number of {@link Screening screenings} to return
+	 * @return ResponseEntity with array of up to next {@link Screening screening} objects (may be empty) sorted by date and time and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if next is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "/", method = RequestMethod.GET, params = { "movieId", "next" })
+	public ResponseEntity<Screening[]> searchNextScreeningsForMovie (@RequestParam("movieId") int movieId, @RequestParam("next") int next) {
+		ACCESS_LOG.log("GET /screenings/?movieId={}&next={}", movieId, next);
+		if (next <= 0) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		try {
+			Screening[] foundScreenings = screeningDao.findNextScreeningsForMovie(movieId, LocalDateTime.now(), next);
+			return new ResponseEntity<>(foundScreenings, HttpStatus.OK);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
 }
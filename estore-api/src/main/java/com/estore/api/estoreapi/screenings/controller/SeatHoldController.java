@@ -0,0 +1,112 @@
+package com.estore.api.estoreapi.screenings.controller;
+
+import com.estore.api.estoreapi.logging.AccessLog;
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+import com.estore.api.estoreapi.screenings.persistence.SeatHoldDAO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles the REST API requests for holding seats of a Screening during checkout.<p>
+ * A hold is turned into an order by posting the order with the hold's id, see
+ * {@link com.estore.api.estoreapi.orders.controller.OrderController OrderController}.<p>
+ * {@literal @}RestController Spring annotation identifies this class as a REST API method handler to the Spring framework
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+
+@RestController
+@RequestMapping("screenings/{screeningId}/holds")
+public class SeatHoldController {
+	/* Logger is used to log to command line any internal server errors encountered. */
+	private static final Logger LOG = Logger.getLogger(SeatHoldController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(SeatHoldController.class);
+
+	/** The SeatHoldDAO object this Controller interacts with to get SeatHold objects. */
+	private final SeatHoldDAO seatHoldDao;
+
+	/**
+	 * Creates a REST API controller to respond to SeatHold requests.
+	 *
+	 * @param seatHoldDao The {@link SeatHoldDAO SeatHold Data Access Object} to perform operations<br>
+	 *                    This dependency is injected by the Spring Framework
+	 */
+	public SeatHoldController (SeatHoldDAO seatHoldDao) {
+		this.seatHoldDao = seatHoldDao;
+	}
+
+	/**
+	 * Holds the given seats of a screening.
+	 *
+	 * @param screeningId The id of the screening to hold seats of
+	 * @param seats       The labels of the seats to hold
+	 * @return ResponseEntity with created {@link SeatHold hold} object and HTTP status of CREATED<br>
+	 * ResponseEntity with HTTP status of CONFLICT if the screening does not exist, or any seat is taken or not part of it<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@PostMapping("")
+	public ResponseEntity<SeatHold> createHold (@PathVariable int screeningId, @RequestBody String[] seats) {
+		ACCESS_LOG.log("POST /screenings/{}/holds/{}", screeningId, seats);
+		try {
+			SeatHold hold = seatHoldDao.createHold(screeningId, seats);
+			if (hold != null) {
+				return new ResponseEntity<>(hold, HttpStatus.CREATED);
+			} else {
+				return new ResponseEntity<>(HttpStatus.CONFLICT);
+			}
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Responds to the GET request for a {@linkplain SeatHold hold} with the given id.
+	 *
+	 * @param screeningId The id of the screening the hold is for
+	 * @param id          The id used to locate a {@link SeatHold hold}
+	 * @return ResponseEntity with {@link SeatHold hold} object and HTTP status of OK if found<br>
+	 * ResponseEntity with HTTP status of NOT_FOUND if not found or expired
+	 */
+	@GetMapping("/{id}")
+	public ResponseEntity<SeatHold> getHold (@PathVariable int screeningId, @PathVariable int id) {
+		ACCESS_LOG.log("GET /screenings/{}/holds/{}", screeningId, id);
+		SeatHold hold = seatHoldDao.getHold(id);
+		if (hold != null && hold.getScreeningId() == screeningId) {
+			return new ResponseEntity<>(hold, HttpStatus.OK);
+		} else {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+	}
+
+	/**
+	 * Releases a {@linkplain SeatHold hold} with the given id, freeing its seats.
+	 *
+	 * @param screeningId The id of the screening the hold is for
+	 * @param id          The id of the {@link SeatHold hold} to release
+	 * @return ResponseEntity HTTP status of OK if released<br>
+	 * ResponseEntity with HTTP status of NOT_FOUND if not found or expired<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@DeleteMapping("/{id}")
+	public ResponseEntity<SeatHold> releaseHold (@PathVariable int screeningId, @PathVariable int id) {
+		ACCESS_LOG.log("DELETE /screenings/{}/holds/{}", screeningId, id);
+		try {
+			SeatHold hold = seatHoldDao.getHold(id);
+			if (hold != null && hold.getScreeningId() == screeningId && seatHoldDao.releaseHold(id)) {
+				return new ResponseEntity<>(HttpStatus.OK);
+			} else {
+				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+			}
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
@@ -1,9 +1,15 @@
 package com.estore.api.estoreapi.screenings.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.util.Objects;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 /**
  * Represents a screening of a movie.
@@ -14,6 +20,13 @@ public class Screening implements Comparable<Screening> {
 	/** The total number of tickets available for any screening. */
 	public static final int TOTAL_TICKETS = 20;
 
+	/** The formats a screening date can be written in, e.g. "2023-01-24" or "01/24/2023". */
+	private static final DateTimeFormatter[] DATE_FORMATS = { DateTimeFormatter.ISO_LOCAL_DATE, DateTimeFormatter.ofPattern("MM/dd/uuuu") };
+	/** The formats a screening time can be written in, e.g. "16:00" or "4:00 PM". */
+	private static final DateTimeFormatter[] TIME_FORMATS = { DateTimeFormatter.ofPattern("H:mm"), DateTimeFormatter.ofPattern("h:mm a", Locale.US) };
+	/** Orders showtimes from earliest to latest, with screenings whose date or time cannot be read last. */
+	private static final Comparator<LocalDateTime> SHOWTIME_ORDER = Comparator.nullsLast(Comparator.naturalOrder());
+
 	// Package private for tests - Prof
 	static final String STRING_FORMAT = "Screening [id=%d, movieId=%s, ticketsRemaining=%s, date=%s, time=%s, seats]";
 
@@ -28,10 +41,12 @@ public class Screening implements Comparable<Screening> {
 	/** The time of this screening. */
 	@JsonProperty("time") private String time;
 	/**
-	 * The seats and their availability for the screening.
-	 * If the seat is already taken the element will be true else false.
+	 * The seats and their availability for the screening, packed one bit per seat.
+	 * If the seat is already taken the bit will be set.
 	 */
-	@JsonProperty("seats") private boolean[][] seats;
+	@JsonProperty("seats") private SeatMap seats;
+	/** The date and time of this screening, null if either cannot be read. */
+	private LocalDateTime showtime;
 
 	/**
 	 * Create a Screening object with the given id and movie name.
@@ -61,7 +76,63 @@ public class Screening implements Comparable<Screening> {
 		}
 		this.date = date;
 		this.time = time;
-		this.seats = seats;
+		this.seats = SeatMap.of(seats);
+		LocalDate showDate = parseDate(date);
+		LocalTime showTime = parseTime(time);
+		this.showtime = showDate == null || showTime == null ? null : showDate.atTime(showTime);
+	}
+
+	/**
+	 * Create a copy of a screening, with a seat map of its own.
+	 *
+	 * @param screening The screening to copy
+	 */
+	private Screening (Screening screening) {
+		this.id = screening.id;
+		this.movieId = screening.movieId;
+		this.ticketsRemaining = screening.ticketsRemaining;
+		this.date = screening.date;
+		this.time = screening.time;
+		this.seats = screening.seats == null ? null : screening.seats.copy();
+		this.showtime = screening.showtime;
+	}
+
+	/**
+	 * Reads a screening date in any of the formats screenings are written with, e.g. "2023-01-24" or "01/24/2023".
+	 *
+	 * @param date The date to read
+	 * @return The date, or null if it is null or not in a known format
+	 */
+	public static LocalDate parseDate (String date) {
+		if (date != null) {
+			for (DateTimeFormatter format : DATE_FORMATS) {
+				try {
+					return LocalDate.parse(date.trim(), format);
+				} catch (DateTimeParseException e) {
+					// try the next format
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a screening time in any of the formats screenings are written with, e.g. "16:00" or "4:00 PM".
+	 *
+	 * @param time The time to read
+	 * @return The time, or null if it is null or not in a known format
+	 */
+	public static LocalTime parseTime (String time) {
+		if (time != null) {
+			for (DateTimeFormatter format : TIME_FORMATS) {
+				try {
+					return LocalTime.parse(time.trim(), format);
+				} catch (DateTimeParseException e) {
+					// try the next format
+				}
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -83,6 +154,113 @@ public class Screening implements Comparable<Screening> {
 		return this.movieId == movieId;
 	}
 
+	/**
+	 * Claims the given seats for an order, if every one of them is free.<br>
+	 * Seats are labelled by a row letter and a column number starting at 1, e.g. "a1" is the first seat of the first row.
+	 *
+	 * @param seatLabels The labels of the seats to claim
+	 * @return True if every seat was free and is now taken, else False and no seat is changed
+	 */
+	public boolean reserveSeats (String[] seatLabels) {
+		int[][] coordinates = parseSeats(seatLabels);
+		if (coordinates == null || coordinates.length > ticketsRemaining) {
+			return false;
+		}
+		for (int[] seat : coordinates) {
+			if (seats.isTaken(seat[0], seat[1])) {
+				return false;  // seat is already taken
+			}
+		}
+
+		for (int[] seat : coordinates) {
+			seats.take(seat[0], seat[1]);
+		}
+		ticketsRemaining -= coordinates.length;
+		return true;
+	}
+
+	/**
+	 * Frees the given seats, if every one of them is taken.
+	 *
+	 * @param seatLabels The labels of the seats to free, as for {@link #reserveSeats(String[])}
+	 * @return True if every seat was taken and is now free, else False and no seat is changed
+	 */
+	public boolean releaseSeats (String[] seatLabels) {
+		int[][] coordinates = parseSeats(seatLabels);
+		if (coordinates == null) {
+			return false;
+		}
+		for (int[] seat : coordinates) {
+			if (!seats.isTaken(seat[0], seat[1])) {
+				return false;  // seat is not taken
+			}
+		}
+
+		for (int[] seat : coordinates) {
+			seats.free(seat[0], seat[1]);
+		}
+		ticketsRemaining = Math.min(TOTAL_TICKETS, ticketsRemaining + coordinates.length);
+		return true;
+	}
+
+	/**
+	 * Claims the given seats on a copy of this screening, as {@link #reserveSeats(String[])} does, leaving this
+	 * screening as it is. A screening that others may be reading is changed this way, by replacing it with the copy.
+	 *
+	 * @param seatLabels The labels of the seats to claim
+	 * @return The copy with the seats taken, or null if a seat was not free
+	 */
+	public Screening withSeatsReserved (String[] seatLabels) {
+		Screening copy = new Screening(this);
+		return copy.reserveSeats(seatLabels) ? copy : null;
+	}
+
+	/**
+	 * Frees the given seats on a copy of this screening, as {@link #releaseSeats(String[])} does, leaving this
+	 * screening as it is.
+	 *
+	 * @param seatLabels The labels of the seats to free
+	 * @return The copy with the seats free, or null if a seat was not taken
+	 */
+	public Screening withSeatsReleased (String[] seatLabels) {
+		Screening copy = new Screening(this);
+		return copy.releaseSeats(seatLabels) ? copy : null;
+	}
+
+	/**
+	 * Converts seat labels into row and column indexes of the seat map.
+	 *
+	 * @param seatLabels The labels of the seats, as for {@link #reserveSeats(String[])}
+	 * @return The row and column of each seat, or null if there are no seats, a label is not a seat of this
+	 * screening, or a seat is listed twice
+	 */
+	private int[][] parseSeats (String[] seatLabels) {
+		if (seats == null || seatLabels == null || seatLabels.length == 0) {
+			return null;
+		}
+
+		int[][] coordinates = new int[seatLabels.length][];
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < seatLabels.length; ++i) {
+			String label = seatLabels[i];
+			if (label == null || label.length() < 2 || !seen.add(label.toLowerCase())) {
+				return null;
+			}
+			int row = Character.toLowerCase(label.charAt(0)) - 'a';
+			int column;
+			try {
+				column = Integer.parseInt(label.substring(1)) - 1;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			if (!seats.contains(row, column)) {
+				return null;
+			}
+			coordinates[i] = new int[]{ row, column };
+		}
+		return coordinates;
+	}
+
 	/**
 	 * @return The id of this screening
 	 */
@@ -119,14 +297,40 @@ public class Screening implements Comparable<Screening> {
 	}
 
 	/**
-	 * @return The seats and their availability for this screening, false for empty seats
+	 * @return A copy of the seats and their availability for this screening, false for empty seats, null if there are no seats
 	 */
+	@JsonIgnore
 	public boolean[][] getSeats () {
+		return seats == null ? null : seats.toArray();
+	}
+
+	/**
+	 * @return The seats and their availability for this screening, null if there are no seats
+	 */
+	@JsonIgnore
+	public SeatMap getSeatMap () {
 		return seats;
 	}
 
 	/**
-	 * Compare the given Screening object to this Screening object, by comparing their date and time fields.
+	 * @return The number of free seats for this screening, 0 if there are no seats
+	 */
+	@JsonIgnore
+	public int getSeatsAvailable () {
+		return seats == null ? 0 : seats.getAvailableCount();
+	}
+
+	/**
+	 * @return The date and time of this screening, null if either cannot be read
+	 */
+	@JsonIgnore
+	public LocalDateTime getShowtime () {
+		return showtime;
+	}
+
+	/**
+	 * Compare the given Screening object to this Screening object, by comparing when they are shown.
+	 * Screenings whose date or time cannot be read come last, ordered by their date and time fields.
 	 *
 	 * @param o Screening object to compare to
 	 * @return a negative integer if this < o,<br>
@@ -135,6 +339,10 @@ public class Screening implements Comparable<Screening> {
 	 */
 	@Override
 	public int compareTo (Screening o) {
+		int showtimeResult = SHOWTIME_ORDER.compare(this.showtime, o.showtime);
+		if (showtimeResult != 0) {
+			return showtimeResult;
+		}
 		int dateResult = this.date.compareTo(o.date);
 		if (dateResult == 0) {
 			// only compare times if both Screenings are on the same date
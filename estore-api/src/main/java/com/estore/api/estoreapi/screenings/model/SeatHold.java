@@ -0,0 +1,76 @@
+package com.estore.api.estoreapi.screenings.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+
+/**
+ * Represents seats of a screening held for a customer while they check out. Fields cannot be changed once created.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public class SeatHold {
+	// Package private for tests - Prof
+	static final String STRING_FORMAT = "SeatHold [id=%d, screeningId=%d, seats=%s, expiresAt=%d]";
+
+	/** The id of this hold. */
+	@JsonProperty("id") private final int id;
+	/** The id of the Screening whose seats are held. */
+	@JsonProperty("screeningId") private final int screeningId;
+	/** The labels of the held seats. */
+	@JsonProperty("seats") private final String[] seats;
+	/** When this hold expires, in milliseconds since the epoch. */
+	@JsonProperty("expiresAt") private final long expiresAt;
+
+	/**
+	 * Create a SeatHold object with the given information.
+	 *
+	 * @param id          The id of this hold
+	 * @param screeningId The id of the Screening whose seats are held
+	 * @param seats       The labels of the held seats
+	 * @param expiresAt   When this hold expires, in milliseconds since the epoch
+	 */
+	public SeatHold (@JsonProperty("id") int id, @JsonProperty("screeningId") int screeningId,
+	                 @JsonProperty("seats") String[] seats, @JsonProperty("expiresAt") long expiresAt) {
+		this.id = id;
+		this.screeningId = screeningId;
+		this.seats = seats;
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * @return The id of this hold
+	 */
+	public int getId () {
+		return id;
+	}
+
+	/**
+	 * @return The id of the Screening whose seats are held
+	 */
+	public int getScreeningId () {
+		return screeningId;
+	}
+
+	/**
+	 * @return The labels of the held seats
+	 */
+	public String[] getSeats () {
+		return seats;
+	}
+
+	/**
+	 * @return When this hold expires, in milliseconds since the epoch
+	 */
+	public long getExpiresAt () {
+		return expiresAt;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString () {
+		return String.format(STRING_FORMAT, id, screeningId, Arrays.toString(seats), expiresAt);
+	}
+}
@@ -0,0 +1,232 @@
+package com.estore.api.estoreapi.screenings.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The seats of a screening and whether each one is taken, packed one bit per seat.<p>
+ * Rows are stored one after another in an array of longs, so an auditorium of up to 64 seats fits in a single word.
+ * Counting taken seats is a popcount over the words instead of a walk over every seat.<p>
+ * In JSON a seat map is the same array of rows of booleans as before, true for a taken seat.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@JsonSerialize(using = SeatMap.Serializer.class)
+public class SeatMap {
+	/** Number of bits in each word of the seat map. */
+	private static final int WORD_BITS = Long.SIZE;
+
+	/** Index of the first seat of each row, followed by the total number of seats. */
+	private final int[] rowStarts;
+	/** One bit per seat, set if the seat is taken. */
+	private final long[] words;
+
+	/**
+	 * Create an empty seat map with the given shape.
+	 *
+	 * @param rowStarts Index of the first seat of each row, followed by the total number of seats
+	 */
+	private SeatMap (int[] rowStarts) {
+		this.rowStarts = rowStarts;
+		this.words = new long[(rowStarts[rowStarts.length - 1] + WORD_BITS - 1) / WORD_BITS];
+	}
+
+	/**
+	 * Create a copy of a seat map.
+	 *
+	 * @param seatMap The seat map to copy
+	 */
+	private SeatMap (SeatMap seatMap) {
+		this.rowStarts = seatMap.rowStarts;  // never changed once created, so it can be shared
+		this.words = seatMap.words.clone();
+	}
+
+	/**
+	 * Create a seat map from an array of rows of seats. Rows do not need to be the same length.
+	 *
+	 * @param seats The seats, true if the seat is taken
+	 * @return The seat map, or null if seats is null
+	 * @throws IllegalArgumentException if a row is null, which Jackson reports as a bad request body
+	 */
+	@JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+	public static SeatMap of (boolean[][] seats) {
+		if (seats == null) {
+			return null;
+		}
+
+		int[] rowStarts = new int[seats.length + 1];
+		for (int row = 0; row < seats.length; ++row) {
+			if (seats[row] == null) {
+				throw new IllegalArgumentException("Row " + row + " of the seats is null");
+			}
+			rowStarts[row + 1] = rowStarts[row] + seats[row].length;
+		}
+
+		SeatMap seatMap = new SeatMap(rowStarts);
+		for (int row = 0; row < seats.length; ++row) {
+			for (int column = 0; column < seats[row].length; ++column) {
+				if (seats[row][column]) {
+					seatMap.take(row, column);
+				}
+			}
+		}
+		return seatMap;
+	}
+
+	/**
+	 * @return A copy of this seat map, whose seats can be taken and freed without changing this one
+	 */
+	public SeatMap copy () {
+		return new SeatMap(this);
+	}
+
+	/**
+	 * @return The number of rows
+	 */
+	public int getRows () {
+		return rowStarts.length - 1;
+	}
+
+	/**
+	 * @param row The row index
+	 * @return The number of seats in the row
+	 */
+	public int getColumns (int row) {
+		return rowStarts[row + 1] - rowStarts[row];
+	}
+
+	/**
+	 * Check if the given row and column is a seat of this seat map.
+	 *
+	 * @param row    The row index
+	 * @param column The column index
+	 * @return True if there is a seat at the given row and column, else False
+	 */
+	public boolean contains (int row, int column) {
+		return row >= 0 && row < getRows() && column >= 0 && column < getColumns(row);
+	}
+
+	/**
+	 * @param row    The row index
+	 * @param column The column index
+	 * @return True if the seat is taken, else False
+	 */
+	public boolean isTaken (int row, int column) {
+		int bit = rowStarts[row] + column;
+		return (words[bit / WORD_BITS] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Mark a seat as taken.
+	 *
+	 * @param row    The row index
+	 * @param column The column index
+	 */
+	public void take (int row, int column) {
+		int bit = rowStarts[row] + column;
+		words[bit / WORD_BITS] |= 1L << bit;
+	}
+
+	/**
+	 * Mark a seat as free.
+	 *
+	 * @param row    The row index
+	 * @param column The column index
+	 */
+	public void free (int row, int column) {
+		int bit = rowStarts[row] + column;
+		words[bit / WORD_BITS] &= ~(1L << bit);
+	}
+
+	/**
+	 * @return The total number of seats
+	 */
+	public int getSeatCount () {
+		return rowStarts[rowStarts.length - 1];
+	}
+
+	/**
+	 * @return The number of taken seats
+	 */
+	public int getTakenCount () {
+		int taken = 0;
+		for (long word : words) {
+			taken += Long.bitCount(word);
+		}
+		return taken;
+	}
+
+	/**
+	 * @return The number of free seats
+	 */
+	public int getAvailableCount () {
+		return getSeatCount() - getTakenCount();
+	}
+
+	/**
+	 * @return A copy of the seats as an array of rows, true if the seat is taken
+	 */
+	public boolean[][] toArray () {
+		boolean[][] seats = new boolean[getRows()][];
+		for (int row = 0; row < seats.length; ++row) {
+			seats[row] = new boolean[getColumns(row)];
+			for (int column = 0; column < seats[row].length; ++column) {
+				seats[row][column] = isTaken(row, column);
+			}
+		}
+		return seats;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals (Object other) {
+		if (this == other) return true;
+		if (other == null || getClass() != other.getClass()) return false;
+		SeatMap seatMap = (SeatMap) other;
+		return Arrays.equals(rowStarts, seatMap.rowStarts) && Arrays.equals(words, seatMap.words);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode () {
+		return 31 * Arrays.hashCode(rowStarts) + Arrays.hashCode(words);
+	}
+
+	/**
+	 * Writes a seat map as an array of rows of booleans straight from the bits, without building the array first.
+	 */
+	static class Serializer extends StdSerializer<SeatMap> {
+		/**
+		 * Create a serializer for seat maps.
+		 */
+		Serializer () {
+			super(SeatMap.class);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void serialize (SeatMap seatMap, JsonGenerator generator, SerializerProvider provider) throws IOException {
+			generator.writeStartArray();
+			for (int row = 0; row < seatMap.getRows(); ++row) {
+				generator.writeStartArray();
+				for (int column = 0; column < seatMap.getColumns(row); ++column) {
+					generator.writeBoolean(seatMap.isTaken(row, column));
+				}
+				generator.writeEndArray();
+			}
+			generator.writeEndArray();
+		}
+	}
+}
@@ -3,6 +3,8 @@ package com.estore.api.estoreapi.screenings.persistence;
 import com.estore.api.estoreapi.screenings.model.Screening;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * Defines the interface for screening object persistence.
@@ -58,6 +60,25 @@ public interface ScreeningDAO {
 	 */
 	Screening[] getScreenings () throws IOException;
 
+	/**
+	 * Gets the version of the {@linkplain Screening screenings}, which goes up whenever a {@link Screening screening} is created, updated or deleted, or any of its seats is reserved or released.<br>
+	 * Two equal versions mean nothing changed in between, so a client holding the screenings of a version can keep them.
+	 *
+	 * @return The current version
+	 */
+	long getVersion ();
+
+	/**
+	 * Retrieves a page of {@linkplain Screening screenings} in id order, to list them a page at a time.<br>
+	 * The next page starts after the last id of this page.
+	 *
+	 * @param after The id of the last {@link Screening screening} of the previous page, or null for the first page
+	 * @param limit The greatest number of {@link Screening screenings} to return
+	 * @return An array of up to limit {@link Screening screening} objects with ids after the given one, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Screening[] getScreenings (Integer after, int limit) throws IOException;
+
 	/**
 	 * Finds all {@linkplain Screening screenings} whose movie id matches the given id.
 	 *
@@ -66,4 +87,91 @@ public interface ScreeningDAO {
 	 * @throws IOException if an issue with underlying storage
 	 */
 	Screening[] findScreeningsForMovie (int movieId) throws IOException;
+
+	/**
+	 * Finds all {@linkplain Screening screenings} shown on the given date.
+	 *
+	 * @param date The date of the {@link Screening screenings}
+	 * @return An array of {@link Screening screenings} shown on the date, sorted by time, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Screening[] findScreeningsOnDate (LocalDate date) throws IOException;
+
+	/**
+	 * Finds all {@linkplain Screening screenings} shown from one date and time up to another.
+	 *
+	 * @param from The earliest date and time, inclusive
+	 * @param to   The latest date and time, exclusive
+	 * @return An array of {@link Screening screenings} shown in the range, sorted by date and time, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Screening[] findScreeningsBetween (LocalDateTime from, LocalDateTime to) throws IOException;
+
+	/**
+	 * Finds the next {@linkplain Screening screenings} of the movie with the given id.
+	 *
+	 * @param movieId The movie id to match against
+	 * @param from    The earliest date and time, inclusive
+	 * @param limit   The greatest number of {@link Screening screenings} to find
+	 * @return An array of up to limit {@link Screening screenings} of the movie shown at or after from, sorted by date
+	 * and time, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Screening[] findNextScreeningsForMovie (int movieId, LocalDateTime from, int limit) throws IOException;
+
+	/**
+	 * Atomically claims seats of a {@linkplain Screening Screening} and reduces its remaining tickets.
+	 *
+	 * @param id    The id of the {@link Screening Screening}
+	 * @param seats The labels of the seats to claim, e.g. "a1"
+	 * @return true if every seat was free and is now taken<br>
+	 * false if the {@link Screening Screening} does not exist, or any seat is taken or not part of it
+	 * @throws IOException if underlying storage cannot be accessed
+	 */
+	boolean reserveSeats (int id, String[] seats) throws IOException;
+
+	/**
+	 * Atomically frees seats of a {@linkplain Screening Screening} claimed by {@link #reserveSeats(int, String[])}.
+	 *
+	 * @param id    The id of the {@link Screening Screening}
+	 * @param seats The labels of the seats to free
+	 * @return true if every seat was taken and is now free<br>
+	 * false if the {@link Screening Screening} does not exist, or any seat is free or not part of it
+	 * @throws IOException if underlying storage cannot be accessed
+	 */
+	boolean releaseSeats (int id, String[] seats) throws IOException;
+
+	/**
+	 * Atomically holds seats of a {@linkplain Screening Screening} for a customer who is checking out. Held seats
+	 * show as taken and cannot be claimed by anyone else, but are never written to storage, so they are free again
+	 * after a restart.
+	 *
+	 * @param id    The id of the {@link Screening Screening}
+	 * @param seats The labels of the seats to hold, e.g. "a1"
+	 * @return true if every seat was free and is now held<br>
+	 * false if the {@link Screening Screening} does not exist, or any seat is taken or not part of it
+	 */
+	boolean holdSeats (int id, String[] seats);
+
+	/**
+	 * Atomically frees seats of a {@linkplain Screening Screening} held by {@link #holdSeats(int, String[])}.
+	 *
+	 * @param id    The id of the {@link Screening Screening}
+	 * @param seats The labels of the held seats to free
+	 * @return true if every seat was held and is now free<br>
+	 * false if the {@link Screening Screening} does not exist, or any seat is not held
+	 */
+	boolean releaseHeldSeats (int id, String[] seats);
+
+	/**
+	 * Atomically turns seats of a {@linkplain Screening Screening} held by {@link #holdSeats(int, String[])} into
+	 * seats claimed as by {@link #reserveSeats(int, String[])}, which are written to storage.
+	 *
+	 * @param id    The id of the {@link Screening Screening}
+	 * @param seats The labels of the held seats to claim
+	 * @return true if every seat was held and is now claimed<br>
+	 * false if the {@link Screening Screening} does not exist, or any seat is not held
+	 * @throws IOException if underlying storage cannot be accessed, the seats are then still held
+	 */
+	boolean confirmHeldSeats (int id, String[] seats) throws IOException;
 }
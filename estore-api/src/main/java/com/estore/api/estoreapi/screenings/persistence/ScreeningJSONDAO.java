@@ -1,16 +1,36 @@
 package com.estore.api.estoreapi.screenings.persistence;
 
 import com.estore.api.estoreapi.screenings.model.Screening;
+import com.estore.api.estoreapi.persistence.MutationEvent;
+import com.estore.api.estoreapi.persistence.Paging;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implements the functionality for JSON file-based persistence for Screenings.<p>
+ * Changes to different screenings only share the short locks that keep the cache consistent. The file is written
+ * outside of them by the {@link WriteBehindPersister}, and changes made while it is being written are saved together
+ * by the next write.<p>
+ * The store is durable unless configured otherwise: a seat is claimed for an order that is itself saved before it is
+ * acknowledged, so the claim must be on disk by then too, or a crash would leave sold seats showing as free. Only
+ * with {@code screenings.durable=false} are seat changes saved behind, within the flush interval.<p>
+ * Seats held during checkout are kept apart from the seats claimed for orders: both show as taken, but only claimed
+ * seats are written to the file.<p>
  * {@literal @}Component Spring annotation instantiates a single instance of this
  * class and injects the instance into other classes as needed
  *
@@ -18,30 +38,99 @@ import java.util.*;
  */
 @Component
 public class ScreeningJSONDAO implements ScreeningDAO {
-	/** A local cache of Screening objects, to avoid reading from file each time. */
-	Map<Integer, Screening> screenings;
+	/**
+	 * A local cache of Screening objects, to avoid reading from file each time.<br>
+	 * Reads go straight to the concurrent map, so they never wait on a write. Writes lock the map only while they
+	 * change it and its indexes, and the {@link #store} saves them after the lock is released. A cached screening is
+	 * never changed once cached, claiming or freeing seats caches a changed copy in its place.
+	 */
+	NavigableMap<Integer, Screening> screenings;
+	/** The cached screenings in showtime order, kept up to date on every write so listing them never sorts. */
+	private ShowtimeIndex screeningsByShowtime;
+	/** The cached screenings of each movie in showtime order, by movie id. */
+	private Map<Integer, ShowtimeIndex> screeningsByMovie;
+	/**
+	 * The labels of the seats held for customers who are checking out, in lower case, by screening id. Held seats are
+	 * taken in the cached screening, so no one else can claim them, but are left out of the file. Only changed while
+	 * holding both the seat lock of the screening and the screenings lock.
+	 */
+	private final Map<Integer, Set<String>> heldSeats = new ConcurrentHashMap<>();
+
+	/** Index of a movie without screenings, never written to. */
+	private static final ShowtimeIndex EMPTY_INDEX = new ShowtimeIndex();
+
+	/** Number of locks that seat mutations are striped across. */
+	private static final int SEAT_LOCK_STRIPES = 64;
+
+	/**
+	 * Locks guarding the mutation of a single screening, striped by screening id so that
+	 * seats of different screenings can be claimed in parallel.
+	 */
+	private final Object[] seatLocks = new Object[SEAT_LOCK_STRIPES];
+
+	/** How long changes wait for the lock on the cached screenings, once they hold the seat lock if they take it. */
+	private static final Timer LOCK_WAIT = Metrics.timer("dao.lock.wait", "lock", "screenings");
+	/** How long changes to a screening wait for its stripe of the seat locks. */
+	private static final Timer SEAT_LOCK_WAIT = Metrics.timer("dao.lock.wait", "lock", "screenings.seats");
+
+	/**
+	 * The version of the cached screenings, raised after every change to them or their seats. It starts from the time
+	 * the DAO was created, so versions handed out before a restart are not handed out again for different screenings.
+	 */
+	private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
 
 	/** The next id to assign to a new screening. */
 	private static int nextId;
 
-	/** Name of the file to read and write to. */
-	private final String filename;
-	/** Provides conversion between Java Screening and JSON Screening objects. */
-	private final ObjectMapper objectMapper;
+	/** The file to read and write to, holding the screenings in the storage format and replaced whole on every save. */
+	private final SnapshotFile file;
+	/** Saves the cached screenings to the file, waiting for each change if durable. */
+	private final WriteBehindPersister.Store store;
+
+	/**
+	 * Creates a Data Access Object for JSON-based Screenings, which saves every change before returning.
+	 *
+	 * @param filename     Filename to read from and write to
+	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @throws IOException when file cannot be accessed or read from
+	 */
+	public ScreeningJSONDAO (String filename, ObjectMapper objectMapper) throws IOException {
+		this(filename, objectMapper, new WriteBehindPersister(), true, StorageFormat.JSON);
+	}
 
 	/**
 	 * Creates a Data Access Object for JSON-based Screenings.
 	 *
 	 * @param filename     Filename to read from and write to
 	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @param persister    Saves the screenings to the file
+	 * @param durable      Whether each change waits until it is saved to the file
+	 * @param format       The format to keep the file in
 	 * @throws IOException when file cannot be accessed or read from
 	 */
-	public ScreeningJSONDAO (@Value("${screenings.file}") String filename, ObjectMapper objectMapper) throws IOException {
-		this.filename = filename;
-		this.objectMapper = objectMapper;
+	@Autowired
+	public ScreeningJSONDAO (@Value("${screenings.file}") String filename, ObjectMapper objectMapper,
+	                         WriteBehindPersister persister, @Value("${screenings.durable:true}") boolean durable,
+	                         @Value("${persistence.format:json}") StorageFormat format) throws IOException {
+		this.file = new SnapshotFile(filename, objectMapper, format);
+		this.store = persister.register("screenings", this::save, durable);
+		for (int i = 0; i < seatLocks.length; ++i) {
+			seatLocks[i] = new Object();
+		}
 		load();  // load the screenings from the file
 	}
 
+	/**
+	 * Gets the lock guarding mutations of the {@linkplain Screening screening} with the given id.<br>
+	 * When both are needed, this lock is always taken before the screenings lock.
+	 *
+	 * @param id The id of the {@link Screening screening}
+	 * @return The lock for the {@link Screening screening}
+	 */
+	private Object seatLock (int id) {
+		return seatLocks[Math.floorMod(id, seatLocks.length)];
+	}
+
 	/**
 	 * Generates the next id for a new {@linkplain Screening screening}.
 	 *
@@ -54,39 +143,74 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Screening screenings} from the tree map.
+	 * Generates an array of {@linkplain Screening screenings} from the map, sorted by their Screening date and time.
 	 *
 	 * @return The array of {@link Screening screenings}, may be empty
 	 */
 	private Screening[] getScreeningsArray () {
-		List<Screening> screeningArrayList = new ArrayList<>(screenings.values());
-		Screening[] screeningArray = new Screening[screeningArrayList.size()];
-		Collections.sort(screeningArrayList);
-		screeningArrayList.toArray(screeningArray);
-		return screeningArray;
+		return screeningsByShowtime.toArray();
 	}
 
 	/**
-	 * Generates an array of {@linkplain Screening screenings} from the tree map for any
-	 * {@linkplain Screening screenings} that is screening the movie specified by movieId argument,
-	 * sorted by their Screening date and time.
+	 * Gets the index of the {@linkplain Screening screenings} of a movie.
 	 *
-	 * @param movieId The movie to find within all {@link Screening screenings}
-	 * @return The array of {@link Screening screenings}, may be empty
+	 * @param movieId The id of the movie
+	 * @return The index, or an empty index if the movie has no screenings
 	 */
-	private Screening[] getScreeningsArrayForMovie (int movieId) {
-		List<Screening> screeningArrayList = new ArrayList<>();
+	private ShowtimeIndex movieIndex (int movieId) {
+		return screeningsByMovie.getOrDefault(movieId, EMPTY_INDEX);
+	}
 
-		for (Screening screening : screenings.values()) {
-			if (screening.movieIdIs(movieId)) {
-				screeningArrayList.add(screening);
+	/**
+	 * Caches a {@linkplain Screening screening} under its id and adds it to the showtime and movie indexes,
+	 * replacing the {@link Screening screening} previously cached under the same id, if any.<br>
+	 * The new screening is added to an index before the old one is removed, so a reader never misses it.
+	 *
+	 * @param screening The {@link Screening screening} to cache
+	 */
+	private void cache (Screening screening) {
+		Screening previous = screenings.put(screening.getId(), screening);
+		screeningsByShowtime.add(screening);
+		screeningsByMovie.computeIfAbsent(screening.getMovieId(), key -> new ShowtimeIndex()).add(screening);
+		if (previous != null) {
+			boolean moved = !ShowtimeIndex.samePlace(previous, screening);
+			if (moved) {
+				screeningsByShowtime.remove(previous);
+			}
+			if (moved || previous.getMovieId() != screening.getMovieId()) {
+				uncacheFromMovie(previous);
 			}
 		}
+	}
 
-		Screening[] screeningArray = new Screening[screeningArrayList.size()];
-		Collections.sort(screeningArrayList);
-		screeningArrayList.toArray(screeningArray);
-		return screeningArray;
+	/**
+	 * Removes the {@linkplain Screening screening} with the given id from the cache and its indexes.
+	 *
+	 * @param id The id of the {@link Screening screening} to remove
+	 * @return The removed {@link Screening screening}, or null if none was cached under the id
+	 */
+	private Screening uncache (int id) {
+		Screening screening = screenings.remove(id);
+		if (screening != null) {
+			screeningsByShowtime.remove(screening);
+			uncacheFromMovie(screening);
+		}
+		return screening;
+	}
+
+	/**
+	 * Removes a {@linkplain Screening screening} from the index of its movie, dropping the index once it is empty.
+	 *
+	 * @param screening The {@link Screening screening} to remove
+	 */
+	private void uncacheFromMovie (Screening screening) {
+		ShowtimeIndex movieScreenings = screeningsByMovie.get(screening.getMovieId());
+		if (movieScreenings != null) {
+			movieScreenings.remove(screening);
+			if (movieScreenings.isEmpty()) {
+				screeningsByMovie.remove(screening.getMovieId());
+			}
+		}
 	}
 
 	/**
@@ -96,14 +220,106 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 * @throws IOException when file cannot be accessed or written to
 	 */
 	private boolean save () throws IOException {
-		Screening[] screeningArray = getScreeningsArray();
+		Screening[] screeningArray;
+		synchronized (screenings) {
+			// Read along with the held seats, so each one is left out of the screening it is taken in
+			screeningArray = getScreeningsArray();
+			for (int i = 0; i < screeningArray.length; ++i) {
+				Set<String> held = heldSeats.get(screeningArray[i].getId());
+				if (held != null) {
+					screeningArray[i] = withoutSeats(screeningArray[i], held);
+				}
+			}
+		}
 
-		// Serializes the Java Objects to JSON objects into the file,
-		// writeValue will throw an IOException if there is an issue with or reading from the file
-		objectMapper.writeValue(new File(filename), screeningArray);
+		// Serializes the Java Objects to JSON objects into a new snapshot of the file,
+		// write will throw an IOException if there is an issue with writing the file
+		file.write(screeningArray);
 		return true;
 	}
 
+	/**
+	 * Frees each of the given seats that is taken in a {@linkplain Screening screening}.
+	 *
+	 * @param screening The {@link Screening screening}
+	 * @param seats     The labels of the seats to free
+	 * @return A copy of the {@link Screening screening} with the seats free, or the screening itself if none was taken
+	 */
+	private static Screening withoutSeats (Screening screening, Set<String> seats) {
+		for (String seat : seats) {
+			Screening released = screening.withSeatsReleased(new String[]{ seat });
+			if (released != null) {
+				screening = released;
+			}
+		}
+		return screening;
+	}
+
+	/**
+	 * Takes each of the given seats that is free in a {@linkplain Screening screening}.
+	 *
+	 * @param screening The {@link Screening screening}
+	 * @param seats     The labels of the seats to take
+	 * @return A copy of the {@link Screening screening} with the seats taken, or the screening itself if none was free
+	 */
+	private static Screening withSeats (Screening screening, Set<String> seats) {
+		for (String seat : seats) {
+			Screening reserved = screening.withSeatsReserved(new String[]{ seat });
+			if (reserved != null) {
+				screening = reserved;
+			}
+		}
+		return screening;
+	}
+
+	/**
+	 * @param id The id of a {@linkplain Screening screening}
+	 * @return The labels of its held seats, may be empty
+	 */
+	private Set<String> held (int id) {
+		return heldSeats.getOrDefault(id, Collections.emptySet());
+	}
+
+	/**
+	 * @param seats Seat labels, as given to the seat methods
+	 * @return The labels in lower case, as held seats are kept, or null if there are none or one of them is null
+	 */
+	private static Set<String> labels (String[] seats) {
+		if (seats == null || seats.length == 0) {
+			return null;
+		}
+		Set<String> labels = new HashSet<>();
+		for (String seat : seats) {
+			if (seat == null) {
+				return null;
+			}
+			labels.add(seat.toLowerCase());
+		}
+		return labels;
+	}
+
+	/**
+	 * @param held   The labels of held seats
+	 * @param labels The labels of more seats
+	 * @return A new set of the labels of both
+	 */
+	private static Set<String> union (Set<String> held, Set<String> labels) {
+		Set<String> union = new HashSet<>(held);
+		union.addAll(labels);
+		return Collections.unmodifiableSet(union);
+	}
+
+	/**
+	 * @param held   The labels of held seats
+	 * @param labels The labels of the seats to leave out
+	 * @return A new set of the held labels without the others
+	 */
+	private static Set<String> difference (Set<String> held, Set<String> labels) {
+		Set<String> difference = new HashSet<>(held);
+		difference.removeAll(labels);
+		return Collections.unmodifiableSet(difference);
+	}
+
 	/**
 	 * Loads {@linkplain Screening screenings} from the JSON file into the map.<br>
 	 * Also sets this object's nextId to one more than the greatest id found in the file.
@@ -112,16 +328,18 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 * @throws IOException when file cannot be accessed or read from
 	 */
 	private boolean load () throws IOException {
-		screenings = new TreeMap<>();
+		screenings = new ConcurrentSkipListMap<>();
+		screeningsByShowtime = new ShowtimeIndex();
+		screeningsByMovie = new ConcurrentHashMap<>();
 		nextId = 0;
 
 		// Deserializes the JSON objects from the file into an array of screenings,
-		// readValue will throw an IOException if there's an issue with or reading from the file
-		Screening[] screeningArray = objectMapper.readValue(new File(filename), Screening[].class);
+		// read will throw an IOException if neither the file nor its backup can be read
+		Screening[] screeningArray = file.read(Screening[].class);
 
-		// Add each screening to the tree map and keep track of the greatest id
+		// Add each screening to the map and keep track of the greatest id
 		for (Screening screening : screeningArray) {
-			screenings.put(screening.getId(), screening);
+			cache(screening);
 			if (screening.getId() > nextId) {
 				nextId = screening.getId();
 			}
@@ -136,13 +354,25 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 */
 	@Override
 	public Screening createScreening (Screening screening) throws IOException {
-		synchronized (screenings) {
-			// We create a new screening object because the id field is immutable, and we need to assign the next unique id
-			Screening newScreening = new Screening(nextId(), screening.getMovieId(), screening.getTicketsRemaining(), screening.getDate(),
-			                                       screening.getTime(), screening.getSeats());
-			screenings.put(newScreening.getId(), newScreening);
-			save(); // may throw an IOException
+		MutationEvent event = MutationEvent.start("Screening", "createScreening", 0);
+		try {
+			Screening newScreening;
+			Timer.Sample waiting = Timer.start();
+			synchronized (screenings) {
+				event.waited(waiting.stop(LOCK_WAIT));
+				// We create a new screening object because the id field is immutable, and we need to assign the next unique id
+				newScreening = new Screening(nextId(), screening.getMovieId(), screening.getTicketsRemaining(), screening.getDate(),
+				                             screening.getTime(), screening.getSeats());
+				cache(newScreening);
+				event.setId(newScreening.getId());
+				version.incrementAndGet();
+			}
+			long persisting = System.nanoTime();
+			store.changed(); // may throw an IOException
+			event.persisted(System.nanoTime() - persisting);
 			return newScreening;
+		} finally {
+			event.record();
 		}
 	}
 
@@ -151,14 +381,31 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 */
 	@Override
 	public Screening updateScreening (Screening screening) throws IOException {
-		synchronized (screenings) {
-			if (!screenings.containsKey(screening.getId())) {
-				return null;  // screening does not exist
-			}
+		MutationEvent event = MutationEvent.start("Screening", "updateScreening", screening.getId());
+		try {
+			Screening updated;
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(screening.getId())) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				waiting = Timer.start();
+				synchronized (screenings) {
+					event.waited(waiting.stop(LOCK_WAIT));
+					if (!screenings.containsKey(screening.getId())) {
+						return null;  // screening does not exist
+					}
 
-			screenings.put(screening.getId(), screening);
-			save(); // may throw an IOException
-			return screening;
+					// The update was made without knowing of the held seats, so it must not give them away
+					updated = withSeats(screening, held(screening.getId()));
+					cache(updated);
+					version.incrementAndGet();
+				}
+			}
+			long persisting = System.nanoTime();
+			store.changed(); // may throw an IOException
+			event.persisted(System.nanoTime() - persisting);
+			return updated;
+		} finally {
+			event.record();
 		}
 	}
 
@@ -167,13 +414,27 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 */
 	@Override
 	public boolean deleteScreening (int id) throws IOException {
-		synchronized (screenings) {
-			if (screenings.containsKey(id)) {
-				screenings.remove(id);
-				return save();
-			} else {
-				return false;
+		MutationEvent event = MutationEvent.start("Screening", "deleteScreening", id);
+		try {
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(id)) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				waiting = Timer.start();
+				synchronized (screenings) {
+					event.waited(waiting.stop(LOCK_WAIT));
+					if (uncache(id) == null) {
+						return false;
+					}
+					heldSeats.remove(id);
+					version.incrementAndGet();
+				}
 			}
+			long persisting = System.nanoTime();
+			store.changed(); // may throw an IOException
+			event.persisted(System.nanoTime() - persisting);
+			return true;
+		} finally {
+			event.record();
 		}
 	}
 
@@ -182,12 +443,92 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 */
 	@Override
 	public Screening getScreening (int id) {
+		return screenings.get(id);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Screening[] getScreenings () {
+		return getScreeningsArray();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public long getVersion () {
+		return version.get();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Screening[] getScreenings (Integer after, int limit) {
+		return Paging.page(screenings, after, limit, Screening[]::new);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Screening[] findScreeningsForMovie (int movieId) {
+		return movieIndex(movieId).toArray();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Screening[] findScreeningsOnDate (LocalDate date) {
+		return screeningsByShowtime.between(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Screening[] findScreeningsBetween (LocalDateTime from, LocalDateTime to) {
+		return screeningsByShowtime.between(from, to);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Screening[] findNextScreeningsForMovie (int movieId, LocalDateTime from, int limit) {
+		return movieIndex(movieId).next(from, limit);
+	}
+
+	/**
+	 * Replaces a cached {@linkplain Screening screening} with a copy whose seats were changed, as long as no other
+	 * change replaced or removed it first.<br>
+	 * Cached screenings are never changed in place, since readers and the file being saved may be using them.
+	 * Must be called while holding the seat lock of the screening.
+	 *
+	 * @param current The cached {@link Screening screening} the copy was made from
+	 * @param changed The copy to cache instead
+	 * @param held    The labels of the seats of the copy that are held
+	 * @param event   The Flight Recorder event of the change, given the time spent waiting for the screenings lock
+	 * @return True if the copy was cached, else False
+	 */
+	private boolean replace (Screening current, Screening changed, Set<String> held, MutationEvent event) {
+		Timer.Sample waiting = Timer.start();
 		synchronized (screenings) {
-			if (screenings.containsKey(id)) {
-				return screenings.get(id);
+			event.waited(waiting.stop(LOCK_WAIT));
+			if (screenings.get(current.getId()) != current) {
+				return false;
+			}
+			cache(changed);
+			if (held.isEmpty()) {
+				heldSeats.remove(changed.getId());
 			} else {
-				return null;
+				heldSeats.put(changed.getId(), held);
 			}
+			version.incrementAndGet();
+			return true;
 		}
 	}
 
@@ -195,9 +536,40 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 * * {@inheritDoc}
 	 */
 	@Override
-	public Screening[] getScreenings () {
-		synchronized (screenings) {
-			return getScreeningsArray();
+	public boolean reserveSeats (int id, String[] seats) throws IOException {
+		MutationEvent event = MutationEvent.start("Screening", "reserveSeats", id);
+		try {
+			Screening screening;
+			Screening reserved;
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(id)) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				screening = getScreening(id);
+				reserved = screening == null ? null : screening.withSeatsReserved(seats);
+				if (reserved == null || !replace(screening, reserved, held(id), event)) {
+					return false;
+				}
+			}
+
+			// The seats stay taken while the file is written, so the lock can be let go for other buyers of the stripe.
+			// Only a store that saves each change before returning can fail here, a write-behind store retries later.
+			try {
+				long persisting = System.nanoTime();
+				store.changed(); // may throw an IOException
+				event.persisted(System.nanoTime() - persisting);
+			} catch (IOException e) {
+				waiting = Timer.start();
+				synchronized (seatLock(id)) {
+					event.waited(waiting.stop(SEAT_LOCK_WAIT));
+					// The claim was not persisted, so give the seats back, unless a later change has been made on top of
+					// it or replaced it: that change keeps the seats taken, so they go unsold rather than sold twice
+					replace(reserved, screening, held(id), event);
+				}
+				throw e;
+			}
+			return true;
+		} finally {
+			event.record();
 		}
 	}
 
@@ -205,9 +577,109 @@ public class ScreeningJSONDAO implements ScreeningDAO {
 	 * * {@inheritDoc}
 	 */
 	@Override
-	public Screening[] findScreeningsForMovie (int movieId) {
-		synchronized (screenings) {
-			return getScreeningsArrayForMovie(movieId);
+	public boolean releaseSeats (int id, String[] seats) throws IOException {
+		MutationEvent event = MutationEvent.start("Screening", "releaseSeats", id);
+		try {
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(id)) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				Screening screening = getScreening(id);
+				Set<String> labels = labels(seats);
+				if (screening == null || labels == null || !Collections.disjoint(held(id), labels)) {
+					return false;  // held seats are only freed by releaseHeldSeats
+				}
+				Screening released = screening.withSeatsReleased(seats);
+				if (released == null || !replace(screening, released, held(id), event)) {
+					return false;
+				}
+			}
+			long persisting = System.nanoTime();
+			store.changed(); // may throw an IOException
+			event.persisted(System.nanoTime() - persisting);
+			return true;
+		} finally {
+			event.record();
+		}
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public boolean holdSeats (int id, String[] seats) {
+		MutationEvent event = MutationEvent.start("Screening", "holdSeats", id);
+		try {
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(id)) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				Screening screening = getScreening(id);
+				Screening held = screening == null ? null : screening.withSeatsReserved(seats);
+				// Nothing is saved, the file never holds the held seats
+				return held != null && replace(screening, held, union(held(id), labels(seats)), event);
+			}
+		} finally {
+			event.record();
+		}
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseHeldSeats (int id, String[] seats) {
+		MutationEvent event = MutationEvent.start("Screening", "releaseHeldSeats", id);
+		try {
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(id)) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				Screening screening = getScreening(id);
+				Set<String> labels = labels(seats);
+				if (screening == null || labels == null || !held(id).containsAll(labels)) {
+					return false;
+				}
+				Screening released = screening.withSeatsReleased(seats);
+				return released != null && replace(screening, released, difference(held(id), labels), event);
+			}
+		} finally {
+			event.record();
+		}
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public boolean confirmHeldSeats (int id, String[] seats) throws IOException {
+		MutationEvent event = MutationEvent.start("Screening", "confirmHeldSeats", id);
+		try {
+			Screening screening;
+			Set<String> labels = labels(seats);
+			Timer.Sample waiting = Timer.start();
+			synchronized (seatLock(id)) {
+				event.waited(waiting.stop(SEAT_LOCK_WAIT));
+				screening = getScreening(id);
+				// The seats are already taken, they only stop being left out of the file
+				if (screening == null || labels == null || !held(id).containsAll(labels)
+				    || !replace(screening, screening, difference(held(id), labels), event)) {
+					return false;
+				}
+			}
+
+			try {
+				long persisting = System.nanoTime();
+				store.changed(); // may throw an IOException
+				event.persisted(System.nanoTime() - persisting);
+			} catch (IOException e) {
+				waiting = Timer.start();
+				synchronized (seatLock(id)) {
+					event.waited(waiting.stop(SEAT_LOCK_WAIT));
+					replace(screening, screening, union(held(id), labels), event);  // the claim was not saved, hold the seats again
+				}
+				throw e;
+			}
+			return true;
+		} finally {
+			event.record();
 		}
 	}
 }
@@ -0,0 +1,60 @@
+package com.estore.api.estoreapi.screenings.persistence;
+
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+
+import java.io.IOException;
+
+/**
+ * Defines the interface for holding seats of a screening while a customer checks out.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public interface SeatHoldDAO {
+	/**
+	 * Claims seats of a screening and holds them until the hold is claimed, released or expires.
+	 *
+	 * @param screeningId The id of the screening
+	 * @param seats       The labels of the seats to hold, e.g. "a1"
+	 * @return new {@link SeatHold SeatHold} if successful<br>
+	 * null if the screening does not exist, or any seat is taken or not part of it
+	 * @throws IOException if underlying storage cannot be accessed
+	 */
+	SeatHold createHold (int screeningId, String[] seats) throws IOException;
+
+	/**
+	 * Retrieves a {@linkplain SeatHold SeatHold} with the given id.
+	 *
+	 * @param id The id of the {@link SeatHold SeatHold} to get.
+	 * @return a {@link SeatHold SeatHold} object with the matching id.<br>
+	 * null if no {@link SeatHold SeatHold} with a matching id is active.
+	 */
+	SeatHold getHold (int id);
+
+	/**
+	 * Ends a hold whose seats are now part of an order. The seats stay taken, and are saved with the screening.
+	 *
+	 * @param id The id of the {@link SeatHold SeatHold}
+	 * @return the claimed {@link SeatHold SeatHold}<br>
+	 * null if no {@link SeatHold SeatHold} with a matching id is active, for example because it expired
+	 * @throws IOException if underlying storage cannot be accessed, the hold has then ended and its seats are free
+	 */
+	SeatHold claimHold (int id) throws IOException;
+
+	/**
+	 * Frees the seats of a claimed hold, when the order they were claimed for could not be created.
+	 *
+	 * @param hold The {@link SeatHold SeatHold} returned by {@link #claimHold(int)}
+	 * @throws IOException if underlying storage cannot be accessed
+	 */
+	void cancelClaim (SeatHold hold) throws IOException;
+
+	/**
+	 * Ends a hold and frees its seats.
+	 *
+	 * @param id The id of the {@link SeatHold SeatHold}
+	 * @return true if the {@link SeatHold SeatHold} was released<br>
+	 * false if no {@link SeatHold SeatHold} with a matching id is active
+	 * @throws IOException if underlying storage cannot be accessed
+	 */
+	boolean releaseHold (int id) throws IOException;
+}
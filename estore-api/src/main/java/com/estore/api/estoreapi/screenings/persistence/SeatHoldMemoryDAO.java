@@ -0,0 +1,228 @@
+package com.estore.api.estoreapi.screenings.persistence;
+
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implements in-memory seat holds on top of a {@link ScreeningDAO}.<p>
+ * Creating a hold takes its seats through {@link ScreeningDAO#holdSeats(int, String[])}, so held seats show as
+ * taken to every other customer. Each hold is queued in a delay queue, and a background thread frees the seats of
+ * holds whose time runs out, without ever scanning the screenings.<p>
+ * Holds only live in memory, and their seats are never saved with the screening until the hold is claimed for an
+ * order. Seats held when the application stops, even by a crash, are free again once it restarts.<p>
+ * {@literal @}Component Spring annotation instantiates a single instance of this
+ * class and injects the instance into other classes as needed
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Component
+public class SeatHoldMemoryDAO implements SeatHoldDAO {
+	/** The active holds, by id. */
+	final Map<Integer, SeatHold> holds = new ConcurrentHashMap<>();
+	/** The active holds, ordered by when they expire. */
+	private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+	/** The next id to assign to a new hold. */
+	private final AtomicInteger nextId = new AtomicInteger(1);
+
+	/** The ScreeningDAO object whose seats are held. */
+	private final ScreeningDAO screeningDao;
+	/** How long a hold lasts, in milliseconds. */
+	private final long ttl;
+
+	/** Frees the seats of expired holds, null until started. */
+	private Thread expiryThread;
+
+	/**
+	 * Creates a Data Access Object for in-memory seat holds.
+	 *
+	 * @param screeningDao The {@link ScreeningDAO Screening Data Access Object} whose seats are held
+	 * @param ttl          How long a hold lasts, in milliseconds
+	 */
+	public SeatHoldMemoryDAO (ScreeningDAO screeningDao, @Value("${holds.ttl:600000}") long ttl) {
+		this.screeningDao = screeningDao;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Starts the background thread that expires holds.
+	 */
+	@PostConstruct
+	void start () {
+		expiryThread = new Thread(this::runExpiry, "seat-hold-expiry");
+		expiryThread.setDaemon(true);
+		expiryThread.start();
+	}
+
+	/**
+	 * Stops the background thread and frees the seats of every active hold.
+	 */
+	@PreDestroy
+	void stop () {
+		if (expiryThread != null) {
+			expiryThread.interrupt();
+		}
+		for (Integer id : new ArrayList<>(holds.keySet())) {
+			releaseHold(id);
+		}
+	}
+
+	/**
+	 * Waits for holds to expire and frees their seats, until interrupted.
+	 */
+	private void runExpiry () {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				expire(expiries.take());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Frees the seats of every hold that has already expired, without waiting.
+	 *
+	 * @return The number of holds that expired
+	 */
+	int expireHolds () {
+		List<Expiry> expired = new ArrayList<>();
+		expiries.drainTo(expired);
+		int count = 0;
+		for (Expiry expiry : expired) {
+			if (expire(expiry)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Frees the seats of an expired hold, unless it was already claimed or released.
+	 *
+	 * @param expiry The expired queue entry
+	 * @return true if the hold was still active
+	 */
+	private boolean expire (Expiry expiry) {
+		SeatHold hold = holds.remove(expiry.holdId);
+		if (hold == null) {
+			return false;
+		}
+		screeningDao.releaseHeldSeats(hold.getScreeningId(), hold.getSeats());
+		return true;
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public SeatHold createHold (int screeningId, String[] seats) {
+		if (!screeningDao.holdSeats(screeningId, seats)) {
+			return null;
+		}
+
+		SeatHold hold = new SeatHold(nextId.getAndIncrement(), screeningId, seats, System.currentTimeMillis() + ttl);
+		holds.put(hold.getId(), hold);
+		expiries.add(new Expiry(hold.getId(), ttl));
+		return hold;
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public SeatHold getHold (int id) {
+		return holds.get(id);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public SeatHold claimHold (int id) throws IOException {
+		// Removing the hold is what decides between a claim, a release and an expiry racing for it
+		SeatHold hold = holds.remove(id);
+		if (hold == null) {
+			return null;
+		}
+		try {
+			if (!screeningDao.confirmHeldSeats(hold.getScreeningId(), hold.getSeats())) {
+				return null;  // the screening was deleted since
+			}
+		} catch (IOException e) {
+			screeningDao.releaseHeldSeats(hold.getScreeningId(), hold.getSeats());  // the hold has ended without an order
+			throw e;
+		}
+		return hold;
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public void cancelClaim (SeatHold hold) throws IOException {
+		screeningDao.releaseSeats(hold.getScreeningId(), hold.getSeats());
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseHold (int id) {
+		SeatHold hold = holds.remove(id);
+		if (hold == null) {
+			return false;
+		}
+		screeningDao.releaseHeldSeats(hold.getScreeningId(), hold.getSeats());
+		return true;
+	}
+
+	/**
+	 * An entry of the expiry queue, which becomes available when its hold expires.
+	 */
+	private static class Expiry implements Delayed {
+		/** The id of the hold that expires. */
+		private final int holdId;
+		/** When the hold expires, in {@link System#nanoTime()} terms. */
+		private final long deadline;
+
+		/**
+		 * Create an expiry queue entry.
+		 *
+		 * @param holdId The id of the hold that expires
+		 * @param ttl    How long until the hold expires, in milliseconds
+		 */
+		Expiry (int holdId, long ttl) {
+			this.holdId = holdId;
+			this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public long getDelay (TimeUnit unit) {
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int compareTo (Delayed other) {
+			return Long.compare(deadline, ((Expiry) other).deadline);
+		}
+	}
+}
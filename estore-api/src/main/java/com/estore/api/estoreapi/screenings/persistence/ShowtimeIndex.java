@@ -0,0 +1,133 @@
+package com.estore.api.estoreapi.screenings.persistence;
+
+import com.estore.api.estoreapi.screenings.model.Screening;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An index of {@linkplain Screening screenings} sorted by when they are shown, keyed on their parsed date and time.<p>
+ * Screenings shown at the same time are grouped and ordered by id. Screenings whose date or time cannot be read are
+ * kept last, and are never part of a time range.<p>
+ * Reads do not lock, so they can run alongside a write. Writes must not run concurrently with each other.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+class ShowtimeIndex {
+	/** Key of the screenings whose date or time cannot be read, after every real showtime. */
+	private static final LocalDateTime UNKNOWN_SHOWTIME = LocalDateTime.MAX;
+
+	/** The indexed screenings, grouped by showtime and then by id. */
+	private final NavigableMap<LocalDateTime, NavigableMap<Integer, Screening>> showtimes = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Gets the key a {@linkplain Screening screening} is indexed under.
+	 *
+	 * @param screening The {@link Screening screening}
+	 * @return Its showtime, or {@link #UNKNOWN_SHOWTIME} if it cannot be read
+	 */
+	private static LocalDateTime keyOf (Screening screening) {
+		LocalDateTime showtime = screening.getShowtime();
+		return showtime == null ? UNKNOWN_SHOWTIME : showtime;
+	}
+
+	/**
+	 * Check if two {@linkplain Screening screenings} are indexed at the same place.
+	 *
+	 * @param first  A {@link Screening screening}
+	 * @param second Another {@link Screening screening}
+	 * @return True if both have the same id and showtime, so adding one replaces the other
+	 */
+	static boolean samePlace (Screening first, Screening second) {
+		return first.getId() == second.getId() && keyOf(first).equals(keyOf(second));
+	}
+
+	/**
+	 * Adds a {@linkplain Screening screening}, replacing the one with the same id and showtime, if any.
+	 *
+	 * @param screening The {@link Screening screening} to add
+	 */
+	void add (Screening screening) {
+		showtimes.computeIfAbsent(keyOf(screening), key -> new ConcurrentSkipListMap<>()).put(screening.getId(), screening);
+	}
+
+	/**
+	 * Removes a {@linkplain Screening screening}, dropping its showtime once no other screening is shown then.
+	 *
+	 * @param screening The {@link Screening screening} to remove
+	 */
+	void remove (Screening screening) {
+		LocalDateTime key = keyOf(screening);
+		NavigableMap<Integer, Screening> group = showtimes.get(key);
+		if (group != null) {
+			group.remove(screening.getId());
+			if (group.isEmpty()) {
+				showtimes.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @return True if no screening is indexed
+	 */
+	boolean isEmpty () {
+		return showtimes.isEmpty();
+	}
+
+	/**
+	 * @return An array of every indexed {@link Screening screening} in showtime order, may be empty
+	 */
+	Screening[] toArray () {
+		return toArray(showtimes, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Generates an array of the {@linkplain Screening screenings} shown from one time up to another.
+	 *
+	 * @param from The earliest showtime, inclusive
+	 * @param to   The latest showtime, exclusive
+	 * @return The array of {@link Screening screenings} in showtime order, may be empty
+	 */
+	Screening[] between (LocalDateTime from, LocalDateTime to) {
+		if (!from.isBefore(to)) {
+			return new Screening[0];
+		}
+		return toArray(showtimes.subMap(from, true, to, false), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Generates an array of the first {@linkplain Screening screenings} shown at or after a time.
+	 *
+	 * @param from  The earliest showtime, inclusive
+	 * @param limit The greatest number of {@link Screening screenings} to return
+	 * @return The array of {@link Screening screenings} in showtime order, may be empty
+	 */
+	Screening[] next (LocalDateTime from, int limit) {
+		return toArray(showtimes.subMap(from, true, UNKNOWN_SHOWTIME, false), limit);
+	}
+
+	/**
+	 * Generates an array of the {@linkplain Screening screenings} in a range of showtimes.<br>
+	 * Only the showtimes in the range are visited, so the cost follows the number of results.
+	 *
+	 * @param range The showtimes to copy
+	 * @param limit The greatest number of {@link Screening screenings} to copy
+	 * @return The array of {@link Screening screenings} in showtime order, may be empty
+	 */
+	private static Screening[] toArray (Map<LocalDateTime, NavigableMap<Integer, Screening>> range, int limit) {
+		List<Screening> screeningList = new ArrayList<>();
+		for (NavigableMap<Integer, Screening> group : range.values()) {
+			for (Screening screening : group.values()) {
+				if (screeningList.size() >= limit) {
+					return screeningList.toArray(new Screening[0]);
+				}
+				screeningList.add(screening);
+			}
+		}
+		return screeningList.toArray(new Screening[0]);
+	}
+}
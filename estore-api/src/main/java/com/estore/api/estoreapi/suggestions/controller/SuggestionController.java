@@ -1,5 +1,7 @@
 package com.estore.api.estoreapi.suggestions.controller;
 
+import com.estore.api.estoreapi.PageResponses;
+import com.estore.api.estoreapi.logging.AccessLog;
 import com.estore.api.estoreapi.suggestions.model.Suggestion;
 import com.estore.api.estoreapi.suggestions.persistence.SuggestionDAO;
 import org.springframework.http.HttpStatus;
@@ -20,8 +22,10 @@ import java.util.logging.Logger;
 @RestController
 @RequestMapping("suggestions")
 public class SuggestionController {
-	/* Logger is used to log to command line the HTTP request performed, or any internal server errors encountered. */
+	/* Logger is used to log to command line any internal server errors encountered. */
 	private static final Logger LOG = Logger.getLogger(SuggestionController.class.getName());
+	/* Access log the HTTP requests performed are written to, formatted and written off the request thread. */
+	private static final AccessLog ACCESS_LOG = AccessLog.getLog(SuggestionController.class);
 
 	/** The SuggestionDAO object this Controller interacts with to get Suggestion objects. */
 	private final SuggestionDAO suggestionDao;
@@ -46,7 +50,7 @@ public class SuggestionController {
 	 */
 	@PostMapping("")
 	public ResponseEntity<Suggestion> createSuggestion (@RequestBody Suggestion suggestion) {
-		LOG.info("POST /suggestions/" + suggestion);
+		ACCESS_LOG.log("POST /suggestions/{}", suggestion);
 
 		try {
 			Suggestion newSuggestion = suggestionDao.createSuggestion(suggestion);
@@ -71,7 +75,7 @@ public class SuggestionController {
 	 */
 	@PutMapping("")
 	public ResponseEntity<Suggestion> updateSuggestion (@RequestBody Suggestion suggestion) {
-		LOG.info("PUT /suggestions/" + suggestion);
+		ACCESS_LOG.log("PUT /suggestions/{}", suggestion);
 		try {
 			Suggestion updatedSuggestion = suggestionDao.updateSuggestion(suggestion);
 			if (updatedSuggestion != null) {
@@ -95,7 +99,7 @@ public class SuggestionController {
 	 */
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Suggestion> deleteSuggestion (@PathVariable int id) {
-		LOG.info("DELETE /suggestions/" + id);
+		ACCESS_LOG.log("DELETE /suggestions/{}", id);
 		try {
 			if (suggestionDao.deleteSuggestion(id)) {
 				return new ResponseEntity<>(HttpStatus.OK);
@@ -108,6 +112,30 @@ public class SuggestionController {
 		}
 	}
 
+	/**
+	 * Adds one vote to the {@linkplain Suggestion suggestion} with the given id.
+	 *
+	 * @param id The id of the {@link Suggestion suggestion} to vote for
+	 * @return ResponseEntity with the {@link Suggestion suggestion} and its new vote total and HTTP status of OK if found<br>
+	 * ResponseEntity with HTTP status of NOT_FOUND if not found<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@PostMapping("/{id}/votes")
+	public ResponseEntity<Suggestion> voteSuggestion (@PathVariable int id) {
+		ACCESS_LOG.log("POST /suggestions/{}/votes", id);
+		try {
+			Suggestion suggestion = suggestionDao.voteSuggestion(id);
+			if (suggestion != null) {
+				return new ResponseEntity<>(suggestion, HttpStatus.OK);
+			} else {
+				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+			}
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
 	/**
 	 * Responds to the GET request for a {@linkplain Suggestion suggestion} with the given id.
 	 *
@@ -118,7 +146,7 @@ public class SuggestionController {
 	 */
 	@GetMapping("/{id}")
 	public ResponseEntity<Suggestion> getSuggestion (@PathVariable int id) {
-		LOG.info("GET /suggestions/" + id);
+		ACCESS_LOG.log("GET /suggestions/{}", id);
 		try {
 			// Try to get the suggestion based on the id entered by the user
 			Suggestion suggestion = suggestionDao.getSuggestion(id);
@@ -141,7 +169,7 @@ public class SuggestionController {
 	 */
 	@GetMapping("")
 	public ResponseEntity<Suggestion[]> getSuggestions () {
-		LOG.info("GET /suggestions/");
+		ACCESS_LOG.log("GET /suggestions/");
 		try {
 			// Try and get a list of all the suggestions from the system
 			Suggestion[] suggestions = suggestionDao.getSuggestions();
@@ -155,4 +183,47 @@ public class SuggestionController {
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/**
+	 * Responds to the GET request for a page of {@linkplain Suggestion suggestions} in id order.<br>
+	 * To get the next page, pass the id of the last {@link Suggestion suggestion} of this page as after. A page with fewer
+	 * than limit suggestions is the last.
+	 *
+	 * @param after The id of the last {@link Suggestion suggestion} of the previous page, left out for the first page
+	 * @param limit The greatest number of {@link Suggestion suggestions} to return
+	 * @return ResponseEntity with array of {@link Suggestion suggestion} objects (may be empty) and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = "limit")
+	public ResponseEntity<Suggestion[]> getSuggestionsPage (@RequestParam(required = false) Integer after, @RequestParam int limit) {
+		ACCESS_LOG.log("GET /suggestions?after={}&limit={}", after, limit);
+		return PageResponses.of(limit, () -> suggestionDao.getSuggestions(after, limit), LOG);
+	}
+
+	/**
+	 * Responds to the GET request for a page of the {@linkplain Suggestion suggestions} with the most votes.
+	 *
+	 * @param offset The number of top {@link Suggestion suggestions} to skip, 0 by default
+	 * @param limit  The greatest number of {@link Suggestion suggestions} to return, 10 by default
+	 * @return ResponseEntity with array of {@link Suggestion suggestion} objects (may be empty) ranked by votes, most first,
+	 * then by id, and HTTP status of OK<br>
+	 * ResponseEntity with HTTP status of BAD_REQUEST if offset is negative or limit is not positive<br>
+	 * ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+	 */
+	@GetMapping("/top")
+	public ResponseEntity<Suggestion[]> getTopSuggestions (@RequestParam(value = "offset", defaultValue = "0") int offset,
+	                                                       @RequestParam(value = "limit", defaultValue = "10") int limit) {
+		ACCESS_LOG.log("GET /suggestions/top?offset={}&limit={}", offset, limit);
+		if (offset < 0 || limit <= 0) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		try {
+			Suggestion[] suggestions = suggestionDao.getTopSuggestions(offset, limit);
+			return new ResponseEntity<>(suggestions, HttpStatus.OK);
+		} catch (IOException e) {
+			LOG.log(Level.SEVERE, e.getLocalizedMessage());
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
 }
@@ -57,4 +57,36 @@ public interface SuggestionDAO {
 	 * @throws IOException if an issue with underlying storage
 	 */
 	Suggestion[] getSuggestions () throws IOException;
+
+	/**
+	 * Retrieves a page of {@linkplain Suggestion suggestions} in id order, to list them a page at a time.<br>
+	 * The next page starts after the last id of this page.
+	 *
+	 * @param after The id of the last {@link Suggestion suggestion} of the previous page, or null for the first page
+	 * @param limit The greatest number of {@link Suggestion suggestions} to return
+	 * @return An array of up to limit {@link Suggestion suggestion} objects with ids after the given one, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Suggestion[] getSuggestions (Integer after, int limit) throws IOException;
+
+	/**
+	 * Retrieves a page of the {@linkplain Suggestion suggestions} ranked by votes, most first, then by id.
+	 *
+	 * @param offset The number of top {@link Suggestion suggestions} to skip
+	 * @param limit  The greatest number of {@link Suggestion suggestions} to return
+	 * @return An array of up to limit {@link Suggestion suggestion} objects in ranking order, may be empty
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Suggestion[] getTopSuggestions (int offset, int limit) throws IOException;
+
+	/**
+	 * Adds one vote to a {@linkplain Suggestion Suggestion}.<br>
+	 * The vote counts right away, but may be saved later, together with other votes.
+	 *
+	 * @param id The id of the {@link Suggestion Suggestion} to vote for
+	 * @return the {@link Suggestion Suggestion} with its new vote total<br>
+	 * null if no {@link Suggestion Suggestion} with a matching id is found
+	 * @throws IOException if an issue with underlying storage
+	 */
+	Suggestion voteSuggestion (int id) throws IOException;
 }
@@ -1,18 +1,36 @@
 package com.estore.api.estoreapi.suggestions.persistence;
 
+import com.estore.api.estoreapi.persistence.Paging;
+import com.estore.api.estoreapi.persistence.SnapshotFile;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.estore.api.estoreapi.suggestions.model.Suggestion;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Implements the functionality for JSON file-based persistence for Suggestions.<p>
+ * Votes are counted in memory without locking, and written to the file in batches by {@link #flushVotes()}. They
+ * are moved into the ranking in batches too, by the next read of the ranking or flush of the votes.<p>
  * {@literal @}Component Spring annotation instantiates a single instance of this
  * class and injects the instance into other classes as needed
  *
@@ -20,27 +38,72 @@ import java.util.TreeMap;
  */
 @Component
 public class SuggestionJSONDAO implements SuggestionDAO {
-	/** A local cache of Suggestion objects, to avoid reading from file each time. */
-	Map<Integer, Suggestion> suggestions;
+	/**
+	 * A local cache of Suggestion objects, to avoid reading from file each time.<br>
+	 * Reads go straight to the concurrent map, so they never wait on a write. Writes lock the map so that they are
+	 * applied one at a time, and the {@link #store} saves them to the file.
+	 */
+	NavigableMap<Integer, Suggestion> suggestions;
+	/**
+	 * The vote total of each cached suggestion, by id. Votes only add to a counter, so a burst of votes for the
+	 * same suggestion is spread over the counter's cells instead of contending on a lock.
+	 */
+	private final Map<Integer, LongAdder> votes = new ConcurrentHashMap<>();
+	/** Ids of the suggestions voted for since their votes were last written to the file. */
+	private final Set<Integer> unsavedVotes = ConcurrentHashMap.newKeySet();
+	/** Ids of the suggestions voted for since they were last moved in the ranking. */
+	private final Set<Integer> unrankedVotes = ConcurrentHashMap.newKeySet();
+	/**
+	 * The cached suggestions ranked by votes, most first, then by id, each packed into a single key by
+	 * {@link #rankKey(long, int)}. Moving a suggestion after votes is a removal and an insertion, O(log n) each.
+	 */
+	private final NavigableSet<Long> ranking = new ConcurrentSkipListSet<>();
+	/** The vote total each cached suggestion is currently ranked with, by id. */
+	private final Map<Integer, Long> rankedVotes = new ConcurrentHashMap<>();
+	/**
+	 * Guards moves in the ranking against pages being read. A suggestion moving ahead of a page being read would
+	 * otherwise be missed, so a page read optimistically is read again under the read lock if anything moved meanwhile.
+	 * Votes never take this lock, the suggestions they move are ranked together by whoever reads the ranking next.
+	 */
+	private final StampedLock rankingLock = new StampedLock();
+
+	/** How long changes and vote flushes wait for the lock on the cached suggestions. */
+	private static final Timer LOCK_WAIT = Metrics.timer("dao.lock.wait", "lock", "suggestions");
 
 	/** The next id to assign to a new suggestion. */
 	private static int nextId;
 
-	/** Name of the file to read and write to. */
-	private final String filename;
-	/** Provides conversion between Java Suggestion and JSON Suggestion objects. */
-	private final ObjectMapper objectMapper;
+	/** The file to read and write to, holding the suggestions in the storage format and replaced whole on every save. */
+	private final SnapshotFile file;
+	/** Saves the cached suggestions to the file, behind the changes made to them. */
+	private final WriteBehindPersister.Store store;
+
+	/**
+	 * Creates a Data Access Object for JSON-based Suggestions, which saves every change before returning.
+	 *
+	 * @param filename     Filename to read from and write to
+	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @throws IOException when file cannot be accessed or read from
+	 */
+	public SuggestionJSONDAO (String filename, ObjectMapper objectMapper) throws IOException {
+		this(filename, objectMapper, new WriteBehindPersister(), StorageFormat.JSON);
+	}
 
 	/**
 	 * Creates a Data Access Object for JSON-based Suggestions.
 	 *
 	 * @param filename     Filename to read from and write to
 	 * @param objectMapper Provides JSON Object to/from Java Object serialization and deserialization
+	 * @param persister    Saves the suggestions to the file behind the changes made to them
+	 * @param format       The format to keep the file in
 	 * @throws IOException when file cannot be accessed or read from
 	 */
-	public SuggestionJSONDAO (@Value("${suggestions.file}") String filename, ObjectMapper objectMapper) throws IOException {
-		this.filename = filename;
-		this.objectMapper = objectMapper;
+	@Autowired
+	public SuggestionJSONDAO (@Value("${suggestions.file}") String filename, ObjectMapper objectMapper,
+	                          WriteBehindPersister persister, @Value("${persistence.format:json}") StorageFormat format)
+		throws IOException {
+		this.file = new SnapshotFile(filename, objectMapper, format);
+		this.store = persister.register("suggestions", this::save, false);
 		load();  // load the suggestions from the file
 	}
 
@@ -56,12 +119,142 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	}
 
 	/**
-	 * Generates an array of {@linkplain Suggestion suggestions} from the tree map.
+	 * Generates an array of {@linkplain Suggestion suggestions} from the map, with their current vote totals.
 	 *
 	 * @return The array of {@link Suggestion suggestions}, may be empty
 	 */
 	private Suggestion[] getSuggestionsArray () {
-		ArrayList<Suggestion> suggestionArrayList = new ArrayList<>(suggestions.values());
+		ArrayList<Suggestion> suggestionArrayList = new ArrayList<>(suggestions.size());
+		for (Suggestion suggestion : suggestions.values()) {
+			suggestionArrayList.add(withVotes(suggestion));
+		}
+		Suggestion[] suggestionArray = new Suggestion[suggestionArrayList.size()];
+		suggestionArrayList.toArray(suggestionArray);
+		return suggestionArray;
+	}
+
+	/**
+	 * Gets a {@linkplain Suggestion suggestion} with its current vote total, including votes not yet written to the file.
+	 *
+	 * @param suggestion The cached {@link Suggestion suggestion}
+	 * @return The {@link Suggestion suggestion} itself if its votes are up to date, else a copy with the current votes
+	 */
+	private Suggestion withVotes (Suggestion suggestion) {
+		LongAdder counter = votes.get(suggestion.getId());
+		int total = counter == null ? suggestion.getVotes() : (int) counter.sum();
+		if (total == suggestion.getVotes()) {
+			return suggestion;
+		}
+		return new Suggestion(suggestion.getId(), suggestion.getMovieTitle(), total);
+	}
+
+	/**
+	 * Caches a {@linkplain Suggestion suggestion} and starts its vote counter at its votes.<br>
+	 * The counter is set before the suggestion is visible, so a reader never finds one without the other.
+	 *
+	 * @param suggestion The {@link Suggestion suggestion} to cache
+	 */
+	private void cache (Suggestion suggestion) {
+		LongAdder counter = new LongAdder();
+		counter.add(suggestion.getVotes());
+		votes.put(suggestion.getId(), counter);
+		suggestions.put(suggestion.getId(), suggestion);
+		rank(suggestion.getId());
+	}
+
+	/**
+	 * Packs a vote total and an id into a ranking key. Keys sort by votes, most first, then by id.
+	 *
+	 * @param votes The vote total
+	 * @param id    The id of the {@link Suggestion suggestion}
+	 * @return The ranking key
+	 */
+	private static long rankKey (long votes, int id) {
+		return (-votes << Integer.SIZE) | Integer.toUnsignedLong(id);
+	}
+
+	/**
+	 * Gets the id packed into a ranking key.
+	 *
+	 * @param key The ranking key
+	 * @return The id of the {@link Suggestion suggestion}
+	 */
+	private static int rankedId (long key) {
+		return (int) key;
+	}
+
+	/**
+	 * Moves a {@linkplain Suggestion suggestion} to the place in the ranking of its current vote total.
+	 *
+	 * @param id The id of the {@link Suggestion suggestion}
+	 */
+	private void rank (int id) {
+		long stamp = rankingLock.writeLock();
+		try {
+			move(id);
+		} finally {
+			rankingLock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Moves every {@linkplain Suggestion suggestion} voted for since it was last ranked to the place of its current
+	 * vote total, under a single hold of the ranking lock however many votes were cast.
+	 */
+	private void rankVotes () {
+		if (unrankedVotes.isEmpty()) {
+			return;
+		}
+		long stamp = rankingLock.writeLock();
+		try {
+			for (Integer id : unrankedVotes) {
+				// Unmark before reading the total, so a vote cast meanwhile is ranked next time instead of lost
+				unrankedVotes.remove(id);
+				move(id);
+			}
+		} finally {
+			rankingLock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Moves a {@linkplain Suggestion suggestion} in the ranking to the place of the vote total it has now, or out of
+	 * the ranking once it is deleted.<br>
+	 * Must be called while holding the write lock of the ranking.
+	 *
+	 * @param id The id of the {@link Suggestion suggestion}
+	 */
+	private void move (int id) {
+		LongAdder counter = votes.get(id);
+		Long total = counter == null ? null : counter.sum();  // null once the suggestion is deleted
+		Long ranked = total == null ? rankedVotes.remove(id) : rankedVotes.put(id, total);
+		if (total != null) {
+			ranking.add(rankKey(total, id));
+		}
+		if (ranked != null && !ranked.equals(total)) {
+			ranking.remove(rankKey(ranked, id));
+		}
+	}
+
+	/**
+	 * Generates an array of a page of the ranked {@linkplain Suggestion suggestions}.
+	 *
+	 * @param offset The number of top {@link Suggestion suggestions} to skip
+	 * @param limit  The greatest number of {@link Suggestion suggestions} to return
+	 * @return The array of {@link Suggestion suggestions} in ranking order, may be empty
+	 */
+	private Suggestion[] getRankedArray (int offset, int limit) {
+		ArrayList<Suggestion> suggestionArrayList = new ArrayList<>(Math.min(limit, suggestions.size()));
+		Iterator<Long> ranked = ranking.iterator();
+		for (int skipped = 0; skipped < offset && ranked.hasNext(); ++skipped) {
+			ranked.next();
+		}
+		while (suggestionArrayList.size() < limit && ranked.hasNext()) {
+			Suggestion suggestion = suggestions.get(rankedId(ranked.next()));
+			if (suggestion != null) {
+				suggestionArrayList.add(withVotes(suggestion));
+			}
+		}
 		Suggestion[] suggestionArray = new Suggestion[suggestionArrayList.size()];
 		suggestionArrayList.toArray(suggestionArray);
 		return suggestionArray;
@@ -76,9 +269,9 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	private boolean save () throws IOException {
 		Suggestion[] suggestionArray = getSuggestionsArray();
 
-		// Serializes the Java Objects to JSON objects into the file,
-		// writeValue will throw an IOException if there is an issue with or reading from the file
-		objectMapper.writeValue(new File(filename), suggestionArray);
+		// Serializes the Java Objects to JSON objects into a new snapshot of the file,
+		// write will throw an IOException if there is an issue with writing the file
+		file.write(suggestionArray);
 		return true;
 	}
 
@@ -90,16 +283,16 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	 * @throws IOException when file cannot be accessed or read from
 	 */
 	private boolean load () throws IOException {
-		suggestions = new TreeMap<>();
+		suggestions = new ConcurrentSkipListMap<>();
 		nextId = 0;
 
 		// Deserializes the JSON objects from the file into an array of suggestions,
-		// readValue will throw an IOException if there's an issue with or reading from the file
-		Suggestion[] suggestionArray = objectMapper.readValue(new File(filename), Suggestion[].class);
+		// read will throw an IOException if neither the file nor its backup can be read
+		Suggestion[] suggestionArray = file.read(Suggestion[].class);
 
-		// Add each suggestion to the tree map and keep track of the greatest id
+		// Add each suggestion to the map and keep track of the greatest id
 		for (Suggestion suggestion : suggestionArray) {
-			suggestions.put(suggestion.getId(), suggestion);
+			cache(suggestion);
 			if (suggestion.getId() > nextId) {
 				nextId = suggestion.getId();
 			}
@@ -114,11 +307,13 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	 */
 	@Override
 	public Suggestion createSuggestion (Suggestion suggestion) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (suggestions) {
+			waiting.stop(LOCK_WAIT);
 			// We create a new suggestion object because the id field is immutable, and we need to assign the next unique id
 			Suggestion newSuggestion = new Suggestion(nextId(), suggestion.getMovieTitle(), suggestion.getVotes());
-			suggestions.put(newSuggestion.getId(), newSuggestion);
-			save(); // may throw an IOException
+			cache(newSuggestion);
+			store.changed(); // may throw an IOException
 			return newSuggestion;
 		}
 	}
@@ -128,13 +323,16 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	 */
 	@Override
 	public Suggestion updateSuggestion (Suggestion suggestion) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (suggestions) {
+			waiting.stop(LOCK_WAIT);
 			if (!suggestions.containsKey(suggestion.getId())) {
 				return null;  // suggestion does not exist
 			}
 
-			suggestions.put(suggestion.getId(), suggestion);
-			save(); // may throw an IOException
+			cache(suggestion);  // replaces the vote total, along with any votes cast meanwhile
+			unsavedVotes.remove(suggestion.getId());
+			store.changed(); // may throw an IOException
 			return suggestion;
 		}
 	}
@@ -144,10 +342,16 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	 */
 	@Override
 	public boolean deleteSuggestion (int id) throws IOException {
+		Timer.Sample waiting = Timer.start();
 		synchronized (suggestions) {
+			waiting.stop(LOCK_WAIT);
 			if (suggestions.containsKey(id)) {
 				suggestions.remove(id);
-				return save();
+				votes.remove(id);
+				unsavedVotes.remove(id);
+				rank(id);
+				store.changed(); // may throw an IOException
+				return true;
 			} else {
 				return false;
 			}
@@ -159,22 +363,89 @@ public class SuggestionJSONDAO implements SuggestionDAO {
 	 */
 	@Override
 	public Suggestion getSuggestion (int id) {
-		synchronized (suggestions) {
-			if (suggestions.containsKey(id)) {
-				return suggestions.get(id);
-			} else {
-				return null;
+		Suggestion suggestion = suggestions.get(id);
+		return suggestion == null ? null : withVotes(suggestion);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Suggestion[] getSuggestions () {
+		return getSuggestionsArray();
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Suggestion[] getSuggestions (Integer after, int limit) {
+		return Paging.page(suggestions, after, limit, this::withVotes, Suggestion[]::new);
+	}
+
+	/**
+	 * * {@inheritDoc}
+	 */
+	@Override
+	public Suggestion[] getTopSuggestions (int offset, int limit) {
+		rankVotes();  // so the page counts every vote cast before it was asked for
+		long stamp = rankingLock.tryOptimisticRead();
+		Suggestion[] suggestionArray = getRankedArray(offset, limit);
+		if (!rankingLock.validate(stamp)) {
+			stamp = rankingLock.readLock();
+			try {
+				suggestionArray = getRankedArray(offset, limit);
+			} finally {
+				rankingLock.unlockRead(stamp);
 			}
 		}
+		return suggestionArray;
 	}
 
 	/**
 	 * * {@inheritDoc}
 	 */
 	@Override
-	public Suggestion[] getSuggestions () {
+	public Suggestion voteSuggestion (int id) {
+		Suggestion suggestion = suggestions.get(id);
+		LongAdder counter = votes.get(id);
+		if (suggestion == null || counter == null) {
+			return null;
+		}
+		counter.increment();
+		unsavedVotes.add(id);
+		unrankedVotes.add(id);
+		return withVotes(suggestion);
+	}
+
+	/**
+	 * Writes the votes cast since the last flush into the cached suggestions and saves them, if there are any, and
+	 * moves the suggestions voted for in the ranking.<br>
+	 * Runs every {@code suggestions.votes.flushInterval} milliseconds, and when the application shuts down.
+	 *
+	 * @return true if votes were written, false if there were none to write
+	 * @throws IOException when file cannot be accessed or written to
+	 */
+	@Scheduled(fixedDelayString = "${suggestions.votes.flushInterval:5000}")
+	@PreDestroy
+	public boolean flushVotes () throws IOException {
+		rankVotes();  // keeps the votes waiting to be ranked few, even if the ranking is seldom read
+		if (unsavedVotes.isEmpty()) {
+			return false;
+		}
+		Timer.Sample waiting = Timer.start();
 		synchronized (suggestions) {
-			return getSuggestionsArray();
+			waiting.stop(LOCK_WAIT);
+			for (Integer id : unsavedVotes) {
+				// Unmark before reading the total, so a vote cast meanwhile is flushed next time instead of lost
+				unsavedVotes.remove(id);
+				Suggestion suggestion = suggestions.get(id);
+				if (suggestion != null) {
+					suggestions.put(id, withVotes(suggestion));
+				}
+			}
+			store.changed(); // may throw an IOException
+			return true;
 		}
 	}
 }
@@ -0,0 +1,357 @@
+package com.estore.api.estoreapi;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+import com.estore.api.estoreapi.orders.model.Order;
+import com.estore.api.estoreapi.screenings.model.Screening;
+import com.estore.api.estoreapi.suggestions.model.Suggestion;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays the purchase flow of the UI against a running E-Store API from many customers at once, and reports the
+ * latency of each kind of request, the throughput, the errors, and how many seats were sold more than once.<p>
+ * Each customer repeatedly:
+ * <ol>
+ * <li>lists the movies, {@code GET /movies}</li>
+ * <li>lists the screenings of one of them, {@code GET /screenings/?movieId=}</li>
+ * <li>buys a few free seats of one screening, {@code POST /orders}</li>
+ * <li>marks the seats as taken, {@code PUT /screenings}</li>
+ * <li>votes for a suggestion, {@code GET /suggestions/} and {@code POST /suggestions/{id}/votes}</li>
+ * </ol>
+ * Like the UI, a customer picks seats from the screening as it last read it and writes the whole screening back, so
+ * customers buying at the same time can be sold the same seat. After the run the orders of every screening are
+ * checked for seats sold more than once.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+public class LoadDriver {
+	/** The greatest number of seats a customer buys at once. */
+	private static final int MAX_SEATS = 4;
+
+	/** The address of the API, e.g. "http://localhost:8080". */
+	private final String baseUrl;
+	/** The number of customers buying at the same time. */
+	private final int customers;
+	/** The number of purchases each customer makes. */
+	private final int purchases;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	/** Requests that failed or were answered with an error status. */
+	private final AtomicInteger errors = new AtomicInteger();
+	/** Purchases given up because the chosen movie had no free seat left. */
+	private final AtomicInteger soldOut = new AtomicInteger();
+
+	/**
+	 * Create a load driver.
+	 *
+	 * @param baseUrl   The address of the API, e.g. "http://localhost:8080"
+	 * @param customers The number of customers buying at the same time
+	 * @param purchases The number of purchases each customer makes
+	 */
+	public LoadDriver (String baseUrl, int customers, int purchases) {
+		this.baseUrl = baseUrl;
+		this.customers = customers;
+		this.purchases = purchases;
+	}
+
+	/**
+	 * Runs every customer to the end of its purchases, then checks the orders for seats sold more than once.
+	 *
+	 * @return The results of the run
+	 * @throws InterruptedException if interrupted while waiting for the customers
+	 * @throws ExecutionException   if a customer stopped on an unexpected exception
+	 */
+	public Report run () throws InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newFixedThreadPool(customers);
+		List<Future<Map<String, List<Long>>>> results = new ArrayList<>();
+		long started = System.nanoTime();
+		try {
+			for (int customer = 0; customer < customers; ++customer) {
+				Random random = new Random(customer);
+				results.add(pool.submit(() -> shop(random)));
+			}
+
+			// Each customer records its own latencies, so recording never contends between customers
+			Map<String, List<Long>> latencies = new TreeMap<>();
+			for (Future<Map<String, List<Long>>> result : results) {
+				result.get().forEach((name, times) -> latencies.computeIfAbsent(name, n -> new ArrayList<>()).addAll(times));
+			}
+			long elapsed = System.nanoTime() - started;
+			return new Report(latencies, elapsed, errors.get(), soldOut.get(), countOversoldSeats());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Makes the purchases of one customer.
+	 *
+	 * @param random Chooses the movies, screenings, seats and suggestions of the customer
+	 * @return The latencies of the customer's requests, in nanoseconds, by kind of request
+	 */
+	private Map<String, List<Long>> shop (Random random) {
+		Map<String, List<Long>> latencies = new HashMap<>();
+		for (int purchase = 0; purchase < purchases; ++purchase) {
+			Movie[] movies = get("GET /movies", "/movies", Movie[].class, latencies);
+			if (movies != null && movies.length > 0) {
+				buyTickets(movies[random.nextInt(movies.length)], random, latencies);
+			}
+
+			Suggestion[] suggestions = get("GET /suggestions", "/suggestions/", Suggestion[].class, latencies);
+			if (suggestions != null && suggestions.length > 0) {
+				Suggestion suggestion = suggestions[random.nextInt(suggestions.length)];
+				send("POST /suggestions/{id}/votes", HttpRequest.newBuilder(uri("/suggestions/" + suggestion.getId() + "/votes"))
+				                                                .POST(HttpRequest.BodyPublishers.noBody()), latencies);
+			}
+		}
+		return latencies;
+	}
+
+	/**
+	 * Buys a few free seats of a screening of a movie, the way the UI does.
+	 *
+	 * @param movie     The movie to see
+	 * @param random    Chooses the screening and seats
+	 * @param latencies The latencies of the customer's requests
+	 */
+	private void buyTickets (Movie movie, Random random, Map<String, List<Long>> latencies) {
+		Screening[] screenings = get("GET /screenings/?movieId=", "/screenings/?movieId=" + movie.getId(),
+		                             Screening[].class, latencies);
+		if (screenings == null) {
+			return;
+		}
+		List<Screening> open = new ArrayList<>();
+		for (Screening screening : screenings) {
+			if (screening.getTicketsRemaining() > 0) {
+				open.add(screening);
+			}
+		}
+		if (open.isEmpty()) {
+			soldOut.incrementAndGet();
+			return;
+		}
+
+		Screening screening = open.get(random.nextInt(open.size()));
+		boolean[][] seats = screening.getSeats();
+		List<String> free = new ArrayList<>();
+		for (int row = 0; row < seats.length; ++row) {
+			for (int column = 0; column < seats[row].length; ++column) {
+				if (!seats[row][column]) {
+					free.add("" + (char) ('a' + row) + (column + 1));
+				}
+			}
+		}
+		int tickets = Math.min(Math.min(1 + random.nextInt(MAX_SEATS), free.size()), screening.getTicketsRemaining());
+		if (tickets == 0) {
+			soldOut.incrementAndGet();
+			return;
+		}
+		String[] labels = new String[tickets];
+		for (int i = 0; i < tickets; ++i) {
+			labels[i] = free.remove(random.nextInt(free.size()));
+			seats[labels[i].charAt(0) - 'a'][Integer.parseInt(labels[i].substring(1)) - 1] = true;
+		}
+
+		Order order = new Order(0, screening.getId(), 1 + random.nextInt(100), tickets,
+		                        new int[]{ random.nextInt(2), 0, 0 }, new int[]{ 0, random.nextInt(2), 0 }, labels);
+		if (send("POST /orders", json(uri("/orders")).POST(body(order)), latencies) == null) {
+			return;
+		}
+		Screening taken = new Screening(screening.getId(), screening.getMovieId(), screening.getTicketsRemaining() - tickets,
+		                                screening.getDate(), screening.getTime(), seats);
+		send("PUT /screenings", json(uri("/screenings")).PUT(body(taken)), latencies);
+	}
+
+	/**
+	 * Counts the seats that were sold to more than one order, over every screening.
+	 *
+	 * @return The number of extra sales of seats that were already sold
+	 */
+	private int countOversoldSeats () {
+		Map<String, List<Long>> ignored = new HashMap<>();
+		Screening[] screenings = get("GET /screenings", "/screenings", Screening[].class, ignored);
+		int oversold = 0;
+		for (Screening screening : screenings == null ? new Screening[0] : screenings) {
+			Order[] orders = get("GET /orders/?screeningId=", "/orders/?screeningId=" + screening.getId(), Order[].class,
+			                     ignored);
+			Map<String, Integer> sales = new HashMap<>();
+			for (Order order : orders == null ? new Order[0] : orders) {
+				for (String seat : order.getSeats() == null ? new String[0] : order.getSeats()) {
+					if (sales.merge(seat, 1, Integer::sum) > 1) {
+						++oversold;
+					}
+				}
+			}
+		}
+		return oversold;
+	}
+
+	/**
+	 * Sends a GET request and reads the body of its response.
+	 *
+	 * @param name      The kind of request, to record its latency under
+	 * @param path      The path to request
+	 * @param type      The type of the body
+	 * @param latencies The latencies of the customer's requests
+	 * @param <T>       The type of the body
+	 * @return The body, or null if the request failed
+	 */
+	private <T> T get (String name, String path, Class<T> type, Map<String, List<Long>> latencies) {
+		byte[] body = send(name, HttpRequest.newBuilder(uri(path)).GET(), latencies);
+		try {
+			return body == null ? null : objectMapper.readValue(body, type);
+		} catch (IOException e) {
+			errors.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Sends a request, recording its latency and counting it as an error unless it succeeds.
+	 *
+	 * @param name      The kind of request, to record its latency under
+	 * @param request   The request
+	 * @param latencies The latencies of the customer's requests
+	 * @return The body of the response, or null if the request failed
+	 */
+	private byte[] send (String name, HttpRequest.Builder request, Map<String, List<Long>> latencies) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+			latencies.computeIfAbsent(name, n -> new ArrayList<>()).add(System.nanoTime() - start);
+			if (response.statusCode() >= 400) {
+				errors.incrementAndGet();
+				return null;
+			}
+			return response.body();
+		} catch (IOException e) {
+			errors.incrementAndGet();
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			errors.incrementAndGet();
+			return null;
+		}
+	}
+
+	private URI uri (String path) {
+		return URI.create(baseUrl + path);
+	}
+
+	private static HttpRequest.Builder json (URI uri) {
+		return HttpRequest.newBuilder(uri).header("Content-Type", "application/json");
+	}
+
+	private HttpRequest.BodyPublisher body (Object value) {
+		try {
+			return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * The results of a run of the load driver.
+	 */
+	public static class Report {
+		/** The latencies of the requests in nanoseconds, by kind of request. */
+		private final Map<String, List<Long>> latencies;
+		/** The length of the run in nanoseconds. */
+		private final long elapsed;
+		private final int errors;
+		private final int soldOut;
+		private final int oversoldSeats;
+
+		Report (Map<String, List<Long>> latencies, long elapsed, int errors, int soldOut, int oversoldSeats) {
+			this.latencies = latencies;
+			this.elapsed = elapsed;
+			this.errors = errors;
+			this.soldOut = soldOut;
+			this.oversoldSeats = oversoldSeats;
+		}
+
+		/**
+		 * @return The number of requests made during the run
+		 */
+		public int getRequests () {
+			return latencies.values().stream().mapToInt(List::size).sum();
+		}
+
+		/**
+		 * @return The number of requests that failed or were answered with an error status
+		 */
+		public int getErrors () {
+			return errors;
+		}
+
+		/**
+		 * @return The number of extra sales of seats that were already sold
+		 */
+		public int getOversoldSeats () {
+			return oversoldSeats;
+		}
+
+		/**
+		 * @return The requests completed per second
+		 */
+		public double getThroughput () {
+			return getRequests() / (elapsed / 1e9);
+		}
+
+		/**
+		 * Finds a percentile of sorted latencies.
+		 *
+		 * @param sorted     The latencies, in ascending order
+		 * @param percentile The percentile, from 0 to 100
+		 * @return The latency in milliseconds
+		 */
+		private static double percentile (long[] sorted, double percentile) {
+			int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+			return sorted[Math.max(index, 0)] / 1e6;
+		}
+
+		@Override
+		public String toString () {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("%-30s %8s %10s %10s%n", "request", "count", "p50 ms", "p99 ms"));
+			List<Long> all = new ArrayList<>();
+			latencies.forEach((name, times) -> {
+				all.addAll(times);
+				report.append(line(name, times));
+			});
+			report.append(line("all", all));
+			report.append(String.format("%.1f requests/s over %.1f s, %d errors, %d sold out, %d seats oversold%n",
+			                            getThroughput(), elapsed / 1e9, errors, soldOut, oversoldSeats));
+			return report.toString();
+		}
+
+		private static String line (String name, List<Long> times) {
+			long[] sorted = times.stream().mapToLong(Long::longValue).toArray();
+			Arrays.sort(sorted);
+			if (sorted.length == 0) {
+				return String.format("%-30s %8d%n", name, 0);
+			}
+			return String.format("%-30s %8d %10.2f %10.2f%n", name, sorted.length, percentile(sorted, 50),
+			                     percentile(sorted, 99));
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.estore.api.estoreapi;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the Page Responses class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Controller-tier")
+class PageResponsesTest {
+	private static final Logger LOG = Logger.getLogger(PageResponsesTest.class.getName());
+
+	@Test
+	void testPage () {
+		// Setup
+		String[] page = { "Casablanca" };
+
+		// Invoke
+		ResponseEntity<String[]> response = PageResponses.of(1, () -> page, LOG);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertSame(page, response.getBody());
+	}
+
+	@Test
+	void testBadLimit () {
+		// Setup
+		AtomicBoolean asked = new AtomicBoolean();
+
+		// Invoke
+		ResponseEntity<String[]> response = PageResponses.of(0, () -> {
+			asked.set(true);
+			return new String[0];
+		}, LOG);
+
+		// Analyze
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertFalse(asked.get());
+	}
+
+	@Test
+	void testHandleException () {
+		// Invoke
+		ResponseEntity<String[]> response = PageResponses.of(10, () -> {
+			throw new IOException();
+		}, LOG);
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+}
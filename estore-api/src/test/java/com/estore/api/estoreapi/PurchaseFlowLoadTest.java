@@ -0,0 +1,86 @@
+package com.estore.api.estoreapi;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+import com.estore.api.estoreapi.screenings.model.Screening;
+import com.estore.api.estoreapi.suggestions.model.Suggestion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the {@link LoadDriver load driver} against the E-Store API started in-process on generated data, and prints
+ * its report. Skipped unless run with {@code -Dloadtest=true}; the number of customers and the purchases of each are
+ * set with {@code -Dload.customers} and {@code -Dload.purchases}.
+ */
+@Tag("Load")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PurchaseFlowLoadTest {
+	private static final int MOVIES = 20;
+	private static final int SCREENINGS_PER_MOVIE = 5;
+	private static final int SUGGESTIONS = 20;
+
+	@TempDir
+	static Path dataDir;
+
+	@LocalServerPort
+	int port;
+
+	/**
+	 * Seeds the storage files with a fresh schedule of empty screenings, and points the API at them.
+	 */
+	@DynamicPropertySource
+	static void storageFiles (DynamicPropertyRegistry registry) throws IOException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		Movie[] movies = new Movie[MOVIES];
+		Screening[] screenings = new Screening[MOVIES * SCREENINGS_PER_MOVIE];
+		for (int movie = 0; movie < MOVIES; ++movie) {
+			movies[movie] = new Movie(movie + 1, "Classic " + (movie + 1), "", 90 + movie, "PG", 1950 + movie);
+			for (int screening = 0; screening < SCREENINGS_PER_MOVIE; ++screening) {
+				int id = movie * SCREENINGS_PER_MOVIE + screening + 1;
+				screenings[id - 1] = new Screening(id, movie + 1, Screening.TOTAL_TICKETS,
+				                                   String.format("01/%02d/2030", screening + 1), "18:00", new boolean[4][5]);
+			}
+		}
+		Suggestion[] suggestions = new Suggestion[SUGGESTIONS];
+		for (int suggestion = 0; suggestion < SUGGESTIONS; ++suggestion) {
+			suggestions[suggestion] = new Suggestion(suggestion + 1, "Suggested " + (suggestion + 1), 0);
+		}
+
+		objectMapper.writeValue(dataDir.resolve("movies.json").toFile(), movies);
+		objectMapper.writeValue(dataDir.resolve("screenings.json").toFile(), screenings);
+		objectMapper.writeValue(dataDir.resolve("suggestions.json").toFile(), suggestions);
+		objectMapper.writeValue(dataDir.resolve("orders.json").toFile(), new Object[0]);
+		objectMapper.writeValue(dataDir.resolve("accounts.json").toFile(), new Object[0]);
+		for (String store : new String[]{ "movies", "screenings", "suggestions", "orders", "accounts" }) {
+			registry.add(store + ".file", () -> dataDir.resolve(store + ".json").toString());
+		}
+	}
+
+	@Test
+	void testPurchaseFlow () throws Exception {
+		// Setup
+		LoadDriver loadDriver = new LoadDriver("http://localhost:" + port, Integer.getInteger("load.customers", 16),
+		                                       Integer.getInteger("load.purchases", 50));
+
+		// Invoke
+		LoadDriver.Report report = loadDriver.run();
+
+		// Analyze
+		System.out.print(report);
+		assertEquals(0, report.getErrors());
+		assertTrue(report.getRequests() > 0);
+	}
+}
@@ -181,6 +181,22 @@ class AccountControllerTest {
 		assertEquals(accounts, response.getBody());
 	}
 
+	@Test
+	void testGetAccountsPage () throws IOException {
+		// Setup
+		Account[] page = new Account[1];
+		page[0] = new Account(100, "Louan", "LouanPass");
+		// When getAccounts is called for the page after the first account, return the account above
+		when(mockAccountDAO.getAccounts("Adrian", 1)).thenReturn(page);
+
+		// Invoke
+		ResponseEntity<Account[]> response = accountController.getAccountsPage("Adrian", 1);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(page, response.getBody());
+	}
+
 	@Test
 	void testGetEmptyAccounts () throws Exception {
 		// When getAccounts is called, return null
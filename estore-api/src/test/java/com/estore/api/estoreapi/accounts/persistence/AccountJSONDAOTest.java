@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -18,6 +21,9 @@ class AccountJSONDAOTest {
 	AccountJSONDAO accountJSONDAO;
 	Account[] testAccounts;
 	ObjectMapper mockObjectMapper;
+	@TempDir
+	Path tempDir;
+	String filename;
 
 	/**
 	 * Before each test, we will create and inject a Mock Object Mapper to
@@ -25,6 +31,7 @@ class AccountJSONDAOTest {
 	 */
 	@BeforeEach
 	void setupAccountJSONDAO () throws IOException {
+		filename = tempDir.resolve("doesnt_matter.txt").toString();
 		mockObjectMapper = mock(ObjectMapper.class);
 		testAccounts = new Account[3];
 		testAccounts[0] = new Account(99, "Adrian", "AdrianPass");
@@ -34,9 +41,9 @@ class AccountJSONDAOTest {
 		// When the object mapper is supposed to read from the file
 		// the mock object mapper will return the account array above
 		when(mockObjectMapper
-			     .readValue(new File("doesnt_matter.txt"), Account[].class))
+			     .readValue(new File(filename), Account[].class))
 			.thenReturn(testAccounts);
-		accountJSONDAO = new AccountJSONDAO("doesnt_matter.txt", mockObjectMapper);
+		accountJSONDAO = new AccountJSONDAO(filename, mockObjectMapper);
 	}
 
 	@Test
@@ -51,6 +58,15 @@ class AccountJSONDAOTest {
 		}
 	}
 
+	@Test
+	void testGetAccountsPage () throws IOException {
+		// Invoke
+		Account[] page = accountJSONDAO.getAccounts(testAccounts[0].getUsername(), 1);
+
+		// Analyze
+		assertArrayEquals(new Account[]{ testAccounts[1] }, page);
+	}
+
 	@Test
 	void testGetAccount () {
 		// Arrange
@@ -110,7 +126,7 @@ class AccountJSONDAOTest {
 	void testSaveException () throws IOException {
 		doThrow(new IOException())
 			.when(mockObjectMapper)
-			.writeValue(any(File.class), any(Account[].class));
+			.writeValue(any(OutputStream.class), any(Account[].class));
 
 		Account account = new Account(102, "Sudhir", "SudhirPass");
 
@@ -164,11 +180,11 @@ class AccountJSONDAOTest {
 		// raised
 		doThrow(new IOException())
 			.when(mockObjectMapper)
-			.readValue(new File("doesnt_matter.txt"), Account[].class);
+			.readValue(new File(filename), Account[].class);
 
 		// Arrange & Analyze
 		assertThrows(IOException.class,
-		             () -> new AccountJSONDAO("doesnt_matter.txt", mockObjectMapper),
+		             () -> new AccountJSONDAO(filename, mockObjectMapper),
 		             "IOException not thrown");
 	}
 }
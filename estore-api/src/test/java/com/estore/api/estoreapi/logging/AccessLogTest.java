@@ -0,0 +1,197 @@
+package com.estore.api.estoreapi.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the Access Log and Access Log Ring classes.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Controller-tier")
+class AccessLogTest {
+	Logger logger;
+	List<LogRecord> records;
+	List<String> writerThreads;
+	Handler handler;
+
+	@BeforeEach
+	void setupAccessLog () {
+		logger = Logger.getLogger(AccessLogTest.class.getName());
+		records = new CopyOnWriteArrayList<>();
+		writerThreads = new CopyOnWriteArrayList<>();
+		handler = new Handler() {
+			@Override
+			public void publish (LogRecord record) {
+				records.add(record);
+				writerThreads.add(Thread.currentThread().getName());
+			}
+
+			@Override
+			public void flush () {
+			}
+
+			@Override
+			public void close () {
+			}
+		};
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+	}
+
+	@AfterEach
+	void tearDownAccessLog () {
+		AccessLog.setSampleRate(1);
+		logger.removeHandler(handler);
+		logger.setUseParentHandlers(true);
+	}
+
+	@Test
+	void testLogIsWrittenByWriter () {
+		// Setup
+		AccessLog accessLog = AccessLog.getLog(AccessLogTest.class);
+		long before = System.currentTimeMillis();
+
+		// Invoke
+		accessLog.log("GET /orders/?accountId={}", 7);
+
+		// Analyze
+		assertTrue(AccessLog.flush(1000));
+		assertEquals(1, records.size());
+		assertEquals("GET /orders/?accountId=7", records.get(0).getMessage());
+		assertEquals(Level.INFO, records.get(0).getLevel());
+		assertTrue(records.get(0).getMillis() >= before);
+		assertEquals("access-log", writerThreads.get(0));
+	}
+
+	@Test
+	void testParametersAreTurnedIntoTextWhenLogged () {
+		// Setup
+		AccessLog accessLog = AccessLog.getLog(AccessLogTest.class);
+		List<String> formattingThreads = new CopyOnWriteArrayList<>();
+		Object order = new Object() {
+			@Override
+			public String toString () {
+				formattingThreads.add(Thread.currentThread().getName());
+				return "Order [id=1]";
+			}
+		};
+		String[] seats = { "A1", "A2" };
+
+		// Invoke
+		accessLog.log("POST /orders/{} seats={}", order, seats);
+		seats[1] = "B7";
+
+		// Analyze
+		// The entry shows the parameters as they were when logged, not as the writer would find them
+		assertTrue(AccessLog.flush(1000));
+		assertEquals("POST /orders/Order [id=1] seats=[A1, A2]", records.get(0).getMessage());
+		assertEquals(List.of(Thread.currentThread().getName()), formattingThreads);
+	}
+
+	@Test
+	void testFailingParameterIsLogged () {
+		// Setup
+		AccessLog accessLog = AccessLog.getLog(AccessLogTest.class);
+		Object broken = new Object() {
+			@Override
+			public String toString () {
+				throw new IllegalStateException("broken");
+			}
+		};
+
+		// Invoke
+		accessLog.log("GET /movies/{}", broken);
+
+		// Analyze
+		assertTrue(AccessLog.flush(1000));
+		assertEquals("GET /movies/<java.lang.IllegalStateException: broken>", records.get(0).getMessage());
+	}
+
+	@Test
+	void testManyParameters () {
+		// Setup
+		AccessLog accessLog = AccessLog.getLog(AccessLogTest.class);
+
+		// Invoke
+		accessLog.log("GET /movies/filter?rating={}&minYear={}&maxYear={}&title={}&limit={}",
+		              new String[]{ "G", "PG" }, 1940, null, "Casablanca", 10);
+		accessLog.log("GET /movies/{}");
+
+		// Analyze
+		assertTrue(AccessLog.flush(1000));
+		assertEquals("GET /movies/filter?rating=[G, PG]&minYear=1940&maxYear=null&title=Casablanca&limit=10",
+		             records.get(0).getMessage());
+		assertEquals("GET /movies/{}", records.get(1).getMessage());
+	}
+
+	@Test
+	void testSampleRateZeroLogsNothing () {
+		// Setup
+		AccessLog accessLog = AccessLog.getLog(AccessLogTest.class);
+		AccessLog.setSampleRate(0);
+
+		// Invoke
+		accessLog.log("GET /movies/");
+
+		// Analyze
+		assertTrue(AccessLog.flush(1000));
+		assertTrue(records.isEmpty());
+	}
+
+	@Test
+	void testStopWritesEntriesLeft () throws InterruptedException {
+		// Setup
+		AccessLogRing ring = new AccessLogRing(8);
+		ring.start();
+		for (int i = 0; i < 3; ++i) {
+			ring.offer(logger, "GET /orders/{}", 1, i, null, null, null);
+		}
+
+		// Invoke
+		boolean stopped = ring.stop(1000);
+		ring.offer(logger, "GET /orders/{}", 1, 3, null, null, null);
+
+		// Analyze
+		assertTrue(stopped);
+		assertEquals(3, records.size());
+		assertFalse(ring.flush(10));
+		ring.start();
+		assertTrue(ring.flush(1000));
+		assertEquals("GET /orders/3", records.get(3).getMessage());
+		assertTrue(ring.stop(1000));
+	}
+
+	@Test
+	void testFullRingDropsEntries () {
+		// Setup
+		AccessLogRing ring = new AccessLogRing(4);
+
+		// Invoke
+		for (int i = 0; i < 4; ++i) {
+			assertTrue(ring.offer(logger, "GET /orders/{}", 1, i, null, null, null));
+		}
+		boolean offered = ring.offer(logger, "GET /orders/{}", 1, 4, null, null, null);
+		ring.start();
+
+		// Analyze
+		assertFalse(offered);
+		assertTrue(ring.flush(1000));
+		assertEquals(4, records.size());
+		assertEquals("GET /orders/3", records.get(3).getMessage());
+		assertTrue(ring.offer(logger, "GET /orders/{}", 1, 5, null, null, null));
+		assertTrue(ring.flush(1000));
+		assertEquals("GET /orders/5", records.get(4).getMessage());
+	}
+}
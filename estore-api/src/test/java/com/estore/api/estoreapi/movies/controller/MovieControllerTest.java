@@ -2,16 +2,23 @@ package com.estore.api.estoreapi.movies.controller;
 
 import com.estore.api.estoreapi.movies.model.Movie;
 import com.estore.api.estoreapi.movies.persistence.MovieDAO;
+import com.estore.api.estoreapi.movies.persistence.MovieQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,6 +40,20 @@ class MovieControllerTest {
 		movieController = new MovieController(mockMovieDao);
 	}
 
+	/**
+	 * Creates a GET request, as the controller receives it from the Spring framework.
+	 *
+	 * @param ifNoneMatch The If-None-Match header of the request, or null for none
+	 * @return The request
+	 */
+	private static WebRequest getRequest (String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/movies");
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return new ServletWebRequest(request, new MockHttpServletResponse());
+	}
+
 	@Test
 	void testGetMovie () throws IOException {
 		// setup
@@ -91,18 +112,65 @@ class MovieControllerTest {
 		// When getMovies is called, return the list of movies from above
 		when(mockMovieDao.getMovies()).thenReturn(movies);
 
-		ResponseEntity<Movie[]> response = movieController.getMovies();
+		ResponseEntity<Movie[]> response = movieController.getMovies(getRequest(null));
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(movies, response.getBody());
+	}
+
+	@Test
+	void testGetMoviesETag () throws IOException {
+		// Setup
+		Movie[] movies = { new Movie(104, "Star Wars: Episode IV – A New Hope", "death/star/plans.jpg", 105, "PG", 1977) };
+		when(mockMovieDao.getVersion()).thenReturn(7L);
+		when(mockMovieDao.getMovies()).thenReturn(movies);
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.getMovies(getRequest("\"6\""));
 
+		// Analyze
 		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("\"7\"", response.getHeaders().getETag());
 		assertEquals(movies, response.getBody());
 	}
 
+	@Test
+	void testGetMoviesNotModified () throws IOException {
+		// Setup
+		when(mockMovieDao.getVersion()).thenReturn(7L);
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.getMovies(getRequest("\"7\""));
+
+		// Analyze
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertEquals("\"7\"", response.getHeaders().getETag());
+		assertNull(response.getBody());
+		verify(mockMovieDao, never()).getMovies();
+	}
+
+	@Test
+	void testGetMoviesPage () throws IOException {
+		// Setup
+		Movie[] page = new Movie[1];
+		page[0] = new Movie(104, "Star Wars: Episode IV – A New Hope", "death/star/plans.jpg", 105, "PG", 1977);
+		// When getMovies is called for the page after the first movie, return the movie above
+		when(mockMovieDao.getMovies(104, 1)).thenReturn(page);
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.getMoviesPage(104, 1);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(page, response.getBody());
+	}
+
 	@Test
 	void testGetEmptyMovies () throws Exception {
 		// When getMovies is called, return null
 		when(mockMovieDao.getMovies()).thenReturn(null);
 		// Get NOT_FOUND response from MovieController
-		ResponseEntity<Movie[]> response = movieController.getMovies();
+		ResponseEntity<Movie[]> response = movieController.getMovies(getRequest(null));
 
 		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
 		assertNull(response.getBody());
@@ -118,7 +186,7 @@ class MovieControllerTest {
 		// Throw an exception when the get movies method is called
 		doThrow(new IOException()).when(mockMovieDao).getMovies();
 
-		ResponseEntity<Movie[]> response = movieController.getMovies();
+		ResponseEntity<Movie[]> response = movieController.getMovies(getRequest(null));
 
 		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
 	}
@@ -201,6 +269,86 @@ class MovieControllerTest {
 		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
 	}
 
+	@Test
+	void testAutocompleteMovies () throws IOException {
+		// Setup
+		Movie[] foundMovies = new Movie[1];
+		foundMovies[0] = new Movie(104, "Star Wars: Episode IV – A New Hope", "death/star/plans.jpg", 105, "PG", 1977);
+
+		// When autocompleteMovies is called with the prefix, return the movie above
+		when(mockMovieDao.autocompleteMovies("sta", 5)).thenReturn(foundMovies);
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.autocompleteMovies("sta", 5);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(foundMovies, response.getBody());
+	}
+
+	@Test
+	void testAutocompleteMoviesBadLimit () {
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.autocompleteMovies("sta", 0);
+
+		// Analyze
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+	}
+
+	@Test
+	void testAutocompleteMoviesHandleException () throws IOException {
+		// Setup
+		// When autocompleteMovies is called on the Mock Movie DAO, throw an IOException
+		doThrow(new IOException()).when(mockMovieDao).autocompleteMovies("sta", 10);
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.autocompleteMovies("sta", 10);
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	@Test
+	void testFilterMovies () throws IOException {
+		// Setup
+		Movie[] foundMovies = new Movie[1];
+		foundMovies[0] = new Movie(104, "Star Wars: Episode IV – A New Hope", "death/star/plans.jpg", 105, "PG", 1977);
+
+		// When filterMovies is called with any query, return the movie above
+		when(mockMovieDao.filterMovies(any(MovieQuery.class))).thenReturn(foundMovies);
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.filterMovies(new String[]{ "PG" }, 1970, 1980, null, null, "star", "Year", true, 5);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(foundMovies, response.getBody());
+	}
+
+	@Test
+	void testFilterMoviesBadRequest () {
+		// Invoke
+		ResponseEntity<Movie[]> badSort = movieController.filterMovies(null, null, null, null, null, null, "poster", false, null);
+		ResponseEntity<Movie[]> badLimit = movieController.filterMovies(null, null, null, null, null, null, "id", false, 0);
+
+		// Analyze
+		assertEquals(HttpStatus.BAD_REQUEST, badSort.getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, badLimit.getStatusCode());
+	}
+
+	@Test
+	void testFilterMoviesHandleException () throws IOException {
+		// Setup
+		// When filterMovies is called on the Mock Movie DAO, throw an IOException
+		doThrow(new IOException()).when(mockMovieDao).filterMovies(any(MovieQuery.class));
+
+		// Invoke
+		ResponseEntity<Movie[]> response = movieController.filterMovies(null, null, null, null, null, null, "id", false, null);
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
 	@Test
 	void testUpdateMovie () throws IOException {
 		// Setup
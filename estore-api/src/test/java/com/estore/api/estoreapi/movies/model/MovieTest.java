@@ -3,7 +3,7 @@ package com.estore.api.estoreapi.movies.model;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * The unit test suite for the Movie class
@@ -52,4 +52,18 @@ class MovieTest {
 		// Analyze
 		assertEquals(expected_string, actual_string);
 	}
+
+	@Test
+	void testTitleContains () {
+		// Setup
+		Movie movie = new Movie(99, "Star Wars: Episode IV – A New Hope", "death/star/plans.jpg", 105, "PG", 1977);
+		Movie untitled = new Movie(100, null, "death/star/plans.jpg", 105, "PG", 1977);
+
+		// Invoke & Analyze
+		assertEquals("star wars: episode iv – a new hope", movie.getNormalizedTitle());
+		assertTrue(movie.titleContains("NEW hope"));
+		assertFalse(movie.titleContains("Empire"));
+		assertEquals("", untitled.getNormalizedTitle());
+		assertFalse(untitled.titleContains("Star"));
+	}
 }
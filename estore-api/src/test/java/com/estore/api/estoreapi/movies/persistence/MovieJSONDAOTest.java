@@ -1,13 +1,25 @@
 package com.estore.api.estoreapi.movies.persistence;
 
 import com.estore.api.estoreapi.movies.model.Movie;
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,6 +35,9 @@ class MovieJSONDAOTest {
 	MovieJSONDAO movieFileDAO;
 	Movie[] testMovies;
 	ObjectMapper mockObjectMapper;
+	@TempDir
+	Path tempDir;
+	String filename;
 
 	/**
 	 * Before each test, we will create and inject a Mock Object Mapper to
@@ -32,6 +47,7 @@ class MovieJSONDAOTest {
 	 */
 	@BeforeEach
 	void setupMovieJSONDAO () throws IOException {
+		filename = tempDir.resolve("mao-zedongs-little-red-book.epub").toString();
 		mockObjectMapper = mock(ObjectMapper.class);
 		testMovies = new Movie[3];
 		testMovies[0] = new Movie(104, "Star Wars: Episode IV – A New Hope", "death/star/plans.jpg", 105, "PG", 1977);
@@ -39,8 +55,8 @@ class MovieJSONDAOTest {
 		testMovies[2] = new Movie(106, "Star Wars: Episode VI - Return of the Jedi", "death/star/3/plans.jpg", 131, "PG", 1983);
 
 		// When the object mapper is supposed to read from the file the mock object mapper will return the movie array above
-		when(mockObjectMapper.readValue(new File("mao-zedongs-little-red-book.epub"), Movie[].class)).thenReturn(testMovies);
-		movieFileDAO = new MovieJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper);
+		when(mockObjectMapper.readValue(new File(filename), Movie[].class)).thenReturn(testMovies);
+		movieFileDAO = new MovieJSONDAO(filename, mockObjectMapper);
 	}
 
 	@Test
@@ -55,6 +71,15 @@ class MovieJSONDAOTest {
 		}
 	}
 
+	@Test
+	void testGetMoviesPage () throws IOException {
+		// Invoke
+		Movie[] page = movieFileDAO.getMovies(testMovies[0].getId(), 1);
+
+		// Analyze
+		assertArrayEquals(new Movie[]{ testMovies[1] }, page);
+	}
+
 	@Test
 	void testFindMovies () {
 		// Invoke
@@ -76,6 +101,162 @@ class MovieJSONDAOTest {
 		assertEquals(movies.length, 0);
 	}
 
+	@Test
+	void testFindMoviesByTrigrams () throws IOException {
+		// Setup
+		// "bcabc" has every trigram of "abcab" without containing it
+		Movie lookalike = movieFileDAO.createMovie(new Movie(0, "xbcabcx", "x.jpg", 90, "G", 2000));
+		Movie match = movieFileDAO.createMovie(new Movie(0, "ABCAB", "x.jpg", 90, "G", 2000));
+
+		// Invoke & Analyze
+		assertArrayEquals(new Movie[]{ match }, movieFileDAO.findMovies("abCAb"));
+		assertArrayEquals(new Movie[]{ lookalike, match }, movieFileDAO.findMovies("bc"));
+		assertEquals(testMovies.length + 2, movieFileDAO.findMovies("").length);
+	}
+
+	@Test
+	void testFindMoviesFollowsUpdates () throws IOException {
+		// Setup
+		Movie renamed = new Movie(105, "The Empire Strikes Back", "death/star/2/plans.jpg", 124, "PG", 1980);
+
+		// Invoke
+		movieFileDAO.updateMovie(renamed);
+		movieFileDAO.deleteMovie(106);
+
+		// Analyze
+		assertArrayEquals(new Movie[]{ testMovies[0] }, movieFileDAO.findMovies("Star Wars"));
+		assertArrayEquals(new Movie[]{ renamed }, movieFileDAO.findMovies("empire"));
+		assertEquals(0, movieFileDAO.findMovies("Jedi").length);
+	}
+
+	@Test
+	void testFindMoviesInLargeCatalogue () throws IOException {
+		// Setup
+		int count = 100000;
+		String[] words = { "star", "wars", "trek", "return", "of", "the", "jedi", "empire", "strikes", "back", "new", "hope" };
+		Random random = new Random(42);
+		Movie[] catalogue = new Movie[count];
+		for (int i = 0; i < count; ++i) {
+			String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+			catalogue[i] = new Movie(i, title, "poster.jpg", 100, "PG", 1977);
+		}
+		ObjectMapper largeObjectMapper = mock(ObjectMapper.class);
+		when(largeObjectMapper.readValue(new File(filename), Movie[].class)).thenReturn(catalogue);
+		MovieJSONDAO largeDAO = new MovieJSONDAO(filename, largeObjectMapper);
+
+		for (String text : new String[]{ "Wars Trek", "strikes back 99", "ope", "hope 12345", "of the", "no such title", "7" }) {
+			// Invoke
+			Movie[] found = largeDAO.findMovies(text);
+
+			// Analyze
+			Movie[] expected = Arrays.stream(catalogue).filter(movie -> movie.titleContains(text)).toArray(Movie[]::new);
+			assertArrayEquals(expected, found, text);
+		}
+	}
+
+	@Test
+	void testAutocompleteMovies () throws IOException {
+		// Setup
+		Movie jedi = movieFileDAO.createMovie(new Movie(107, "Jedi Knights", "jedi.jpg", 90, "PG", 1990));
+
+		// Invoke
+		Movie[] titleStarts = movieFileDAO.autocompleteMovies("STAR WARS: EPISODE V", 10);
+		Movie[] wordStarts = movieFileDAO.autocompleteMovies("je", 10);
+		Movie[] limited = movieFileDAO.autocompleteMovies("s", 2);
+
+		// Analyze
+		assertArrayEquals(new Movie[]{ testMovies[1], testMovies[2] }, titleStarts);
+		assertArrayEquals(new Movie[]{ jedi, testMovies[2] }, wordStarts);  // the title start comes before the later word
+		assertEquals(2, limited.length);
+		assertEquals(0, movieFileDAO.autocompleteMovies("empire x", 10).length);
+	}
+
+	@Test
+	void testAutocompleteMoviesFollowsUpdates () throws IOException {
+		// Setup
+		Movie renamed = new Movie(105, "Star Trek: The Empire Strikes Back", "death/star/2/plans.jpg", 124, "PG", 1980);
+
+		// Invoke
+		movieFileDAO.updateMovie(renamed);
+		movieFileDAO.deleteMovie(106);
+
+		// Analyze
+		assertArrayEquals(new Movie[]{ renamed }, movieFileDAO.autocompleteMovies("star t", 10));
+		assertArrayEquals(new Movie[]{ renamed }, movieFileDAO.autocompleteMovies("empire", 10));  // shared words stay indexed
+		assertArrayEquals(new Movie[]{ testMovies[0] }, movieFileDAO.autocompleteMovies("star wars", 10));
+		assertEquals(0, movieFileDAO.autocompleteMovies("return", 10).length);
+	}
+
+	@Test
+	void testFilterMovies () throws IOException {
+		// Setup
+		Movie rated = movieFileDAO.createMovie(new Movie(0, "Alien", "alien.jpg", 117, "r", 1979));
+
+		// Invoke
+		Movie[] byRatingAndYear = movieFileDAO.filterMovies(new MovieQuery().ratings("PG").years(1978, null));
+		Movie[] byRuntime = movieFileDAO.filterMovies(new MovieQuery().runtimes(110, 125));
+		Movie[] byTitle = movieFileDAO.filterMovies(new MovieQuery().title("episode").sort(MovieQuery.Sort.YEAR, true).limit(2));
+		Movie[] byRating = movieFileDAO.filterMovies(new MovieQuery().ratings("R", "NC-17").sort(MovieQuery.Sort.TITLE, false));
+		Movie[] all = movieFileDAO.filterMovies(new MovieQuery().limit(2));
+
+		// Analyze
+		assertArrayEquals(new Movie[]{ testMovies[1], testMovies[2] }, byRatingAndYear);
+		assertArrayEquals(new Movie[]{ testMovies[1], rated }, byRuntime);
+		assertArrayEquals(new Movie[]{ testMovies[2], testMovies[1] }, byTitle);
+		assertArrayEquals(new Movie[]{ rated }, byRating);
+		assertArrayEquals(new Movie[]{ testMovies[0], testMovies[1] }, all);
+		assertEquals(0, movieFileDAO.filterMovies(new MovieQuery().years(1990, 1980)).length);
+	}
+
+	@Test
+	void testFilterMoviesFollowsUpdates () throws IOException {
+		// Setup
+		Movie recut = new Movie(105, "Star Wars: Episode V – The Empire Strikes Back", "death/star/2/plans.jpg", 127, "PG-13", 1997);
+
+		// Invoke
+		movieFileDAO.updateMovie(recut);
+		movieFileDAO.deleteMovie(106);
+
+		// Analyze
+		assertArrayEquals(new Movie[]{ recut }, movieFileDAO.filterMovies(new MovieQuery().ratings("pg-13")));
+		assertArrayEquals(new Movie[]{ testMovies[0] }, movieFileDAO.filterMovies(new MovieQuery().years(1970, 1990)));
+		assertArrayEquals(new Movie[]{ recut }, movieFileDAO.filterMovies(new MovieQuery().runtimes(125, null)));
+	}
+
+	@Test
+	void testFilterMoviesInLargeCatalogue () throws IOException {
+		// Setup
+		int count = 100000;
+		String[] ratings = { "G", "PG", "PG-13", "R", "NC-17" };
+		String[] words = { "star", "wars", "trek", "return", "of", "the", "jedi", "empire", "strikes", "back" };
+		Random random = new Random(7);
+		Movie[] catalogue = new Movie[count];
+		for (int i = 0; i < count; ++i) {
+			String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+			catalogue[i] = new Movie(i, title, "poster.jpg", 80 + random.nextInt(100), ratings[random.nextInt(ratings.length)],
+			                         1950 + random.nextInt(75));
+		}
+		ObjectMapper largeObjectMapper = mock(ObjectMapper.class);
+		when(largeObjectMapper.readValue(new File(filename), Movie[].class)).thenReturn(catalogue);
+		MovieJSONDAO largeDAO = new MovieJSONDAO(filename, largeObjectMapper);
+
+		MovieQuery[] queries = {
+			new MovieQuery().ratings("G").years(1980, 1989),
+			new MovieQuery().years(2000, 2000).runtimes(90, 95).sort(MovieQuery.Sort.RUNTIME, true),
+			new MovieQuery().ratings("PG", "R").title("jedi").runtimes(null, 85),
+			new MovieQuery().title("wars star").sort(MovieQuery.Sort.TITLE, false).limit(50)
+		};
+		for (MovieQuery query : queries) {
+			// Invoke
+			Movie[] movies = largeDAO.filterMovies(query);
+
+			// Analyze
+			Movie[] expected = Arrays.stream(catalogue).filter(query.toPredicate()).sorted(query.comparator())
+			                         .limit(query.getLimit()).toArray(Movie[]::new);
+			assertArrayEquals(expected, movies);
+		}
+	}
+
 	@Test
 	void testGetMovie () {
 		// Invoke
@@ -128,9 +309,28 @@ class MovieJSONDAOTest {
 		assertEquals(actual, movie);
 	}
 
+	@Test
+	void testVersionChangesOnWrite () throws IOException {
+		// Setup
+		long loaded = movieFileDAO.getVersion();
+		Movie movie = new Movie(104, "Star Wars: The Force Awakens", "death/star/4/plans.jpg", 136, "PG-13", 2015);
+
+		// Invoke & Analyze
+		movieFileDAO.getMovies();
+		movieFileDAO.findMovies("star");
+		assertEquals(loaded, movieFileDAO.getVersion());
+		movieFileDAO.createMovie(movie);
+		assertEquals(loaded + 1, movieFileDAO.getVersion());
+		movieFileDAO.updateMovie(movie);
+		assertEquals(loaded + 2, movieFileDAO.getVersion());
+		movieFileDAO.deleteMovie(104);
+		movieFileDAO.deleteMovie(104);  // not found, so nothing changes
+		assertEquals(loaded + 3, movieFileDAO.getVersion());
+	}
+
 	@Test
 	void testSaveException () throws IOException {
-		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(File.class), any(Movie[].class));
+		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Movie[].class));
 
 		Movie movie = new Movie(107, "Star Wars: The Force Awakens", "death/star/4/plans.jpg", 136, "PG-13", 2015);
 
@@ -168,15 +368,101 @@ class MovieJSONDAOTest {
 		assertNull(result);
 	}
 
+	@Test
+	void testReadsDoNotWaitForSave () throws Exception {
+		// Setup
+		// The save of the update blocks, as if the disk was slow, until the test lets it finish
+		CountDownLatch saving = new CountDownLatch(1);
+		CountDownLatch finishSave = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			saving.countDown();
+			finishSave.await();
+			return null;
+		}).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Movie[].class));
+		Movie movie = new Movie(104, "Star Wars", "death/star/plans.jpg", 121, "PG", 1977);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			// Invoke
+			Future<Movie> update = executor.submit(() -> movieFileDAO.updateMovie(movie));
+			assertTrue(saving.await(5, TimeUnit.SECONDS));
+
+			// Analyze
+			assertEquals(movie, movieFileDAO.getMovie(104));
+			assertEquals(testMovies.length, movieFileDAO.getMovies().length);
+			assertEquals(1, movieFileDAO.findMovies("Jedi").length);
+			assertFalse(update.isDone());
+
+			finishSave.countDown();
+			assertEquals(movie, update.get(5, TimeUnit.SECONDS));
+		} finally {
+			finishSave.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testConcurrentReadsAndWrites () throws Exception {
+		// Setup
+		int readers = 4;
+		int firstRuntime = testMovies[0].getRuntime() + 1;
+		int lastRuntime = firstRuntime + 2000;
+		// The persister is never started, so the thousands of changes below are not each forced to disk
+		WriteBehindPersister persister = new WriteBehindPersister(60000, Integer.MAX_VALUE);
+		MovieJSONDAO movieFileDAO = new MovieJSONDAO(filename, mockObjectMapper, persister, StorageFormat.JSON);
+		ExecutorService executor = Executors.newFixedThreadPool(readers + 1);
+
+		try {
+			// Invoke
+			// One writer raises the runtime of a movie one minute at a time, while adding and removing other movies
+			Future<?> writer = executor.submit(() -> {
+				for (int runtime = firstRuntime; runtime <= lastRuntime; ++runtime) {
+					movieFileDAO.updateMovie(new Movie(104, "Star Wars", "death/star/plans.jpg", runtime, "PG", 1977));
+					Movie extra = movieFileDAO.createMovie(new Movie(0, "Rogue One", "death/star/0/plans.jpg", 133, "PG-13", 2016));
+					movieFileDAO.deleteMovie(extra.getId());
+				}
+				return null;
+			});
+			// Readers must never see a runtime go back, or a movie that was never deleted go missing
+			Future<?>[] results = new Future<?>[readers];
+			for (int i = 0; i < readers; ++i) {
+				results[i] = executor.submit(() -> {
+					int seenRuntime = 0;
+					while (!writer.isDone()) {
+						int runtime = movieFileDAO.getMovie(104).getRuntime();
+						assertTrue(runtime >= seenRuntime, "runtime went back from " + seenRuntime + " to " + runtime);
+						seenRuntime = runtime;
+
+						Movie[] movies = movieFileDAO.getMovies();
+						assertTrue(movies.length >= testMovies.length && movies.length <= testMovies.length + 1);
+						assertNotNull(movieFileDAO.getMovie(105));
+						assertNotNull(movieFileDAO.getMovie(106));
+					}
+					return null;
+				});
+			}
+
+			// Analyze
+			writer.get(60, TimeUnit.SECONDS);
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+			assertEquals(lastRuntime, movieFileDAO.getMovie(104).getRuntime());
+			assertEquals(testMovies.length, movieFileDAO.getMovies().length);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	void testConstructorException () throws IOException {
 		// Setup
 		ObjectMapper mockObjectMapper = mock(ObjectMapper.class);
 		// We want to simulate with a Mock Object Mapper that an exception was raised during JSON object deserialization into Java objects
 		// When the Mock Object Mapper readValue method is called from the MovieJSONDAO load method, an IOException is raised
-		doThrow(new IOException()).when(mockObjectMapper).readValue(new File("mao-zedongs-little-red-book.epub"), Movie[].class);
+		doThrow(new IOException()).when(mockObjectMapper).readValue(new File(filename), Movie[].class);
 
 		// Invoke & Analyze
-		assertThrows(IOException.class, () -> new MovieJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper), "IOException not thrown");
+		assertThrows(IOException.class, () -> new MovieJSONDAO(filename, mockObjectMapper), "IOException not thrown");
 	}
 }
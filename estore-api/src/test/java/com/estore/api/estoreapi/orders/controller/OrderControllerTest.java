@@ -2,16 +2,26 @@ package com.estore.api.estoreapi.orders.controller;
 
 import com.estore.api.estoreapi.orders.model.Order;
 import com.estore.api.estoreapi.orders.persistence.OrderDAO;
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+import com.estore.api.estoreapi.screenings.persistence.SeatHoldDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -23,14 +33,80 @@ import static org.mockito.Mockito.*;
 class OrderControllerTest {
 	private OrderController orderController;
 	private OrderDAO mockOrderDao;
+	private SeatHoldDAO mockSeatHoldDao;
 
 	/**
-	 * Before a test, create a new OrderController object and inject a mock Order DAO.
+	 * Before a test, create a new OrderController object and inject mock Order and SeatHold DAOs.
 	 */
 	@BeforeEach
 	void setupOrderController () {
 		mockOrderDao = mock(OrderDAO.class);
-		orderController = new OrderController(mockOrderDao);
+		mockSeatHoldDao = mock(SeatHoldDAO.class);
+		orderController = new OrderController(mockOrderDao, mockSeatHoldDao, new ObjectMapper());
+	}
+
+	@Test
+	void testCreateOrderFromHold () throws IOException {
+		// setup
+		String[] seats = { "b1", "b2" };
+		Order order = new Order(0, 0, 1, 0, new int[]{ 1, 0, 0 }, new int[]{ 0, 0, 1 }, null);
+		Order newOrder = new Order(5, 101, 1, 2, order.getPopcorn(), order.getSoda(), seats);
+		when(mockSeatHoldDao.claimHold(3)).thenReturn(new SeatHold(3, 101, seats, 0));
+		when(mockOrderDao.createOrder(any(Order.class))).thenReturn(newOrder);
+
+		// invoke
+		ResponseEntity<Order> response = orderController.createOrderFromHold(3, order);
+
+		// analyze
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		assertEquals(newOrder, response.getBody());
+		verify(mockOrderDao).createOrder(argThat(created -> created.getScreeningId() == 101 && created.getTickets() == 2
+		                                                    && created.getSeats() == seats));
+	}
+
+	@Test
+	void testCreateOrderFromExpiredHold () throws IOException {
+		// setup
+		Order order = new Order(0, 0, 1, 0, new int[]{ 1, 0, 0 }, new int[]{ 0, 0, 1 }, null);
+		when(mockSeatHoldDao.claimHold(3)).thenReturn(null);
+
+		// invoke
+		ResponseEntity<Order> response = orderController.createOrderFromHold(3, order);
+
+		// analyze
+		assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+		verify(mockOrderDao, never()).createOrder(any(Order.class));
+	}
+
+	@Test
+	void testCreateOrderFromHoldClaimException () throws IOException {
+		// setup
+		Order order = new Order(0, 0, 1, 0, new int[]{ 1, 0, 0 }, new int[]{ 0, 0, 1 }, null);
+		doThrow(new IOException()).when(mockSeatHoldDao).claimHold(3);
+
+		// invoke
+		ResponseEntity<Order> response = orderController.createOrderFromHold(3, order);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+		verify(mockOrderDao, never()).createOrder(any(Order.class));
+	}
+
+	@Test
+	void testCreateOrderFromHoldHandleException () throws IOException {
+		// setup
+		SeatHold hold = new SeatHold(3, 101, new String[]{ "b1" }, 0);
+		Order order = new Order(0, 0, 1, 0, new int[]{ 1, 0, 0 }, new int[]{ 0, 0, 1 }, null);
+		when(mockSeatHoldDao.claimHold(3)).thenReturn(hold);
+		doThrow(new IOException()).when(mockOrderDao).createOrder(any(Order.class));
+		doThrow(new IOException()).when(mockSeatHoldDao).cancelClaim(hold);
+
+		// invoke
+		ResponseEntity<Order> response = orderController.createOrderFromHold(3, order);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+		verify(mockSeatHoldDao).cancelClaim(hold);
 	}
 
 	@Test
@@ -97,6 +173,96 @@ class OrderControllerTest {
 		assertEquals(orders, response.getBody());
 	}
 
+	@Test
+	void testGetOrdersPage () throws IOException {
+		// Setup
+		Order[] page = new Order[1];
+		page[0] = new Order(2, 2, 1, 1, new int[]{ 0, 0, 1 }, new int[]{ 0, 0, 1 }, new String[]{ "a1" });
+		// When getOrders is called for the page after the first order, return the order above
+		when(mockOrderDao.getOrders(1, 1)).thenReturn(page);
+
+		// Invoke
+		ResponseEntity<Order[]> response = orderController.getOrdersPage(1, 1);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(page, response.getBody());
+	}
+
+	@Test
+	void testExportOrders () throws IOException {
+		// Setup
+		Order[] orders = new Order[2];
+		orders[0] = new Order(1, 1, 1, 3, new int[]{ 2, 0, 1 }, new int[]{ 1, 1, 1 }, new String[]{ "a1", "a2", "a3" });
+		orders[1] = new Order(2, 2, 1, 1, new int[]{ 0, 0, 1 }, new int[]{ 0, 0, 1 }, new String[]{ "a1" });
+		// When iterateOrders is called, walk the orders above
+		when(mockOrderDao.iterateOrders()).thenAnswer(invocation -> Arrays.asList(orders).iterator());
+		ObjectMapper objectMapper = new ObjectMapper();
+
+		// Invoke
+		ResponseEntity<StreamingResponseBody> json = orderController.exportOrders("json");
+		ResponseEntity<StreamingResponseBody> lines = orderController.exportOrders("ndjson");
+
+		// Analyze
+		assertEquals(HttpStatus.OK, json.getStatusCode());
+		assertEquals(MediaType.APPLICATION_JSON, json.getHeaders().getContentType());
+		assertEquals(objectMapper.writeValueAsString(orders), write(json.getBody()));
+		assertEquals(HttpStatus.OK, lines.getStatusCode());
+		assertEquals(MediaType.APPLICATION_NDJSON, lines.getHeaders().getContentType());
+		assertEquals(objectMapper.writeValueAsString(orders[0]) + "\n" + objectMapper.writeValueAsString(orders[1]) + "\n",
+		             write(lines.getBody()));
+	}
+
+	@Test
+	void testExportEmptyOrders () throws IOException {
+		// Setup
+		when(mockOrderDao.iterateOrders()).thenAnswer(invocation -> Collections.emptyIterator());
+
+		// Invoke
+		ResponseEntity<StreamingResponseBody> json = orderController.exportOrders("json");
+		ResponseEntity<StreamingResponseBody> lines = orderController.exportOrders("ndjson");
+
+		// Analyze
+		assertEquals("[]", write(json.getBody()));
+		assertEquals("", write(lines.getBody()));
+	}
+
+	@Test
+	void testExportOrdersBadFormat () throws IOException {
+		// Invoke
+		ResponseEntity<StreamingResponseBody> response = orderController.exportOrders("csv");
+
+		// Analyze
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		verify(mockOrderDao, never()).iterateOrders();
+	}
+
+	@Test
+	void testExportOrdersHandleException () throws IOException {
+		// Setup
+		// When iterateOrders is called on the Mock Order DAO, throw an IOException
+		doThrow(new IOException()).when(mockOrderDao).iterateOrders();
+
+		// Invoke
+		ResponseEntity<StreamingResponseBody> response = orderController.exportOrders("json");
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	/**
+	 * Writes a streamed response body out, as the servlet container would.
+	 *
+	 * @param body The streamed response body
+	 * @return The text written
+	 * @throws IOException if the body cannot be written
+	 */
+	private static String write (StreamingResponseBody body) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		body.writeTo(outputStream);
+		return outputStream.toString(StandardCharsets.UTF_8);
+	}
+
 	@Test
 	void testGetEmptyOrders () throws Exception {
 		// When getOrders is called, return null
@@ -1,12 +1,20 @@
 package com.estore.api.estoreapi.orders.persistence;
 
 import com.estore.api.estoreapi.orders.model.Order;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,6 +29,9 @@ class OrderJSONDAOTest {
 	OrderJSONDAO orderJSONDAO;
 	Order[] testOrders;
 	ObjectMapper mockObjectMapper;
+	@TempDir
+	Path tempDir;
+	String filename;
 
 	/**
 	 * Before each test, we will create and inject a Mock Object Mapper to
@@ -30,6 +41,7 @@ class OrderJSONDAOTest {
 	 */
 	@BeforeEach
 	void setupOrderJSONDAO () throws IOException {
+		filename = tempDir.resolve("mao-zedongs-little-red-book.epub").toString();
 		mockObjectMapper = mock(ObjectMapper.class);
 		testOrders = new Order[3];
 		testOrders[0] = new Order(1, 1, 1, 3, new int[]{ 2, 0, 1 }, new int[]{ 1, 1, 1 }, new String[]{ "a1", "a2", "a3" });
@@ -37,8 +49,8 @@ class OrderJSONDAOTest {
 		testOrders[2] = new Order(3, 3, 1, 2, new int[]{ 2, 0, 0 }, new int[]{ 0, 1, 1 }, new String[]{ "a1", "a2" });
 
 		// When the object mapper is supposed to read from the file the mock object mapper will return the order array above
-		when(mockObjectMapper.readValue(new File("mao-zedongs-little-red-book.epub"), Order[].class)).thenReturn(testOrders);
-		orderJSONDAO = new OrderJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper);
+		when(mockObjectMapper.readValue(new File(filename), Order[].class)).thenReturn(testOrders);
+		orderJSONDAO = new OrderJSONDAO(filename, mockObjectMapper);
 	}
 
 	@Test
@@ -53,6 +65,28 @@ class OrderJSONDAOTest {
 		}
 	}
 
+	@Test
+	void testGetOrdersPage () throws IOException {
+		// Invoke
+		Order[] page = orderJSONDAO.getOrders(testOrders[0].getId(), 1);
+
+		// Analyze
+		assertArrayEquals(new Order[]{ testOrders[1] }, page);
+	}
+
+	@Test
+	void testIterateOrders () {
+		// Invoke
+		Iterator<Order> orders = orderJSONDAO.iterateOrders();
+
+		// Analyze
+		for (Order testOrder : testOrders) {
+			assertEquals(testOrder, orders.next());
+		}
+		assertFalse(orders.hasNext());
+		assertThrows(UnsupportedOperationException.class, orders::remove);
+	}
+
 	@Test
 	void testFindScreeningOrders () {
 		// Invoke
@@ -83,6 +117,30 @@ class OrderJSONDAOTest {
 		assertEquals(orders.length, 0);
 	}
 
+	@Test
+	void testIndexesFollowCreateAndDelete () throws IOException {
+		// Setup
+		Order order = new Order(4, 3, 2, 1, new int[]{ 0, 0, 1 }, new int[]{ 0, 0, 1 }, new String[]{ "a1" });
+
+		// Invoke
+		Order created = orderJSONDAO.createOrder(order);
+		orderJSONDAO.deleteOrder(3);
+
+		// Analyze
+		Order[] screeningOrders = orderJSONDAO.findScreeningOrders(3);
+		assertEquals(1, screeningOrders.length);
+		assertEquals(created, screeningOrders[0]);
+		assertEquals(1, orderJSONDAO.findAccountOrders(2).length);
+		assertEquals(2, orderJSONDAO.findAccountOrders(1).length);
+
+		// Invoke
+		orderJSONDAO.deleteOrder(created.getId());
+
+		// Analyze
+		assertEquals(0, orderJSONDAO.findScreeningOrders(3).length);
+		assertEquals(0, orderJSONDAO.findAccountOrders(2).length);
+	}
+
 	@Test
 	void testGetOrder () {
 		// Invoke
@@ -123,7 +181,7 @@ class OrderJSONDAOTest {
 
 	@Test
 	void testSaveException () throws IOException {
-		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(File.class), any(Order[].class));
+		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Order[].class));
 
 		Order order = new Order(4, 1, 2, 1, new int[]{ 0, 0, 1 }, new int[]{ 0, 0, 1 }, new String[]{ "a1" });
 
@@ -155,9 +213,78 @@ class OrderJSONDAOTest {
 		ObjectMapper mockObjectMapper = mock(ObjectMapper.class);
 		// We want to simulate with a Mock Object Mapper that an exception was raised during JSON object deserialization into Java objects
 		// When the Mock Object Mapper readValue method is called from the OrderJSONDAO load method, an IOException is raised
-		doThrow(new IOException()).when(mockObjectMapper).readValue(new File("mao-zedongs-little-red-book.epub"), Order[].class);
+		doThrow(new IOException()).when(mockObjectMapper).readValue(new File(filename), Order[].class);
 
 		// Invoke & Analyze
-		assertThrows(IOException.class, () -> new OrderJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper), "IOException not thrown");
+		assertThrows(IOException.class, () -> new OrderJSONDAO(filename, mockObjectMapper), "IOException not thrown");
+	}
+
+	@Test
+	void testJournalReplayedOnLoad (@TempDir Path tempDir) throws IOException {
+		// Setup
+		ObjectMapper objectMapper = new ObjectMapper();
+		String filename = tempDir.resolve("orders.json").toString();
+		objectMapper.writeValue(new File(filename), testOrders);
+		OrderJSONDAO journaledDAO = new OrderJSONDAO(filename, objectMapper, true, 100);
+
+		// Invoke
+		Order created = journaledDAO.createOrder(testOrders[0]);
+		journaledDAO.deleteOrder(2);
+		journaledDAO.close();
+
+		// Analyze
+		// The storage file was not rewritten, the mutations only went to the journal
+		assertEquals(testOrders.length, objectMapper.readValue(new File(filename), Order[].class).length);
+		OrderJSONDAO reloadedDAO = new OrderJSONDAO(filename, objectMapper, true, 100);
+		assertEquals(testOrders.length, reloadedDAO.getOrders().length);
+		assertNotNull(reloadedDAO.getOrder(created.getId()));
+		assertNull(reloadedDAO.getOrder(2));
+		// Loading compacts the journal into the storage file
+		assertEquals(testOrders.length, objectMapper.readValue(new File(filename), Order[].class).length);
+		assertEquals(0, Files.size(tempDir.resolve("orders.json.journal")));
+		reloadedDAO.close();
+	}
+
+	@Test
+	void testJournalCompaction (@TempDir Path tempDir) throws IOException {
+		// Setup
+		ObjectMapper objectMapper = new ObjectMapper();
+		String filename = tempDir.resolve("orders.json").toString();
+		objectMapper.writeValue(new File(filename), testOrders);
+		OrderJSONDAO journaledDAO = new OrderJSONDAO(filename, objectMapper, true, 2);
+
+		// Invoke
+		journaledDAO.createOrder(testOrders[0]);
+		journaledDAO.createOrder(testOrders[1]);
+
+		// Analyze
+		assertEquals(testOrders.length + 2, objectMapper.readValue(new File(filename), Order[].class).length);
+		assertEquals(0, Files.size(tempDir.resolve("orders.json.journal")));
+		journaledDAO.close();
+	}
+
+	@Test
+	void testJournalFailureLeavesNoOrder (@TempDir Path tempDir) throws IOException {
+		// Setup
+		// The journal writes through the mapper's writer, which fails as a full disk would
+		ObjectMapper objectMapper = spy(new ObjectMapper());
+		ObjectWriter failingWriter = mock(ObjectWriter.class);
+		when(failingWriter.without(any(SerializationFeature.class))).thenReturn(failingWriter);
+		when(failingWriter.writeValueAsString(any())).thenThrow(JsonMappingException.class);
+		doReturn(failingWriter).when(objectMapper).writer();
+		String filename = tempDir.resolve("orders.json").toString();
+		objectMapper.writeValue(new File(filename), testOrders);
+		OrderJSONDAO journaledDAO = new OrderJSONDAO(filename, objectMapper, true, 100);
+
+		// Invoke
+		assertThrows(IOException.class, () -> journaledDAO.createOrder(testOrders[0]), "IOException not thrown");
+		assertThrows(IOException.class, () -> journaledDAO.deleteOrder(2), "IOException not thrown");
+
+		// Analyze
+		// Neither mutation was applied, since neither was recorded
+		assertEquals(testOrders.length, journaledDAO.getOrders().length);
+		assertEquals(1, journaledDAO.findScreeningOrders(testOrders[0].getScreeningId()).length);
+		assertNotNull(journaledDAO.getOrder(2));
+		journaledDAO.close();
 	}
 }
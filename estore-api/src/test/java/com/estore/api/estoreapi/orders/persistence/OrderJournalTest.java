@@ -0,0 +1,110 @@
+package com.estore.api.estoreapi.orders.persistence;
+
+import com.estore.api.estoreapi.orders.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the Order Journal class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class OrderJournalTest {
+	@TempDir
+	Path tempDir;
+	Path journalFile;
+	ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setupOrderJournal () {
+		journalFile = tempDir.resolve("orders.json.journal");
+		objectMapper = new ObjectMapper();
+	}
+
+	@Test
+	void testAppendAndReplay () throws IOException {
+		// Setup
+		Order order = new Order(1, 1, 1, 1, new int[]{ 0, 0, 1 }, new int[]{ 0, 0, 1 }, new String[]{ "a1" });
+		try (OrderJournal journal = new OrderJournal(journalFile, objectMapper)) {
+			assertEquals(0, journal.replay().size());
+
+			// Invoke
+			long first = journal.append(OrderJournal.Entry.created(order));
+			long second = journal.append(OrderJournal.Entry.deleted(1));
+			journal.sync(second);
+
+			// Analyze
+			assertEquals(1, first);
+			assertEquals(2, second);
+			assertEquals(2, journal.size());
+		}
+
+		try (OrderJournal journal = new OrderJournal(journalFile, objectMapper)) {
+			List<OrderJournal.Entry> entries = journal.replay();
+
+			assertEquals(2, entries.size());
+			assertEquals(OrderJournal.Entry.Operation.CREATE, entries.get(0).getOperation());
+			assertEquals(order.getId(), entries.get(0).getOrder().getId());
+			assertArrayEquals(order.getSeats(), entries.get(0).getOrder().getSeats());
+			assertEquals(OrderJournal.Entry.Operation.DELETE, entries.get(1).getOperation());
+			assertEquals(1, entries.get(1).getId());
+			assertNull(entries.get(1).getOrder());
+		}
+	}
+
+	@Test
+	void testReplayDiscardsTornRecord () throws IOException {
+		// Setup
+		try (OrderJournal journal = new OrderJournal(journalFile, objectMapper)) {
+			journal.replay();
+			journal.append(OrderJournal.Entry.deleted(1));
+		}
+		// Simulate a crash in the middle of writing the second record
+		Files.write(journalFile, "{\"op\":\"DELETE\",\"i".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		// Invoke
+		try (OrderJournal journal = new OrderJournal(journalFile, objectMapper)) {
+			List<OrderJournal.Entry> entries = journal.replay();
+			journal.append(OrderJournal.Entry.deleted(2));
+
+			// Analyze
+			assertEquals(1, entries.size());
+			assertEquals(2, journal.size());
+		}
+		// The torn record was removed, so the record appended after it can be read back
+		try (OrderJournal journal = new OrderJournal(journalFile, objectMapper)) {
+			List<OrderJournal.Entry> entries = journal.replay();
+			assertEquals(2, entries.size());
+			assertEquals(2, entries.get(1).getId());
+		}
+	}
+
+	@Test
+	void testTruncate () throws IOException {
+		// Setup
+		try (OrderJournal journal = new OrderJournal(journalFile, objectMapper)) {
+			journal.replay();
+			journal.append(OrderJournal.Entry.deleted(1));
+
+			// Invoke
+			journal.truncate();
+
+			// Analyze
+			assertEquals(0, journal.size());
+			assertEquals(0, Files.size(journalFile));
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.movies.model.Movie;
+import com.estore.api.estoreapi.movies.persistence.MovieDAO;
+import com.estore.api.estoreapi.movies.persistence.MovieJSONDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the DAO Metrics class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class DAOMetricsTest {
+	@TempDir
+	Path tempDir;
+	SimpleMeterRegistry registry;
+	MovieDAO movieDAO;
+
+	@BeforeEach
+	void setupDAOMetrics () throws IOException {
+		Path storage = tempDir.resolve("movies.json");
+		Files.writeString(storage, "[]");
+		registry = new SimpleMeterRegistry();
+
+		AspectJProxyFactory factory = new AspectJProxyFactory(new MovieJSONDAO(storage.toString(), new ObjectMapper()));
+		factory.addAspect(new DAOMetrics(registry));
+		movieDAO = factory.getProxy();
+	}
+
+	@Test
+	void testCallsAreTimed () throws IOException {
+		// Invoke
+		movieDAO.createMovie(new Movie(0, "Casablanca", "", 102, "PG", 1942));
+		movieDAO.getMovies();
+		movieDAO.getMovies();
+
+		// Analyze
+		assertEquals(1, registry.get("dao.calls").tags("dao", "MovieJSONDAO", "method", "createMovie").timer().count());
+		assertEquals(2, registry.get("dao.calls").tags("method", "getMovies", "exception", "none").timer().count());
+	}
+
+	@Test
+	void testExceptionIsTagged () {
+		// Invoke
+		assertThrows(NullPointerException.class, () -> movieDAO.updateMovie(null));
+
+		// Analyze
+		assertEquals(1, registry.get("dao.calls").tags("method", "updateMovie", "exception", "NullPointerException")
+		                        .timer().count());
+	}
+}
@@ -0,0 +1,43 @@
+package com.estore.api.estoreapi.persistence;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the Mutation Event class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class MutationEventTest {
+	@Test
+	void testStartWithoutRecordingSharesEvent () {
+		// Invoke
+		MutationEvent first = MutationEvent.start("Order", "createOrder", 0);
+		MutationEvent second = MutationEvent.start("Order", "deleteOrder", 1);
+
+		// Analyze
+		assertSame(first, second);
+		assertFalse(first.isEnabled());
+	}
+
+	@Test
+	void testStartWhileRecordingCreatesEvent () {
+		try (Recording recording = new Recording()) {
+			// Setup
+			recording.enable(MutationEvent.class);
+			recording.start();
+
+			// Invoke
+			MutationEvent first = MutationEvent.start("Order", "createOrder", 0);
+			MutationEvent second = MutationEvent.start("Order", "deleteOrder", 1);
+
+			// Analyze
+			assertNotSame(first, second);
+			assertTrue(first.isEnabled());
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test the Paging class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class PagingTest {
+	NavigableMap<Integer, String> map;
+
+	@BeforeEach
+	void setupPaging () {
+		map = new TreeMap<>();
+		map.put(104, "Casablanca");
+		map.put(101, "Metropolis");
+		map.put(107, "Vertigo");
+	}
+
+	@Test
+	void testFirstPage () {
+		// Invoke
+		String[] page = Paging.page(map, null, 2, String[]::new);
+
+		// Analyze
+		assertArrayEquals(new String[]{ "Metropolis", "Casablanca" }, page);
+	}
+
+	@Test
+	void testNextPage () {
+		// Invoke
+		String[] page = Paging.page(map, 104, 2, String[]::new);
+
+		// Analyze
+		assertArrayEquals(new String[]{ "Vertigo" }, page);
+	}
+
+	@Test
+	void testPageAfterMissingKey () {
+		// Invoke
+		String[] page = Paging.page(map, 102, 2, String[]::new);
+
+		// Analyze
+		assertArrayEquals(new String[]{ "Casablanca", "Vertigo" }, page);
+	}
+
+	@Test
+	void testPagePastEnd () {
+		// Invoke
+		String[] page = Paging.page(map, 107, 2, String[]::new);
+
+		// Analyze
+		assertEquals(0, page.length);
+	}
+
+	@Test
+	void testPageView () {
+		// Invoke
+		String[] page = Paging.page(map, 101, 1, String::toUpperCase, String[]::new);
+
+		// Analyze
+		assertArrayEquals(new String[]{ "CASABLANCA" }, page);
+	}
+}
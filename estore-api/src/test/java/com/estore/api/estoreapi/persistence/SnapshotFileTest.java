@@ -0,0 +1,272 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the Snapshot File class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class SnapshotFileTest {
+	@TempDir
+	Path tempDir;
+	Path storage;
+	SnapshotFile snapshotFile;
+
+	@BeforeEach
+	void setupSnapshotFile () {
+		storage = tempDir.resolve("storage.json");
+		snapshotFile = new SnapshotFile(storage.toString(), new ObjectMapper());
+	}
+
+	@Test
+	void testWriteAndRead () throws IOException {
+		// Invoke
+		snapshotFile.write(new int[]{ 1, 2, 3 });
+		snapshotFile.write(new int[]{ 4, 5 });
+
+		// Analyze
+		assertArrayEquals(new int[]{ 4, 5 }, snapshotFile.read(int[].class));
+		assertTrue(Files.exists(tempDir.resolve("storage.json.crc")));
+		assertEquals("[1,2,3]", Files.readString(tempDir.resolve("storage.json.bak")));
+		assertFalse(Files.exists(tempDir.resolve("storage.json.tmp")));
+	}
+
+	@Test
+	void testReadWithoutChecksum () throws IOException {
+		// Setup
+		Files.writeString(storage, "[7, 8]");
+
+		// Invoke & Analyze
+		assertArrayEquals(new int[]{ 7, 8 }, snapshotFile.read(int[].class));
+	}
+
+	@Test
+	void testReadTornFileFallsBackToBackup () throws IOException {
+		// Setup
+		snapshotFile.write(new int[]{ 1, 2, 3 });
+		snapshotFile.write(new int[]{ 4, 5, 6 });
+		Files.writeString(storage, "[4,5", StandardCharsets.UTF_8);
+
+		// Invoke & Analyze
+		assertArrayEquals(new int[]{ 1, 2, 3 }, snapshotFile.read(int[].class));
+	}
+
+	@Test
+	void testReadMissingFileFallsBackToBackup () throws IOException {
+		// Setup
+		snapshotFile.write(new int[]{ 1, 2, 3 });
+		snapshotFile.write(new int[]{ 4, 5, 6 });
+		Files.delete(storage);
+
+		// Invoke & Analyze
+		assertArrayEquals(new int[]{ 1, 2, 3 }, snapshotFile.read(int[].class));
+	}
+
+	@Test
+	void testReadChecksumMismatch () throws IOException {
+		// Setup
+		snapshotFile.write(new int[]{ 1, 2, 3 });
+		Files.writeString(storage, "[1,2,4]", StandardCharsets.UTF_8);
+
+		// Invoke & Analyze
+		assertThrows(IOException.class, () -> snapshotFile.read(int[].class), "IOException not thrown");
+	}
+
+	@Test
+	void testCrashAtEachStepLeavesASnapshot () throws IOException {
+		for (int step = 1; step <= 6; ++step) {
+			// Setup
+			Path directory = Files.createDirectory(tempDir.resolve("crash-" + step));
+			String filename = directory.resolve("storage.json").toString();
+			SnapshotFile crashing = new SnapshotFile(filename, new ObjectMapper());
+			crashing.write(new int[]{ 1, 2, 3 });
+			crashing.write(new int[]{ 4, 5 });
+			int crashStep = step;
+			crashing.afterStep = done -> {
+				if (done == crashStep) {
+					throw new IllegalStateException("crashed after step " + done);
+				}
+			};
+
+			// Invoke
+			assertThrows(IllegalStateException.class, () -> crashing.write(new int[]{ 6 }));
+
+			// Analyze
+			// Until the new snapshot is renamed into place the previous one is loaded, from the file or the backup
+			SnapshotFile restarted = new SnapshotFile(filename, new ObjectMapper());
+			int[] expected = step < 6 ? new int[]{ 4, 5 } : new int[]{ 6 };
+			assertArrayEquals(expected, restarted.read(int[].class), "after a crash at step " + step);
+			restarted.write(new int[]{ 7 });
+			assertArrayEquals(new int[]{ 7 }, new SnapshotFile(filename, new ObjectMapper()).read(int[].class));
+		}
+	}
+
+	@Test
+	void testCrashAtEachStepKeepsAFileWithoutChecksum () throws IOException {
+		for (int step = 1; step <= 6; ++step) {
+			// Setup
+			Path directory = Files.createDirectory(tempDir.resolve("crash-" + step));
+			Path file = directory.resolve("storage.json");
+			Files.writeString(file, "[4, 5]");
+			SnapshotFile crashing = new SnapshotFile(file.toString(), new ObjectMapper());
+			int crashStep = step;
+			crashing.afterStep = done -> {
+				if (done == crashStep) {
+					throw new IllegalStateException("crashed after step " + done);
+				}
+			};
+
+			// Invoke
+			assertThrows(IllegalStateException.class, () -> crashing.write(new int[]{ 6 }));
+
+			// Analyze
+			int[] expected = step < 6 ? new int[]{ 4, 5 } : new int[]{ 6 };
+			assertArrayEquals(expected, new SnapshotFile(file.toString(), new ObjectMapper()).read(int[].class),
+			                  "after a crash at step " + step);
+		}
+	}
+
+	@Test
+	void testWriteAndReadSmile () throws IOException {
+		// Setup
+		SnapshotFile smileFile = new SnapshotFile(storage.toString(), new ObjectMapper(), StorageFormat.SMILE);
+
+		// Invoke
+		smileFile.write(new int[]{ 1, 2, 3 });
+
+		// Analyze
+		assertArrayEquals(new int[]{ 1, 2, 3 }, smileFile.read(int[].class));
+		assertTrue(Files.exists(tempDir.resolve("storage.json.smile")));
+		assertFalse(Files.exists(storage));
+	}
+
+	@Test
+	void testMigrateJsonToSmile () throws IOException {
+		// Setup
+		snapshotFile.write(new int[]{ 1, 2, 3 });
+		SnapshotFile smileFile = new SnapshotFile(storage.toString(), new ObjectMapper(), StorageFormat.SMILE);
+
+		// Invoke
+		int[] migrated = smileFile.read(int[].class);
+
+		// Analyze
+		assertArrayEquals(new int[]{ 1, 2, 3 }, migrated);
+		assertTrue(Files.exists(tempDir.resolve("storage.json.smile")));
+		assertTrue(Files.exists(tempDir.resolve("storage.json.smile.crc")));
+		assertFalse(Files.exists(storage));
+		assertFalse(Files.exists(tempDir.resolve("storage.json.crc")));
+	}
+
+	@Test
+	void testMigrateSmileToJson () throws IOException {
+		// Setup
+		new SnapshotFile(storage.toString(), new ObjectMapper(), StorageFormat.SMILE).write(new int[]{ 4, 5 });
+
+		// Invoke & Analyze
+		assertArrayEquals(new int[]{ 4, 5 }, snapshotFile.read(int[].class));
+		assertEquals("[4,5]", Files.readString(storage));
+		assertFalse(Files.exists(tempDir.resolve("storage.json.smile")));
+	}
+
+	@Test
+	void testSwitchFormatsBackAndForth () throws IOException {
+		// Setup
+		snapshotFile.write(new int[]{ 1, 2, 3 });
+		SnapshotFile smileFile = new SnapshotFile(storage.toString(), new ObjectMapper(), StorageFormat.SMILE);
+		smileFile.read(int[].class);
+		smileFile.write(new int[]{ 4, 5 });
+
+		// Invoke
+		int[] switchedBack = new SnapshotFile(storage.toString(), new ObjectMapper()).read(int[].class);
+
+		// Analyze
+		// The changes made while in Smile come back, not the JSON file from before the first switch
+		assertArrayEquals(new int[]{ 4, 5 }, switchedBack);
+	}
+
+	@Test
+	void testSmileMapperFollowsJsonMapper () throws IOException {
+		// Setup
+		ObjectMapper jsonMapper = new ObjectMapper().registerModule(
+			new SimpleModule().addSerializer(Integer.class, ToStringSerializer.instance));
+		SnapshotFile smileFile = new SnapshotFile(storage.toString(), jsonMapper, StorageFormat.SMILE);
+
+		// Invoke
+		smileFile.write(new Integer[]{ 1, 2 });
+
+		// Analyze
+		byte[] written = Files.readAllBytes(tempDir.resolve("storage.json.smile"));
+		assertArrayEquals(new Object[]{ "1", "2" }, new ObjectMapper(new SmileFactory()).readValue(written, Object[].class));
+	}
+
+	@Test
+	void testWriteAndReadAreMeasured () throws IOException {
+		// Setup
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Metrics.addRegistry(registry);
+		String file = storage.toString();
+
+		try {
+			// Invoke
+			snapshotFile.write(new int[]{ 1, 2, 3 });
+			snapshotFile.read(int[].class);
+
+			// Analyze
+			assertEquals(1, registry.get("persistence.save").tag("file", file).timer().count());
+			assertEquals(1, registry.get("persistence.load").tag("file", file).timer().count());
+			assertEquals(7, registry.get("persistence.save.size").tag("file", file).summary().totalAmount());
+		} finally {
+			Metrics.removeRegistry(registry);
+		}
+	}
+
+	@Test
+	void testWriteAndReadAreRecorded () throws IOException {
+		// Setup
+		Path recordingFile = tempDir.resolve("snapshot.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(SnapshotSaveEvent.class);
+			recording.enable(SnapshotLoadEvent.class);
+			recording.start();
+
+			// Invoke
+			snapshotFile.write(new int[]{ 1, 2, 3 });
+			snapshotFile.read(int[].class);
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+
+		// Analyze
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+		RecordedEvent save = events.stream().filter(e -> e.getEventType().getName().equals("com.estore.SnapshotSave"))
+		                           .findFirst().orElseThrow();
+		assertEquals(storage.toString(), save.getString("file"));
+		assertEquals(7, save.getLong("bytes"));
+		RecordedEvent load = events.stream().filter(e -> e.getEventType().getName().equals("com.estore.SnapshotLoad"))
+		                           .findFirst().orElseThrow();
+		assertEquals(7, load.getLong("bytes"));
+		assertFalse(load.getBoolean("backup"));
+	}
+}
@@ -0,0 +1,89 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.screenings.model.Screening;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the time to save and load a snapshot, and the size of its file, in each {@linkplain StorageFormat format}.
+ * <p>
+ * Only runs when asked for, e.g. {@code mvn test -Dtest=StorageFormatBenchmarkTest -Dbenchmark=true}, and prints a
+ * line per format.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StorageFormatBenchmarkTest {
+	/** Number of screenings in the snapshot. */
+	private static final int SCREENINGS = 20000;
+	/** Number of untimed rounds before measuring, to let the JIT compile the code paths. */
+	private static final int WARMUP_ROUNDS = 5;
+	/** Number of measured rounds. */
+	private static final int ROUNDS = 10;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void benchmarkStorageFormats () throws IOException {
+		// Setup
+		Screening[] screenings = new Screening[SCREENINGS];
+		Random random = new Random(42);
+		for (int id = 0; id < SCREENINGS; ++id) {
+			boolean[][] seats = new boolean[4][5];
+			for (boolean[] row : seats) {
+				for (int seat = 0; seat < row.length; ++seat) {
+					row[seat] = random.nextBoolean();
+				}
+			}
+			screenings[id] = new Screening(id, random.nextInt(500), 20, "01/" + (1 + id % 28) + "/2023",
+			                               (10 + id % 12) + ":00", seats);
+		}
+		ObjectMapper objectMapper = new ObjectMapper();
+
+		long jsonSize = 0;
+		for (StorageFormat format : StorageFormat.values()) {
+			String filename = tempDir.resolve(format.name().toLowerCase() + "-storage.json").toString();
+			SnapshotFile file = new SnapshotFile(filename, objectMapper, format);
+			for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+				file.write(screenings);
+				file.read(Screening[].class);
+			}
+
+			// Invoke
+			long saveNanos = 0;
+			long loadNanos = 0;
+			Screening[] loaded = null;
+			for (int round = 0; round < ROUNDS; ++round) {
+				long start = System.nanoTime();
+				file.write(screenings);
+				long saved = System.nanoTime();
+				loaded = file.read(Screening[].class);
+				loadNanos += System.nanoTime() - saved;
+				saveNanos += saved - start;
+			}
+			long size = Files.size(Path.of(format.filename(filename)));
+			System.out.printf("%-6s save %8.2f ms  load %8.2f ms  size %9d bytes%n", format,
+			                  saveNanos / 1e6 / ROUNDS, loadNanos / 1e6 / ROUNDS, size);
+
+			// Analyze
+			assertEquals(SCREENINGS, loaded.length);
+			if (format == StorageFormat.JSON) {
+				jsonSize = size;
+			} else {
+				assertTrue(size < jsonSize, format + " file is not smaller than JSON");
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the Write Behind Persister class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class WriteBehindPersisterTest {
+	@Test
+	void testSynchronousSavesEveryChange () throws IOException {
+		// Setup
+		AtomicInteger saves = new AtomicInteger();
+		WriteBehindPersister persister = new WriteBehindPersister();
+		WriteBehindPersister.Store store = persister.register("test", saves::incrementAndGet, false);
+
+		// Invoke
+		store.changed();
+		store.changed();
+
+		// Analyze
+		assertEquals(2, saves.get());
+		assertFalse(store.isDirty());
+	}
+
+	@Test
+	void testWriteBehindDefersSave () throws IOException, InterruptedException {
+		// Setup
+		AtomicInteger saves = new AtomicInteger();
+		WriteBehindPersister persister = new WriteBehindPersister(60000, 100);
+		WriteBehindPersister.Store store = persister.register("test", saves::incrementAndGet, false);
+
+		// Invoke
+		store.changed();
+		store.changed();
+		store.changed();
+
+		// Analyze
+		assertEquals(0, saves.get());
+		assertTrue(store.isDirty());
+
+		// Invoke
+		persister.flushAll();
+
+		// Analyze
+		assertEquals(1, saves.get());
+		assertFalse(store.isDirty());
+	}
+
+	@Test
+	void testThresholdWakesFlusher () throws IOException, InterruptedException {
+		// Setup
+		CountDownLatch saved = new CountDownLatch(1);
+		WriteBehindPersister persister = new WriteBehindPersister(60000, 2);
+		WriteBehindPersister.Store store = persister.register("test", saved::countDown, false);
+		persister.start();
+
+		try {
+			// Invoke
+			store.changed();
+			store.changed();
+
+			// Analyze
+			assertTrue(saved.await(10, TimeUnit.SECONDS), "Store not saved after reaching the threshold");
+		} finally {
+			persister.stop();
+		}
+	}
+
+	@Test
+	void testStopSavesDirtyStores () throws IOException, InterruptedException {
+		// Setup
+		AtomicInteger saves = new AtomicInteger();
+		WriteBehindPersister persister = new WriteBehindPersister(60000, 100);
+		WriteBehindPersister.Store store = persister.register("test", saves::incrementAndGet, false);
+		persister.start();
+		store.changed();
+
+		// Invoke
+		persister.stop();
+
+		// Analyze
+		assertEquals(1, saves.get());
+		assertFalse(store.isDirty());
+	}
+
+	@Test
+	void testDurableStoreSavesBeforeReturning () throws IOException {
+		// Setup
+		AtomicInteger saves = new AtomicInteger();
+		WriteBehindPersister persister = new WriteBehindPersister(60000, 100);
+		WriteBehindPersister.Store store = persister.register("test", saves::incrementAndGet, true);
+
+		// Invoke
+		store.changed();
+
+		// Analyze
+		assertEquals(1, saves.get());
+		assertFalse(store.isDirty());
+	}
+
+	@Test
+	void testFailedSaveStaysDirty () throws IOException {
+		// Setup
+		AtomicInteger attempts = new AtomicInteger();
+		WriteBehindPersister persister = new WriteBehindPersister(60000, 100);
+		WriteBehindPersister.Store store = persister.register("test", () -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IOException();
+			}
+		}, false);
+		store.changed();
+
+		// Invoke
+		persister.flushAll();
+
+		// Analyze
+		assertTrue(store.isDirty());
+
+		// Invoke
+		persister.flushAll();
+
+		// Analyze
+		assertEquals(2, attempts.get());
+		assertFalse(store.isDirty());
+	}
+}
@@ -0,0 +1,120 @@
+package com.estore.api.estoreapi.screenings.controller;
+
+import com.estore.api.estoreapi.orders.model.Order;
+import com.estore.api.estoreapi.orders.persistence.OrderDAO;
+import com.estore.api.estoreapi.screenings.model.Screening;
+import com.estore.api.estoreapi.screenings.persistence.ScreeningDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the ReservationController class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Controller-Tier")
+class ReservationControllerTest {
+	private ReservationController reservationController;
+	private ScreeningDAO mockScreeningDao;
+	private OrderDAO mockOrderDao;
+	private Order order;
+	private String[] seats;
+
+	/**
+	 * Before a test, create a new ReservationController object and inject mock Screening and Order DAOs.
+	 */
+	@BeforeEach
+	void setupReservationController () throws IOException {
+		mockScreeningDao = mock(ScreeningDAO.class);
+		mockOrderDao = mock(OrderDAO.class);
+		reservationController = new ReservationController(mockScreeningDao, mockOrderDao);
+
+		seats = new String[]{ "a1", "a2" };
+		order = new Order(0, 0, 1, 0, new int[]{ 1, 0, 0 }, new int[]{ 0, 0, 1 }, seats);
+		when(mockScreeningDao.getScreening(101)).thenReturn(new Screening(101, 104, 6, "01/17/2023", "18:00", null));
+	}
+
+	@Test
+	void testCreateReservation () throws IOException {
+		// setup
+		Order newOrder = new Order(7, 101, 1, 2, order.getPopcorn(), order.getSoda(), seats);
+		when(mockScreeningDao.reserveSeats(101, seats)).thenReturn(true);
+		when(mockOrderDao.createOrder(any(Order.class))).thenReturn(newOrder);
+
+		// invoke
+		ResponseEntity<Order> response = reservationController.createReservation(101, order);
+
+		// analyze
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		assertEquals(newOrder, response.getBody());
+		verify(mockOrderDao).createOrder(argThat(created -> created.getScreeningId() == 101 && created.getTickets() == 2));
+	}
+
+	@Test
+	void testCreateReservationWithoutSeats () {
+		// invoke
+		ResponseEntity<Order> response = reservationController.createReservation(101, new Order(0, 101, 1, 1, new int[3], new int[3], null));
+
+		// analyze
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+	}
+
+	@Test
+	void testCreateReservationNotFound () throws IOException {
+		// invoke
+		ResponseEntity<Order> response = reservationController.createReservation(102, order);
+
+		// analyze
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+		verify(mockScreeningDao, never()).reserveSeats(anyInt(), any());
+	}
+
+	@Test
+	void testCreateReservationConflict () throws IOException {
+		// setup
+		when(mockScreeningDao.reserveSeats(101, seats)).thenReturn(false);
+
+		// invoke
+		ResponseEntity<Order> response = reservationController.createReservation(101, order);
+
+		// analyze
+		assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+		verify(mockOrderDao, never()).createOrder(any(Order.class));
+	}
+
+	@Test
+	void testCreateReservationHandleException () throws IOException {
+		// setup
+		doThrow(new IOException()).when(mockScreeningDao).reserveSeats(101, seats);
+
+		// invoke
+		ResponseEntity<Order> response = reservationController.createReservation(101, order);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	@Test
+	void testCreateReservationReleasesSeatsOnOrderException () throws IOException {
+		// setup
+		when(mockScreeningDao.reserveSeats(101, seats)).thenReturn(true);
+		doThrow(new IOException()).when(mockOrderDao).createOrder(any(Order.class));
+		doThrow(new IOException()).when(mockScreeningDao).releaseSeats(101, seats);
+
+		// invoke
+		ResponseEntity<Order> response = reservationController.createReservation(101, order);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+		verify(mockScreeningDao).releaseSeats(101, seats);
+	}
+}
@@ -5,13 +5,21 @@ import com.estore.api.estoreapi.screenings.persistence.ScreeningDAO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,6 +41,20 @@ class ScreeningControllerTest {
 		screeningController = new ScreeningController(mockScreeningDao);
 	}
 
+	/**
+	 * Creates a GET request, as the controller receives it from the Spring framework.
+	 *
+	 * @param ifNoneMatch The If-None-Match header of the request, or null for none
+	 * @return The request
+	 */
+	private static WebRequest getRequest (String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/screenings");
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return new ServletWebRequest(request, new MockHttpServletResponse());
+	}
+
 	@Test
 	void testGetScreening () throws IOException {
 		// setup
@@ -95,18 +117,65 @@ class ScreeningControllerTest {
 		// When getScreenings is called, return the list of screenings from above
 		when(mockScreeningDao.getScreenings()).thenReturn(screenings);
 
-		ResponseEntity<Screening[]> response = screeningController.getScreenings();
+		ResponseEntity<Screening[]> response = screeningController.getScreenings(getRequest(null));
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(screenings, response.getBody());
 	}
 
+	@Test
+	void testGetScreeningsETag () throws IOException {
+		// Setup
+		Screening[] screenings = { new Screening(1, 1, 80, "01/01/2023", "18:00", new boolean[2][5]) };
+		when(mockScreeningDao.getVersion()).thenReturn(7L);
+		when(mockScreeningDao.getScreenings()).thenReturn(screenings);
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.getScreenings(getRequest("\"6\""));
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("\"7\"", response.getHeaders().getETag());
+		assertEquals(screenings, response.getBody());
+	}
+
+	@Test
+	void testGetScreeningsNotModified () throws IOException {
+		// Setup
+		when(mockScreeningDao.getVersion()).thenReturn(7L);
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.getScreenings(getRequest("\"7\""));
+
+		// Analyze
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertEquals("\"7\"", response.getHeaders().getETag());
+		assertNull(response.getBody());
+		verify(mockScreeningDao, never()).getScreenings();
+	}
+
+	@Test
+	void testGetScreeningsPage () throws IOException {
+		// Setup
+		Screening[] page = new Screening[1];
+		page[0] = new Screening(102, 104, 0, "01/17/2023", "20:00", new boolean[2][5]);
+		// When getScreenings is called for the page after the first screening, return the screening above
+		when(mockScreeningDao.getScreenings(101, 1)).thenReturn(page);
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.getScreeningsPage(101, 1);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(page, response.getBody());
+	}
+
 	@Test
 	void testGetEmptyScreenings () throws Exception {
 		// When getScreenings is called, return null
 		when(mockScreeningDao.getScreenings()).thenReturn(null);
 		// Get NOT_FOUND response from ScreeningController
-		ResponseEntity<Screening[]> response = screeningController.getScreenings();
+		ResponseEntity<Screening[]> response = screeningController.getScreenings(getRequest(null));
 
 		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
 		assertNull(response.getBody());
@@ -122,7 +191,7 @@ class ScreeningControllerTest {
 		// Throw an exception when the get screenings method is called
 		doThrow(new IOException()).when(mockScreeningDao).getScreenings();
 
-		ResponseEntity<Screening[]> response = screeningController.getScreenings();
+		ResponseEntity<Screening[]> response = screeningController.getScreenings(getRequest(null));
 
 		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
 	}
@@ -211,6 +280,96 @@ class ScreeningControllerTest {
 		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
 	}
 
+	@Test
+	void testSearchScreeningsByDate () throws IOException {
+		// Setup
+		boolean[][] seats = { { false, false } };
+		Screening[] foundScreenings = { new Screening(101, 104, 6, "2023-01-24", "18:00", seats) };
+		when(mockScreeningDao.findScreeningsOnDate(LocalDate.of(2023, 1, 24))).thenReturn(foundScreenings);
+
+		// Invoke
+		ResponseEntity<Screening[]> isoResponse = screeningController.searchScreeningsByDate("2023-01-24");
+		ResponseEntity<Screening[]> usResponse = screeningController.searchScreeningsByDate("01/24/2023");
+		ResponseEntity<Screening[]> badResponse = screeningController.searchScreeningsByDate("2023-01-");
+
+		// Analyze
+		assertEquals(HttpStatus.OK, isoResponse.getStatusCode());
+		assertEquals(foundScreenings, isoResponse.getBody());
+		assertEquals(foundScreenings, usResponse.getBody());
+		assertEquals(HttpStatus.BAD_REQUEST, badResponse.getStatusCode());
+	}
+
+	@Test
+	void testSearchScreeningsByDateHandleException () throws IOException {
+		// Setup
+		doThrow(new IOException()).when(mockScreeningDao).findScreeningsOnDate(any(LocalDate.class));
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.searchScreeningsByDate("2023-01-24");
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	@Test
+	void testSearchScreeningsBetween () throws IOException {
+		// Setup
+		boolean[][] seats = { { false, false } };
+		Screening[] foundScreenings = { new Screening(101, 104, 6, "2023-01-24", "18:00", seats) };
+		when(mockScreeningDao.findScreeningsBetween(LocalDateTime.of(2023, 1, 24, 16, 0), LocalDateTime.of(2023, 1, 25, 0, 0)))
+			.thenReturn(foundScreenings);
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.searchScreeningsBetween("2023-01-24T16:00", "2023-01-25T00:00");
+		ResponseEntity<Screening[]> badResponse = screeningController.searchScreeningsBetween("2023-01-24", "2023-01-25T00:00");
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(foundScreenings, response.getBody());
+		assertEquals(HttpStatus.BAD_REQUEST, badResponse.getStatusCode());
+	}
+
+	@Test
+	void testSearchScreeningsBetweenHandleException () throws IOException {
+		// Setup
+		doThrow(new IOException()).when(mockScreeningDao).findScreeningsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.searchScreeningsBetween("2023-01-24T16:00", "2023-01-25T00:00");
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	@Test
+	void testSearchNextScreeningsForMovie () throws IOException {
+		// Setup
+		boolean[][] seats = { { false, false } };
+		Screening[] foundScreenings = { new Screening(101, 104, 6, "2023-01-24", "18:00", seats) };
+		when(mockScreeningDao.findNextScreeningsForMovie(eq(104), any(LocalDateTime.class), eq(3))).thenReturn(foundScreenings);
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.searchNextScreeningsForMovie(104, 3);
+		ResponseEntity<Screening[]> badResponse = screeningController.searchNextScreeningsForMovie(104, 0);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(foundScreenings, response.getBody());
+		assertEquals(HttpStatus.BAD_REQUEST, badResponse.getStatusCode());
+	}
+
+	@Test
+	void testSearchNextScreeningsForMovieHandleException () throws IOException {
+		// Setup
+		doThrow(new IOException()).when(mockScreeningDao).findNextScreeningsForMovie(eq(104), any(LocalDateTime.class), eq(3));
+
+		// Invoke
+		ResponseEntity<Screening[]> response = screeningController.searchNextScreeningsForMovie(104, 3);
+
+		// Analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
 	@Test
 	void testUpdateScreening () throws IOException {
 		// Setup
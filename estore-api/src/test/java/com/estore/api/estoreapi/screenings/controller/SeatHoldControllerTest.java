@@ -0,0 +1,114 @@
+package com.estore.api.estoreapi.screenings.controller;
+
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+import com.estore.api.estoreapi.screenings.persistence.SeatHoldDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the SeatHoldController class.
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Controller-Tier")
+class SeatHoldControllerTest {
+	private SeatHoldController seatHoldController;
+	private SeatHoldDAO mockSeatHoldDao;
+	private String[] seats;
+	private SeatHold hold;
+
+	/**
+	 * Before a test, create a new SeatHoldController object and inject a mock SeatHold DAO.
+	 */
+	@BeforeEach
+	void setupSeatHoldController () {
+		mockSeatHoldDao = mock(SeatHoldDAO.class);
+		seatHoldController = new SeatHoldController(mockSeatHoldDao);
+		seats = new String[]{ "a1", "a2" };
+		hold = new SeatHold(3, 101, seats, 0);
+	}
+
+	@Test
+	void testCreateHold () throws IOException {
+		// setup
+		when(mockSeatHoldDao.createHold(101, seats)).thenReturn(hold);
+
+		// invoke
+		ResponseEntity<SeatHold> response = seatHoldController.createHold(101, seats);
+
+		// analyze
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		assertEquals(hold, response.getBody());
+	}
+
+	@Test
+	void testCreateHoldConflict () throws IOException {
+		// setup
+		when(mockSeatHoldDao.createHold(101, seats)).thenReturn(null);
+
+		// invoke
+		ResponseEntity<SeatHold> response = seatHoldController.createHold(101, seats);
+
+		// analyze
+		assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+	}
+
+	@Test
+	void testCreateHoldHandleException () throws IOException {
+		// setup
+		doThrow(new IOException()).when(mockSeatHoldDao).createHold(101, seats);
+
+		// invoke
+		ResponseEntity<SeatHold> response = seatHoldController.createHold(101, seats);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	@Test
+	void testGetHold () {
+		// setup
+		when(mockSeatHoldDao.getHold(3)).thenReturn(hold);
+
+		// invoke & analyze
+		assertEquals(HttpStatus.OK, seatHoldController.getHold(101, 3).getStatusCode());
+		assertEquals(hold, seatHoldController.getHold(101, 3).getBody());
+		// a hold is only found under its own screening
+		assertEquals(HttpStatus.NOT_FOUND, seatHoldController.getHold(102, 3).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, seatHoldController.getHold(101, 4).getStatusCode());
+	}
+
+	@Test
+	void testReleaseHold () throws IOException {
+		// setup
+		when(mockSeatHoldDao.getHold(3)).thenReturn(hold);
+		when(mockSeatHoldDao.releaseHold(3)).thenReturn(true);
+
+		// invoke & analyze
+		assertEquals(HttpStatus.NOT_FOUND, seatHoldController.releaseHold(102, 3).getStatusCode());
+		assertEquals(HttpStatus.OK, seatHoldController.releaseHold(101, 3).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, seatHoldController.releaseHold(101, 4).getStatusCode());
+		verify(mockSeatHoldDao, times(1)).releaseHold(3);
+	}
+
+	@Test
+	void testReleaseHoldHandleException () throws IOException {
+		// setup
+		when(mockSeatHoldDao.getHold(3)).thenReturn(hold);
+		doThrow(new IOException()).when(mockSeatHoldDao).releaseHold(3);
+
+		// invoke
+		ResponseEntity<SeatHold> response = seatHoldController.releaseHold(101, 3);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+}
@@ -1,8 +1,12 @@
 package com.estore.api.estoreapi.screenings.model;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -68,6 +72,112 @@ class ScreeningTest {
 		assertFalse(screening.movieIdIs(99));
 	}
 
+	@Test
+	void testReserveSeats () {
+		// Setup
+		boolean[][] seats = { { false, false, true }, { false, false, false } };
+		Screening screening = new Screening(99, 104, 5, "01/17/2023", "18:00", seats);
+
+		// Invoke & Analyze
+		assertTrue(screening.reserveSeats(new String[]{ "a1", "B3" }));
+		assertTrue(screening.getSeatMap().isTaken(0, 0));
+		assertTrue(screening.getSeatMap().isTaken(1, 2));
+		assertEquals(3, screening.getTicketsRemaining());
+
+		// Taken, unknown, duplicated and malformed seats are all rejected without changing anything
+		assertFalse(screening.reserveSeats(new String[]{ "a2", "a3" }));
+		assertFalse(screening.reserveSeats(new String[]{ "a2", "c1" }));
+		assertFalse(screening.reserveSeats(new String[]{ "a2", "a2" }));
+		assertFalse(screening.reserveSeats(new String[]{ "ax" }));
+		assertFalse(screening.reserveSeats(new String[]{}));
+		assertFalse(screening.getSeatMap().isTaken(0, 1));
+		assertEquals(3, screening.getTicketsRemaining());
+
+		// Cannot reserve more seats than there are tickets remaining
+		assertFalse(screening.reserveSeats(new String[]{ "a2", "b1", "b2", "a1" }));
+	}
+
+	@Test
+	void testReleaseSeats () {
+		// Setup
+		boolean[][] seats = { { true, false }, { true, true } };
+		Screening screening = new Screening(99, 104, 1, "01/17/2023", "18:00", seats);
+
+		// Invoke & Analyze
+		assertFalse(screening.releaseSeats(new String[]{ "a1", "a2" }));
+		assertTrue(screening.getSeatMap().isTaken(0, 0));
+
+		assertTrue(screening.releaseSeats(new String[]{ "a1", "b2" }));
+		assertFalse(screening.getSeatMap().isTaken(0, 0));
+		assertFalse(screening.getSeatMap().isTaken(1, 1));
+		assertEquals(3, screening.getTicketsRemaining());
+	}
+
+	@Test
+	void testWithSeatsReservedAndReleased () {
+		// Setup
+		boolean[][] seats = { { false, true }, { false, false } };
+		Screening screening = new Screening(99, 104, 3, "01/17/2023", "18:00", seats);
+
+		// Invoke
+		Screening reserved = screening.withSeatsReserved(new String[]{ "a1", "b2" });
+		Screening released = reserved.withSeatsReleased(new String[]{ "a2" });
+
+		// Analyze
+		// Each change is made on a copy, the screening it was made from is left as it was
+		assertFalse(screening.getSeatMap().isTaken(0, 0));
+		assertEquals(3, screening.getTicketsRemaining());
+		assertTrue(reserved.getSeatMap().isTaken(0, 0));
+		assertTrue(reserved.getSeatMap().isTaken(0, 1));
+		assertEquals(1, reserved.getTicketsRemaining());
+		assertFalse(released.getSeatMap().isTaken(0, 1));
+		assertEquals(2, released.getTicketsRemaining());
+		assertEquals(screening.getShowtime(), released.getShowtime());
+		assertNull(screening.withSeatsReserved(new String[]{ "a2" }));
+		assertNull(screening.withSeatsReleased(new String[]{ "a1" }));
+	}
+
+	@Test
+	void testReserveSeatsWithoutSeats () {
+		// Setup
+		Screening screening = new Screening(99, 104, 5, "01/17/2023", "18:00", null);
+
+		// Invoke & Analyze
+		assertFalse(screening.reserveSeats(new String[]{ "a1" }));
+		assertFalse(screening.releaseSeats(new String[]{ "a1" }));
+		assertNull(screening.getSeats());
+		assertEquals(0, screening.getSeatsAvailable());
+	}
+
+	@Test
+	void testSeatsJson () throws IOException {
+		// Setup
+		ObjectMapper objectMapper = new ObjectMapper();
+		boolean[][] seats = { { false, true, true }, { true, false } };
+		Screening screening = new Screening(99, 104, 5, "01/17/2023", "18:00", seats);
+
+		// Invoke
+		String json = objectMapper.writeValueAsString(screening);
+		Screening parsed = objectMapper.readValue(json, Screening.class);
+
+		// Analyze
+		assertTrue(json.contains("\"seats\":[[false,true,true],[true,false]]"));
+		assertArrayEquals(seats, parsed.getSeats());
+		assertEquals(2, parsed.getSeatsAvailable());
+	}
+
+	@Test
+	void testSeatsJsonNullRow () {
+		// Setup
+		ObjectMapper objectMapper = new ObjectMapper();
+		String json = "{\"id\":99,\"movieId\":104,\"ticketsRemaining\":5,\"date\":\"01/17/2023\",\"time\":\"18:00\","
+		              + "\"seats\":[[false],null]}";
+
+		// Invoke & Analyze
+		// A mapping error rather than a NullPointerException, so the request is answered with 400 Bad Request
+		assertThrows(JsonMappingException.class, () -> objectMapper.readValue(json, Screening.class));
+	}
+
 	@Test
 	void testCompareTo () {
 		boolean[][] seats = { { false, false, false, false }, { false, false, false, false } };
@@ -100,6 +210,43 @@ class ScreeningTest {
 		}
 	}
 
+	@Test
+	void testShowtime () throws IOException {
+		// Setup
+		boolean[][] seats = { { false } };
+
+		// Invoke
+		Screening iso = new Screening(101, 104, 6, "2023-01-24", "16:00", seats);
+		Screening us = new Screening(102, 104, 6, "01/24/2023", "4:00 PM", seats);
+		Screening unreadable = new Screening(103, 104, 6, "next tuesday", "16:00", seats);
+		String json = new ObjectMapper().writeValueAsString(iso);
+
+		// Analyze
+		assertEquals(LocalDateTime.of(2023, 1, 24, 16, 0), iso.getShowtime());
+		assertEquals(iso.getShowtime(), us.getShowtime());
+		assertNull(unreadable.getShowtime());
+		assertNull(Screening.parseDate(null));
+		assertNull(Screening.parseTime("noon"));
+		assertFalse(json.contains("showtime"));
+	}
+
+	@Test
+	void testCompareToShowtime () {
+		// Setup
+		boolean[][] seats = { { false } };
+		Screening lastYear = new Screening(101, 104, 6, "12/31/2022", "20:00", seats);
+		Screening morning = new Screening(102, 104, 6, "2023-01-01", "9:00", seats);
+		Screening evening = new Screening(103, 104, 6, "01/01/2023", "18:00", seats);
+		Screening unreadable = new Screening(104, 104, 6, "TBD", "18:00", seats);
+		List<Screening> screeningList = new ArrayList<>(List.of(unreadable, evening, morning, lastYear));
+
+		// Invoke
+		Collections.sort(screeningList);
+
+		// Analyze
+		assertEquals(List.of(lastYear, morning, evening, unreadable), screeningList);
+	}
+
 	@Test
 	void testEquals () {
 		boolean[][] seats = { { false, false, false, false }, { false, false, false, false } };
@@ -0,0 +1,45 @@
+package com.estore.api.estoreapi.screenings.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The unit test suite for the SeatHold class
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Model-tier")
+class SeatHoldTest {
+	@Test
+	void testCtor () {
+		// Setup
+		int id = 99;
+		int screeningId = 101;
+		String[] seats = { "a1", "a2" };
+		long expiresAt = 1674000000000L;
+
+		// Invoke
+		SeatHold hold = new SeatHold(id, screeningId, seats, expiresAt);
+
+		// Analyze
+		assertEquals(id, hold.getId());
+		assertEquals(screeningId, hold.getScreeningId());
+		assertArrayEquals(seats, hold.getSeats());
+		assertEquals(expiresAt, hold.getExpiresAt());
+	}
+
+	@Test
+	void testToString () {
+		// Setup
+		String[] seats = { "a1", "a2" };
+		SeatHold hold = new SeatHold(99, 101, seats, 1674000000000L);
+		String expected = String.format(SeatHold.STRING_FORMAT, 99, 101, Arrays.toString(seats), 1674000000000L);
+
+		// Invoke & Analyze
+		assertEquals(expected, hold.toString());
+	}
+}
@@ -0,0 +1,107 @@
+package com.estore.api.estoreapi.screenings.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The unit test suite for the SeatMap class
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Model-tier")
+class SeatMapTest {
+	@Test
+	void testOf () {
+		// Setup
+		boolean[][] seats = { { false, true, false }, { true }, {} };
+
+		// Invoke
+		SeatMap seatMap = SeatMap.of(seats);
+
+		// Analyze
+		assertEquals(3, seatMap.getRows());
+		assertEquals(3, seatMap.getColumns(0));
+		assertEquals(1, seatMap.getColumns(1));
+		assertEquals(0, seatMap.getColumns(2));
+		assertEquals(4, seatMap.getSeatCount());
+		assertTrue(seatMap.isTaken(0, 1));
+		assertFalse(seatMap.isTaken(0, 2));
+		assertArrayEquals(seats, seatMap.toArray());
+		assertNull(SeatMap.of(null));
+	}
+
+	@Test
+	void testOfNullRow () {
+		// Invoke & Analyze
+		assertThrows(IllegalArgumentException.class, () -> SeatMap.of(new boolean[][]{ { false }, null }));
+	}
+
+	@Test
+	void testTakeAndFree () {
+		// Setup
+		SeatMap seatMap = SeatMap.of(new boolean[][]{ { false, false }, { false, false } });
+
+		// Invoke
+		seatMap.take(1, 0);
+		seatMap.take(1, 1);
+		seatMap.free(1, 1);
+
+		// Analyze
+		assertTrue(seatMap.isTaken(1, 0));
+		assertFalse(seatMap.isTaken(1, 1));
+		assertEquals(1, seatMap.getTakenCount());
+		assertEquals(3, seatMap.getAvailableCount());
+	}
+
+	@Test
+	void testSpansWords () {
+		// Setup
+		boolean[][] seats = new boolean[10][10];
+		seats[6][3] = true;  // seat 63, the last bit of the first word
+		seats[6][4] = true;  // seat 64, the first bit of the second word
+		seats[9][9] = true;
+
+		// Invoke
+		SeatMap seatMap = SeatMap.of(seats);
+
+		// Analyze
+		assertEquals(3, seatMap.getTakenCount());
+		assertTrue(seatMap.isTaken(6, 3));
+		assertTrue(seatMap.isTaken(6, 4));
+		assertFalse(seatMap.isTaken(6, 5));
+		assertArrayEquals(seats, seatMap.toArray());
+	}
+
+	@Test
+	void testContains () {
+		// Setup
+		SeatMap seatMap = SeatMap.of(new boolean[][]{ { false, false }, { false } });
+
+		// Analyze
+		assertTrue(seatMap.contains(0, 1));
+		assertFalse(seatMap.contains(1, 1));
+		assertFalse(seatMap.contains(2, 0));
+		assertFalse(seatMap.contains(-1, 0));
+		assertFalse(seatMap.contains(0, -1));
+	}
+
+	@Test
+	void testEquals () {
+		// Setup
+		SeatMap seatMap = SeatMap.of(new boolean[][]{ { false, true } });
+		SeatMap same = SeatMap.of(new boolean[][]{ { false, true } });
+		SeatMap differentSeat = SeatMap.of(new boolean[][]{ { true, false } });
+		SeatMap differentShape = SeatMap.of(new boolean[][]{ { false }, { true } });
+
+		// Analyze
+		assertEquals(seatMap, seatMap);
+		assertEquals(seatMap, same);
+		assertEquals(seatMap.hashCode(), same.hashCode());
+		assertNotEquals(seatMap, differentSeat);
+		assertNotEquals(seatMap, differentShape);
+		assertNotEquals(seatMap, null);
+		assertNotEquals(seatMap, "seats");
+	}
+}
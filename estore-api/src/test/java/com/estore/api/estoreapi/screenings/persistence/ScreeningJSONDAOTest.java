@@ -1,13 +1,32 @@
 package com.estore.api.estoreapi.screenings.persistence;
 
+import com.estore.api.estoreapi.persistence.StorageFormat;
+import com.estore.api.estoreapi.persistence.WriteBehindPersister;
 import com.estore.api.estoreapi.screenings.model.Screening;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,6 +42,9 @@ class ScreeningJSONDAOTest {
 	ScreeningJSONDAO screeningFileDAO;
 	Screening[] testScreenings;
 	ObjectMapper mockObjectMapper;
+	@TempDir
+	Path tempDir;
+	String filename;
 
 	/**
 	 * Before each test, we will create and inject a Mock Object Mapper to
@@ -32,6 +54,7 @@ class ScreeningJSONDAOTest {
 	 */
 	@BeforeEach
 	void setupScreeningJSONDAO () throws IOException {
+		filename = tempDir.resolve("mao-zedongs-little-red-book.epub").toString();
 		mockObjectMapper = mock(ObjectMapper.class);
 
 		testScreenings = new Screening[3];
@@ -43,9 +66,9 @@ class ScreeningJSONDAOTest {
 
 		// When the object mapper is supposed to read from the file the mock object
 		// mapper will return the screening array above
-		when(mockObjectMapper.readValue(new File("mao-zedongs-little-red-book.epub"), Screening[].class))
+		when(mockObjectMapper.readValue(new File(filename), Screening[].class))
 			.thenReturn(testScreenings);
-		screeningFileDAO = new ScreeningJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper);
+		screeningFileDAO = new ScreeningJSONDAO(filename, mockObjectMapper);
 	}
 
 	@Test
@@ -60,6 +83,15 @@ class ScreeningJSONDAOTest {
 		}
 	}
 
+	@Test
+	void testGetScreeningsPage () throws IOException {
+		// Invoke
+		Screening[] page = screeningFileDAO.getScreenings(testScreenings[0].getId(), 1);
+
+		// Analyze
+		assertArrayEquals(new Screening[]{ testScreenings[1] }, page);
+	}
+
 	@Test
 	void testGetScreening () {
 		// Invoke
@@ -122,7 +154,7 @@ class ScreeningJSONDAOTest {
 
 	@Test
 	void testSaveException () throws IOException {
-		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(File.class), any(Screening[].class));
+		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Screening[].class));
 
 		boolean[][] seats = { { false, false, false, false }, { false, false, true, true } };
 		Screening screening = new Screening(104, 104, 6, "01/18/2023", "18:00", seats);
@@ -154,6 +186,97 @@ class ScreeningJSONDAOTest {
 
 	}
 
+	@Test
+	void testScreeningsStayInShowtimeOrder () throws IOException {
+		// Setup
+		boolean[][] seats = { { false, false } };
+		Screening early = new Screening(0, 104, 2, "01/17/2023", "16:00", seats);
+		Screening moved = new Screening(103, 105, 2, "01/17/2023", "17:00", seats);
+		Screening sameTime = new Screening(0, 105, 2, "01/17/2023", "17:00", seats);
+
+		// Invoke
+		Screening created = screeningFileDAO.createScreening(early);
+		screeningFileDAO.updateScreening(moved);
+		Screening twin = screeningFileDAO.createScreening(sameTime);
+		screeningFileDAO.deleteScreening(102);
+
+		// Analyze
+		Screening[] screenings = screeningFileDAO.getScreenings();
+		assertArrayEquals(new int[]{ created.getId(), 103, twin.getId(), 101 },
+		                  Arrays.stream(screenings).mapToInt(Screening::getId).toArray());
+		assertSame(moved, screenings[1]);
+		assertArrayEquals(new int[]{ created.getId(), 101 },
+		                  Arrays.stream(screeningFileDAO.findScreeningsForMovie(104)).mapToInt(Screening::getId).toArray());
+		assertArrayEquals(new int[]{ 103, twin.getId() },
+		                  Arrays.stream(screeningFileDAO.findScreeningsForMovie(105)).mapToInt(Screening::getId).toArray());
+		// The file is written in the same order, without sorting on save
+		verify(mockObjectMapper, atLeastOnce()).writeValue(any(OutputStream.class), eq(screenings));
+	}
+
+	@Test
+	void testUpdateScreeningKeepsShowtime () throws IOException {
+		// Setup
+		boolean[][] seats = { { false, false } };
+		Screening replacement = new Screening(102, 104, 2, "01/17/2023", "20:00", seats);
+
+		// Invoke
+		screeningFileDAO.updateScreening(replacement);
+
+		// Analyze
+		Screening[] screenings = screeningFileDAO.getScreenings();
+		assertEquals(testScreenings.length, screenings.length);
+		assertSame(replacement, screenings[1]);
+		assertSame(replacement, screeningFileDAO.findScreeningsForMovie(104)[1]);
+	}
+
+	@Test
+	void testFindScreeningsOnDate () throws IOException {
+		// Setup
+		boolean[][] seats = { { false } };
+		Screening nextDay = screeningFileDAO.createScreening(new Screening(0, 105, 1, "2023-01-18", "00:00", seats));
+		screeningFileDAO.createScreening(new Screening(0, 105, 1, "sometime", "18:00", seats));
+
+		// Invoke
+		Screening[] screenings = screeningFileDAO.findScreeningsOnDate(LocalDate.of(2023, 1, 17));
+		Screening[] nextDayScreenings = screeningFileDAO.findScreeningsOnDate(LocalDate.of(2023, 1, 18));
+		Screening[] emptyScreenings = screeningFileDAO.findScreeningsOnDate(LocalDate.of(2023, 1, 19));
+
+		// Analyze
+		assertArrayEquals(testScreenings, screenings);
+		assertArrayEquals(new Screening[]{ nextDay }, nextDayScreenings);
+		assertEquals(0, emptyScreenings.length);
+	}
+
+	@Test
+	void testFindScreeningsBetween () {
+		// Invoke
+		Screening[] screenings = screeningFileDAO.findScreeningsBetween(LocalDateTime.of(2023, 1, 17, 18, 30),
+		                                                                LocalDateTime.of(2023, 1, 17, 22, 0));
+		Screening[] backwards = screeningFileDAO.findScreeningsBetween(LocalDateTime.of(2023, 1, 18, 0, 0),
+		                                                              LocalDateTime.of(2023, 1, 17, 0, 0));
+
+		// Analyze
+		assertArrayEquals(new Screening[]{ testScreenings[1] }, screenings);
+		assertEquals(0, backwards.length);
+	}
+
+	@Test
+	void testFindNextScreeningsForMovie () throws IOException {
+		// Setup
+		boolean[][] seats = { { false } };
+		screeningFileDAO.createScreening(new Screening(0, 104, 1, "TBD", "18:00", seats));
+
+		// Invoke
+		Screening[] screenings = screeningFileDAO.findNextScreeningsForMovie(104, LocalDateTime.of(2023, 1, 17, 18, 1), 5);
+		Screening[] firstScreening = screeningFileDAO.findNextScreeningsForMovie(104, LocalDateTime.of(2023, 1, 1, 0, 0), 1);
+		Screening[] otherMovie = screeningFileDAO.findNextScreeningsForMovie(105, LocalDateTime.of(2023, 1, 1, 0, 0), 5);
+
+		// Analyze
+		assertArrayEquals(new Screening[]{ testScreenings[1], testScreenings[2] }, screenings);
+		assertArrayEquals(new Screening[]{ testScreenings[0] }, firstScreening);
+		assertEquals(0, otherMovie.length);
+	}
+
 	@Test
 	void testDeleteScreeningNotFound () {
 		// Invoke
@@ -186,12 +309,281 @@ class ScreeningJSONDAOTest {
 		// during JSON object deserialization into Java objects
 		// When the Mock Object Mapper readValue method is called from the
 		// ScreeningJSONDAO load method, an IOException is raised
-		doThrow(new IOException()).when(mockObjectMapper).readValue(new File("mao-zedongs-little-red-book.epub"),
+		doThrow(new IOException()).when(mockObjectMapper).readValue(new File(filename),
 		                                                            Screening[].class);
 
 		// Invoke & Analyze
 		assertThrows(IOException.class,
-		             () -> new ScreeningJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper),
+		             () -> new ScreeningJSONDAO(filename, mockObjectMapper),
 		             "IOException not thrown");
 	}
+
+	@Test
+	void testReserveSeats () throws IOException {
+		// Invoke & Analyze
+		assertTrue(screeningFileDAO.reserveSeats(101, new String[]{ "a1", "a2" }));
+		assertEquals(4, screeningFileDAO.getScreening(101).getTicketsRemaining());
+		assertFalse(screeningFileDAO.reserveSeats(101, new String[]{ "a2" }));
+		assertFalse(screeningFileDAO.reserveSeats(104, new String[]{ "a3" }));
+		verify(mockObjectMapper, times(1)).writeValue(any(OutputStream.class), any(Screening[].class));
+	}
+
+	@Test
+	void testReserveSeatsReplacesScreening () throws IOException {
+		// Setup
+		Screening read = screeningFileDAO.getScreening(101);
+
+		// Invoke
+		screeningFileDAO.reserveSeats(101, new String[]{ "a1" });
+
+		// Analyze
+		// A screening already handed to a reader, or to the file being saved, never changes under it
+		assertFalse(read.getSeatMap().isTaken(0, 0));
+		assertEquals(6, read.getTicketsRemaining());
+		Screening reserved = screeningFileDAO.getScreening(101);
+		assertNotSame(read, reserved);
+		assertTrue(reserved.getSeatMap().isTaken(0, 0));
+		assertSame(reserved, screeningFileDAO.getScreenings()[0]);
+		assertSame(reserved, screeningFileDAO.findScreeningsForMovie(104)[0]);
+	}
+
+	@Test
+	void testReserveSeatsIsRecorded () throws IOException {
+		// Setup
+		Path recordingFile = tempDir.resolve("reserve.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("com.estore.Mutation");
+			recording.start();
+
+			// Invoke
+			screeningFileDAO.reserveSeats(101, new String[]{ "a1" });
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+
+		// Analyze
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+		RecordedEvent reservation = events.stream().filter(e -> e.getEventType().getName().equals("com.estore.Mutation"))
+		                                  .findFirst().orElseThrow();
+		assertEquals("Screening", reservation.getString("entity"));
+		assertEquals("reserveSeats", reservation.getString("operation"));
+		assertEquals(101, reservation.getInt("id"));
+		assertTrue(reservation.getLong("persistTime") > 0);
+	}
+
+	@Test
+	void testReserveSeatsSaveException () throws IOException {
+		// Setup
+		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Screening[].class));
+		boolean[][] seats = { { false, false } };
+		screeningFileDAO.screenings.put(101, new Screening(101, 104, 2, "01/17/2023", "18:00", seats));
+
+		// Invoke & Analyze
+		assertThrows(IOException.class, () -> screeningFileDAO.reserveSeats(101, new String[]{ "a1" }), "IOException not thrown");
+		// The seat is given back because the claim could not be saved
+		assertFalse(screeningFileDAO.getScreening(101).getSeatMap().isTaken(0, 0));
+		assertEquals(2, screeningFileDAO.getScreening(101).getTicketsRemaining());
+	}
+
+	@Test
+	void testReleaseSeats () throws IOException {
+		// Setup
+		screeningFileDAO.reserveSeats(101, new String[]{ "a1" });
+
+		// Invoke & Analyze
+		assertTrue(screeningFileDAO.releaseSeats(101, new String[]{ "a1" }));
+		assertFalse(screeningFileDAO.releaseSeats(101, new String[]{ "a1" }));
+		assertFalse(screeningFileDAO.releaseSeats(104, new String[]{ "a1" }));
+		assertEquals(6, screeningFileDAO.getScreening(101).getTicketsRemaining());
+	}
+
+	@Test
+	void testReservedSeatsAreSavedBeforeReturning (@TempDir Path dataDir) throws IOException {
+		// Setup
+		ObjectMapper objectMapper = new ObjectMapper();
+		String dataFile = dataDir.resolve("screenings.json").toString();
+		objectMapper.writeValue(new File(dataFile), testScreenings);
+		// The persister is never started, so a write-behind change would not reach the file at all
+		WriteBehindPersister persister = new WriteBehindPersister(60000, 100);
+		ScreeningJSONDAO screeningDAO = new ScreeningJSONDAO(dataFile, objectMapper, persister, true, StorageFormat.JSON);
+
+		// Invoke
+		assertTrue(screeningDAO.reserveSeats(101, new String[]{ "a3" }));
+
+		// Analyze
+		Screening saved = new ScreeningJSONDAO(dataFile, objectMapper).getScreening(101);
+		assertTrue(saved.getSeatMap().isTaken(0, 2));
+	}
+
+	@Test
+	void testHeldSeatsAreNotSaved (@TempDir Path dataDir) throws IOException {
+		// Setup
+		ObjectMapper objectMapper = new ObjectMapper();
+		String dataFile = dataDir.resolve("screenings.json").toString();
+		objectMapper.writeValue(new File(dataFile), testScreenings);
+		ScreeningJSONDAO screeningDAO = new ScreeningJSONDAO(dataFile, objectMapper);
+
+		// Invoke
+		assertTrue(screeningDAO.holdSeats(101, new String[]{ "a1", "a2" }));
+		assertTrue(screeningDAO.reserveSeats(101, new String[]{ "a3" }));
+
+		// Analyze
+		// Held seats are taken for everyone, but only the claimed seat is in the file
+		Screening held = screeningDAO.getScreening(101);
+		assertTrue(held.getSeatMap().isTaken(0, 0));
+		assertEquals(3, held.getTicketsRemaining());
+		assertFalse(screeningDAO.reserveSeats(101, new String[]{ "a1" }));
+		assertFalse(screeningDAO.releaseSeats(101, new String[]{ "a1" }));
+		Screening saved = new ScreeningJSONDAO(dataFile, objectMapper).getScreening(101);
+		assertFalse(saved.getSeatMap().isTaken(0, 0));
+		assertTrue(saved.getSeatMap().isTaken(0, 2));
+		assertEquals(5, saved.getTicketsRemaining());
+
+		// Invoke & Analyze
+		// A claimed hold is saved, a released one frees its seat
+		assertTrue(screeningDAO.confirmHeldSeats(101, new String[]{ "A1" }));
+		assertFalse(screeningDAO.confirmHeldSeats(101, new String[]{ "a1" }));
+		assertTrue(screeningDAO.releaseHeldSeats(101, new String[]{ "a2" }));
+		assertFalse(screeningDAO.releaseHeldSeats(101, new String[]{ "a2" }));
+		saved = new ScreeningJSONDAO(dataFile, objectMapper).getScreening(101);
+		assertTrue(saved.getSeatMap().isTaken(0, 0));
+		assertFalse(saved.getSeatMap().isTaken(0, 1));
+		assertEquals(4, saved.getTicketsRemaining());
+		assertEquals(4, screeningDAO.getScreening(101).getTicketsRemaining());
+	}
+
+	@Test
+	void testUpdateScreeningKeepsHeldSeats () throws IOException {
+		// Setup
+		screeningFileDAO.holdSeats(101, new String[]{ "a1" });
+		boolean[][] seats = { { false, false }, { false, false } };
+
+		// Invoke
+		Screening updated = screeningFileDAO.updateScreening(new Screening(101, 104, 4, "01/17/2023", "18:00", seats));
+
+		// Analyze
+		assertTrue(updated.getSeatMap().isTaken(0, 0));
+		assertEquals(3, updated.getTicketsRemaining());
+		assertTrue(screeningFileDAO.releaseHeldSeats(101, new String[]{ "a1" }));
+		assertEquals(4, screeningFileDAO.getScreening(101).getTicketsRemaining());
+	}
+
+	@Test
+	void testVersionChangesOnWrite () throws IOException {
+		// Setup
+		long loaded = screeningFileDAO.getVersion();
+
+		// Invoke & Analyze
+		screeningFileDAO.getScreenings();
+		assertFalse(screeningFileDAO.releaseSeats(101, new String[]{ "a1" }));
+		assertEquals(loaded, screeningFileDAO.getVersion());
+		screeningFileDAO.reserveSeats(101, new String[]{ "a1" });
+		assertEquals(loaded + 1, screeningFileDAO.getVersion());
+		screeningFileDAO.releaseSeats(101, new String[]{ "a1" });
+		assertEquals(loaded + 2, screeningFileDAO.getVersion());
+		screeningFileDAO.updateScreening(testScreenings[1]);
+		screeningFileDAO.deleteScreening(103);
+		assertEquals(loaded + 4, screeningFileDAO.getVersion());
+	}
+
+	@Test
+	void testConcurrentReservationsOfSameSeat () throws Exception {
+		// Setup
+		int buyers = 8;
+		boolean[][] seats = { { false, false } };
+		screeningFileDAO.screenings.put(101, new Screening(101, 104, 2, "01/17/2023", "18:00", seats));
+		ExecutorService executor = Executors.newFixedThreadPool(buyers);
+		Callable<Boolean> reservation = () -> screeningFileDAO.reserveSeats(101, new String[]{ "a1" });
+
+		// Invoke
+		int winners = 0;
+		try {
+			Future<?>[] results = new Future<?>[buyers];
+			for (int i = 0; i < buyers; ++i) {
+				results[i] = executor.submit(reservation);
+			}
+			for (Future<?> result : results) {
+				if ((Boolean) result.get()) {
+					++winners;
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Analyze
+		assertEquals(1, winners);
+		assertEquals(1, screeningFileDAO.getScreening(101).getTicketsRemaining());
+	}
+
+	@Test
+	void testConcurrentReservationsShareFileWrites () throws Exception {
+		// Setup
+		int buyers = 16;
+		for (int i = 0; i < buyers; ++i) {
+			screeningFileDAO.screenings.put(200 + i, new Screening(200 + i, 104, 2, "01/18/2023", "18:00", new boolean[][]{ { false, false } }));
+		}
+		// Each write of the file takes a while, as it would for a large file
+		doAnswer(invocation -> {
+			Thread.sleep(50);
+			return null;
+		}).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Screening[].class));
+		ExecutorService executor = Executors.newFixedThreadPool(buyers);
+
+		// Invoke
+		int reserved = 0;
+		try {
+			Future<?>[] results = new Future<?>[buyers];
+			for (int i = 0; i < buyers; ++i) {
+				int id = 200 + i;
+				results[i] = executor.submit(() -> screeningFileDAO.reserveSeats(id, new String[]{ "a1" }));
+			}
+			for (Future<?> result : results) {
+				if ((Boolean) result.get()) {
+					++reserved;
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Analyze
+		assertEquals(buyers, reserved);
+		// Reservations made while the file was being written were saved together by the next write
+		verify(mockObjectMapper, atMost(buyers - 1)).writeValue(any(OutputStream.class), any(Screening[].class));
+		verify(mockObjectMapper, atLeastOnce()).writeValue(any(OutputStream.class), any(Screening[].class));
+	}
+
+	@Test
+	void testFailedWriteIsRetriedForWaitingChanges () throws Exception {
+		// Setup
+		screeningFileDAO.screenings.put(301, new Screening(301, 104, 1, "01/18/2023", "18:00", new boolean[][]{ { false } }));
+		screeningFileDAO.screenings.put(302, new Screening(302, 104, 1, "01/18/2023", "20:00", new boolean[][]{ { false } }));
+		CountDownLatch writing = new CountDownLatch(1);
+		// The first write is slow and fails, every later write succeeds
+		doAnswer(invocation -> {
+			writing.countDown();
+			Thread.sleep(100);
+			throw new IOException();
+		}).doNothing().when(mockObjectMapper).writeValue(any(OutputStream.class), any(Screening[].class));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		// Invoke
+		Future<Boolean> first;
+		boolean second;
+		try {
+			first = executor.submit(() -> screeningFileDAO.reserveSeats(301, new String[]{ "a1" }));
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+			second = screeningFileDAO.reserveSeats(302, new String[]{ "a1" });  // waits for the failing write
+		} finally {
+			executor.shutdown();
+		}
+
+		// Analyze
+		assertTrue(second);  // the waiting reservation wrote the file again instead of failing with the first
+		ExecutionException failure = assertThrows(ExecutionException.class, first::get);
+		assertTrue(failure.getCause() instanceof IOException);
+		assertFalse(screeningFileDAO.getScreening(301).getSeatMap().isTaken(0, 0));
+		assertTrue(screeningFileDAO.getScreening(302).getSeatMap().isTaken(0, 0));
+	}
 }
@@ -0,0 +1,161 @@
+package com.estore.api.estoreapi.screenings.persistence;
+
+import com.estore.api.estoreapi.screenings.model.SeatHold;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the SeatHold Memory DAO class
+ *
+ * @author Group 3C, The Code Monkeys
+ */
+@Tag("Persistence-tier")
+class SeatHoldMemoryDAOTest {
+	ScreeningDAO mockScreeningDao;
+	String[] seats;
+
+	/**
+	 * Before each test, create a mock Screening DAO that accepts holds of the test seats.
+	 *
+	 * @throws IOException never, the Screening DAO is a mock
+	 */
+	@BeforeEach
+	void setupSeatHoldMemoryDAO () throws IOException {
+		mockScreeningDao = mock(ScreeningDAO.class);
+		seats = new String[]{ "a1", "a2" };
+		when(mockScreeningDao.holdSeats(101, seats)).thenReturn(true);
+		when(mockScreeningDao.confirmHeldSeats(101, seats)).thenReturn(true);
+	}
+
+	@Test
+	void testCreateHold () throws IOException {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 60000);
+		long before = System.currentTimeMillis();
+
+		// Invoke
+		SeatHold hold = seatHoldDAO.createHold(101, seats);
+
+		// Analyze
+		assertNotNull(hold);
+		assertEquals(101, hold.getScreeningId());
+		assertArrayEquals(seats, hold.getSeats());
+		assertTrue(hold.getExpiresAt() >= before + 60000);
+		assertEquals(hold, seatHoldDAO.getHold(hold.getId()));
+		verify(mockScreeningDao).holdSeats(101, seats);
+		verify(mockScreeningDao, never()).reserveSeats(101, seats);
+	}
+
+	@Test
+	void testCreateHoldUnavailable () throws IOException {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 60000);
+
+		// Invoke
+		SeatHold hold = seatHoldDAO.createHold(102, seats);
+
+		// Analyze
+		assertNull(hold);
+		assertTrue(seatHoldDAO.holds.isEmpty());
+	}
+
+	@Test
+	void testExpireHolds () throws IOException {
+		// Setup
+		SeatHoldMemoryDAO expiringDAO = new SeatHoldMemoryDAO(mockScreeningDao, 0);
+		SeatHoldMemoryDAO lastingDAO = new SeatHoldMemoryDAO(mockScreeningDao, 60000);
+		SeatHold expiring = expiringDAO.createHold(101, seats);
+		lastingDAO.createHold(101, seats);
+
+		// Invoke & Analyze
+		assertEquals(1, expiringDAO.expireHolds());
+		assertEquals(0, lastingDAO.expireHolds());
+		assertNull(expiringDAO.getHold(expiring.getId()));
+		assertEquals(1, lastingDAO.holds.size());
+		verify(mockScreeningDao, times(1)).releaseHeldSeats(101, seats);
+	}
+
+	@Test
+	void testClaimedHoldDoesNotExpire () throws IOException {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 0);
+		SeatHold hold = seatHoldDAO.createHold(101, seats);
+
+		// Invoke
+		SeatHold claimed = seatHoldDAO.claimHold(hold.getId());
+
+		// Analyze
+		assertEquals(hold, claimed);
+		assertNull(seatHoldDAO.claimHold(hold.getId()));
+		assertEquals(0, seatHoldDAO.expireHolds());
+		verify(mockScreeningDao).confirmHeldSeats(101, seats);
+		verify(mockScreeningDao, never()).releaseHeldSeats(101, seats);
+
+		// Invoke
+		seatHoldDAO.cancelClaim(claimed);
+
+		// Analyze
+		verify(mockScreeningDao).releaseSeats(101, seats);
+	}
+
+	@Test
+	void testReleaseHold () throws IOException {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 60000);
+		SeatHold hold = seatHoldDAO.createHold(101, seats);
+
+		// Invoke & Analyze
+		assertTrue(seatHoldDAO.releaseHold(hold.getId()));
+		assertFalse(seatHoldDAO.releaseHold(hold.getId()));
+		assertNull(seatHoldDAO.getHold(hold.getId()));
+		verify(mockScreeningDao, times(1)).releaseHeldSeats(101, seats);
+	}
+
+	@Test
+	void testExpiryThread () throws Exception {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 10);
+		seatHoldDAO.start();
+
+		// Invoke
+		seatHoldDAO.createHold(101, seats);
+
+		// Analyze
+		verify(mockScreeningDao, timeout(5000)).releaseHeldSeats(101, seats);
+		seatHoldDAO.stop();
+	}
+
+	@Test
+	void testStopReleasesHolds () {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 60000);
+		seatHoldDAO.createHold(101, seats);
+
+		// Invoke
+		seatHoldDAO.stop();
+
+		// Analyze
+		assertTrue(seatHoldDAO.holds.isEmpty());
+		verify(mockScreeningDao).releaseHeldSeats(101, seats);
+	}
+
+	@Test
+	void testClaimHoldSaveException () throws IOException {
+		// Setup
+		SeatHoldMemoryDAO seatHoldDAO = new SeatHoldMemoryDAO(mockScreeningDao, 60000);
+		SeatHold hold = seatHoldDAO.createHold(101, seats);
+		doThrow(new IOException()).when(mockScreeningDao).confirmHeldSeats(101, seats);
+
+		// Invoke & Analyze
+		assertThrows(IOException.class, () -> seatHoldDAO.claimHold(hold.getId()), "IOException not thrown");
+		// The hold has ended without an order, so its seats are free again
+		assertNull(seatHoldDAO.getHold(hold.getId()));
+		verify(mockScreeningDao).releaseHeldSeats(101, seats);
+	}
+}
@@ -81,6 +81,72 @@ class SuggestionControllerTest {
 	 *
 	 * @throws Exception if something goes wrong with the http request
 	 */
+	@Test
+	void testVoteSuggestion () throws IOException {
+		// setup
+		Suggestion suggestion = new Suggestion(104, "Star Wars: Episode IV – A New Hope", 78);
+		when(mockSuggestionDao.voteSuggestion(104)).thenReturn(suggestion);
+
+		// invoke
+		ResponseEntity<Suggestion> response = suggestionController.voteSuggestion(104);
+
+		// analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(suggestion, response.getBody());
+	}
+
+	@Test
+	void testVoteSuggestionNotFound () throws IOException {
+		// setup
+		when(mockSuggestionDao.voteSuggestion(104)).thenReturn(null);
+
+		// invoke
+		ResponseEntity<Suggestion> response = suggestionController.voteSuggestion(104);
+
+		// analyze
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+	}
+
+	@Test
+	void testVoteSuggestionHandleException () throws IOException {
+		// setup
+		doThrow(new IOException()).when(mockSuggestionDao).voteSuggestion(104);
+
+		// invoke
+		ResponseEntity<Suggestion> response = suggestionController.voteSuggestion(104);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	@Test
+	void testGetTopSuggestions () throws IOException {
+		// setup
+		Suggestion[] suggestions = { new Suggestion(105, "Star Wars: Episode V – The Empire Strikes Back", 80) };
+		when(mockSuggestionDao.getTopSuggestions(1, 1)).thenReturn(suggestions);
+
+		// invoke
+		ResponseEntity<Suggestion[]> response = suggestionController.getTopSuggestions(1, 1);
+
+		// analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(suggestions, response.getBody());
+		assertEquals(HttpStatus.BAD_REQUEST, suggestionController.getTopSuggestions(-1, 1).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, suggestionController.getTopSuggestions(0, 0).getStatusCode());
+	}
+
+	@Test
+	void testGetTopSuggestionsHandleException () throws IOException {
+		// setup
+		doThrow(new IOException()).when(mockSuggestionDao).getTopSuggestions(0, 10);
+
+		// invoke
+		ResponseEntity<Suggestion[]> response = suggestionController.getTopSuggestions(0, 10);
+
+		// analyze
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
 	@Test
 	void testGetSuggestions () throws Exception {
 		// New list of suggestions
@@ -97,6 +163,22 @@ class SuggestionControllerTest {
 		assertEquals(suggestions, response.getBody());
 	}
 
+	@Test
+	void testGetSuggestionsPage () throws IOException {
+		// Setup
+		Suggestion[] page = new Suggestion[1];
+		page[0] = new Suggestion(105, "Star Wars: Episode V – The Empire Strikes Back", 80);
+		// When getSuggestions is called for the page after the first suggestion, return the suggestion above
+		when(mockSuggestionDao.getSuggestions(104, 1)).thenReturn(page);
+
+		// Invoke
+		ResponseEntity<Suggestion[]> response = suggestionController.getSuggestionsPage(104, 1);
+
+		// Analyze
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(page, response.getBody());
+	}
+
 	@Test
 	void testGetEmptySuggestions () throws Exception {
 		// When getSuggestions is called, return null
@@ -5,9 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,6 +31,9 @@ class SuggestionJSONDAOTest {
 	SuggestionJSONDAO suggestionFileDAO;
 	Suggestion[] testSuggestions;
 	ObjectMapper mockObjectMapper;
+	@TempDir
+	Path tempDir;
+	String filename;
 
 	/**
 	 * Before each test, we will create and inject a Mock Object Mapper to
@@ -32,6 +43,7 @@ class SuggestionJSONDAOTest {
 	 */
 	@BeforeEach
 	void setupSuggestionJSONDAO () throws IOException {
+		filename = tempDir.resolve("mao-zedongs-little-red-book.epub").toString();
 		mockObjectMapper = mock(ObjectMapper.class);
 		testSuggestions = new Suggestion[3];
 		testSuggestions[0] = new Suggestion(104, "Star Wars: Episode IV – A New Hope", 77);
@@ -39,8 +51,8 @@ class SuggestionJSONDAOTest {
 		testSuggestions[2] = new Suggestion(106, "Star Wars: Episode VI - Return of the Jedi", 83);
 
 		// When the object mapper is supposed to read from the file the mock object mapper will return the suggestion array above
-		when(mockObjectMapper.readValue(new File("mao-zedongs-little-red-book.epub"), Suggestion[].class)).thenReturn(testSuggestions);
-		suggestionFileDAO = new SuggestionJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper);
+		when(mockObjectMapper.readValue(new File(filename), Suggestion[].class)).thenReturn(testSuggestions);
+		suggestionFileDAO = new SuggestionJSONDAO(filename, mockObjectMapper);
 	}
 
 	@Test
@@ -55,6 +67,20 @@ class SuggestionJSONDAOTest {
 		}
 	}
 
+	@Test
+	void testGetSuggestionsPage () throws IOException {
+		// Setup
+		suggestionFileDAO.voteSuggestion(testSuggestions[1].getId());
+
+		// Invoke
+		Suggestion[] page = suggestionFileDAO.getSuggestions(testSuggestions[0].getId(), 1);
+
+		// Analyze
+		assertEquals(1, page.length);
+		assertEquals(testSuggestions[1].getId(), page[0].getId());
+		assertEquals(testSuggestions[1].getVotes() + 1, page[0].getVotes());
+	}
+
 	@Test
 	void testGetSuggestion () {
 		// Invoke
@@ -108,7 +134,7 @@ class SuggestionJSONDAOTest {
 
 	@Test
 	void testSaveException () throws IOException {
-		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(File.class), any(Suggestion[].class));
+		doThrow(new IOException()).when(mockObjectMapper).writeValue(any(OutputStream.class), any(Suggestion[].class));
 
 		Suggestion suggestion = new Suggestion(107, "Star Wars: The Force Awakens", 15);
 
@@ -146,15 +172,181 @@ class SuggestionJSONDAOTest {
 		assertNull(result);
 	}
 
+	@Test
+	void testVoteSuggestion () throws IOException {
+		// Invoke
+		Suggestion voted = suggestionFileDAO.voteSuggestion(104);
+		suggestionFileDAO.voteSuggestion(104);
+
+		// Analyze
+		assertEquals(78, voted.getVotes());
+		assertEquals(79, suggestionFileDAO.getSuggestion(104).getVotes());
+		assertEquals(79, suggestionFileDAO.getSuggestions()[0].getVotes());
+		// Votes are not written to the file one by one
+		verify(mockObjectMapper, never()).writeValue(any(OutputStream.class), any(Suggestion[].class));
+	}
+
+	@Test
+	void testVoteSuggestionNotFound () {
+		// Invoke
+		Suggestion voted = suggestionFileDAO.voteSuggestion(103);
+
+		// Analyze
+		assertNull(voted);
+		assertFalse(assertDoesNotThrow(() -> suggestionFileDAO.flushVotes(), "Unexpected exception thrown"));
+	}
+
+	@Test
+	void testFlushVotes () throws IOException {
+		// Setup
+		ArgumentCaptor<Suggestion[]> saved = ArgumentCaptor.forClass(Suggestion[].class);
+		suggestionFileDAO.voteSuggestion(105);
+		suggestionFileDAO.voteSuggestion(106);
+
+		// Invoke
+		boolean flushed = suggestionFileDAO.flushVotes();
+		boolean flushedAgain = suggestionFileDAO.flushVotes();
+
+		// Analyze
+		assertTrue(flushed);
+		assertFalse(flushedAgain);
+		verify(mockObjectMapper, times(1)).writeValue(any(OutputStream.class), saved.capture());
+		assertEquals(77, saved.getValue()[0].getVotes());
+		assertEquals(81, saved.getValue()[1].getVotes());
+		assertEquals(84, saved.getValue()[2].getVotes());
+		assertEquals(81, suggestionFileDAO.suggestions.get(105).getVotes());
+	}
+
+	@Test
+	void testUpdateSuggestionReplacesVotes () throws IOException {
+		// Setup
+		suggestionFileDAO.voteSuggestion(104);
+		Suggestion suggestion = new Suggestion(104, "Star Wars", 10);
+
+		// Invoke
+		suggestionFileDAO.updateSuggestion(suggestion);
+
+		// Analyze
+		assertEquals(suggestion, suggestionFileDAO.getSuggestion(104));
+		assertEquals(11, suggestionFileDAO.voteSuggestion(104).getVotes());
+	}
+
+	@Test
+	void testConcurrentVotes () throws Exception {
+		// Setup
+		int voters = 8;
+		int votesEach = 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(voters + 1);
+
+		try {
+			// Invoke
+			Future<?>[] results = new Future<?>[voters];
+			for (int i = 0; i < voters; ++i) {
+				results[i] = executor.submit(() -> {
+					for (int vote = 0; vote < votesEach; ++vote) {
+						suggestionFileDAO.voteSuggestion(104);
+					}
+				});
+			}
+			// Votes keep being flushed while they are cast
+			Future<?> flusher = executor.submit(() -> {
+				while (!results[voters - 1].isDone()) {
+					suggestionFileDAO.flushVotes();
+				}
+				return null;
+			});
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+			flusher.get(60, TimeUnit.SECONDS);
+			suggestionFileDAO.flushVotes();
+		} finally {
+			executor.shutdown();
+		}
+
+		// Analyze
+		assertEquals(77 + voters * votesEach, suggestionFileDAO.getSuggestion(104).getVotes());
+		assertEquals(77 + voters * votesEach, suggestionFileDAO.suggestions.get(104).getVotes());
+	}
+
+	@Test
+	void testGetTopSuggestions () throws IOException {
+		// Setup
+		Suggestion tied = suggestionFileDAO.createSuggestion(new Suggestion(0, "Rogue One", 80));
+
+		// Invoke
+		Suggestion[] top = suggestionFileDAO.getTopSuggestions(0, 10);
+		Suggestion[] secondPage = suggestionFileDAO.getTopSuggestions(2, 2);
+		Suggestion[] pastTheEnd = suggestionFileDAO.getTopSuggestions(4, 2);
+
+		// Analyze
+		assertArrayEquals(new Suggestion[]{ testSuggestions[2], testSuggestions[1], tied, testSuggestions[0] }, top);
+		assertArrayEquals(new Suggestion[]{ tied, testSuggestions[0] }, secondPage);
+		assertEquals(0, pastTheEnd.length);
+	}
+
+	@Test
+	void testTopSuggestionsFollowVotes () throws IOException {
+		// Invoke
+		for (int vote = 0; vote < 7; ++vote) {
+			suggestionFileDAO.voteSuggestion(104);  // 77 votes up to 84, past 106
+		}
+		suggestionFileDAO.updateSuggestion(new Suggestion(105, "Star Wars", 100));
+		suggestionFileDAO.deleteSuggestion(106);
+
+		// Analyze
+		Suggestion[] top = suggestionFileDAO.getTopSuggestions(0, 10);
+		assertEquals(2, top.length);
+		assertEquals(105, top[0].getId());
+		assertEquals(104, top[1].getId());
+		assertEquals(84, top[1].getVotes());
+	}
+
+	@Test
+	void testTopSuggestionsUnderConcurrentVotes () throws Exception {
+		// Setup
+		int voters = 4;
+		int votesEach = 500;
+		ExecutorService executor = Executors.newFixedThreadPool(voters);
+
+		try {
+			// Invoke
+			// Every voter votes for all three suggestions in turn, so every suggestion ends 1500 votes up
+			Future<?>[] results = new Future<?>[voters];
+			for (int i = 0; i < voters; ++i) {
+				results[i] = executor.submit(() -> {
+					for (int vote = 0; vote < votesEach; ++vote) {
+						for (Suggestion suggestion : testSuggestions) {
+							suggestionFileDAO.voteSuggestion(suggestion.getId());
+						}
+						assertEquals(testSuggestions.length, suggestionFileDAO.getTopSuggestions(0, 10).length);
+					}
+				});
+			}
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Analyze
+		Suggestion[] top = suggestionFileDAO.getTopSuggestions(0, 10);
+		assertEquals(testSuggestions.length, top.length);
+		assertEquals(83 + voters * votesEach, top[0].getVotes());
+		assertEquals(80 + voters * votesEach, top[1].getVotes());
+		assertEquals(77 + voters * votesEach, top[2].getVotes());
+	}
+
 	@Test
 	void testConstructorException () throws IOException {
 		// Setup
 		ObjectMapper mockObjectMapper = mock(ObjectMapper.class);
 		// We want to simulate with a Mock Object Mapper that an exception was raised during JSON object deserialization into Java objects
 		// When the Mock Object Mapper readValue method is called from the SuggestionJSONDAO load method, an IOException is raised
-		doThrow(new IOException()).when(mockObjectMapper).readValue(new File("mao-zedongs-little-red-book.epub"), Suggestion[].class);
+		doThrow(new IOException()).when(mockObjectMapper).readValue(new File(filename), Suggestion[].class);
 
 		// Invoke & Analyze
-		assertThrows(IOException.class, () -> new SuggestionJSONDAO("mao-zedongs-little-red-book.epub", mockObjectMapper), "IOException not thrown");
+		assertThrows(IOException.class, () -> new SuggestionJSONDAO(filename, mockObjectMapper), "IOException not thrown");
 	}
 }
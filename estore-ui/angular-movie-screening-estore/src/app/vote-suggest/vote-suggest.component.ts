@@ -31,7 +31,7 @@ export class SuggestComponent implements OnInit {
    * @param vote the vote object that will have a vote added
    */
   addSuggest(vote: Suggest): void {
-    this.http.put<Suggest>('http://127.0.0.1:8080/suggestions/', {id: vote.id, movieTitle: vote.movieTitle, votes: (vote.votes+1)}).subscribe((data: Suggest) => {
+    this.http.post<Suggest>('http://127.0.0.1:8080/suggestions/' + vote.id + '/votes', null).subscribe((data: Suggest) => {
       this.newSuggest = data;
       this.getSuggestions();
     });